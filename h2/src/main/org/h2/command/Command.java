@@ -48,10 +48,12 @@ public abstract class Command implements CommandInterface {
      */
     private volatile boolean cancel;
 
-    private final String sql;
+    final String sql;
 
     private boolean canReuse;
 
+    private int fetchSize;
+
     Command(SessionLocal session, String sql) {
         this.session = session;
         this.sql = sql;
@@ -120,6 +122,25 @@ public abstract class Command implements CommandInterface {
      */
     public abstract ResultInterface query(long maxrows);
 
+    private ResultInterface query(long maxrows, boolean scrollable) {
+        if (fetchSize <= 0 || scrollable || session.isLazyQueryExecution()) {
+            return query(maxrows);
+        }
+        // rows of a forward-only result are fetched in portions, there is no
+        // need to materialize all of them before the first one is returned
+        session.setLazyQueryExecution(true);
+        try {
+            return query(maxrows);
+        } finally {
+            session.setLazyQueryExecution(false);
+        }
+    }
+
+    @Override
+    public void setFetchSize(int fetchSize) {
+        this.fetchSize = fetchSize;
+    }
+
     @Override
     public final ResultInterface getMetaData() {
         return queryMeta();
@@ -187,7 +208,7 @@ public abstract class Command implements CommandInterface {
                 while (true) {
                     database.checkPowerOff();
                     try {
-                        ResultInterface result = query(maxrows);
+                        ResultInterface result = query(maxrows, scrollable);
                         callStop = !result.isLazy();
                         if (database.getMode().charPadding == CharPadding.IN_RESULT_SETS) {
                             return ResultWithPaddedStrings.get(result);
@@ -366,6 +387,27 @@ public abstract class Command implements CommandInterface {
         }
     }
 
+    /**
+     * Whether this command may be moved to another session after it was
+     * closed.
+     *
+     * @return true if it can be moved
+     */
+    public boolean isShareable() {
+        return false;
+    }
+
+    /**
+     * Moves the prepared statement of this command to a new command for the
+     * specified session. This command may not be used after this call.
+     *
+     * @param session the new session
+     * @return the new command
+     */
+    public Command moveTo(SessionLocal session) {
+        throw DbException.getInternalError(toString());
+    }
+
     public void setCanReuse(boolean canReuse) {
         this.canReuse = canReuse;
     }
@@ -13,6 +13,7 @@ import org.h2.api.DatabaseEventListener;
 import org.h2.api.ErrorCode;
 import org.h2.command.ddl.DefineCommand;
 import org.h2.command.dml.DataChangeStatement;
+import org.h2.command.query.Query;
 import org.h2.engine.Database;
 import org.h2.engine.DbObject;
 import org.h2.engine.DbSettings;
@@ -30,6 +31,7 @@ import org.h2.result.ResultWithGeneratedKeys;
 import org.h2.table.Column;
 import org.h2.table.DataChangeDeltaTable.ResultOption;
 import org.h2.table.Table;
+import org.h2.table.TableType;
 import org.h2.table.TableView;
 import org.h2.util.StringUtils;
 import org.h2.util.Utils;
@@ -248,7 +250,8 @@ public class CommandContainer extends Command {
         setProgress(DatabaseEventListener.STATE_STATEMENT_START);
         start();
         prepared.checkParameters();
-        ResultInterface result = prepared.query(maxrows);
+        ResultInterface result = prepared instanceof Query ? ((Query) prepared).queryWithResultCache(maxrows)
+                : prepared.query(maxrows);
         prepared.trace(startTimeNanos, result.isLazy() ? 0 : result.getRowCount());
         setProgress(DatabaseEventListener.STATE_STATEMENT_END);
         return result;
@@ -286,6 +289,33 @@ public class CommandContainer extends Command {
         return prepared.isCacheable();
     }
 
+    @Override
+    public boolean isShareable() {
+        if (!canReuse() || !prepared.isCacheable()) {
+            return false;
+        }
+        for (DbObject object : getDependencies()) {
+            if (object instanceof Table) {
+                Table table = (Table) object;
+                // views and derived tables keep the session that created them,
+                // temporary tables may be visible only in one session; results
+                // of queries with them aren't shared in QueryResultCache too
+                if (table.getTableType() != TableType.TABLE || table.isTemporary()) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public Command moveTo(SessionLocal session) {
+        prepared.setSession(session);
+        CommandContainer command = new CommandContainer(session, sql, prepared);
+        command.reuse();
+        return command;
+    }
+
     @Override
     public int getCommandType() {
         return prepared.getType();
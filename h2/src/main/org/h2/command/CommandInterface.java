@@ -5,10 +5,13 @@
  */
 package org.h2.command;
 
+import java.sql.Statement;
 import java.util.ArrayList;
 import org.h2.expression.ParameterInterface;
+import org.h2.message.DbException;
 import org.h2.result.ResultInterface;
 import org.h2.result.ResultWithGeneratedKeys;
+import org.h2.value.Value;
 
 /**
  * Represents a SQL statement.
@@ -541,6 +544,11 @@ public interface CommandInterface extends AutoCloseable {
      */
     int ALTER_DOMAIN_RENAME_CONSTRAINT = 101;
 
+    /**
+     * The type of an ALTER TABLE SET RESULT_CACHE statement.
+     */
+    int ALTER_TABLE_SET_RESULT_CACHE = 102;
+
     /**
      * Get command type.
      *
@@ -571,6 +579,15 @@ public interface CommandInterface extends AutoCloseable {
      */
     ResultInterface executeQuery(long maxRows, boolean scrollable);
 
+    /**
+     * Set the fetch size requested by the application for the next execution
+     * of this query. Forward-only queries with a requested fetch size are
+     * executed lazily, their rows are produced when they are fetched.
+     *
+     * @param fetchSize the fetch size, or 0 if it was not requested
+     */
+    void setFetchSize(int fetchSize);
+
     /**
      * Execute the statement
      *
@@ -585,6 +602,39 @@ public interface CommandInterface extends AutoCloseable {
      */
     ResultWithGeneratedKeys executeUpdate(Object generatedKeysRequest);
 
+    /**
+     * Execute the statement once for each set of parameter values. Generated
+     * keys are not returned. A failed execution does not stop the batch, its
+     * exception is added to the specified list instead.
+     *
+     * @param batchParameters
+     *            the parameter values, one array per execution
+     * @param exceptions
+     *            the list to add exceptions of failed executions to
+     * @return the update counts, {@link Statement#EXECUTE_FAILED} for failed
+     *         executions
+     */
+    default long[] executeBatchUpdate(ArrayList<Value[]> batchParameters, ArrayList<DbException> exceptions) {
+        ArrayList<? extends ParameterInterface> parameters = getParameters();
+        int size = batchParameters.size();
+        long[] result = new long[size];
+        for (int i = 0; i < size; i++) {
+            Value[] set = batchParameters.get(i);
+            for (int j = 0, l = set.length; j < l; j++) {
+                parameters.get(j).setValue(set[j], false);
+            }
+            long updateCount;
+            try {
+                updateCount = executeUpdate(false).getUpdateCount();
+            } catch (RuntimeException e) {
+                exceptions.add(DbException.convert(e));
+                updateCount = Statement.EXECUTE_FAILED;
+            }
+            result[i] = updateCount;
+        }
+        return result;
+    }
+
     /**
      * Stop the command execution, release all locks and resources
      */
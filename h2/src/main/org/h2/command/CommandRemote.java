@@ -7,6 +7,7 @@ package org.h2.command;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import org.h2.engine.Constants;
 import org.h2.engine.GeneratedKeysMode;
 import org.h2.engine.SessionRemote;
 import org.h2.engine.SysProperties;
@@ -33,7 +34,8 @@ public class CommandRemote implements CommandInterface {
     private final ArrayList<ParameterInterface> parameters;
     private final Trace trace;
     private final String sql;
-    private final int fetchSize;
+    private int fetchSize;
+    private boolean fetchSizeRequested;
     private SessionRemote session;
     private int id;
     private boolean isQuery;
@@ -55,6 +57,14 @@ public class CommandRemote implements CommandInterface {
         created = session.getLastReconnect();
     }
 
+    @Override
+    public void setFetchSize(int fetchSize) {
+        fetchSizeRequested = fetchSize > 0;
+        if (fetchSizeRequested) {
+            this.fetchSize = fetchSize;
+        }
+    }
+
     @Override
     public void stop() {
         // Ignore
@@ -167,6 +177,9 @@ public class CommandRemote implements CommandInterface {
                         fetch = fetchSize;
                     }
                     transfer.writeInt(fetch);
+                    if (session.getClientVersion() >= Constants.TCP_PROTOCOL_VERSION_21) {
+                        transfer.writeBoolean(fetchSizeRequested && !scrollable);
+                    }
                     sendParameters(transfer);
                     session.done(transfer);
                     int columnCount = transfer.readInt();
@@ -249,6 +262,47 @@ public class CommandRemote implements CommandInterface {
         }
     }
 
+    @Override
+    public long[] executeBatchUpdate(ArrayList<Value[]> batchParameters, ArrayList<DbException> exceptions) {
+        if (session.getClientVersion() < Constants.TCP_PROTOCOL_VERSION_21) {
+            return CommandInterface.super.executeBatchUpdate(batchParameters, exceptions);
+        }
+        int size = batchParameters.size();
+        synchronized (session) {
+            long[] result = new long[size];
+            boolean autoCommit = false;
+            for (int i = 0, count = 0; i < transferList.size(); i++) {
+                prepareIfRequired();
+                Transfer transfer = transferList.get(i);
+                try {
+                    session.traceOperation("COMMAND_EXECUTE_BATCH_UPDATE", id);
+                    transfer.writeInt(SessionRemote.COMMAND_EXECUTE_BATCH_UPDATE).writeInt(id).writeInt(size);
+                    for (Value[] set : batchParameters) {
+                        transfer.writeInt(set.length);
+                        for (Value v : set) {
+                            transfer.writeValue(v);
+                        }
+                    }
+                    session.done(transfer);
+                    for (int j = 0; j < size; j++) {
+                        result[j] = transfer.readRowCount();
+                    }
+                    exceptions.clear();
+                    for (int j = 0, l = transfer.readInt(); j < l; j++) {
+                        exceptions.add(SessionRemote.readException(transfer));
+                    }
+                    autoCommit = transfer.readBoolean();
+                } catch (IOException e) {
+                    session.removeServer(e, i--, ++count);
+                }
+            }
+            session.setAutoCommitFromServer(autoCommit);
+            session.autoCommitIfCluster();
+            session.readSessionState();
+            return result;
+        }
+    }
+
     private void checkParameters() {
         if (cmdType != EXPLAIN) {
             for (ParameterInterface p : parameters) {
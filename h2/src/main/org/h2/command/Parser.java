@@ -260,6 +260,7 @@ import org.h2.expression.Parameter;
 import org.h2.expression.Rownum;
 import org.h2.expression.SearchedCase;
 import org.h2.expression.SequenceValue;
+import org.h2.expression.SequenceValues;
 import org.h2.expression.SimpleCase;
 import org.h2.expression.Subquery;
 import org.h2.expression.TimeZoneOperation;
@@ -361,6 +362,7 @@ import org.h2.schema.Sequence;
 import org.h2.schema.UserAggregate;
 import org.h2.schema.UserDefinedFunction;
 import org.h2.table.Column;
+import org.h2.table.ColumnStatistics;
 import org.h2.table.DataChangeDeltaTable;
 import org.h2.table.DataChangeDeltaTable.ResultOption;
 import org.h2.table.DualTable;
@@ -457,6 +459,8 @@ public class Parser {
     private boolean literalsChecked;
     private int orderInFrom;
     private boolean parseDomainConstraint;
+    private boolean saveTokens;
+    private TokenizedStatement tokenizedStatement;
 
     /**
      * Parses the specified collection of non-keywords.
@@ -565,8 +569,25 @@ public class Parser {
      * @return the command object
      */
     public Command prepareCommand(String sql) {
+        return prepareCommand(sql, (ArrayList<Token>) null);
+    }
+
+    /**
+     * Parse a statement or a list of statements with the specified tokens,
+     * and prepare it for execution.
+     *
+     * @param sql the SQL statement to parse
+     * @param statement the tokens of the SQL statement
+     * @return the command object
+     */
+    public Command prepareCommand(String sql, TokenizedStatement statement) {
+        createParameters(statement.getParameterCount());
+        return prepareCommand(sql, statement.copyTokens());
+    }
+
+    private Command prepareCommand(String sql, ArrayList<Token> tokens) {
         try {
-            Prepared p = parse(sql, null);
+            Prepared p = parse(sql, tokens);
             if (currentTokenType != SEMICOLON && currentTokenType != END_OF_INPUT) {
                 addExpected(SEMICOLON);
                 throw getSyntaxError();
@@ -2767,6 +2788,32 @@ public class Parser {
         return parseValues();
     }
 
+    /**
+     * Checks whether a <code>/*+ RESULT_CACHE *&#47;</code> hint is specified
+     * in comments before or immediately after the SELECT keyword.
+     *
+     * @param start the index of the SELECT token
+     * @return whether the hint is specified
+     */
+    private boolean hasResultCacheHint(int start) {
+        String s = sqlCommand;
+        int end = token.start();
+        int i = start > 0 ? tokens.get(start - 1).start() : 0;
+        while ((i = s.indexOf("/*+", i)) >= 0 && i < end) {
+            int commentEnd = s.indexOf("*/", i + 3);
+            if (commentEnd < 0 || commentEnd > end) {
+                break;
+            }
+            for (String hint : StringUtils.arraySplit(s.substring(i + 3, commentEnd).trim(), ' ', true)) {
+                if ("RESULT_CACHE".equalsIgnoreCase(hint)) {
+                    return true;
+                }
+            }
+            i = commentEnd;
+        }
+        return false;
+    }
+
     private void parseSelectFromPart(Select command) {
         do {
             TableFilter top = readTableReference();
@@ -2868,6 +2915,9 @@ public class Parser {
         BitSet outerUsedParameters = initParametersScope();
         currentSelect = command;
         currentPrepared = command;
+        if (hasResultCacheHint(start)) {
+            command.setResultCacheHint(true);
+        }
         parseSelectExpressions(command);
         if (!readIf(FROM)) {
             // select without FROM
@@ -5346,6 +5396,11 @@ public class Parser {
                 if (readIf(VALUE, FOR)) {
                     return new SequenceValue(readSequence(), getCurrentPreparedOrSelect());
                 }
+                if (readIf(VALUES, FOR)) {
+                    Sequence sequence = readSequence();
+                    read("COUNT");
+                    return new SequenceValues(sequence, readTerm());
+                }
             }
             break;
         case 'T':
@@ -5515,6 +5570,39 @@ public class Parser {
         return whenOperand;
     }
 
+    private ColumnStatistics readColumnStatistics() {
+        read(OPEN_PAREN);
+        long sampleSize = readLong();
+        read(COMMA);
+        long nullCount = readLong();
+        read(COMMA);
+        long distinctCount = readLong();
+        read(COMMA);
+        Value[] commonValues = readArrayConstant();
+        read(COMMA);
+        Value[] counts = readArrayConstant();
+        read(COMMA);
+        Value[] bounds = readArrayConstant();
+        read(CLOSE_PAREN);
+        int l = counts.length;
+        if (commonValues.length != l) {
+            throw getSyntaxError();
+        }
+        long[] commonCounts = new long[l];
+        for (int i = 0; i < l; i++) {
+            commonCounts[i] = counts[i].getLong();
+        }
+        return new ColumnStatistics(sampleSize, nullCount, distinctCount, commonValues, commonCounts, bounds);
+    }
+
+    private Value[] readArrayConstant() {
+        Value v = readExpression().optimize(session).getValue(session);
+        if (!(v instanceof ValueArray)) {
+            throw getSyntaxError();
+        }
+        return ((ValueArray) v).getList();
+    }
+
     private int readNonNegativeInt() {
         int v = readInt();
         if (v < 0) {
@@ -5880,18 +5968,10 @@ public class Parser {
                 if (l > Constants.MAX_PARAMETER_INDEX) {
                     throw DbException.getInvalidValueException("parameter index", l);
                 }
-                if (l > 0) {
-                    parameters = new ArrayList<>(l);
-                    for (int i = 0; i < l; i++) {
-                        /*
-                         * We need to create parameters even when they aren't
-                         * actually used, for example, VALUES ?1, ?3 needs
-                         * parameters ?1, ?2, and ?3.
-                         */
-                        parameters.add(new Parameter(i));
-                    }
-                } else {
-                    parameters = new ArrayList<>();
+                createParameters(l);
+                if (saveTokens) {
+                    tokenizedStatement = new TokenizedStatement(this.tokens, l);
+                    saveTokens = false;
                 }
             }
         } else {
@@ -5900,6 +5980,39 @@ public class Parser {
         resetTokenIndex();
     }
 
+    private void createParameters(int count) {
+        if (count > 0) {
+            parameters = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                /*
+                 * We need to create parameters even when they aren't
+                 * actually used, for example, VALUES ?1, ?3 needs
+                 * parameters ?1, ?2, and ?3.
+                 */
+                parameters.add(new Parameter(i));
+            }
+        } else {
+            parameters = new ArrayList<>();
+        }
+    }
+
+    /**
+     * Enables saving of tokens of the next parsed SQL statement. They can be
+     * returned by {@link #getTokenizedStatement()}.
+     */
+    public void setSaveTokens() {
+        saveTokens = true;
+    }
+
+    /**
+     * Returns the saved tokens of the parsed SQL statement.
+     *
+     * @return the saved tokens, or {@code null}
+     */
+    public TokenizedStatement getTokenizedStatement() {
+        return tokenizedStatement;
+    }
+
     private void resetTokenIndex() {
         tokenIndex = -1;
         token = null;
@@ -8797,6 +8910,13 @@ public class Parser {
     }
 
     private Prepared parseAlterTableSet(Schema schema, String tableName, boolean ifTableExists) {
+        if (readIf("RESULT_CACHE")) {
+            AlterTableSet command = new AlterTableSet(session, schema, CommandInterface.ALTER_TABLE_SET_RESULT_CACHE,
+                    readBooleanSetting());
+            command.setTableName(tableName);
+            command.setIfTableExists(ifTableExists);
+            return command;
+        }
         read("REFERENTIAL_INTEGRITY");
         int type = CommandInterface.ALTER_TABLE_SET_REFERENTIAL_INTEGRITY;
         boolean value = readBooleanSetting();
@@ -9650,6 +9770,30 @@ public class Parser {
         return readTableOrView();
     }
 
+    /**
+     * Parses statistics of columns of a table stored by ANALYZE. Statistics
+     * of columns that don't exist any more are ignored.
+     *
+     * @param sql the statistics in the format "name STATISTICS(...), ..."
+     * @param table the table
+     */
+    public void parseColumnStatistics(String sql, Table table) {
+        initialize(sql, null, false);
+        read();
+        do {
+            String columnName = readIdentifier();
+            read("STATISTICS");
+            ColumnStatistics statistics = readColumnStatistics();
+            Column column = table.findColumn(columnName);
+            if (column != null) {
+                column.setStatistics(statistics);
+            }
+        } while (readIf(COMMA));
+        if (currentTokenType != END_OF_INPUT) {
+            throw getSyntaxError();
+        }
+    }
+
     /**
      * Parses a list of column names or numbers in parentheses.
      *
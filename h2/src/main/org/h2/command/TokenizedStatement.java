@@ -0,0 +1,60 @@
+/*
+ * Copyright 2004-2022 H2 Group. Multiple-Licensed under the MPL 2.0,
+ * and the EPL 1.0 (https://h2database.com/html/license.html).
+ * Initial Developer: H2 Group
+ */
+package org.h2.command;
+
+import java.util.ArrayList;
+
+/**
+ * Tokens of a SQL statement that may be used by parsers of different sessions
+ * at once. The parser modifies its tokens, so each parser gets its own copy.
+ */
+public final class TokenizedStatement {
+
+    private final Token[] tokens;
+
+    private final int parameterCount;
+
+    /**
+     * Creates a new tokenized statement.
+     *
+     * @param tokens
+     *            the tokens, they are copied
+     * @param parameterCount
+     *            the number of parameters
+     */
+    TokenizedStatement(ArrayList<Token> tokens, int parameterCount) {
+        int size = tokens.size();
+        Token[] copy = new Token[size];
+        for (int i = 0; i < size; i++) {
+            copy[i] = tokens.get(i).clone();
+        }
+        this.tokens = copy;
+        this.parameterCount = parameterCount;
+    }
+
+    /**
+     * Returns a new copy of the tokens.
+     *
+     * @return the copy of the tokens
+     */
+    ArrayList<Token> copyTokens() {
+        ArrayList<Token> list = new ArrayList<>(tokens.length);
+        for (Token token : tokens) {
+            list.add(token.clone());
+        }
+        return list;
+    }
+
+    /**
+     * Returns the number of parameters of the statement.
+     *
+     * @return the number of parameters
+     */
+    int getParameterCount() {
+        return parameterCount;
+    }
+
+}
@@ -13,12 +13,16 @@ import org.h2.engine.Database;
 import org.h2.engine.Right;
 import org.h2.engine.SessionLocal;
 import org.h2.index.Cursor;
+import org.h2.mvstore.db.MVTable;
 import org.h2.result.Row;
 import org.h2.schema.Schema;
 import org.h2.table.Column;
+import org.h2.table.ColumnStatistics;
 import org.h2.table.Table;
 import org.h2.table.TableType;
+import org.h2.util.MathUtils;
 import org.h2.value.DataType;
+import org.h2.value.TypeInfo;
 import org.h2.value.Value;
 
 /**
@@ -126,6 +130,12 @@ public class Analyze extends DefineCommand {
 
     }
 
+    /**
+     * The maximum number of values of each column that are used to build
+     * column statistics.
+     */
+    private static final int MAX_STATISTICS_SAMPLE = 10_000;
+
     /**
      * The sample size.
      */
@@ -190,35 +200,56 @@ public class Analyze extends DefineCommand {
         Cursor cursor = table.getScanIndex(session).find(session, null, null);
         if (cursor.next()) {
             SelectivityData[] array = new SelectivityData[columnCount];
+            Value[][] values = new Value[columnCount][];
+            int maxValues = sample > 0 && sample < MAX_STATISTICS_SAMPLE ? sample : MAX_STATISTICS_SAMPLE;
             for (int i = 0; i < columnCount; i++) {
                 Column col = columns[i];
-                if (!DataType.isLargeObject(col.getType().getValueType())) {
+                TypeInfo type = col.getType();
+                if (!DataType.isLargeObject(type.getValueType())) {
                     array[i] = new SelectivityData();
                 }
+                if (ColumnStatistics.isSupported(type)) {
+                    values[i] = new Value[maxValues];
+                }
             }
             long rowNumber = 0;
             do {
                 Row row = cursor.get();
+                // reservoir sampling of values for histograms
+                int slot = rowNumber < maxValues ? (int) rowNumber
+                        : MathUtils.randomInt((int) Math.min(rowNumber + 1, Integer.MAX_VALUE));
                 for (int i = 0; i < columnCount; i++) {
                     SelectivityData selectivity = array[i];
                     if (selectivity != null) {
                         selectivity.add(row.getValue(i));
                     }
+                    if (slot < maxValues && values[i] != null) {
+                        values[i][slot] = row.getValue(i);
+                    }
                 }
                 rowNumber++;
             } while ((sample <= 0 || rowNumber < sample) && cursor.next());
+            int valueCount = (int) Math.min(rowNumber, maxValues);
             for (int i = 0; i < columnCount; i++) {
                 SelectivityData selectivity = array[i];
                 if (selectivity != null) {
                     columns[i].setSelectivity(selectivity.getSelectivity(rowNumber));
                 }
+                if (values[i] != null) {
+                    columns[i].setStatistics(ColumnStatistics.build(session, values[i], valueCount));
+                }
             }
         } else {
             for (int i = 0; i < columnCount; i++) {
                 columns[i].setSelectivity(0);
+                columns[i].setStatistics(null);
             }
         }
-        session.getDatabase().updateMeta(session, table);
+        Database db = session.getDatabase();
+        db.updateMeta(session, table);
+        if (table instanceof MVTable) {
+            db.getStore().storeColumnStatistics((MVTable) table);
+        }
     }
 
     public void setTop(int top) {
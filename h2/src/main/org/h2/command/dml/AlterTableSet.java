@@ -66,6 +66,9 @@ public class AlterTableSet extends SchemaCommand {
             table.setCheckForeignKeyConstraints(session, value, value ?
                     checkExisting : false);
             break;
+        case CommandInterface.ALTER_TABLE_SET_RESULT_CACHE:
+            table.setResultCache(value);
+            break;
         default:
             throw DbException.getInternalError("type="+type);
         }
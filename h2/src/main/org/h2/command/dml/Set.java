@@ -70,11 +70,13 @@ public class Set extends Prepared {
         case SetTypes.CATALOG:
         case SetTypes.RETENTION_TIME:
         case SetTypes.LAZY_QUERY_EXECUTION:
+        case SetTypes.MAX_PARALLEL_WORKERS:
         case SetTypes.NON_KEYWORDS:
         case SetTypes.TIME_ZONE:
         case SetTypes.VARIABLE_BINARY:
         case SetTypes.TRUNCATE_LARGE_LENGTH:
         case SetTypes.WRITE_DELAY:
+        case SetTypes.GROUP_COMMIT:
             return true;
         default:
         }
@@ -467,6 +469,18 @@ public class Set extends Prepared {
             }
             break;
         }
+        case SetTypes.GROUP_COMMIT: {
+            session.getUser().checkAdmin();
+            int value = getIntValue();
+            if (value < 0 || value > 1) {
+                throw DbException.getInvalidValueException("GROUP_COMMIT", value);
+            }
+            synchronized (database) {
+                database.setGroupCommit(value == 1);
+                addOrUpdateSetting(name, null, value);
+            }
+            break;
+        }
         case SetTypes.RETENTION_TIME: {
             session.getUser().checkAdmin();
             int value = getIntValue();
@@ -488,6 +502,14 @@ public class Set extends Prepared {
             session.setLazyQueryExecution(value == 1);
             break;
         }
+        case SetTypes.MAX_PARALLEL_WORKERS: {
+            int value = getIntValue();
+            if (value < 1) {
+                throw DbException.getInvalidValueException("MAX_PARALLEL_WORKERS", value);
+            }
+            session.setMaxParallelWorkers(value);
+            break;
+        }
         case SetTypes.BUILTIN_ALIAS_OVERRIDE: {
             session.getUser().checkAdmin();
             int value = getIntValue();
@@ -561,9 +583,17 @@ public class Set extends Prepared {
         }
         // the meta data information has changed
         database.getNextModificationDataId();
-        // query caches might be affected as well, for example
-        // when changing the compatibility mode
-        database.getNextModificationMetaId();
+        switch (type) {
+        case SetTypes.LOCK_TIMEOUT:
+        case SetTypes.QUERY_TIMEOUT:
+        case SetTypes.THROTTLE:
+            // prepared statements are not affected
+            break;
+        default:
+            // query caches might be affected as well, for example
+            // when changing the compatibility mode
+            database.getNextModificationMetaId();
+        }
         return 0;
     }
 
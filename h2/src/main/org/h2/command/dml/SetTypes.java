@@ -242,7 +242,17 @@ public class SetTypes {
      */
     public static final int TRUNCATE_LARGE_LENGTH = DEFAULT_NULL_ORDERING + 1;
 
-    private static final int COUNT = TRUNCATE_LARGE_LENGTH + 1;
+    /**
+     * The type of a SET MAX_PARALLEL_WORKERS statement.
+     */
+    public static final int MAX_PARALLEL_WORKERS = TRUNCATE_LARGE_LENGTH + 1;
+
+    /**
+     * The type of a SET GROUP_COMMIT statement.
+     */
+    public static final int GROUP_COMMIT = MAX_PARALLEL_WORKERS + 1;
+
+    private static final int COUNT = GROUP_COMMIT + 1;
 
     private static final ArrayList<String> TYPES;
 
@@ -298,6 +308,8 @@ public class SetTypes {
         list.add("VARIABLE_BINARY");
         list.add("DEFAULT_NULL_ORDERING");
         list.add("TRUNCATE_LARGE_LENGTH");
+        list.add("MAX_PARALLEL_WORKERS");
+        list.add("GROUP_COMMIT");
         TYPES = list;
         assert(list.size() == COUNT);
     }
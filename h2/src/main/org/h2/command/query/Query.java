@@ -17,6 +17,8 @@ import org.h2.command.CommandInterface;
 import org.h2.command.Prepared;
 import org.h2.engine.Database;
 import org.h2.engine.DbObject;
+import org.h2.engine.IsolationLevel;
+import org.h2.engine.QueryResultCache;
 import org.h2.engine.SessionLocal;
 import org.h2.expression.Alias;
 import org.h2.expression.Expression;
@@ -34,7 +36,9 @@ import org.h2.table.ColumnResolver;
 import org.h2.table.DerivedTable;
 import org.h2.table.Table;
 import org.h2.table.TableFilter;
+import org.h2.table.TableType;
 import org.h2.util.Utils;
+import org.h2.value.DataType;
 import org.h2.value.ExtTypeInfoRow;
 import org.h2.value.TypeInfo;
 import org.h2.value.Value;
@@ -147,6 +151,18 @@ public abstract class Query extends Prepared {
     private boolean cacheableChecked;
     private boolean neverLazy;
 
+    /**
+     * Whether the /*+ RESULT_CACHE *&#47; hint was specified.
+     */
+    private boolean resultCacheHint;
+
+    /**
+     * Tables used by this query if its results may be stored in the result
+     * cache of the database, an empty array if they may not be stored, or
+     * {@code null} if not checked yet.
+     */
+    private Table[] resultCacheTables;
+
     boolean checkInit;
 
     boolean isPrepared;
@@ -159,6 +175,16 @@ public abstract class Query extends Prepared {
         this.neverLazy = b;
     }
 
+    /**
+     * Sets whether results of this query should be stored in the result cache
+     * shared by all sessions.
+     *
+     * @param resultCacheHint whether the RESULT_CACHE hint was specified
+     */
+    public void setResultCacheHint(boolean resultCacheHint) {
+        this.resultCacheHint = resultCacheHint;
+    }
+
     public boolean isNeverLazy() {
         return neverLazy;
     }
@@ -425,6 +451,18 @@ public abstract class Query extends Prepared {
         return true;
     }
 
+    @Override
+    public void setSession(SessionLocal currentSession) {
+        if (currentSession != session) {
+            // the last result may contain uncommitted data of another session,
+            // it is not closed because it may still be used by that session
+            lastResult = null;
+            lastExists = null;
+            lastParameters = null;
+        }
+        super.setSession(currentSession);
+    }
+
     /**
      * Disable caching of result sets.
      */
@@ -494,7 +532,8 @@ public abstract class Query extends Prepared {
             return queryWithoutCacheLazyCheck(limit, target);
         }
         Value[] params = getParameterValues();
-        long now = session.getDatabase().getModificationDataId();
+        // the snapshot of the statement may be older than the current id
+        long now = session.getStatementModificationDataId();
         if (isEverything(ExpressionVisitor.DETERMINISTIC_VISITOR)) {
             if (lastResult != null && !lastResult.isClosed() &&
                     limit == lastLimit) {
@@ -517,6 +556,84 @@ public abstract class Query extends Prepared {
         return r;
     }
 
+    /**
+     * Execute the query as a top-level statement. If results of this query
+     * may be shared between sessions, the result is taken from the result
+     * cache of the database, or it is stored in this cache after execution.
+     *
+     * @param limit the maximum number of rows to return
+     * @return the result set
+     */
+    public final ResultInterface queryWithResultCache(long limit) {
+        QueryResultCache resultCache = getResultCache();
+        if (resultCache == null) {
+            return query(limit, null);
+        }
+        Value[] params = getParameterValues();
+        for (Value v : params) {
+            if (v != null && DataType.isLargeObject(v.getValueType())) {
+                return query(limit, null);
+            }
+        }
+        // the snapshot of the statement may be older than the current id
+        long now = session.getStatementModificationDataId();
+        ResultInterface r = resultCache.get(session, sqlStatement, params, limit, getMaxDataModificationId());
+        if (r != null) {
+            fireBeforeSelectTriggers();
+            return r;
+        }
+        r = query(limit, null);
+        if (r instanceof LocalResult) {
+            resultCache.put(session, sqlStatement, params, limit, now, (LocalResult) r);
+        }
+        return r;
+    }
+
+    private QueryResultCache getResultCache() {
+        QueryResultCache resultCache = session.getDatabase().getQueryResultCache();
+        if (resultCache == null || sqlStatement == null
+                || session.getIsolationLevel() != IsolationLevel.READ_COMMITTED || session.hasPendingTransaction()) {
+            return null;
+        }
+        Table[] tables = resultCacheTables;
+        if (tables == null) {
+            resultCacheTables = tables = getResultCacheTables();
+        }
+        if (tables.length == 0) {
+            return null;
+        }
+        if (!resultCacheHint) {
+            for (Table table : tables) {
+                if (!table.isResultCache()) {
+                    return null;
+                }
+            }
+        }
+        return resultCache;
+    }
+
+    private Table[] getResultCacheTables() {
+        if (!isCacheable() || !isEverything(ExpressionVisitor.DETERMINISTIC_VISITOR)
+                || !isEverything(ExpressionVisitor.INDEPENDENT_VISITOR) || !isReadOnly()
+                || getMaxDataModificationId() == Long.MAX_VALUE) {
+            return new Table[0];
+        }
+        HashSet<DbObject> dependencies = new HashSet<>();
+        isEverything(ExpressionVisitor.getDependenciesVisitor(dependencies));
+        ArrayList<Table> tables = new ArrayList<>();
+        for (DbObject object : dependencies) {
+            if (object instanceof Table) {
+                Table table = (Table) object;
+                // see CommandContainer.isShareable()
+                if (table.getTableType() != TableType.TABLE || table.isTemporary()) {
+                    return new Table[0];
+                }
+                tables.add(table);
+            }
+        }
+        return tables.toArray(new Table[0]);
+    }
+
     private void closeLastResult() {
         if (lastResult != null) {
             lastResult.close();
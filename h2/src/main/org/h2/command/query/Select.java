@@ -16,35 +16,52 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.Map.Entry;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
 import org.h2.api.ErrorCode;
 import org.h2.api.Trigger;
+import org.h2.command.Prepared;
 import org.h2.engine.Constants;
 import org.h2.engine.Database;
+import org.h2.engine.DbObject;
 import org.h2.engine.Mode.ExpressionNames;
 import org.h2.engine.SessionLocal;
 import org.h2.expression.Alias;
+import org.h2.expression.ArrayConstructorByQuery;
 import org.h2.expression.Expression;
 import org.h2.expression.ExpressionColumn;
 import org.h2.expression.ExpressionList;
 import org.h2.expression.ExpressionVisitor;
 import org.h2.expression.Parameter;
+import org.h2.expression.Subquery;
 import org.h2.expression.Wildcard;
+import org.h2.expression.aggregate.Aggregate;
 import org.h2.expression.analysis.DataAnalysisOperation;
 import org.h2.expression.analysis.Window;
 import org.h2.expression.condition.Comparison;
 import org.h2.expression.condition.ConditionAndOr;
+import org.h2.expression.condition.ConditionInQuery;
 import org.h2.expression.condition.ConditionLocalAndGlobal;
+import org.h2.expression.condition.ExistsPredicate;
+import org.h2.expression.condition.UniquePredicate;
 import org.h2.expression.function.CoalesceFunction;
 import org.h2.index.Cursor;
 import org.h2.index.Index;
+import org.h2.index.IndexCondition;
 import org.h2.index.QueryExpressionIndex;
 import org.h2.message.DbException;
 import org.h2.mode.DefaultNullOrdering;
+import org.h2.mvstore.db.MVPrimaryIndex;
+import org.h2.mvstore.db.MVSecondaryIndex;
 import org.h2.result.LazyResult;
 import org.h2.result.LocalResult;
 import org.h2.result.ResultInterface;
 import org.h2.result.ResultTarget;
 import org.h2.result.Row;
+import org.h2.result.RowBatch;
 import org.h2.result.SearchRow;
 import org.h2.result.SortOrder;
 import org.h2.table.Column;
@@ -76,6 +93,11 @@ import org.h2.value.ValueRow;
  */
 public class Select extends Query {
 
+    /**
+     * The minimal number of rows for each worker of a parallel query.
+     */
+    private static final int PARALLEL_MIN_ROWS = 10_000;
+
     /**
      * The main (top) table filter.
      */
@@ -156,6 +178,29 @@ public class Select extends Query {
 
     private HashMap<String, Window> windows;
 
+    /**
+     * Whether this query can be executed in parallel, {@code null} if not
+     * checked yet.
+     */
+    private Boolean parallel;
+
+    /**
+     * Whether the condition can be evaluated for batches of rows,
+     * {@code null} if not checked yet.
+     */
+    private Boolean batchEvaluation;
+
+    /**
+     * Expressions that store data in groups, in the same order in all copies
+     * of the query.
+     */
+    private Expression[] groupDataExpressions;
+
+    /**
+     * Copies of this query used by the workers of parallel execution.
+     */
+    private Select[] parallelCopies;
+
     public Select(SessionLocal session, Select parentSelect) {
         super(session);
         this.parentSelect = parentSelect;
@@ -485,7 +530,9 @@ public class Select extends Query {
     private void queryGroup(int columnCount, LocalResult result, long offset, boolean quickOffset) {
         initGroupData(columnCount);
         try {
-            gatherGroup(columnCount, DataAnalysisOperation.STAGE_GROUP);
+            if (!gatherGroupParallel(columnCount)) {
+                gatherGroup(columnCount, DataAnalysisOperation.STAGE_GROUP);
+            }
             processGroupResult(columnCount, result, offset, quickOffset, true);
         } finally {
             groupData.reset();
@@ -494,13 +541,57 @@ public class Select extends Query {
 
     private void initGroupData(int columnCount) {
         if (groupData == null) {
-            setGroupData(SelectGroups.getInstance(session, expressions, isGroupQuery, groupIndex));
+            setGroupData(createGroupData());
         } else {
             updateAgg(columnCount, DataAnalysisOperation.STAGE_RESET);
         }
         groupData.reset();
     }
 
+    private SelectGroups createGroupData() {
+        SelectGroups groupData = SelectGroups.getInstance(session, expressions, isGroupQuery, groupIndex);
+        if (isGroupQuery && !isWindowQuery) {
+            groupData.setSpillExpressions(getGroupSpillExpressions());
+        }
+        return groupData;
+    }
+
+    /**
+     * Returns expressions that store data in groups if all of them can be
+     * written to a temporary result. This is possible when the query has no
+     * window functions, all aggregates are mergeable, and expressions don't
+     * contain subqueries.
+     *
+     * @return the expressions, or {@code null} if groups must be kept in
+     *         memory
+     */
+    private Expression[] getGroupSpillExpressions() {
+        ArrayList<Expression> list = new ArrayList<>();
+        for (Expression e : expressions) {
+            if (!addGroupDataExpressions(e, list)) {
+                return null;
+            }
+        }
+        ArrayList<Expression> unique = new ArrayList<>(list.size());
+        for (Expression e : list) {
+            if (!unique.contains(e)) {
+                unique.add(e);
+            }
+        }
+        return unique.toArray(new Expression[0]);
+    }
+
+    @Override
+    public void setSession(SessionLocal currentSession) {
+        if (currentSession != session) {
+            if (groupData != null) {
+                setGroupData(null);
+            }
+            parallelCopies = null;
+        }
+        super.setSession(currentSession);
+    }
+
     void setGroupData(final SelectGroups groupData) {
         this.groupData = groupData;
         topTableFilter.visit(f -> {
@@ -514,6 +605,16 @@ public class Select extends Query {
     private void gatherGroup(int columnCount, int stage) {
         long rowNumber = 0;
         setCurrentRowNumber(0);
+        if (isBatchEvaluation()) {
+            BatchScan scan = new BatchScan();
+            while (scan.next(Long.MAX_VALUE)) {
+                setCurrentRowNumber(++rowNumber);
+                groupData.nextSource();
+                updateAgg(columnCount, stage);
+            }
+            groupData.done();
+            return;
+        }
         while (topTableFilter.next()) {
             setCurrentRowNumber(rowNumber + 1);
             if (isForUpdate ? isConditionMetForUpdate() : isConditionMet()) {
@@ -526,6 +627,330 @@ public class Select extends Query {
     }
 
 
+    /**
+     * Gathers groups with multiple threads if parallel execution is enabled
+     * and possible. The rows of the table are split into ranges of keys. This
+     * thread reads the first range, each other range is read by a worker with
+     * its own copy of this query. Workers run in the executor of the database
+     * and use the session only to read state initialized before they are
+     * started. Groups of the workers are merged into the groups of this query.
+     *
+     * @param columnCount the number of columns
+     * @return whether groups were gathered, {@code false} if the query should
+     *         be executed by this thread only
+     */
+    private boolean gatherGroupParallel(int columnCount) {
+        int workers = session.getMaxParallelWorkers();
+        int maxThreads = session.getDatabase().getSettings().maxParallelThreads;
+        if (workers <= 1 || maxThreads <= 0 || !isParallel()) {
+            return false;
+        }
+        // this thread is a worker too
+        workers = maxThreads < Integer.MAX_VALUE ? Math.min(workers, maxThreads + 1) : workers;
+        MVPrimaryIndex index = (MVPrimaryIndex) topTableFilter.getIndex();
+        workers = (int) Math.min(workers, index.getRowCountApproximation(session) / PARALLEL_MIN_ROWS);
+        if (workers <= 1) {
+            return false;
+        }
+        Select[] copies = getParallelCopies(workers - 1);
+        if (copies == null) {
+            return false;
+        }
+        Cursor[] cursors = index.findParallel(session, workers);
+        int parts = cursors.length;
+        if (parts <= 1) {
+            return false;
+        }
+        for (int i = 1; i < parts; i++) {
+            copies[i - 1].startParallelPart(parameters);
+        }
+        // initialize lazily computed state of the session, workers only read it
+        session.currentTimestamp();
+        ExecutorService executor = session.getDatabase().getParallelExecutor();
+        AtomicBoolean stop = new AtomicBoolean();
+        Future<?>[] tasks = new Future<?>[parts - 1];
+        try {
+            for (int i = 1; i < parts; i++) {
+                Select copy = copies[i - 1];
+                Cursor cursor = cursors[i];
+                tasks[i - 1] = executor.submit(() -> copy.gatherGroupPart(cursor, stop, false));
+            }
+            gatherGroupPart(cursors[0], stop, true);
+            for (Future<?> task : tasks) {
+                task.get();
+            }
+            if (stop.get()) {
+                // a worker has seen the cancellation
+                session.checkCanceled();
+                throw DbException.get(ErrorCode.STATEMENT_WAS_CANCELED);
+            }
+        } catch (ExecutionException e) {
+            throw DbException.convert(e.getCause());
+        } catch (InterruptedException e) {
+            throw DbException.convert(e);
+        } catch (RuntimeException e) {
+            throw DbException.convert(e);
+        } finally {
+            // the session may not be used by workers after return
+            stop.set(true);
+            for (Future<?> task : tasks) {
+                if (task != null) {
+                    try {
+                        task.get();
+                    } catch (Exception e) {
+                        // already handled
+                    }
+                }
+            }
+        }
+        for (int i = 1; i < parts; i++) {
+            Select copy = copies[i - 1];
+            groupData.merge(copy.groupData, groupDataExpressions, copy.groupDataExpressions);
+            copy.groupData.reset();
+        }
+        groupData.done();
+        return true;
+    }
+
+    /**
+     * Returns whether this query can be executed in parallel. This is
+     * possible for a grouped query over a scan of a single table where all
+     * aggregates are mergeable, and all expressions are deterministic and
+     * don't contain subqueries and user-defined functions.
+     *
+     * @return whether this query can be executed in parallel
+     */
+    private boolean isParallel() {
+        Boolean p = parallel;
+        if (p == null) {
+            parallel = p = checkParallel();
+        }
+        return p;
+    }
+
+    /**
+     * Returns whether the condition of this query can be evaluated for
+     * batches of rows. This is possible for a query over a single table
+     * without FOR UPDATE clause when all parts of the condition support batch
+     * evaluation.
+     *
+     * @return whether batch evaluation should be used
+     */
+    private boolean isBatchEvaluation() {
+        Boolean b = batchEvaluation;
+        if (b == null) {
+            batchEvaluation = b = condition != null && !isForUpdate && filters.size() == 1
+                    && topTableFilter.getJoin() == null && topTableFilter.getNestedJoin() == null
+                    && topTableFilter.getFilterCondition() == null && topTableFilter.getJoinCondition() == null
+                    && session.getDatabase().getSettings().batchEvaluation
+                    && condition.isBatchEvaluatable(topTableFilter);
+        }
+        return b;
+    }
+
+    /**
+     * Returns whether the index of the top table filter is a secondary index
+     * that contains all columns of the condition.
+     *
+     * @return whether batches may contain only search rows of the index
+     */
+    private boolean isBatchCoveredByIndex() {
+        Index index = topTableFilter.getIndex();
+        if (!(index instanceof MVSecondaryIndex)) {
+            return false;
+        }
+        HashSet<Column> columns = new HashSet<>();
+        condition.isEverything(ExpressionVisitor.getColumnsVisitor(columns, topTableFilter.getTable()));
+        for (Column column : columns) {
+            if (column.getColumnId() != SearchRow.ROWID_INDEX && index.getColumnIndex(column) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean checkParallel() {
+        if (!isGroupQuery || isGroupSortedQuery || isWindowQuery || isQuickAggregateQuery || isForUpdate
+                || filters.size() != 1 || topTableFilter.getJoin() != null
+                || topTableFilter.getNestedJoin() != null || !(topTableFilter.getIndex() instanceof MVPrimaryIndex)) {
+            return false;
+        }
+        Table table = topTableFilter.getTable();
+        int mainIndexColumn = table.getMainIndexColumn();
+        for (IndexCondition condition : topTableFilter.getIndexConditions()) {
+            int columnId = condition.getColumn().getColumnId();
+            if (columnId == SearchRow.ROWID_INDEX || columnId == mainIndexColumn) {
+                // a range of keys is used
+                return false;
+            }
+        }
+        HashSet<DbObject> dependencies = new HashSet<>();
+        ExpressionVisitor dependenciesVisitor = ExpressionVisitor.getDependenciesVisitor(dependencies);
+        ArrayList<Expression> list = new ArrayList<>();
+        for (Expression e : expressions) {
+            if (!e.isEverything(ExpressionVisitor.DETERMINISTIC_VISITOR) || !e.isEverything(dependenciesVisitor)
+                    || !addGroupDataExpressions(e, list)) {
+                return false;
+            }
+        }
+        if (condition != null) {
+            ArrayList<Expression> conditionList = new ArrayList<>();
+            if (!condition.isEverything(ExpressionVisitor.DETERMINISTIC_VISITOR)
+                    || !condition.isEverything(dependenciesVisitor)
+                    || !addGroupDataExpressions(condition, conditionList)) {
+                return false;
+            }
+        }
+        dependencies.remove(table);
+        if (!dependencies.isEmpty()) {
+            return false;
+        }
+        groupDataExpressions = list.toArray(new Expression[0]);
+        return true;
+    }
+
+    /**
+     * Collects expressions that store data in groups.
+     *
+     * @param e the expression
+     * @param list the list to add expressions to
+     * @return {@code false} if the expression can't be evaluated in parallel
+     */
+    private static boolean addGroupDataExpressions(Expression e, ArrayList<Expression> list) {
+        // Alias does not expose its expression as a subexpression
+        e = e.getNonAliasExpression();
+        if (e instanceof Subquery || e instanceof ConditionInQuery || e instanceof ExistsPredicate
+                || e instanceof UniquePredicate || e instanceof ArrayConstructorByQuery) {
+            return false;
+        }
+        if (e instanceof DataAnalysisOperation) {
+            if (!(e instanceof Aggregate) || !((Aggregate) e).isMergeable()) {
+                return false;
+            }
+            list.add(e);
+        } else if (e instanceof ExpressionColumn) {
+            if (DataType.isLargeObject(e.getType().getValueType())) {
+                // LOBs are read with the session
+                return false;
+            }
+            list.add(e);
+        }
+        for (int i = 0, l = e.getSubexpressionCount(); i < l; i++) {
+            if (!addGroupDataExpressions(e.getSubexpression(i), list)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns copies of this query for workers of parallel execution.
+     *
+     * @param count the number of copies
+     * @return the copies, or {@code null} if this query cannot be copied
+     */
+    private Select[] getParallelCopies(int count) {
+        Select[] copies = parallelCopies;
+        int have = copies != null ? copies.length : 0;
+        if (have >= count) {
+            return copies;
+        }
+        copies = copies != null ? Arrays.copyOf(copies, count) : new Select[count];
+        int parameterCount = parameters != null ? parameters.size() : 0;
+        try {
+            for (int i = have; i < count; i++) {
+                Prepared p = session.prepare(sqlStatement, true, true);
+                Select copy;
+                if (!(p instanceof Select) || !(copy = (Select) p).isParallel()
+                        || (copy.parameters != null ? copy.parameters.size() : 0) != parameterCount
+                        || !isSameGroupData(copy)) {
+                    parallel = false;
+                    return null;
+                }
+                copies[i] = copy;
+            }
+        } catch (DbException e) {
+            // for example, a subquery that references an outer query
+            parallel = false;
+            return null;
+        }
+        return parallelCopies = copies;
+    }
+
+    private boolean isSameGroupData(Select copy) {
+        Expression[] a = groupDataExpressions, b = copy.groupDataExpressions;
+        int length = a.length;
+        if (b.length != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (a[i].getClass() != b[i].getClass()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Prepares this copy of a query for execution by a worker.
+     *
+     * @param sourceParameters the parameters of the original query
+     */
+    private void startParallelPart(ArrayList<Parameter> sourceParameters) {
+        if (sourceParameters != null) {
+            for (int i = 0, l = sourceParameters.size(); i < l; i++) {
+                parameters.get(i).setValue(sourceParameters.get(i).getParamValue());
+            }
+        }
+        if (groupData == null) {
+            setGroupData(createGroupData());
+        } else {
+            updateAgg(expressions.size(), DataAnalysisOperation.STAGE_RESET);
+        }
+        groupData.reset();
+        topTableFilter.startQuery(session);
+        topTableFilter.reset();
+    }
+
+    /**
+     * Gathers groups from the rows of the specified cursor. The part is
+     * stopped when another part has failed or the statement was canceled.
+     *
+     * @param cursor the cursor
+     * @param stop the flag to stop all parts
+     * @param owner whether this part is executed by the thread of the session
+     */
+    private void gatherGroupPart(Cursor cursor, AtomicBoolean stop, boolean owner) {
+        int columnCount = expressions.size();
+        try {
+            for (int rowNumber = 0; cursor.next(); rowNumber++) {
+                if ((rowNumber & 127) == 0) {
+                    if (stop.get()) {
+                        return;
+                    }
+                    if (owner) {
+                        session.checkCanceled();
+                    } else {
+                        long cancel = session.getCancel();
+                        if (cancel != 0 && System.nanoTime() - cancel >= 0) {
+                            // the owner throws the exception
+                            stop.set(true);
+                            return;
+                        }
+                    }
+                }
+                topTableFilter.set(cursor.get());
+                if (isConditionMet()) {
+                    groupData.nextSource();
+                    updateAgg(columnCount, DataAnalysisOperation.STAGE_GROUP);
+                }
+            }
+        } catch (Throwable e) {
+            stop.set(true);
+            throw e;
+        }
+    }
+
     /**
      * Update any aggregate expressions with the query stage.
      * @param columnCount number of columns
@@ -717,13 +1142,20 @@ public class Select extends Query {
             }
         }
         LazyResultQueryFlat lazyResult = new LazyResultQueryFlat(expressionArray, columnCount, isForUpdate);
+        if (result != null) {
+            if (limitRows < 0 || sort != null && !sortUsingIndex || withTies && !quickOffset) {
+                limitRows = Long.MAX_VALUE;
+            } else if (quickOffset && offset > 0) {
+                long scanLimit = limitRows + offset;
+                lazyResult.scanLimit = scanLimit < 0 ? Long.MAX_VALUE : scanLimit;
+            } else {
+                lazyResult.scanLimit = limitRows;
+            }
+        }
         skipOffset(lazyResult, offset, quickOffset);
         if (result == null) {
             return lazyResult;
         }
-        if (limitRows < 0 || sort != null && !sortUsingIndex || withTies && !quickOffset) {
-            limitRows = Long.MAX_VALUE;
-        }
         Value[] row = null;
         while (result.getRowCount() < limitRows && lazyResult.next()) {
             row = lazyResult.currentRow();
@@ -803,6 +1235,11 @@ public class Select extends Query {
         }
         if (!lazy && (fetch >= 0 || offset > 0)) {
             result = createLocalResult(result);
+            if (!quickOffset && fetch > 0 && !fetchPercent && !withTies) {
+                // Allow the sorted result to keep only the first rows
+                result.setOffset(offset);
+                result.setLimit(fetch);
+            }
         }
         topTableFilter.startQuery(session);
         topTableFilter.reset();
@@ -1822,13 +2259,54 @@ public class Select extends Query {
 
         private boolean forUpdate;
 
+        private BatchScan batchScan;
+
+        /**
+         * The number of rows, including skipped rows, that are expected to be
+         * read from this result. Batches are not read beyond this number of
+         * rows, because the condition should not be evaluated for rows after
+         * the limit.
+         */
+        long scanLimit = Long.MAX_VALUE;
+
         LazyResultQueryFlat(Expression[] expressions, int columnCount, boolean forUpdate) {
             super(expressions, columnCount);
             this.forUpdate = forUpdate;
+            if (isBatchEvaluation()) {
+                batchScan = new BatchScan();
+            }
+        }
+
+        @Override
+        public void reset() {
+            super.reset();
+            if (batchScan != null) {
+                batchScan = new BatchScan();
+            }
+        }
+
+        @Override
+        public void setLimit(long limit) {
+            super.setLimit(limit);
+            if (limit > 0) {
+                scanLimit = limit;
+            }
         }
 
         @Override
         protected Value[] fetchNextRow() {
+            if (batchScan != null) {
+                if (!batchScan.next(scanLimit - rowNumber)) {
+                    return null;
+                }
+                setCurrentRowNumber(++rowNumber);
+                Value[] row = new Value[columnCount];
+                for (int i = 0; i < columnCount; i++) {
+                    Expression expr = expressions.get(i);
+                    row[i] = expr.getValue(getSession());
+                }
+                return row;
+            }
             while (topTableFilter.next()) {
                 setCurrentRowNumber(rowNumber + 1);
                 // This method may lock rows
@@ -1847,6 +2325,13 @@ public class Select extends Query {
 
         @Override
         protected boolean skipNextRow() {
+            if (batchScan != null) {
+                if (!batchScan.next(scanLimit - rowNumber)) {
+                    return false;
+                }
+                setCurrentRowNumber(++rowNumber);
+                return true;
+            }
             while (topTableFilter.next()) {
                 setCurrentRowNumber(rowNumber + 1);
                 // This method does not lock rows
@@ -1860,6 +2345,54 @@ public class Select extends Query {
 
     }
 
+    /**
+     * Reads rows of the top table filter in batches and evaluates the
+     * condition for whole batches. The first batches are small, and a batch
+     * never contains more rows than the number of rows that are still needed,
+     * so the condition is not evaluated for rows after the limit. If the index
+     * contains all columns of the condition, only its search rows are read and
+     * complete rows are read only for rows that match the condition.
+     */
+    private final class BatchScan {
+
+        private final RowBatch batch = new RowBatch();
+
+        private final boolean searchRows = isBatchCoveredByIndex();
+
+        private int maxRows = 16;
+
+        private int position;
+
+        /**
+         * Sets the next row that matches the condition as the current row of
+         * the top table filter.
+         *
+         * @param remaining
+         *            the number of matching rows that are still needed, or
+         *            {@link Long#MAX_VALUE} if all rows are needed
+         * @return false if there are no more rows
+         */
+        boolean next(long remaining) {
+            while (position >= batch.getSelectedCount()) {
+                if (!topTableFilter.nextBatch(batch, (int) Math.max(Math.min(maxRows, remaining), 1L),
+                        searchRows)) {
+                    return false;
+                }
+                maxRows = Math.min(maxRows << 1, RowBatch.CAPACITY);
+                condition.filterBatch(session, batch);
+                position = 0;
+            }
+            SearchRow row = batch.getRow(batch.getSelection()[position++]);
+            if (searchRows) {
+                topTableFilter.setSearchRow(row);
+            } else {
+                topTableFilter.set((Row) row);
+            }
+            return true;
+        }
+
+    }
+
     /**
      * Lazy execution for a group sorted query.
      */
@@ -1870,8 +2403,7 @@ public class Select extends Query {
         LazyResultGroupSorted(Expression[] expressions, int columnCount) {
             super(expressions, columnCount);
             if (groupData == null) {
-                setGroupData(SelectGroups.getInstance(getSession(), Select.this.expressions, isGroupQuery,
-                        groupIndex));
+                setGroupData(createGroupData());
             } else {
                 updateAgg(columnCount, DataAnalysisOperation.STAGE_RESET);
                 groupData.resetLazy();
@@ -13,11 +13,21 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.TreeMap;
 
+import org.h2.engine.Database;
 import org.h2.engine.SessionLocal;
 import org.h2.expression.Expression;
+import org.h2.expression.TypedValueExpression;
+import org.h2.expression.aggregate.Aggregate;
 import org.h2.expression.analysis.DataAnalysisOperation;
 import org.h2.expression.analysis.PartitionData;
+import org.h2.mvstore.db.MVTempResult;
+import org.h2.result.ResultExternal;
+import org.h2.result.SortOrder;
+import org.h2.value.CompareMode;
+import org.h2.value.DataType;
+import org.h2.value.TypeInfo;
 import org.h2.value.Value;
+import org.h2.value.ValueNull;
 import org.h2.value.ValueRow;
 
 /**
@@ -49,9 +59,11 @@ public abstract class SelectGroups {
         private final int[] groupIndex;
 
         /**
-         * Map of group-by key to group-by expression data e.g. AggregateData
+         * Map of group-by key to group-by expression data e.g. AggregateData.
+         * A hash map is used when all group-by expressions have hashable data
+         * types, groups are returned in undefined order in this case.
          */
-        private TreeMap<ValueRow, Object[]> groupByData;
+        private Map<ValueRow, Object[]> groupByData;
 
         /**
          * Key into groupByData that produces currentGroupByExprData. Not used
@@ -64,6 +76,45 @@ public abstract class SelectGroups {
          */
         private Iterator<Entry<ValueRow, Object[]>> cursor;
 
+        /**
+         * Expressions whose data is written to the temporary result when
+         * there are too many groups, or {@code null} if groups are always
+         * kept in memory.
+         */
+        private Expression[] spillExpressions;
+
+        /**
+         * Numbers of values used by data of spill expressions in rows of the
+         * temporary result.
+         */
+        private int[] spillDataLengths;
+
+        /**
+         * Number of columns of the temporary result.
+         */
+        private int spillColumnCount;
+
+        /**
+         * Maximum number of groups in memory.
+         */
+        private int maxMemoryGroups;
+
+        /**
+         * Temporary result with groups sorted by their keys, or {@code null}
+         * if all groups are in memory.
+         */
+        private ResultExternal spilled;
+
+        /**
+         * Sort order of rows of the temporary result.
+         */
+        private SortOrder spillSort;
+
+        /**
+         * The next row of the temporary result for {@link #next()} method.
+         */
+        private Value[] nextSpilledRow;
+
         Grouped(SessionLocal session, ArrayList<Expression> expressions, int[] groupIndex) {
             super(session, expressions);
             this.groupIndex = groupIndex;
@@ -72,9 +123,44 @@ public abstract class SelectGroups {
         @Override
         public void reset() {
             super.reset();
-            groupByData = new TreeMap<>(session.getDatabase().getCompareMode());
+            groupByData = isHashable() ? new HashMap<>() : new TreeMap<>(session.getDatabase().getCompareMode());
             currentGroupsKey = null;
             cursor = null;
+            closeSpilled();
+            Database database = session.getDatabase();
+            maxMemoryGroups = spillExpressions != null && database.isPersistent() && !database.isReadOnly()
+                    ? Math.max(database.getMaxMemoryRows(), 1) : Integer.MAX_VALUE;
+        }
+
+        @Override
+        void setSpillExpressions(Expression[] spillExpressions) {
+            if (groupIndex == null || spillExpressions == null) {
+                this.spillExpressions = null;
+                return;
+            }
+            int length = spillExpressions.length, columnCount = groupIndex.length;
+            int[] dataLengths = new int[length];
+            for (int i = 0; i < length; i++) {
+                Expression e = spillExpressions[i];
+                int l = e instanceof Aggregate ? ((Aggregate) e).getStateTypes().length : 1;
+                dataLengths[i] = l;
+                columnCount += l;
+            }
+            this.spillExpressions = spillExpressions;
+            spillDataLengths = dataLengths;
+            spillColumnCount = columnCount;
+        }
+
+        private boolean isHashable() {
+            if (groupIndex != null) {
+                CompareMode compareMode = session.getDatabase().getCompareMode();
+                for (int idx : groupIndex) {
+                    if (!DataType.isHashable(expressions.get(idx).getType(), compareMode)) {
+                        return false;
+                    }
+                }
+            }
+            return true;
         }
 
         @Override
@@ -93,6 +179,9 @@ public abstract class SelectGroups {
             }
             Object[] values = groupByData.get(currentGroupsKey);
             if (values == null) {
+                if (groupByData.size() >= maxMemoryGroups) {
+                    spill();
+                }
                 values = createRow();
                 groupByData.put(currentGroupsKey, values);
             }
@@ -113,6 +202,11 @@ public abstract class SelectGroups {
         @Override
         public void done() {
             super.done();
+            if (spilled != null) {
+                spill();
+                nextSpilledRow = spilled.next();
+                return;
+            }
             if (groupIndex == null && groupByData.size() == 0) {
                 groupByData.put(ValueRow.EMPTY, createRow());
             }
@@ -121,6 +215,9 @@ public abstract class SelectGroups {
 
         @Override
         public ValueRow next() {
+            if (spilled != null) {
+                return nextSpilled();
+            }
             if (cursor.hasNext()) {
                 Map.Entry<ValueRow, Object[]> entry = cursor.next();
                 currentGroupByExprData = entry.getValue();
@@ -142,6 +239,174 @@ public abstract class SelectGroups {
             super.resetLazy();
             currentGroupsKey = null;
         }
+
+        @Override
+        void merge(SelectGroups source, Expression[] targets, Expression[] sources) {
+            int length = targets.length;
+            int[] from = new int[length], to = new int[length];
+            int rowLength = 0;
+            for (int i = 0; i < length; i++) {
+                from[i] = source.findIndex(sources[i]);
+                int t = getIndex(targets[i]);
+                to[i] = t;
+                rowLength = Math.max(rowLength, t + 1);
+            }
+            Grouped grouped = (Grouped) source;
+            if (grouped.spilled != null) {
+                // rows of temporary results of all copies have the same layout
+                grouped.spill();
+                ResultExternal target = getSpilled();
+                for (Value[] row; (row = grouped.spilled.next()) != null;) {
+                    target.addRow(row);
+                }
+                return;
+            }
+            for (Entry<ValueRow, Object[]> entry : grouped.groupByData.entrySet()) {
+                Object[] sourceRow = entry.getValue();
+                Object[] row = groupByData.get(entry.getKey());
+                if (row == null) {
+                    if (groupByData.size() >= maxMemoryGroups) {
+                        spill();
+                    }
+                    row = createRow();
+                    groupByData.put(entry.getKey(), row);
+                } else if (row.length < rowLength) {
+                    row = Arrays.copyOf(row, rowLength);
+                    groupByData.put(entry.getKey(), row);
+                }
+                for (int i = 0; i < length; i++) {
+                    int f = from[i];
+                    Object data;
+                    if (f < 0 || (data = sourceRow[f]) == null) {
+                        continue;
+                    }
+                    int t = to[i];
+                    Object old = row[t];
+                    if (old == null) {
+                        row[t] = data;
+                    } else if (targets[i] instanceof Aggregate) {
+                        row[t] = ((Aggregate) targets[i]).mergeAggregateData(session, old, data);
+                    }
+                }
+            }
+        }
+
+        /**
+         * Moves all groups from memory to the temporary result.
+         */
+        private void spill() {
+            ResultExternal result = getSpilled();
+            for (Entry<ValueRow, Object[]> entry : groupByData.entrySet()) {
+                result.addRow(writeSpilledRow(entry.getKey(), entry.getValue()));
+            }
+            groupByData.clear();
+        }
+
+        private ResultExternal getSpilled() {
+            ResultExternal result = spilled;
+            if (result == null) {
+                int keyLength = groupIndex.length, columnCount = spillColumnCount;
+                // only data types of these expressions are used
+                Expression[] columns = new Expression[columnCount];
+                int[] keyIndexes = new int[keyLength];
+                for (int i = 0; i < keyLength; i++) {
+                    columns[i] = expressions.get(groupIndex[i]);
+                    keyIndexes[i] = i;
+                }
+                int offset = keyLength;
+                for (Expression e : spillExpressions) {
+                    if (e instanceof Aggregate) {
+                        for (TypeInfo type : ((Aggregate) e).getStateTypes()) {
+                            columns[offset++] = TypedValueExpression.get(ValueNull.INSTANCE, type);
+                        }
+                    } else {
+                        columns[offset++] = e;
+                    }
+                }
+                spillSort = new SortOrder(session, keyIndexes);
+                spilled = result = MVTempResult.of(session.getDatabase(), columns, false, null, columnCount,
+                        columnCount, spillSort);
+            }
+            return result;
+        }
+
+        private Value[] writeSpilledRow(ValueRow key, Object[] data) {
+            Value[] keyValues = key.getList();
+            Value[] row = Arrays.copyOf(keyValues, spillColumnCount);
+            for (int i = 0, offset = keyValues.length, length = spillExpressions.length; i < length; i++) {
+                Expression e = spillExpressions[i];
+                int index = findIndex(e), dataLength = spillDataLengths[i];
+                Object d = index >= 0 && index < data.length ? data[index] : null;
+                if (d == null) {
+                    Arrays.fill(row, offset, offset + dataLength, ValueNull.INSTANCE);
+                } else if (e instanceof Aggregate) {
+                    ((Aggregate) e).writeAggregateData(d, row, offset);
+                } else {
+                    row[offset] = (Value) d;
+                }
+                offset += dataLength;
+            }
+            return row;
+        }
+
+        /**
+         * Reads data of a group from the row of the temporary result and
+         * combines it with data of the same group read from previous rows.
+         *
+         * @param row
+         *            the row
+         * @param data
+         *            the data of the group
+         */
+        private void readSpilledRow(Value[] row, Object[] data) {
+            for (int i = 0, offset = groupIndex.length, length = spillExpressions.length; i < length; i++) {
+                Expression e = spillExpressions[i];
+                int index = findIndex(e);
+                if (index >= 0) {
+                    Object old = data[index];
+                    if (e instanceof Aggregate) {
+                        Aggregate aggregate = (Aggregate) e;
+                        Object d = aggregate.readAggregateData(row, offset);
+                        data[index] = old != null ? aggregate.mergeAggregateData(session, old, d) : d;
+                    } else if (old == null) {
+                        data[index] = row[offset];
+                    }
+                }
+                offset += spillDataLengths[i];
+            }
+        }
+
+        /**
+         * Returns the next group of the temporary result. Rows of the same
+         * group written by different spills are combined.
+         *
+         * @return the key of the next group, or null
+         */
+        private ValueRow nextSpilled() {
+            Value[] row = nextSpilledRow;
+            if (row == null) {
+                return null;
+            }
+            Object[] data = createRow();
+            readSpilledRow(row, data);
+            Value[] next;
+            while ((next = spilled.next()) != null && spillSort.compare(row, next) == 0) {
+                readSpilledRow(next, data);
+            }
+            nextSpilledRow = next;
+            currentGroupByExprData = data;
+            currentGroupRowId++;
+            return ValueRow.get(Arrays.copyOf(row, groupIndex.length));
+        }
+
+        private void closeSpilled() {
+            if (spilled != null) {
+                spilled.close();
+                spilled = null;
+                spillSort = null;
+                nextSpilledRow = null;
+            }
+        }
     }
 
     private static final class Plain extends SelectGroups {
@@ -302,6 +567,36 @@ public abstract class SelectGroups {
         currentGroupByExprData[index] = obj;
     }
 
+    /**
+     * Returns the index of data of the specified expression in rows of group
+     * data, allocates a new index if necessary.
+     *
+     * @param expr
+     *            the expression
+     * @return the index
+     */
+    int getIndex(Expression expr) {
+        Integer index = exprToIndexInGroupByData.get(expr);
+        if (index == null) {
+            index = exprToIndexInGroupByData.size();
+            exprToIndexInGroupByData.put(expr, index);
+        }
+        return index;
+    }
+
+    /**
+     * Returns the index of data of the specified expression in rows of group
+     * data.
+     *
+     * @param expr
+     *            the expression
+     * @return the index, or -1 if expression has no data
+     */
+    int findIndex(Expression expr) {
+        Integer index = exprToIndexInGroupByData.get(expr);
+        return index != null ? index : -1;
+    }
+
     /**
      * Creates new object arrays to holds group-by data.
      *
@@ -408,6 +703,39 @@ public abstract class SelectGroups {
         throw new UnsupportedOperationException();
     }
 
+    /**
+     * Adds the groups gathered by a worker of a parallel query to this group
+     * data. Data of the same groups are combined. Must be invoked after
+     * {@link #reset()} and before {@link #done()}.
+     *
+     * @param source
+     *            the group data of the worker
+     * @param targets
+     *            the expressions of this query that store data in groups
+     * @param sources
+     *            the matching expressions of the copy of the query used by the
+     *            worker
+     */
+    void merge(SelectGroups source, Expression[] targets, Expression[] sources) {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Sets the expressions that store data in groups to allow this group data
+     * to move groups to a temporary result when there are more groups than
+     * {@code MAX_MEMORY_ROWS}. Groups from the temporary result are returned
+     * sorted by their keys and can be read only once, so this can be used
+     * only when groups are not removed. Data of all these expressions must
+     * be plain values or data of mergeable aggregates. Must be invoked before
+     * {@link #reset()}.
+     *
+     * @param spillExpressions
+     *            the expressions in the same order in all copies of the
+     *            query, or {@code null} to keep all groups in memory
+     */
+    void setSpillExpressions(Expression[] spillExpressions) {
+    }
+
     /**
      * Resets this group data for reuse in lazy mode.
      */
@@ -60,6 +60,12 @@ public class Constants {
      */
     public static final int TCP_PROTOCOL_VERSION_20 = 20;
 
+    /**
+     * The TCP protocol version number 21.
+     * @since 2.1.215
+     */
+    public static final int TCP_PROTOCOL_VERSION_21 = 21;
+
     /**
      * Minimum supported version of TCP protocol.
      */
@@ -68,7 +74,7 @@ public class Constants {
     /**
      * Maximum supported version of TCP protocol.
      */
-    public static final int TCP_PROTOCOL_VERSION_MAX_SUPPORTED = TCP_PROTOCOL_VERSION_20;
+    public static final int TCP_PROTOCOL_VERSION_MAX_SUPPORTED = TCP_PROTOCOL_VERSION_21;
 
     /**
      * The major version of this database.
@@ -16,6 +16,10 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 import org.h2.api.DatabaseEventListener;
@@ -38,6 +42,7 @@ import org.h2.message.TraceSystem;
 import org.h2.mode.DefaultNullOrdering;
 import org.h2.mode.PgCatalogSchema;
 import org.h2.mvstore.MVStoreException;
+import org.h2.mvstore.db.GroupCommit;
 import org.h2.mvstore.db.LobStorageMap;
 import org.h2.mvstore.db.Store;
 import org.h2.result.Row;
@@ -139,6 +144,12 @@ public final class Database implements DataHandler, CastDataProvider {
 
     private final HashMap<String, TableEngine> tableEngines = new HashMap<>();
 
+    /**
+     * Closed sessions with prepared transactions and transaction listeners,
+     * by transaction name.
+     */
+    private final ConcurrentHashMap<String, SessionLocal> preparedTransactionSessions = new ConcurrentHashMap<>();
+
     private final Set<SessionLocal> userSessions = Collections.synchronizedSet(new HashSet<>());
     private final AtomicReference<SessionLocal> exclusiveSession = new AtomicReference<>();
     private final BitSet objectIds = new BitSet();
@@ -209,6 +220,10 @@ public final class Database implements DataHandler, CastDataProvider {
     private volatile boolean queryStatistics;
     private int queryStatisticsMaxEntries = Constants.QUERY_STATISTICS_MAX_ENTRIES;
     private QueryStatisticsData queryStatisticsData;
+    private final SharedQueryCache sharedQueryCache;
+    private final QueryResultCache queryResultCache;
+    private volatile GroupCommit groupCommit;
+    private ThreadPoolExecutor parallelExecutor;
     private RowFactory rowFactory = RowFactory.getRowFactory();
     private boolean ignoreCatalogs;
 
@@ -230,6 +245,11 @@ public final class Database implements DataHandler, CastDataProvider {
         this.maxLengthInplaceLob = Constants.DEFAULT_MAX_LENGTH_INPLACE_LOB;
         this.cipher = cipher;
         this.autoServerMode = ci.getProperty("AUTO_SERVER", false);
+        int sharedQueryCacheSize = dbSettings.sharedQueryCacheSize;
+        this.sharedQueryCache = sharedQueryCacheSize > 0 && dbSettings.queryCacheSize > 0
+                ? new SharedQueryCache(sharedQueryCacheSize) : null;
+        int resultCacheSize = dbSettings.resultCacheSize;
+        this.queryResultCache = resultCacheSize > 0 ? new QueryResultCache(resultCacheSize * 1024L) : null;
         this.autoServerPort = ci.getProperty("AUTO_SERVER_PORT", 0);
         pageSize = ci.getProperty("PAGE_SIZE", Constants.DEFAULT_PAGE_SIZE);
         if (cipher != null && pageSize % FileEncrypt.BLOCK_SIZE != 0) {
@@ -1221,6 +1241,12 @@ public final class Database implements DataHandler, CastDataProvider {
                     systemSession.close();
                     systemSession = null;
                 }
+                synchronized (this) {
+                    if (parallelExecutor != null) {
+                        parallelExecutor.shutdownNow();
+                        parallelExecutor = null;
+                    }
+                }
                 tempFileDeleter.deleteAll();
                 closeOpenFilesAndUnlock();
             } catch (DbException | MVStoreException e) {
@@ -1733,6 +1759,27 @@ public final class Database implements DataHandler, CastDataProvider {
         store.getMvStore().setAutoCommitDelay(value < 0 ? 0 : value);
     }
 
+    /**
+     * Enables or disables group commit. If enabled, a commit of a transaction
+     * with changes returns only after the changes are synced to the disk, and
+     * concurrent commits share the same sync.
+     *
+     * @param groupCommit whether group commit is enabled
+     */
+    public void setGroupCommit(boolean groupCommit) {
+        this.groupCommit = groupCommit ? store.getGroupCommit() : null;
+    }
+
+    /**
+     * Returns the group commit if it is enabled.
+     *
+     * @return the group commit, or {@code null} if it is disabled or the
+     *         database is not persistent
+     */
+    public GroupCommit getGroupCommit() {
+        return groupCommit;
+    }
+
     public int getRetentionTime() {
         return store.getMvStore().getRetentionTime();
     }
@@ -1758,6 +1805,28 @@ public final class Database implements DataHandler, CastDataProvider {
         return store.getInDoubtTransactions();
     }
 
+    /**
+     * Remember a closed session with a prepared transaction, its transaction
+     * listeners are notified when the transaction is committed or rolled back
+     * by another session.
+     *
+     * @param transactionName the name of the prepared transaction
+     * @param session the closed session
+     */
+    void addPreparedTransactionSession(String transactionName, SessionLocal session) {
+        preparedTransactionSessions.put(transactionName, session);
+    }
+
+    /**
+     * Remove a closed session with the specified prepared transaction.
+     *
+     * @param transactionName the name of the prepared transaction
+     * @return the closed session, or {@code null}
+     */
+    SessionLocal removePreparedTransactionSession(String transactionName) {
+        return preparedTransactionSessions.remove(transactionName);
+    }
+
     /**
      * Prepare a transaction.
      *
@@ -2032,6 +2101,47 @@ public final class Database implements DataHandler, CastDataProvider {
         return queryStatisticsData;
     }
 
+    /**
+     * Returns the query cache shared by all sessions.
+     *
+     * @return the shared query cache, or {@code null} if it is disabled
+     */
+    public SharedQueryCache getSharedQueryCache() {
+        return sharedQueryCache;
+    }
+
+    /**
+     * Returns the cache of query results shared by all sessions.
+     *
+     * @return the query result cache, or {@code null} if it is disabled
+     */
+    public QueryResultCache getQueryResultCache() {
+        return queryResultCache;
+    }
+
+    /**
+     * Returns the executor for workers of parallel queries. The number of its
+     * threads is limited by the MAX_PARALLEL_THREADS setting.
+     *
+     * @return the executor
+     */
+    public synchronized ExecutorService getParallelExecutor() {
+        ThreadPoolExecutor executor = parallelExecutor;
+        if (executor == null) {
+            int threads = Math.max(dbSettings.maxParallelThreads, 1);
+            String name = "H2 Parallel Worker " + databaseShortName;
+            executor = new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+                    r -> {
+                        Thread t = new Thread(r, name);
+                        t.setDaemon(true);
+                        return t;
+                    });
+            executor.allowCoreThreadTimeOut(true);
+            parallelExecutor = executor;
+        }
+        return executor;
+    }
+
     /**
      * Check if the database is currently opening. This is true until all stored
      * SQL statements have been executed.
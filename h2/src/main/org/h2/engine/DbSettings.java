@@ -65,6 +65,13 @@ public class DbSettings extends SettingsBase {
      */
     public final int autoCompactFillRate = get("AUTO_COMPACT_FILL_RATE", 90);
 
+    /**
+     * Database setting <code>BATCH_EVALUATION</code> (default: true).
+     * Evaluate the WHERE condition of a query on a single table for batches
+     * of rows when all parts of the condition support it.
+     */
+    public final boolean batchEvaluation = get("BATCH_EVALUATION", true);
+
     /**
      * Database setting <code>DATABASE_TO_LOWER</code> (default: false).
      * When set to true unquoted identifiers and short name of database are
@@ -151,6 +158,15 @@ public class DbSettings extends SettingsBase {
      */
     public final int maxCompactTime = get("MAX_COMPACT_TIME", 200);
 
+    /**
+     * Database setting <code>MAX_PARALLEL_THREADS</code> (default: the
+     * number of available processors).
+     * The maximum number of threads used by workers of parallel queries of all
+     * sessions, see <code>SET MAX_PARALLEL_WORKERS</code>. Set to 0 to disable
+     * parallel execution of queries.
+     */
+    public final int maxParallelThreads = get("MAX_PARALLEL_THREADS", Runtime.getRuntime().availableProcessors());
+
     /**
      * Database setting <code>MAX_QUERY_TIMEOUT</code> (default: 0).
      * The maximum timeout of a query in milliseconds. The default is 0, meaning
@@ -242,6 +258,17 @@ public class DbSettings extends SettingsBase {
      */
     public final boolean recompileAlways = get("RECOMPILE_ALWAYS", false);
 
+    /**
+     * Database setting <code>RESULT_CACHE_SIZE</code> (default: 4096).
+     * The maximum memory in KB used by query results shared by all sessions.
+     * Only results of queries with the <code>/*+ RESULT_CACHE *&#47;</code>
+     * hint and of queries over tables with the <code>RESULT_CACHE</code>
+     * table setting are cached. A cached result is used by sessions with the
+     * READ COMMITTED isolation level until one of the tables used by the
+     * query is modified. Set to 0 to disable this cache.
+     */
+    public final int resultCacheSize = get("RESULT_CACHE_SIZE", 4096);
+
     /**
      * Database setting <code>REUSE_SPACE</code> (default: true).
      * If disabled, all changes are appended to the database file, and existing
@@ -260,6 +287,17 @@ public class DbSettings extends SettingsBase {
     public final boolean shareLinkedConnections = get(
             "SHARE_LINKED_CONNECTIONS", true);
 
+    /**
+     * Database setting <code>SHARED_QUERY_CACHE_SIZE</code> (default: 256).
+     * The size of the query cache shared by all sessions, in number of cached
+     * statements. Closed SELECT statements evicted from the query cache of a
+     * session, or left in it when the session is closed, are moved to this
+     * cache and may be reused by other sessions with the same user, schema
+     * search path, time zone and settings instead of parsing and optimizing
+     * the same SQL statement again. Set to 0 to disable this cache.
+     */
+    public final int sharedQueryCacheSize = get("SHARED_QUERY_CACHE_SIZE", 256);
+
     /**
      * Database setting <code>DEFAULT_TABLE_ENGINE</code>
      * (default: null).
@@ -274,6 +312,33 @@ public class DbSettings extends SettingsBase {
      */
     public final boolean mvStore = get("MV_STORE", true);
 
+    /**
+     * Database setting <code>COLUMNAR_PAGES</code>
+     * (default: false).
+     * Store rows of tables in columnar layout with integer and dictionary
+     * encoding of columns. Databases with this setting can't be opened by
+     * older versions. SHUTDOWN COMPACT and SHUTDOWN DEFRAG convert all pages
+     * to the layout selected by this setting; without this setting they
+     * convert the database back to the format of older versions.
+     */
+    public final boolean columnarPages = get("COLUMNAR_PAGES", false);
+
+    /**
+     * Database setting <code>MEMORY_MAPPED</code>
+     * (default: false).
+     * Read chunks of the database file through memory mapped buffers instead
+     * of copying them into the heap. Not used for encrypted databases.
+     */
+    public final boolean memoryMapped = get("MEMORY_MAPPED", false);
+
+    /**
+     * Database setting <code>OFF_HEAP_CACHE_SIZE</code>
+     * (default: 0).
+     * The size of the second level page cache in MB. This cache keeps
+     * compressed serialized pages outside of the Java heap. 0 disables it.
+     */
+    public final int offHeapCacheSize = get("OFF_HEAP_CACHE_SIZE", 0);
+
     /**
      * Database setting <code>COMPRESS</code>
      * (default: false).
@@ -0,0 +1,247 @@
+/*
+ * Copyright 2004-2022 H2 Group. Multiple-Licensed under the MPL 2.0,
+ * and the EPL 1.0 (https://h2database.com/html/license.html).
+ * Initial Developer: H2 Group
+ */
+package org.h2.engine;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.h2.result.LocalResult;
+import org.h2.result.ResultInterface;
+import org.h2.value.Value;
+
+/**
+ * A cache of query results shared by all sessions of a database. Results are
+ * keyed by the SQL statement, the session settings that affect it, the values
+ * of parameters and the limit. A result is valid until one of the tables used
+ * by the query is modified, stale results are removed when they are looked
+ * up. The memory used by the results is limited, the least recently used
+ * results are evicted first.
+ */
+public final class QueryResultCache {
+
+    private static final class Key {
+
+        private final SharedQueryCache.Key statement;
+
+        private final Value[] parameters;
+
+        private final long limit;
+
+        Key(SessionLocal session, String sql, Value[] parameters, long limit) {
+            statement = new SharedQueryCache.Key(session, sql, session.getDatabase().getModificationMetaId());
+            this.parameters = parameters;
+            this.limit = limit;
+        }
+
+        @Override
+        public int hashCode() {
+            return (statement.hashCode() * 31 + Arrays.hashCode(parameters)) * 31 + Long.hashCode(limit);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) obj;
+            return statement.equals(other.statement) && Arrays.equals(parameters, other.parameters)
+                    && limit == other.limit;
+        }
+
+    }
+
+    private static final class Entry {
+
+        /**
+         * The result, it is never iterated, only copies of it are.
+         */
+        final LocalResult result;
+
+        /**
+         * The data modification id of the database before the query was
+         * executed.
+         */
+        final long evaluated;
+
+        /**
+         * The estimated memory used by the rows.
+         */
+        final long memory;
+
+        Entry(LocalResult result, long evaluated, long memory) {
+            this.result = result;
+            this.evaluated = evaluated;
+            this.memory = memory;
+        }
+
+    }
+
+    private final LinkedHashMap<Key, Entry> map = new LinkedHashMap<>(16, 0.75f, true);
+
+    private final long maxMemory;
+
+    private long usedMemory;
+
+    private final AtomicLong hits = new AtomicLong();
+
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * Creates a new query result cache.
+     *
+     * @param maxMemory
+     *            the maximum memory used by cached rows, in bytes
+     */
+    QueryResultCache(long maxMemory) {
+        this.maxMemory = maxMemory;
+    }
+
+    /**
+     * Returns a cached result for the specified session.
+     *
+     * @param session
+     *            the session
+     * @param sql
+     *            the SQL statement
+     * @param parameters
+     *            the values of parameters
+     * @param limit
+     *            the maximum number of rows
+     * @param maxDataModificationId
+     *            the current maximum data modification id of tables used by
+     *            the query
+     * @return a copy of the cached result, or {@code null}
+     */
+    public ResultInterface get(SessionLocal session, String sql, Value[] parameters, long limit,
+            long maxDataModificationId) {
+        Key key = new Key(session, sql, parameters, limit);
+        Entry entry;
+        synchronized (this) {
+            entry = map.get(key);
+            if (entry != null && maxDataModificationId > entry.evaluated) {
+                map.remove(key);
+                usedMemory -= entry.memory;
+                entry = null;
+            }
+        }
+        ResultInterface result = entry != null ? entry.result.createShallowCopy(session) : null;
+        if (result == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+        hits.incrementAndGet();
+        return result;
+    }
+
+    /**
+     * Puts a result into this cache. Results that contain large objects, that
+     * are stored in temporary files, or that are too large for this cache are
+     * not cached.
+     *
+     * @param session
+     *            the session that executed the query
+     * @param sql
+     *            the SQL statement
+     * @param parameters
+     *            the values of parameters
+     * @param limit
+     *            the maximum number of rows
+     * @param evaluated
+     *            the data modification id of the database before the query
+     *            was executed
+     * @param result
+     *            the result, it is not modified
+     */
+    public void put(SessionLocal session, String sql, Value[] parameters, long limit, long evaluated,
+            LocalResult result) {
+        if (result.isLazy() || result.getRowCount() > Integer.MAX_VALUE) {
+            return;
+        }
+        LocalResult copy = result.createShallowCopy(session);
+        if (copy == null) {
+            return;
+        }
+        long memory = Constants.MEMORY_OBJECT;
+        long limitMemory = maxMemory / 4;
+        while (copy.next()) {
+            Value[] row = copy.currentRow();
+            memory += Constants.MEMORY_ARRAY + row.length * Constants.MEMORY_POINTER;
+            for (Value v : row) {
+                memory += v.getMemory();
+            }
+            if (memory > limitMemory) {
+                copy.close();
+                return;
+            }
+        }
+        copy.reset();
+        Key key = new Key(session, sql, parameters, limit);
+        synchronized (this) {
+            Entry old = map.put(key, new Entry(copy, evaluated, memory));
+            if (old != null) {
+                usedMemory -= old.memory;
+            }
+            usedMemory += memory;
+            Iterator<Entry> it = map.values().iterator();
+            while (usedMemory > maxMemory && it.hasNext()) {
+                Entry e = it.next();
+                it.remove();
+                usedMemory -= e.memory;
+            }
+        }
+    }
+
+    /**
+     * Removes all results from this cache.
+     */
+    public synchronized void clear() {
+        map.clear();
+        usedMemory = 0;
+    }
+
+    /**
+     * Returns the number of cached results.
+     *
+     * @return the number of cached results
+     */
+    public synchronized int size() {
+        return map.size();
+    }
+
+    /**
+     * Returns the estimated memory used by the cached rows.
+     *
+     * @return the used memory in bytes
+     */
+    public synchronized long getUsedMemory() {
+        return usedMemory;
+    }
+
+    /**
+     * Returns the number of results taken from this cache.
+     *
+     * @return the number of cache hits
+     */
+    public long getHits() {
+        return hits.get();
+    }
+
+    /**
+     * Returns the number of cacheable queries that were executed because
+     * their result was not found in this cache.
+     *
+     * @return the number of cache misses
+     */
+    public long getMisses() {
+        return misses.get();
+    }
+
+}
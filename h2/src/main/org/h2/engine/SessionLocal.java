@@ -25,6 +25,7 @@ import org.h2.command.Command;
 import org.h2.command.CommandInterface;
 import org.h2.command.Parser;
 import org.h2.command.Prepared;
+import org.h2.command.TokenizedStatement;
 import org.h2.command.ddl.Analyze;
 import org.h2.command.query.Query;
 import org.h2.constraint.Constraint;
@@ -37,6 +38,7 @@ import org.h2.message.DbException;
 import org.h2.message.Trace;
 import org.h2.message.TraceSystem;
 import org.h2.mvstore.MVMap;
+import org.h2.mvstore.db.GroupCommit;
 import org.h2.mvstore.db.MVIndex;
 import org.h2.mvstore.db.MVTable;
 import org.h2.mvstore.db.Store;
@@ -56,6 +58,7 @@ import org.h2.util.SmallLRUCache;
 import org.h2.util.TimeZoneProvider;
 import org.h2.util.Utils;
 import org.h2.value.Value;
+import org.h2.value.ValueBigint;
 import org.h2.value.ValueLob;
 import org.h2.value.ValueNull;
 import org.h2.value.ValueTimestampTimeZone;
@@ -74,6 +77,22 @@ public final class SessionLocal extends Session implements TransactionStore.Roll
 
     public enum State { INIT, RUNNING, BLOCKED, SLEEP, THROTTLED, SUSPENDED, CLOSED }
 
+    /**
+     * A listener for the end of the current transaction of a session.
+     */
+    public interface TransactionListener {
+
+        /**
+         * Called once after the transaction of the session was committed or
+         * rolled back.
+         *
+         * @param session the session
+         * @param committed whether the transaction was committed
+         */
+        void afterTransaction(SessionLocal session, boolean committed);
+
+    }
+
     private static final class SequenceAndPrepared {
 
         private final Sequence sequence;
@@ -187,6 +206,7 @@ public final class SessionLocal extends Session implements TransactionStore.Roll
     private volatile SmallLRUCache<Object, QueryExpressionIndex> viewIndexCache;
     private HashMap<Object, QueryExpressionIndex> derivedTableIndexCache;
     private boolean lazyQueryExecution;
+    private int maxParallelWorkers = 1;
 
     private BitSet nonKeywords;
 
@@ -217,6 +237,17 @@ public final class SessionLocal extends Session implements TransactionStore.Roll
     private final AtomicReference<State> state = new AtomicReference<>(State.INIT);
     private long startStatement = -1;
 
+    /**
+     * The data modification id of the database before the snapshot of the
+     * current statement was taken.
+     */
+    private long statementModificationDataId;
+
+    /**
+     * The number of started executions of commands.
+     */
+    private long commandExecutionId;
+
     /**
      * Isolation level.
      */
@@ -236,6 +267,11 @@ public final class SessionLocal extends Session implements TransactionStore.Roll
      */
     private BitSet idsToRelease;
 
+    /**
+     * Listeners to notify at the end of the current transaction.
+     */
+    private ArrayList<TransactionListener> transactionListeners;
+
     /**
      * Whether length in definitions of data types is truncated.
      */
@@ -278,6 +314,25 @@ public final class SessionLocal extends Session implements TransactionStore.Roll
         return lazyQueryExecution;
     }
 
+    /**
+     * Sets the maximum number of threads that may execute a query.
+     *
+     * @param maxParallelWorkers
+     *            the maximum number of threads, 1 disables parallel execution
+     */
+    public void setMaxParallelWorkers(int maxParallelWorkers) {
+        this.maxParallelWorkers = maxParallelWorkers;
+    }
+
+    /**
+     * Returns the maximum number of threads that may execute a query.
+     *
+     * @return the maximum number of threads
+     */
+    public int getMaxParallelWorkers() {
+        return maxParallelWorkers;
+    }
+
     /**
      * This method is called before and after parsing of view definition and may
      * be called recursively.
@@ -609,6 +664,8 @@ public final class SessionLocal extends Session implements TransactionStore.Roll
                     "session closed");
         }
         Command command;
+        SharedQueryCache sharedQueryCache = null;
+        TokenizedStatement tokens = null;
         if (queryCacheSize > 0) {
             if (queryCache == null) {
                 queryCache = SmallLRUCache.newInstance(queryCacheSize);
@@ -625,22 +682,71 @@ public final class SessionLocal extends Session implements TransactionStore.Roll
                     return command;
                 }
             }
+            sharedQueryCache = getSharedQueryCache();
+            if (sharedQueryCache != null) {
+                command = sharedQueryCache.take(this, sql, modificationMetaID);
+                if (command != null) {
+                    addToQueryCache(sql, command);
+                    return command;
+                }
+                tokens = sharedQueryCache.getTokens(this, sql, modificationMetaID);
+            }
         }
         Parser parser = new Parser(this);
         try {
-            command = parser.prepareCommand(sql);
+            if (tokens != null) {
+                command = parser.prepareCommand(sql, tokens);
+            } else {
+                if (sharedQueryCache != null) {
+                    parser.setSaveTokens();
+                }
+                command = parser.prepareCommand(sql);
+            }
         } finally {
             // we can't reuse indexes of derived tables, so just drop the whole cache
             derivedTableIndexCache = null;
         }
         if (queryCache != null) {
             if (command.isCacheable()) {
-                queryCache.put(sql, command);
+                if (sharedQueryCache != null && tokens == null) {
+                    sharedQueryCache.miss();
+                    TokenizedStatement parsedTokens = parser.getTokenizedStatement();
+                    if (parsedTokens != null && modificationMetaID == database.getModificationMetaId()) {
+                        sharedQueryCache.putTokens(this, sql, modificationMetaID, parsedTokens);
+                    }
+                }
+                addToQueryCache(sql, command);
             }
         }
         return command;
     }
 
+    /**
+     * Returns the shared query cache if it may be used by this session.
+     *
+     * @return the shared query cache, or {@code null}
+     */
+    private SharedQueryCache getSharedQueryCache() {
+        // local temporary tables may hide tables with the same names
+        return localTempTables == null || localTempTables.isEmpty() ? database.getSharedQueryCache() : null;
+    }
+
+    private void addToQueryCache(String sql, Command command) {
+        if (queryCache.size() >= queryCacheSize && !queryCache.containsKey(sql)) {
+            Map.Entry<String, Command> eldest = queryCache.entrySet().iterator().next();
+            moveToSharedQueryCache(eldest.getKey(), eldest.getValue());
+        }
+        queryCache.put(sql, command);
+    }
+
+    private void moveToSharedQueryCache(String sql, Command command) {
+        SharedQueryCache sharedQueryCache = getSharedQueryCache();
+        if (sharedQueryCache != null && modificationMetaID == database.getModificationMetaId()
+                && command.isShareable()) {
+            sharedQueryCache.put(this, sql, modificationMetaID, command);
+        }
+    }
+
     /**
      * Arranges for the specified database object id to be released
      * at the end of the current transaction.
@@ -667,14 +773,28 @@ public final class SessionLocal extends Session implements TransactionStore.Roll
     public void commit(boolean ddl) {
         beforeCommitOrRollback();
         if (hasTransaction()) {
+            GroupCommit groupCommit = database.getGroupCommit();
+            if (groupCommit != null && !transaction.hasChanges()) {
+                groupCommit = null;
+            }
             try {
                 markUsedTablesAsUpdated();
                 transaction.commit();
+                if (database.getQueryResultCache() != null) {
+                    // Results computed before the commit became visible may
+                    // be tagged with the id set above, invalidate them
+                    markUsedTablesAsUpdated();
+                }
                 removeTemporaryLobs(true);
                 endTransaction();
             } finally {
                 transaction = null;
             }
+            afterTransaction(true);
+            if (groupCommit != null) {
+                // locks are already released, other sessions may proceed
+                groupCommit.sync();
+            }
             if (!ddl) {
                 // do not clean the temp tables if the last command was a
                 // create/drop
@@ -771,6 +891,31 @@ public final class SessionLocal extends Session implements TransactionStore.Roll
         }
     }
 
+    /**
+     * Adds a listener to notify once at the end of the current transaction.
+     * The listener is not added again if it is already registered.
+     *
+     * @param listener the listener
+     */
+    public void addTransactionListener(TransactionListener listener) {
+        if (transactionListeners == null) {
+            transactionListeners = Utils.newSmallArrayList();
+        } else if (transactionListeners.contains(listener)) {
+            return;
+        }
+        transactionListeners.add(listener);
+    }
+
+    private void afterTransaction(boolean committed) {
+        ArrayList<TransactionListener> listeners = transactionListeners;
+        if (listeners != null) {
+            transactionListeners = null;
+            for (TransactionListener listener : listeners) {
+                listener.afterTransaction(this, committed);
+            }
+        }
+    }
+
     /**
      * Returns the data modification id of transaction's snapshot, or 0 if
      * isolation level doesn't use snapshots.
@@ -796,6 +941,7 @@ public final class SessionLocal extends Session implements TransactionStore.Roll
             autoCommitAtTransactionEnd = false;
         }
         endTransaction();
+        afterTransaction(false);
     }
 
     /**
@@ -872,10 +1018,19 @@ public final class SessionLocal extends Session implements TransactionStore.Roll
     public void close() {
         // this is the only operation that can be invoked concurrently
         // so, we should prevent double-closure
-        if (state.getAndSet(State.CLOSED) != State.CLOSED) {
+        State previousState = state.getAndSet(State.CLOSED);
+        if (previousState != State.CLOSED) {
             try {
                 database.throwLastBackgroundException();
 
+                // commands of a running session may be in use
+                if (queryCache != null && (previousState == State.SLEEP || previousState == State.INIT)) {
+                    for (Map.Entry<String, Command> entry : queryCache.entrySet()) {
+                        moveToSharedQueryCache(entry.getKey(), entry.getValue());
+                    }
+                    queryCache = null;
+                }
+
                 database.checkPowerOff();
 
                 // release any open table locks
@@ -884,6 +1039,9 @@ public final class SessionLocal extends Session implements TransactionStore.Roll
                         removeLobMap = null;
                     }
                     endTransaction();
+                    if (transactionListeners != null) {
+                        database.addPreparedTransactionSession(currentTransactionName, this);
+                    }
                 } else {
                     rollback();
                     removeTemporaryLobs(false);
@@ -1045,6 +1203,29 @@ public final class SessionLocal extends Session implements TransactionStore.Roll
         return value;
     }
 
+    /**
+     * Allocates a block of consecutive values of the sequence in this session.
+     * Each invocation allocates a new block. The current value of the
+     * sequence is set to the last value of the block.
+     *
+     * @param sequence
+     *            the sequence
+     * @param count
+     *            the number of values, must be positive
+     * @return the first value of the block
+     */
+    public Value getNextValuesFor(Sequence sequence, long count) {
+        Value value = sequence.getNext(this, count);
+        WeakHashMap<Sequence, Value> currentValueFor = this.currentValueFor;
+        if (currentValueFor == null) {
+            this.currentValueFor = currentValueFor = new WeakHashMap<>();
+        }
+        currentValueFor.put(sequence, count == 1L ? value
+                : ValueBigint.get(value.getLong() + sequence.getIncrement() * (count - 1))
+                        .castTo(sequence.getDataType(), this));
+        return value;
+    }
+
     /**
      * Returns the current value of the sequence in this session.
      *
@@ -1152,6 +1333,10 @@ public final class SessionLocal extends Session implements TransactionStore.Roll
             for (InDoubtTransaction p: list) {
                 if (p.getTransactionName().equals(transactionName)) {
                     p.setState(state);
+                    SessionLocal session = database.removePreparedTransactionSession(transactionName);
+                    if (session != null) {
+                        session.afterTransaction(commit);
+                    }
                     found = true;
                     break;
                 }
@@ -1212,6 +1397,7 @@ public final class SessionLocal extends Session implements TransactionStore.Roll
             currentCommand = command;
             commandStartOrEnd = Instant.now();
             if (command != null) {
+                commandExecutionId++;
                 if (queryTimeout > 0) {
                     cancelAtNs = Utils.currentNanoTimePlusMillis(queryTimeout);
                 }
@@ -1601,6 +1787,27 @@ public final class SessionLocal extends Session implements TransactionStore.Roll
         return transaction;
     }
 
+    /**
+     * Returns the data modification id of the database before the snapshot
+     * of the current statement was taken. Results of the statement may not
+     * include changes made after this id.
+     *
+     * @return the data modification id
+     */
+    public long getStatementModificationDataId() {
+        return statementModificationDataId;
+    }
+
+    /**
+     * Returns the identifier of the current execution of a command. Values of
+     * parameters of the command can't be changed during its execution.
+     *
+     * @return the identifier of the current execution
+     */
+    public long getCommandExecutionId() {
+        return commandExecutionId;
+    }
+
     private long getStatementSavepoint() {
         if (startStatement == -1) {
             startStatement = getTransaction().setSavepoint();
@@ -1614,6 +1821,7 @@ public final class SessionLocal extends Session implements TransactionStore.Roll
      */
     @SuppressWarnings("incomplete-switch")
     public void startStatementWithinTransaction(Command command) {
+        statementModificationDataId = database.getModificationDataId();
         Transaction transaction = getTransaction();
         if (transaction != null) {
             HashSet<MVMap<Object,VersionedValue<Object>>> maps = new HashSet<>();
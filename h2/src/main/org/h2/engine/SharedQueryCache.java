@@ -0,0 +1,236 @@
+/*
+ * Copyright 2004-2022 H2 Group. Multiple-Licensed under the MPL 2.0,
+ * and the EPL 1.0 (https://h2database.com/html/license.html).
+ * Initial Developer: H2 Group
+ */
+package org.h2.engine;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.h2.command.Command;
+import org.h2.command.TokenizedStatement;
+import org.h2.util.SmallLRUCache;
+import org.h2.util.TimeZoneProvider;
+
+/**
+ * A cache of closed prepared statements shared by all sessions of a database.
+ * A cached statement may be taken by only one session at once. The statement
+ * is moved to another session only if everything that affects parsing and
+ * optimization of the statement is the same in both sessions.
+ *
+ * Tokens of parsed statements are cached with the same keys too. They may be
+ * used by many sessions at once, so sessions that keep their own statements
+ * open, such as pooled connections, don't need to tokenize them again. Tokens
+ * depend only on the SQL statement, the non-keywords of the session and the
+ * compatibility mode, a change of mode changes the metadata modification id.
+ * Other parts of the key don't differ between sessions of a pool.
+ */
+public final class SharedQueryCache {
+
+    /**
+     * The SQL statement together with everything in the session that affects
+     * parsing and optimization of the statement.
+     */
+    static final class Key {
+
+        private final String sql;
+
+        private final long modificationMetaId;
+
+        private final User user;
+
+        private final String currentSchemaName;
+
+        private final String[] schemaSearchPath;
+
+        private final TimeZoneProvider timeZone;
+
+        private final BitSet nonKeywords;
+
+        private final int flags;
+
+        Key(SessionLocal session, String sql, long modificationMetaId) {
+            this.sql = sql;
+            this.modificationMetaId = modificationMetaId;
+            user = session.getUser();
+            currentSchemaName = session.getCurrentSchemaName();
+            schemaSearchPath = session.getSchemaSearchPath();
+            timeZone = session.currentTimeZone();
+            nonKeywords = session.getNonKeywords();
+            flags = (session.getAllowLiterals() ? 1 : 0) | (session.isTruncateLargeLength() ? 2 : 0)
+                    | (session.isVariableBinary() ? 4 : 0) | (session.isOldInformationSchema() ? 8 : 0)
+                    | (session.isQuirksMode() ? 16 : 0);
+        }
+
+        @Override
+        public int hashCode() {
+            return sql.hashCode() * 31 + Long.hashCode(modificationMetaId);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) obj;
+            return sql.equals(other.sql) && modificationMetaId == other.modificationMetaId && user == other.user
+                    && currentSchemaName.equals(other.currentSchemaName)
+                    && Arrays.equals(schemaSearchPath, other.schemaSearchPath) && timeZone.equals(other.timeZone)
+                    && Objects.equals(nonKeywords, other.nonKeywords) && flags == other.flags;
+        }
+
+    }
+
+    private final SmallLRUCache<Key, Command> cache;
+
+    private final SmallLRUCache<Key, TokenizedStatement> tokensCache;
+
+    private final AtomicLong hits = new AtomicLong();
+
+    private final AtomicLong tokenHits = new AtomicLong();
+
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * Creates a new shared query cache.
+     *
+     * @param size
+     *            the maximum number of cached statements
+     */
+    SharedQueryCache(int size) {
+        cache = SmallLRUCache.newInstance(size);
+        tokensCache = SmallLRUCache.newInstance(size);
+    }
+
+    /**
+     * Takes a cached statement for the specified session. The returned command
+     * is removed from this cache.
+     *
+     * @param session
+     *            the session
+     * @param sql
+     *            the SQL statement
+     * @param modificationMetaId
+     *            the current metadata modification id of the database
+     * @return the command for the specified session, or {@code null}
+     */
+    Command take(SessionLocal session, String sql, long modificationMetaId) {
+        Command command;
+        Key key = new Key(session, sql, modificationMetaId);
+        synchronized (cache) {
+            command = cache.remove(key);
+        }
+        if (command == null) {
+            return null;
+        }
+        hits.incrementAndGet();
+        return command.moveTo(session);
+    }
+
+    /**
+     * Puts a closed statement into this cache.
+     *
+     * @param session
+     *            the session that owns the statement
+     * @param sql
+     *            the SQL statement
+     * @param modificationMetaId
+     *            the metadata modification id the statement was prepared with
+     * @param command
+     *            the command, it may not be used by the session after this
+     *            call
+     */
+    void put(SessionLocal session, String sql, long modificationMetaId, Command command) {
+        Key key = new Key(session, sql, modificationMetaId);
+        synchronized (cache) {
+            cache.put(key, command);
+        }
+    }
+
+    /**
+     * Returns the cached tokens of the specified statement. The returned tokens
+     * remain in this cache.
+     *
+     * @param session
+     *            the session
+     * @param sql
+     *            the SQL statement
+     * @param modificationMetaId
+     *            the current metadata modification id of the database
+     * @return the tokens, or {@code null}
+     */
+    TokenizedStatement getTokens(SessionLocal session, String sql, long modificationMetaId) {
+        TokenizedStatement tokens;
+        Key key = new Key(session, sql, modificationMetaId);
+        synchronized (tokensCache) {
+            tokens = tokensCache.get(key);
+        }
+        if (tokens != null) {
+            tokenHits.incrementAndGet();
+        }
+        return tokens;
+    }
+
+    /**
+     * Puts tokens of a parsed statement into this cache.
+     *
+     * @param session
+     *            the session that parsed the statement
+     * @param sql
+     *            the SQL statement
+     * @param modificationMetaId
+     *            the metadata modification id the statement was parsed with
+     * @param tokens
+     *            the tokens
+     */
+    void putTokens(SessionLocal session, String sql, long modificationMetaId, TokenizedStatement tokens) {
+        Key key = new Key(session, sql, modificationMetaId);
+        synchronized (tokensCache) {
+            tokensCache.put(key, tokens);
+        }
+    }
+
+    /**
+     * Records a statement that was parsed because it was not found in this
+     * cache.
+     */
+    void miss() {
+        misses.incrementAndGet();
+    }
+
+    /**
+     * Returns the number of statements taken from this cache.
+     *
+     * @return the number of cache hits
+     */
+    public long getHits() {
+        return hits.get();
+    }
+
+    /**
+     * Returns the number of statements that were parsed from the cached
+     * tokens.
+     *
+     * @return the number of cache hits of tokens
+     */
+    public long getTokenHits() {
+        return tokenHits.get();
+    }
+
+    /**
+     * Returns the number of cacheable statements that were not found in this
+     * cache and were tokenized and parsed.
+     *
+     * @return the number of cache misses
+     */
+    public long getMisses() {
+        return misses.get();
+    }
+
+}
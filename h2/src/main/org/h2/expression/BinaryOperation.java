@@ -9,6 +9,8 @@ import org.h2.engine.SessionLocal;
 import org.h2.expression.IntervalOperation.IntervalOpType;
 import org.h2.expression.function.DateTimeFunction;
 import org.h2.message.DbException;
+import org.h2.result.RowBatch;
+import org.h2.table.TableFilter;
 import org.h2.value.DataType;
 import org.h2.value.TypeInfo;
 import org.h2.value.Value;
@@ -94,8 +96,28 @@ public class BinaryOperation extends Operation2 {
 
     @Override
     public Value getValue(SessionLocal session) {
-        Value l = left.getValue(session).convertTo(type, session);
-        Value r = right.getValue(session);
+        return getValue(session, left.getValue(session), right.getValue(session));
+    }
+
+    @Override
+    public boolean isBatchEvaluatable(TableFilter filter) {
+        return left.isBatchEvaluatable(filter) && right.isBatchEvaluatable(filter);
+    }
+
+    @Override
+    public Value[] getValues(SessionLocal session, RowBatch batch) {
+        Value[] l = left.getValues(session, batch), r = right.getValues(session, batch);
+        Value[] result = new Value[batch.size()];
+        int[] selection = batch.getSelection();
+        for (int i = 0, count = batch.getSelectedCount(); i < count; i++) {
+            int row = selection[i];
+            result[row] = getValue(session, l[row], r[row]);
+        }
+        return result;
+    }
+
+    private Value getValue(SessionLocal session, Value l, Value r) {
+        l = l.convertTo(type, session);
         if (convertRight) {
             r = r.convertTo(type, session);
         }
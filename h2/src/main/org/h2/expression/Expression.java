@@ -12,6 +12,7 @@ import org.h2.engine.Constants;
 import org.h2.engine.SessionLocal;
 import org.h2.expression.function.NamedExpression;
 import org.h2.message.DbException;
+import org.h2.result.RowBatch;
 import org.h2.table.Column;
 import org.h2.table.ColumnResolver;
 import org.h2.table.TableFilter;
@@ -332,6 +333,55 @@ public abstract class Expression implements HasSQL, Typed {
         return getValue(session).isTrue();
     }
 
+    /**
+     * Returns whether this expression can be evaluated for whole batches of
+     * rows of the specified table filter with
+     * {@link #getValues(SessionLocal, RowBatch)}. This is possible only if all
+     * columns belong to the specified filter.
+     *
+     * @param filter the table filter
+     * @return whether batch evaluation is supported
+     */
+    public boolean isBatchEvaluatable(TableFilter filter) {
+        return false;
+    }
+
+    /**
+     * Evaluates this expression for all selected rows of the batch. This
+     * method may be used only if
+     * {@link #isBatchEvaluatable(TableFilter)} returns {@code true}. The
+     * selection of the batch is not changed.
+     *
+     * @param session the session
+     * @param batch the batch of rows
+     * @return the vector of values indexed by the positions of rows, it may
+     *         not be modified
+     */
+    public Value[] getValues(SessionLocal session, RowBatch batch) {
+        throw DbException.getInternalError(getTraceSQL());
+    }
+
+    /**
+     * Removes rows for which this condition is not {@code TRUE} from the
+     * selection of the batch. This method may be used only if
+     * {@link #isBatchEvaluatable(TableFilter)} returns {@code true}.
+     *
+     * @param session the session
+     * @param batch the batch of rows
+     */
+    public void filterBatch(SessionLocal session, RowBatch batch) {
+        Value[] values = getValues(session, batch);
+        int[] selection = batch.getSelection();
+        int count = batch.getSelectedCount(), n = 0;
+        for (int i = 0; i < count; i++) {
+            int row = selection[i];
+            if (values[row].isTrue()) {
+                selection[n++] = row;
+            }
+        }
+        batch.setSelectedCount(n);
+    }
+
     /**
      * Create index conditions if possible and attach them to the table filter.
      *
@@ -16,6 +16,7 @@ import org.h2.expression.condition.Comparison;
 import org.h2.index.IndexCondition;
 import org.h2.message.DbException;
 import org.h2.mode.ModeFunction;
+import org.h2.result.RowBatch;
 import org.h2.schema.Constant;
 import org.h2.schema.Schema;
 import org.h2.table.Column;
@@ -294,6 +295,16 @@ public final class ExpressionColumn extends Expression {
         return value;
     }
 
+    @Override
+    public boolean isBatchEvaluatable(TableFilter filter) {
+        return columnResolver == filter && column != null;
+    }
+
+    @Override
+    public Value[] getValues(SessionLocal session, RowBatch batch) {
+        return batch.getColumn(column.getColumnId());
+    }
+
     @Override
     public TypeInfo getType() {
         return column != null ? column.getType() : rowId ? TypeInfo.TYPE_BIGINT : TypeInfo.TYPE_UNKNOWN;
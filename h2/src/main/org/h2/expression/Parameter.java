@@ -5,11 +5,15 @@
  */
 package org.h2.expression;
 
+import java.util.Arrays;
+
 import org.h2.api.ErrorCode;
 import org.h2.engine.SessionLocal;
 import org.h2.expression.condition.Comparison;
 import org.h2.message.DbException;
+import org.h2.result.RowBatch;
 import org.h2.table.Column;
+import org.h2.table.TableFilter;
 import org.h2.value.TypeInfo;
 import org.h2.value.Value;
 import org.h2.value.ValueNull;
@@ -58,6 +62,18 @@ public final class Parameter extends Operation0 implements ParameterInterface {
         return getParamValue();
     }
 
+    @Override
+    public boolean isBatchEvaluatable(TableFilter filter) {
+        return true;
+    }
+
+    @Override
+    public Value[] getValues(SessionLocal session, RowBatch batch) {
+        Value[] values = new Value[batch.size()];
+        Arrays.fill(values, 0, batch.size(), getParamValue());
+        return values;
+    }
+
     @Override
     public TypeInfo getType() {
         if (value != null) {
@@ -0,0 +1,76 @@
+/*
+ * Copyright 2004-2022 H2 Group. Multiple-Licensed under the MPL 2.0,
+ * and the EPL 1.0 (https://h2database.com/html/license.html).
+ * Initial Developer: H2 Group
+ */
+package org.h2.expression;
+
+import org.h2.engine.SessionLocal;
+import org.h2.message.DbException;
+import org.h2.schema.Sequence;
+import org.h2.value.Value;
+import org.h2.value.ValueNull;
+
+/**
+ * NEXT VALUES FOR sequence COUNT expression. Allocates a block of consecutive
+ * values of a sequence and returns the first value of the block.
+ */
+public final class SequenceValues extends Operation1 {
+
+    private final Sequence sequence;
+
+    /**
+     * Creates new instance of NEXT VALUES FOR expression.
+     *
+     * @param sequence
+     *            the sequence
+     * @param count
+     *            the number of values
+     */
+    public SequenceValues(Sequence sequence, Expression count) {
+        super(count);
+        this.sequence = sequence;
+    }
+
+    @Override
+    public Value getValue(SessionLocal session) {
+        Value v = arg.getValue(session);
+        long count;
+        if (v == ValueNull.INSTANCE || (count = v.getLong()) < 1L) {
+            throw DbException.getInvalidValueException("COUNT", v.getTraceSQL());
+        }
+        return session.getNextValuesFor(sequence, count);
+    }
+
+    @Override
+    public Expression optimize(SessionLocal session) {
+        arg = arg.optimize(session);
+        type = sequence.getDataType();
+        return this;
+    }
+
+    @Override
+    public StringBuilder getUnenclosedSQL(StringBuilder builder, int sqlFlags) {
+        sequence.getSQL(builder.append("NEXT VALUES FOR "), sqlFlags).append(" COUNT ");
+        return arg.getSQL(builder, sqlFlags, AUTO_PARENTHESES);
+    }
+
+    @Override
+    public boolean isEverything(ExpressionVisitor visitor) {
+        switch (visitor.getType()) {
+        case ExpressionVisitor.DETERMINISTIC:
+        case ExpressionVisitor.INDEPENDENT:
+        case ExpressionVisitor.QUERY_COMPARABLE:
+        case ExpressionVisitor.READONLY:
+            return false;
+        case ExpressionVisitor.SET_MAX_DATA_MODIFICATION_ID:
+            visitor.addDataModificationId(sequence.getModificationId());
+            break;
+        case ExpressionVisitor.GET_DEPENDENCIES:
+            visitor.addDependency(sequence);
+            break;
+        }
+        return super.isEverything(visitor);
+    }
+
+}
@@ -5,9 +5,12 @@
  */
 package org.h2.expression;
 
+import java.util.Arrays;
+
 import org.h2.engine.SessionLocal;
 import org.h2.expression.condition.Comparison;
 import org.h2.index.IndexCondition;
+import org.h2.result.RowBatch;
 import org.h2.table.TableFilter;
 import org.h2.value.TypeInfo;
 import org.h2.value.Value;
@@ -114,6 +117,18 @@ public class ValueExpression extends Operation0 {
         return getBoolean(!value.getBoolean());
     }
 
+    @Override
+    public boolean isBatchEvaluatable(TableFilter filter) {
+        return true;
+    }
+
+    @Override
+    public Value[] getValues(SessionLocal session, RowBatch batch) {
+        Value[] values = new Value[batch.size()];
+        Arrays.fill(values, 0, batch.size(), value);
+        return values;
+    }
+
     @Override
     public boolean isConstant() {
         return true;
@@ -19,6 +19,8 @@ import org.h2.expression.analysis.WindowFrameBound;
 import org.h2.expression.analysis.WindowFrameBoundType;
 import org.h2.expression.analysis.WindowFrameExclusion;
 import org.h2.expression.analysis.WindowFrameUnits;
+import org.h2.message.DbException;
+import org.h2.result.SortOrder;
 import org.h2.table.ColumnResolver;
 import org.h2.table.TableFilter;
 import org.h2.value.TypeInfo;
@@ -154,6 +156,11 @@ public abstract class AbstractAggregate extends DataAnalysisOperation {
                 aggregateFastPartitionInReverse(session, result, ordered, rowIdColumn, grouped);
                 return;
             }
+            Object aggregateData = createRemovableAggregateData();
+            if (aggregateData != null) {
+                aggregateSlidingPartition(session, result, ordered, rowIdColumn, grouped, aggregateData);
+                return;
+            }
         }
         // All other types of frames (slow)
         int size = ordered.size();
@@ -240,6 +247,41 @@ public abstract class AbstractAggregate extends DataAnalysisOperation {
         }
     }
 
+    private void aggregateSlidingPartition(SessionLocal session, HashMap<Integer, Value> result,
+            ArrayList<Value[]> ordered, int rowIdColumn, boolean grouped, Object aggregateData) {
+        WindowFrame frame = over.getWindowFrame();
+        SortOrder sortOrder = getOverOrderBySort();
+        int size = ordered.size();
+        // Rows from start (inclusive) to end (exclusive) are aggregated
+        int start = 0, end = 0;
+        Value r = null;
+        for (int i = 0; i < size;) {
+            int newStart = frame.getStartIndex(session, ordered, sortOrder, i);
+            int newEnd = Math.max(WindowFrame.getEndIndex(over, session, ordered, sortOrder, i) + 1, newStart);
+            if (newStart != start || newEnd != end) {
+                if (newStart < start || newEnd < end) {
+                    // Bounds of frames with constant offsets should never move back
+                    aggregateData = createRemovableAggregateData();
+                    start = end = newStart;
+                }
+                for (; start < newStart && start < end; start++) {
+                    removeFromExpressions(session, aggregateData, ordered.get(start));
+                }
+                if (start < newStart) {
+                    start = end = newStart;
+                }
+                for (; end < newEnd; end++) {
+                    updateFromExpressions(session, aggregateData, ordered.get(end));
+                }
+                r = null;
+            }
+            if (r == null) {
+                r = getAggregatedValue(session, aggregateData);
+            }
+            i = processGroup(result, r, ordered, rowIdColumn, i, size, grouped);
+        }
+    }
+
     private int processGroup(HashMap<Integer, Value> result, Value r, ArrayList<Value[]> ordered,
             int rowIdColumn, int i, int size, boolean grouped) {
         Value[] firstRowInGroup = ordered.get(i), currentRowInGroup = firstRowInGroup;
@@ -276,6 +318,33 @@ public abstract class AbstractAggregate extends DataAnalysisOperation {
      */
     protected abstract void updateFromExpressions(SessionLocal session, Object aggregateData, Value[] array);
 
+    /**
+     * Creates aggregate data that allows to remove values in the same order as
+     * they were added. Such data is used to evaluate the aggregate in sliding
+     * window frames without processing of the whole frame for each row.
+     *
+     * @return aggregate data, or {@code null} if this aggregate does not
+     *         support removal of values
+     */
+    protected Object createRemovableAggregateData() {
+        return null;
+    }
+
+    /**
+     * Removes the oldest added values from the aggregate data created with
+     * {@link #createRemovableAggregateData()}.
+     *
+     * @param session
+     *            the session
+     * @param aggregateData
+     *            aggregate data
+     * @param array
+     *            values of expressions
+     */
+    protected void removeFromExpressions(SessionLocal session, Object aggregateData, Value[] array) {
+        throw DbException.getInternalError(getClass().getName());
+    }
+
     @Override
     protected void updateAggregate(SessionLocal session, SelectGroups groupData, int groupRowId) {
         if (filterCondition == null || filterCondition.getBooleanValue(session)) {
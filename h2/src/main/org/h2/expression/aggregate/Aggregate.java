@@ -214,6 +214,109 @@ public class Aggregate extends AbstractAggregate implements ExpressionWithFlags
         return aggregateType;
     }
 
+    /**
+     * Returns whether partial data of this aggregate computed from different
+     * sets of rows can be combined with
+     * {@link #mergeAggregateData(SessionLocal, Object, Object)}.
+     *
+     * @return whether partial data can be combined
+     */
+    public boolean isMergeable() {
+        if (over != null || distinct || orderByList != null) {
+            return false;
+        }
+        switch (aggregateType) {
+        case COUNT_ALL:
+        case COUNT:
+        case SUM:
+        case MIN:
+        case MAX:
+        case AVG:
+        case EVERY:
+        case ANY:
+        case BIT_AND_AGG:
+        case BIT_OR_AGG:
+        case BIT_XOR_AGG:
+        case BIT_NAND_AGG:
+        case BIT_NOR_AGG:
+        case BIT_XNOR_AGG:
+            return true;
+        default:
+            return false;
+        }
+    }
+
+    /**
+     * Combines partial data of this aggregate computed from different sets
+     * of rows.
+     *
+     * @param session
+     *            the session
+     * @param target
+     *            the data to update
+     * @param source
+     *            the data to add
+     * @return the combined data
+     */
+    public Object mergeAggregateData(SessionLocal session, Object target, Object source) {
+        ((AggregateData) target).merge(session, (AggregateData) source);
+        return target;
+    }
+
+    /**
+     * Returns the data types of values that represent partial data of this
+     * aggregate in a temporary result. Only mergeable aggregates support this
+     * operation.
+     *
+     * @return the data types of the values
+     * @see #isMergeable()
+     */
+    public TypeInfo[] getStateTypes() {
+        switch (aggregateType) {
+        case COUNT_ALL:
+        case COUNT:
+            return new TypeInfo[] { TypeInfo.TYPE_BIGINT };
+        case AVG:
+            return new TypeInfo[] { TypeInfo.TYPE_BIGINT,
+                    type.getValueType() == Value.DOUBLE ? TypeInfo.TYPE_DOUBLE : TypeInfo.TYPE_NUMERIC_FLOATING_POINT };
+        default:
+            return new TypeInfo[] { type };
+        }
+    }
+
+    /**
+     * Writes partial data of this aggregate to the specified row of a
+     * temporary result.
+     *
+     * @param data
+     *            the data
+     * @param row
+     *            the row
+     * @param offset
+     *            the index of the first value in the row
+     * @see #getStateTypes()
+     */
+    public void writeAggregateData(Object data, Value[] row, int offset) {
+        ((AggregateData) data).writeState(row, offset);
+    }
+
+    /**
+     * Reads partial data of this aggregate from the specified row of a
+     * temporary result.
+     *
+     * @param row
+     *            the row
+     * @param offset
+     *            the index of the first value in the row
+     * @return the data
+     * @see #writeAggregateData(Object, Value[], int)
+     */
+    public Object readAggregateData(Value[] row, int offset) {
+        AggregateData data = (AggregateData) createAggregateData();
+        data.readState(row, offset);
+        return data;
+    }
+
     /**
      * Sets the additional arguments.
      *
@@ -495,6 +598,47 @@ public class Aggregate extends AbstractAggregate implements ExpressionWithFlags
         return new AggregateDataCollecting(distinct, false, NullCollectionMode.IGNORED);
     }
 
+    @Override
+    protected Object createRemovableAggregateData() {
+        if (distinct) {
+            return null;
+        }
+        switch (aggregateType) {
+        case COUNT_ALL:
+            return new AggregateDataCount(true);
+        case COUNT:
+            return new AggregateDataCount(false);
+        case SUM:
+            // Results with inexact or special values may depend on the order
+            // of operations
+            switch (type.getValueType()) {
+            case Value.DOUBLE:
+            case Value.DECFLOAT:
+                return null;
+            }
+            return new AggregateDataDefault(aggregateType, type);
+        case AVG:
+            switch (type.getValueType()) {
+            case Value.DOUBLE:
+            case Value.DECFLOAT:
+                return null;
+            }
+            return new AggregateDataAvg(type);
+        case MIN:
+        case MAX:
+            return new AggregateDataSlidingMinMax(aggregateType == AggregateType.MIN, type);
+        default:
+            return null;
+        }
+    }
+
+    @Override
+    protected void removeFromExpressions(SessionLocal session, Object aggregateData, Value[] array) {
+        if (filterCondition == null || array[getNumExpressions() - 1].isTrue()) {
+            ((AggregateData) aggregateData).remove(session, args.length == 0 ? null : array[0]);
+        }
+    }
+
     @Override
     public Value getValue(SessionLocal session) {
         return select.isQuickAggregateQuery() ? getValueQuick(session) : super.getValue(session);
@@ -6,6 +6,7 @@
 package org.h2.expression.aggregate;
 
 import org.h2.engine.SessionLocal;
+import org.h2.message.DbException;
 import org.h2.value.Value;
 
 /**
@@ -21,6 +22,19 @@ abstract class AggregateData {
      */
     abstract void add(SessionLocal session, Value v);
 
+    /**
+     * Remove a value from this aggregate. Values are removed in the same order
+     * as they were added. Only data created for sliding window frames supports
+     * this operation.
+     *
+     * @param session the session
+     * @param v the value
+     * @see AbstractAggregate#createRemovableAggregateData()
+     */
+    void remove(SessionLocal session, Value v) {
+        throw DbException.getInternalError(getClass().getName());
+    }
+
     /**
      * Get the aggregate result.
      *
@@ -29,4 +43,41 @@ abstract class AggregateData {
      */
     abstract Value getValue(SessionLocal session);
 
+    /**
+     * Add the values of other data of the same aggregate, computed from other
+     * rows, to this data. Only data of aggregates that are mergeable
+     * supports this operation.
+     *
+     * @param session the session
+     * @param other the other data
+     * @see Aggregate#isMergeable()
+     */
+    void merge(SessionLocal session, AggregateData other) {
+        throw DbException.getInternalError(getClass().getName());
+    }
+
+    /**
+     * Writes the partial state of this data to the specified row of a
+     * temporary result. Only data of mergeable aggregates supports this
+     * operation.
+     *
+     * @param row the row
+     * @param offset the index of the first value of the state in the row
+     * @see Aggregate#getStateTypes()
+     */
+    void writeState(Value[] row, int offset) {
+        throw DbException.getInternalError(getClass().getName());
+    }
+
+    /**
+     * Restores the partial state of this data from the specified row of a
+     * temporary result written by {@link #writeState(Value[], int)}.
+     *
+     * @param row the row
+     * @param offset the index of the first value of the state in the row
+     */
+    void readState(Value[] row, int offset) {
+        throw DbException.getInternalError(getClass().getName());
+    }
+
 }
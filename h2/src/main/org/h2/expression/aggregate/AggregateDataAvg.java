@@ -14,6 +14,7 @@ import org.h2.engine.SessionLocal;
 import org.h2.util.IntervalUtils;
 import org.h2.value.TypeInfo;
 import org.h2.value.Value;
+import org.h2.value.ValueBigint;
 import org.h2.value.ValueDecfloat;
 import org.h2.value.ValueDouble;
 import org.h2.value.ValueInterval;
@@ -62,6 +63,74 @@ final class AggregateDataAvg extends AggregateData {
         }
     }
 
+    @Override
+    void remove(SessionLocal session, Value v) {
+        // Only AVG with exact data types can be removable
+        if (v == ValueNull.INSTANCE) {
+            return;
+        }
+        if (--count == 0) {
+            decimalValue = null;
+            integerValue = null;
+            return;
+        }
+        switch (dataType.getValueType()) {
+        case Value.NUMERIC:
+            decimalValue = decimalValue.subtract(v.getBigDecimal());
+            break;
+        default:
+            integerValue = integerValue.subtract(IntervalUtils.intervalToAbsolute((ValueInterval) v));
+        }
+    }
+
+    @Override
+    void merge(SessionLocal session, AggregateData other) {
+        AggregateDataAvg o = (AggregateDataAvg) other;
+        count += o.count;
+        doubleValue += o.doubleValue;
+        if (o.decimalValue != null) {
+            decimalValue = decimalValue == null ? o.decimalValue : decimalValue.add(o.decimalValue);
+        }
+        if (o.integerValue != null) {
+            integerValue = integerValue == null ? o.integerValue : integerValue.add(o.integerValue);
+        }
+    }
+
+    @Override
+    void writeState(Value[] row, int offset) {
+        row[offset] = ValueBigint.get(count);
+        Value sum;
+        switch (dataType.getValueType()) {
+        case Value.DOUBLE:
+            sum = ValueDouble.get(doubleValue);
+            break;
+        case Value.NUMERIC:
+        case Value.DECFLOAT:
+            sum = decimalValue != null ? ValueNumeric.getAnyScale(decimalValue) : ValueNull.INSTANCE;
+            break;
+        default:
+            sum = integerValue != null ? ValueNumeric.get(integerValue) : ValueNull.INSTANCE;
+        }
+        row[offset + 1] = sum;
+    }
+
+    @Override
+    void readState(Value[] row, int offset) {
+        count = row[offset].getLong();
+        Value sum = row[offset + 1];
+        switch (dataType.getValueType()) {
+        case Value.DOUBLE:
+            doubleValue = sum.getDouble();
+            break;
+        case Value.NUMERIC:
+        case Value.DECFLOAT:
+            decimalValue = sum != ValueNull.INSTANCE ? sum.getBigDecimal() : null;
+            break;
+        default:
+            integerValue = sum != ValueNull.INSTANCE ? sum.getBigDecimal().toBigIntegerExact() : null;
+        }
+    }
+
     @Override
     Value getValue(SessionLocal session) {
         if (count == 0) {
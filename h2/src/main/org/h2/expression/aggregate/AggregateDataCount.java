@@ -30,6 +30,28 @@ final class AggregateDataCount extends AggregateData {
         }
     }
 
+    @Override
+    void remove(SessionLocal session, Value v) {
+        if (all || v != ValueNull.INSTANCE) {
+            count--;
+        }
+    }
+
+    @Override
+    void merge(SessionLocal session, AggregateData other) {
+        count += ((AggregateDataCount) other).count;
+    }
+
+    @Override
+    void writeState(Value[] row, int offset) {
+        row[offset] = ValueBigint.get(count);
+    }
+
+    @Override
+    void readState(Value[] row, int offset) {
+        count = row[offset].getLong();
+    }
+
     @Override
     Value getValue(SessionLocal session) {
         return ValueBigint.get(count);
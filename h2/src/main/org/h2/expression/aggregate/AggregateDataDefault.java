@@ -22,6 +22,11 @@ final class AggregateDataDefault extends AggregateData {
     private final TypeInfo dataType;
     private Value value;
 
+    /**
+     * Count of added non-NULL values, used only by SUM.
+     */
+    private long count;
+
     /**
      * @param aggregateType the type of the aggregate operation
      * @param dataType the data type of the computed result
@@ -38,6 +43,7 @@ final class AggregateDataDefault extends AggregateData {
         }
         switch (aggregateType) {
         case SUM:
+            count++;
             if (value == null) {
                 value = v.convertTo(dataType.getValueType());
             } else {
@@ -100,6 +106,40 @@ final class AggregateDataDefault extends AggregateData {
         }
     }
 
+    @Override
+    void remove(SessionLocal session, Value v) {
+        // Only SUM with exact data types can be removable
+        if (v == ValueNull.INSTANCE) {
+            return;
+        }
+        if (--count == 0) {
+            value = null;
+        } else {
+            value = value.subtract(v.convertTo(value.getValueType()));
+        }
+    }
+
+    @Override
+    void merge(SessionLocal session, AggregateData other) {
+        Value v = ((AggregateDataDefault) other).value;
+        if (v != null) {
+            // the stored value is a valid argument for all supported types
+            add(session, v);
+        }
+    }
+
+    @Override
+    void writeState(Value[] row, int offset) {
+        Value v = value;
+        row[offset] = v != null ? v : ValueNull.INSTANCE;
+    }
+
+    @Override
+    void readState(Value[] row, int offset) {
+        Value v = row[offset];
+        value = v != ValueNull.INSTANCE ? v : null;
+    }
+
     @SuppressWarnings("incomplete-switch")
     @Override
     Value getValue(SessionLocal session) {
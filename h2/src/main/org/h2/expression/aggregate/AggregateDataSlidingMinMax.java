@@ -0,0 +1,93 @@
+/*
+ * Copyright 2004-2022 H2 Group. Multiple-Licensed under the MPL 2.0,
+ * and the EPL 1.0 (https://h2database.com/html/license.html).
+ * Initial Developer: H2 Group
+ */
+package org.h2.expression.aggregate;
+
+import java.util.ArrayDeque;
+
+import org.h2.engine.SessionLocal;
+import org.h2.value.TypeInfo;
+import org.h2.value.Value;
+import org.h2.value.ValueNull;
+
+/**
+ * Data stored while calculating a MIN or MAX aggregate in a sliding window
+ * frame. Values are kept in a monotonic queue, so each value is added and
+ * removed only once.
+ */
+final class AggregateDataSlidingMinMax extends AggregateData {
+
+    private static final class Entry {
+
+        final long index;
+
+        final Value value;
+
+        Entry(long index, Value value) {
+            this.index = index;
+            this.value = value;
+        }
+
+    }
+
+    private final boolean min;
+
+    private final TypeInfo dataType;
+
+    /**
+     * Candidates for the result. Values are ordered from the best to the
+     * worst, the first one is the current result.
+     */
+    private final ArrayDeque<Entry> queue = new ArrayDeque<>();
+
+    private long added;
+
+    private long removed;
+
+    /**
+     * @param min
+     *            {@code true} for MIN, {@code false} for MAX
+     * @param dataType
+     *            the data type of the computed result
+     */
+    AggregateDataSlidingMinMax(boolean min, TypeInfo dataType) {
+        this.min = min;
+        this.dataType = dataType;
+    }
+
+    @Override
+    void add(SessionLocal session, Value v) {
+        long index = added++;
+        if (v == ValueNull.INSTANCE) {
+            return;
+        }
+        // Older values that aren't better than the new one can't be a result
+        Entry last;
+        while ((last = queue.peekLast()) != null) {
+            int cmp = session.compare(v, last.value);
+            if (min ? cmp > 0 : cmp < 0) {
+                break;
+            }
+            queue.removeLast();
+        }
+        queue.addLast(new Entry(index, v));
+    }
+
+    @Override
+    void remove(SessionLocal session, Value v) {
+        long index = removed++;
+        Entry first = queue.peekFirst();
+        if (first != null && first.index == index) {
+            queue.removeFirst();
+        }
+    }
+
+    @Override
+    Value getValue(SessionLocal session) {
+        Entry first = queue.peekFirst();
+        return first == null ? ValueNull.INSTANCE : first.value.convertTo(dataType);
+    }
+
+}
@@ -6,9 +6,11 @@
 package org.h2.expression.condition;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import org.h2.engine.SessionLocal;
 import org.h2.expression.Expression;
 import org.h2.expression.ExpressionColumn;
+import org.h2.expression.ExpressionList;
 import org.h2.expression.ExpressionVisitor;
 import org.h2.expression.Parameter;
 import org.h2.expression.TypedValueExpression;
@@ -17,6 +19,7 @@ import org.h2.expression.aggregate.Aggregate;
 import org.h2.expression.aggregate.AggregateType;
 import org.h2.index.IndexCondition;
 import org.h2.message.DbException;
+import org.h2.result.RowBatch;
 import org.h2.table.Column;
 import org.h2.table.ColumnResolver;
 import org.h2.table.TableFilter;
@@ -25,6 +28,7 @@ import org.h2.value.TypeInfo;
 import org.h2.value.Value;
 import org.h2.value.ValueBoolean;
 import org.h2.value.ValueNull;
+import org.h2.value.ValueRow;
 
 /**
  * Example comparison expressions are ID=1, NAME=NAME, NAME IS NULL.
@@ -234,6 +238,124 @@ public final class Comparison extends Condition {
         return compare(session, left, right.getValue(session), compareType).isTrue();
     }
 
+    @Override
+    public boolean isBatchEvaluatable(TableFilter filter) {
+        return !whenOperand && compareType != SPATIAL_INTERSECTS && left.isBatchEvaluatable(filter)
+                && right.isBatchEvaluatable(filter);
+    }
+
+    @Override
+    public Value[] getValues(SessionLocal session, RowBatch batch) {
+        Value[] l = left.getValues(session, batch);
+        Value[] result = new Value[batch.size()];
+        int[] selection = batch.getSelection();
+        int count = batch.getSelectedCount();
+        boolean nullSafe = (compareType & ~1) == EQUAL_NULL_SAFE;
+        if (isInvariant(right)) {
+            Value r = right.getValue(session);
+            for (int i = 0; i < count; i++) {
+                int row = selection[i];
+                Value v = l[row];
+                result[row] = v == ValueNull.INSTANCE && !nullSafe ? ValueNull.INSTANCE
+                        : compare(session, v, r, compareType);
+            }
+            return result;
+        }
+        // Optimization: do not evaluate right if not necessary
+        int[] nonNull = selection;
+        int nonNullCount = count;
+        if (!nullSafe) {
+            nonNull = new int[count];
+            nonNullCount = 0;
+            for (int i = 0; i < count; i++) {
+                int row = selection[i];
+                if (l[row] == ValueNull.INSTANCE) {
+                    result[row] = ValueNull.INSTANCE;
+                } else {
+                    nonNull[nonNullCount++] = row;
+                }
+            }
+        }
+        Value[] r;
+        batch.setSelection(nonNull, nonNullCount);
+        try {
+            r = right.getValues(session, batch);
+        } finally {
+            batch.setSelection(selection, count);
+        }
+        for (int i = 0; i < nonNullCount; i++) {
+            int row = nonNull[i];
+            result[row] = compare(session, l[row], r[row], compareType);
+        }
+        return result;
+    }
+
+    @Override
+    public void filterBatch(SessionLocal session, RowBatch batch) {
+        if (left instanceof ExpressionColumn && isInvariant(right) && isIntegral(left.getType().getValueType())) {
+            Value r = right.getValue(session);
+            if (r == ValueNull.INSTANCE) {
+                if ((compareType & ~1) != EQUAL_NULL_SAFE) {
+                    batch.setSelectedCount(0);
+                    return;
+                }
+            } else if (isIntegral(r.getValueType()) && compareType <= BIGGER_EQUAL) {
+                filterIntegral(batch, left.getValues(session, batch), r.getLong());
+                return;
+            }
+        }
+        super.filterBatch(session, batch);
+    }
+
+    private void filterIntegral(RowBatch batch, Value[] values, long r) {
+        int[] selection = batch.getSelection();
+        int count = batch.getSelectedCount(), n = 0;
+        int type = compareType;
+        for (int i = 0; i < count; i++) {
+            int row = selection[i];
+            Value v = values[row];
+            if (v == ValueNull.INSTANCE) {
+                continue;
+            }
+            long l = v.getLong();
+            boolean match;
+            switch (type) {
+            case EQUAL:
+                match = l == r;
+                break;
+            case NOT_EQUAL:
+                match = l != r;
+                break;
+            case BIGGER_EQUAL:
+                match = l >= r;
+                break;
+            case BIGGER:
+                match = l > r;
+                break;
+            case SMALLER_EQUAL:
+                match = l <= r;
+                break;
+            case SMALLER:
+                match = l < r;
+                break;
+            default:
+                throw DbException.getInternalError("type=" + type);
+            }
+            if (match) {
+                selection[n++] = row;
+            }
+        }
+        batch.setSelectedCount(n);
+    }
+
+    private static boolean isInvariant(Expression e) {
+        return e instanceof ValueExpression || e instanceof Parameter;
+    }
+
+    private static boolean isIntegral(int valueType) {
+        return valueType >= Value.TINYINT && valueType <= Value.BIGINT;
+    }
+
     /**
      * Compare two values.
      *
@@ -389,8 +511,109 @@ public final class Comparison extends Condition {
     @Override
     public void createIndexConditions(SessionLocal session, TableFilter filter) {
         if (!whenOperand) {
-            createIndexConditions(filter, left, right, compareType);
+            if (isRowValue(left) || isRowValue(right)) {
+                createRowValueIndexConditions(session, filter);
+            } else {
+                createIndexConditions(filter, left, right, compareType);
+            }
+        }
+    }
+
+    private static boolean isRowValue(Expression e) {
+        return e instanceof ExpressionList && !((ExpressionList) e).isArray();
+    }
+
+    /**
+     * Creates index conditions for a comparison of row values. An equality
+     * comparison is split into comparisons of their elements. A range
+     * comparison of columns with values, such as {@code (A, B) > (?, ?)}, is
+     * used as a range condition on its leading columns.
+     */
+    private void createRowValueIndexConditions(SessionLocal session, TableFilter filter) {
+        if (!filter.getTable().isQueryComparable()) {
+            return;
+        }
+        Expression[] l = getRowElements(session, left), r = getRowElements(session, right);
+        if (l == null || r == null || l.length != r.length) {
+            return;
+        }
+        int type = compareType;
+        if (!isColumnOf(l[0], filter)) {
+            Expression[] temp = l;
+            l = r;
+            r = temp;
+            type = getReversedCompareType(type);
+        }
+        int length = l.length;
+        switch (type) {
+        case EQUAL:
+        case EQUAL_NULL_SAFE:
+            for (int i = 0; i < length; i++) {
+                if (type == EQUAL_NULL_SAFE || !r[i].isNullConstant()) {
+                    createIndexConditions(filter, l[i], r[i], type);
+                }
+            }
+            return;
+        case BIGGER:
+        case BIGGER_EQUAL:
+        case SMALLER_EQUAL:
+        case SMALLER:
+            break;
+        default:
+            return;
+        }
+        ExpressionVisitor visitor = ExpressionVisitor.getNotFromResolverVisitor(filter);
+        int count = 0;
+        for (; count < length; count++) {
+            Expression e = l[count];
+            if (!isColumnOf(e, filter) || !r[count].isEverything(visitor)) {
+                break;
+            }
+            TypeInfo colType = e.getType();
+            if (!TypeInfo.haveSameOrdering(colType, TypeInfo.getHigherType(colType, r[count].getType()))) {
+                break;
+            }
+        }
+        if (count == 0) {
+            return;
         }
+        if (count < length) {
+            // (A, B, C) > (1, 2, 3) means (A, B) >= (1, 2)
+            type = type == BIGGER || type == BIGGER_EQUAL ? BIGGER_EQUAL : SMALLER_EQUAL;
+        }
+        ExpressionColumn[] columns = new ExpressionColumn[count];
+        System.arraycopy(l, 0, columns, 0, count);
+        filter.addIndexCondition(IndexCondition.getRowValue(type, columns, Arrays.asList(r).subList(0, count)));
+    }
+
+    private static Expression[] getRowElements(SessionLocal session, Expression e) {
+        if (isRowValue(e)) {
+            ExpressionList list = (ExpressionList) e;
+            int length = list.getSubexpressionCount();
+            Expression[] elements = new Expression[length];
+            for (int i = 0; i < length; i++) {
+                elements[i] = list.getSubexpression(i);
+            }
+            return elements;
+        }
+        if (e.isConstant() && e.getType().getValueType() == Value.ROW) {
+            Value v = e.getValue(session);
+            if (v == ValueNull.INSTANCE) {
+                return null;
+            }
+            Value[] values = ((ValueRow) v).getList();
+            int length = values.length;
+            Expression[] elements = new Expression[length];
+            for (int i = 0; i < length; i++) {
+                elements[i] = ValueExpression.get(values[i]);
+            }
+            return elements;
+        }
+        return null;
+    }
+
+    private static boolean isColumnOf(Expression e, TableFilter filter) {
+        return e instanceof ExpressionColumn && ((ExpressionColumn) e).getTableFilter() == filter;
     }
 
     static void createIndexConditions(TableFilter filter, Expression left, Expression right, int compareType) {
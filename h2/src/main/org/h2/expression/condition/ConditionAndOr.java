@@ -5,12 +5,15 @@
  */
 package org.h2.expression.condition;
 
+import java.util.Arrays;
+
 import org.h2.engine.SessionLocal;
 import org.h2.expression.Expression;
 import org.h2.expression.ExpressionVisitor;
 import org.h2.expression.TypedValueExpression;
 import org.h2.expression.ValueExpression;
 import org.h2.message.DbException;
+import org.h2.result.RowBatch;
 import org.h2.table.ColumnResolver;
 import org.h2.table.TableFilter;
 import org.h2.value.Value;
@@ -129,6 +132,28 @@ public class ConditionAndOr extends Condition {
         }
     }
 
+    @Override
+    public boolean isBatchEvaluatable(TableFilter filter) {
+        return left.isBatchEvaluatable(filter) && right.isBatchEvaluatable(filter);
+    }
+
+    @Override
+    public Value[] getValues(SessionLocal session, RowBatch batch) {
+        return ConditionAndOrN.getValues(session, batch, andOrType, Arrays.asList(left, right));
+    }
+
+    @Override
+    public void filterBatch(SessionLocal session, RowBatch batch) {
+        if (andOrType == AND) {
+            left.filterBatch(session, batch);
+            if (batch.getSelectedCount() > 0) {
+                right.filterBatch(session, batch);
+            }
+        } else {
+            super.filterBatch(session, batch);
+        }
+    }
+
     @Override
     public Expression optimize(SessionLocal session) {
         // NULL handling: see wikipedia,
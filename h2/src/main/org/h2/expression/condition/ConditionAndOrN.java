@@ -14,6 +14,7 @@ import org.h2.engine.SessionLocal;
 import org.h2.expression.Expression;
 import org.h2.expression.ExpressionVisitor;
 import org.h2.message.DbException;
+import org.h2.result.RowBatch;
 import org.h2.table.ColumnResolver;
 import org.h2.table.TableFilter;
 import org.h2.value.Value;
@@ -150,6 +151,97 @@ public class ConditionAndOrN extends Condition {
         }
     }
 
+    @Override
+    public boolean isBatchEvaluatable(TableFilter filter) {
+        for (Expression e : expressions) {
+            if (!e.isBatchEvaluatable(filter)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public Value[] getValues(SessionLocal session, RowBatch batch) {
+        return getValues(session, batch, andOrType, expressions);
+    }
+
+    @Override
+    public void filterBatch(SessionLocal session, RowBatch batch) {
+        if (andOrType == ConditionAndOr.AND) {
+            for (Expression e : expressions) {
+                if (batch.getSelectedCount() == 0) {
+                    break;
+                }
+                e.filterBatch(session, batch);
+            }
+        } else {
+            super.filterBatch(session, batch);
+        }
+    }
+
+    /**
+     * Evaluates a conjunction or disjunction for all selected rows of the
+     * batch. Each operand is evaluated only for rows where the result is not
+     * known yet.
+     *
+     * @param session the session
+     * @param batch the batch of rows
+     * @param andOrType the type
+     * @param expressions the operands
+     * @return the vector of values
+     */
+    static Value[] getValues(SessionLocal session, RowBatch batch, int andOrType, List<Expression> expressions) {
+        boolean and;
+        switch (andOrType) {
+        case ConditionAndOr.AND:
+            and = true;
+            break;
+        case ConditionAndOr.OR:
+            and = false;
+            break;
+        default:
+            throw DbException.getInternalError("type=" + andOrType);
+        }
+        Value[] result = new Value[batch.size()];
+        int[] selection = batch.getSelection();
+        int count = batch.getSelectedCount();
+        int[] undecided = new int[count];
+        System.arraycopy(selection, 0, undecided, 0, count);
+        int undecidedCount = count;
+        try {
+            for (Expression e : expressions) {
+                if (undecidedCount == 0) {
+                    break;
+                }
+                batch.setSelection(undecided, undecidedCount);
+                Value[] values = e.getValues(session, batch);
+                int n = 0;
+                for (int i = 0; i < undecidedCount; i++) {
+                    int row = undecided[i];
+                    Value v = values[row];
+                    if (v == ValueNull.INSTANCE) {
+                        result[row] = ValueNull.INSTANCE;
+                    } else if (v.getBoolean() != and) {
+                        result[row] = ValueBoolean.get(!and);
+                        continue;
+                    }
+                    undecided[n++] = row;
+                }
+                undecidedCount = n;
+            }
+        } finally {
+            batch.setSelection(selection, count);
+        }
+        for (int i = 0; i < undecidedCount; i++) {
+            int row = undecided[i];
+            if (result[row] == null) {
+                result[row] = ValueBoolean.get(and);
+            }
+        }
+        return result;
+    }
+
     private static final Comparator<Expression> COMPARE_BY_COST = new Comparator<Expression>() {
         @Override
         public int compare(Expression lhs, Expression rhs) {
@@ -31,6 +31,16 @@ public final class ConditionIn extends Condition {
     private final boolean whenOperand;
     private final ArrayList<Expression> valueList;
 
+    /**
+     * Whether all values are parameters or constants. Such values are looked
+     * up in a set that is created once for each execution of the command.
+     */
+    private boolean parameterSet;
+
+    private ConditionInConstantSet valueSet;
+
+    private long valueSetExecutionId;
+
     /**
      * Create a new IN(..) condition.
      *
@@ -63,6 +73,15 @@ public final class ConditionIn extends Condition {
         if (left.containsNull()) {
             return ValueNull.INSTANCE;
         }
+        if (parameterSet) {
+            ConditionInConstantSet set = valueSet;
+            long executionId = session.getCommandExecutionId();
+            if (set == null || valueSetExecutionId != executionId) {
+                valueSet = set = new ConditionInConstantSet(session, this.left, not, whenOperand, valueList);
+                valueSetExecutionId = executionId;
+            }
+            return set.getValue(left, session);
+        }
         boolean hasNull = false;
         for (Expression e : valueList) {
             Value r = e.getValue(session);
@@ -100,6 +119,7 @@ public final class ConditionIn extends Condition {
             return TypedValueExpression.UNKNOWN;
         }
         boolean allValuesConstant = true;
+        boolean allValuesParameters = true;
         boolean allValuesNull = true;
         TypeInfo leftType = left.getType();
         for (int i = 0, l = valueList.size(); i < l; i++) {
@@ -112,16 +132,19 @@ public final class ConditionIn extends Condition {
             if (allValuesConstant && !e.isConstant()) {
                 allValuesConstant = false;
             }
+            if (allValuesParameters && !e.isConstant() && !(e instanceof Parameter)) {
+                allValuesParameters = false;
+            }
             if (left instanceof ExpressionColumn && e instanceof Parameter) {
                 ((Parameter) e).setColumn(((ExpressionColumn) left).getColumn());
             }
             valueList.set(i, e);
         }
-        return optimize2(session, constant, allValuesConstant, allValuesNull, valueList);
+        return optimize2(session, constant, allValuesConstant, allValuesParameters, allValuesNull, valueList);
     }
 
     private Expression optimize2(SessionLocal session, boolean constant, boolean allValuesConstant,
-            boolean allValuesNull, ArrayList<Expression> values) {
+            boolean allValuesParameters, boolean allValuesNull, ArrayList<Expression> values) {
         if (constant && allValuesConstant) {
             return ValueExpression.getBoolean(getValue(session));
         }
@@ -129,15 +152,16 @@ public final class ConditionIn extends Condition {
             return new Comparison(not ? Comparison.NOT_EQUAL : Comparison.EQUAL, left, values.get(0), whenOperand)
                     .optimize(session);
         }
-        if (allValuesConstant && !allValuesNull) {
-            int leftType = left.getType().getValueType();
-            if (leftType == Value.UNKNOWN) {
-                return this;
-            }
-            if (leftType == Value.ENUM && !(left instanceof ExpressionColumn)) {
-                return this;
+        int leftType = left.getType().getValueType();
+        if (leftType == Value.UNKNOWN || leftType == Value.ENUM && !(left instanceof ExpressionColumn)) {
+            return this;
+        }
+        if (allValuesConstant) {
+            if (!allValuesNull) {
+                return new ConditionInConstantSet(session, left, not, whenOperand, values).optimize(session);
             }
-            return new ConditionInConstantSet(session, left, not, whenOperand, values).optimize(session);
+        } else if (allValuesParameters) {
+            parameterSet = true;
         }
         return this;
     }
@@ -6,6 +6,7 @@
 package org.h2.expression.condition;
 
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.TreeSet;
 
 import org.h2.engine.SessionLocal;
@@ -15,6 +16,7 @@ import org.h2.expression.ExpressionVisitor;
 import org.h2.index.IndexCondition;
 import org.h2.table.ColumnResolver;
 import org.h2.table.TableFilter;
+import org.h2.value.CompareMode;
 import org.h2.value.TypeInfo;
 import org.h2.value.Value;
 import org.h2.value.ValueBoolean;
@@ -22,7 +24,8 @@ import org.h2.value.ValueNull;
 
 /**
  * Used for optimised IN(...) queries where the contents of the IN list are all
- * constant and of the same type.
+ * constant and of the same type. It is also used by {@link ConditionIn} for
+ * lists of parameters, a new set is created for each execution of a command.
  */
 public final class ConditionInConstantSet extends Condition {
 
@@ -30,8 +33,12 @@ public final class ConditionInConstantSet extends Condition {
     private final boolean not;
     private final boolean whenOperand;
     private final ArrayList<Expression> valueList;
-    // HashSet cannot be used here, because we need to compare values of
-    // different type or scale properly.
+    private final CompareMode compareMode;
+    // Hash keys of values if the data type and the compare mode allow it.
+    private final HashSet<Object> hashSet;
+    // Values can't be used in a HashSet directly, because equal values of
+    // some data types, such as NUMERIC with different scale, or strings in
+    // some collations, aren't equal objects.
     private final TreeSet<Value> valueSet;
     private boolean hasNull;
     private final TypeInfo type;
@@ -56,12 +63,20 @@ public final class ConditionInConstantSet extends Condition {
         this.not = not;
         this.whenOperand = whenOperand;
         this.valueList = valueList;
-        this.valueSet = new TreeSet<>(session.getDatabase().getCompareMode());
+        CompareMode compareMode = session.getDatabase().getCompareMode();
+        this.compareMode = compareMode;
         TypeInfo type = left.getType();
         for (Expression expression : valueList) {
             type = TypeInfo.getHigherType(type, expression.getType());
         }
         this.type = type;
+        if (isHashable(type.getValueType(), compareMode)) {
+            hashSet = new HashSet<>();
+            valueSet = null;
+        } else {
+            hashSet = null;
+            valueSet = new TreeSet<>(compareMode);
+        }
         for (Expression expression : valueList) {
             add(expression.getValue(session), session);
         }
@@ -70,11 +85,63 @@ public final class ConditionInConstantSet extends Condition {
     private void add(Value v, SessionLocal session) {
         if ((v = v.convertTo(type, session)).containsNull()) {
             hasNull = true;
+        } else if (hashSet != null) {
+            hashSet.add(getHashKey(v));
         } else {
             valueSet.add(v);
         }
     }
 
+    /**
+     * Returns whether values of the specified data type can be compared with
+     * hash keys.
+     *
+     * @param valueType the data type
+     * @param compareMode the compare mode
+     * @return whether hash keys can be used
+     */
+    private static boolean isHashable(int valueType, CompareMode compareMode) {
+        switch (valueType) {
+        case Value.CHAR:
+        case Value.VARCHAR:
+            return compareMode.getHashKey("", false) != null;
+        case Value.VARCHAR_IGNORECASE:
+            return compareMode.getHashKey("", true) != null;
+        case Value.BOOLEAN:
+        case Value.TINYINT:
+        case Value.SMALLINT:
+        case Value.INTEGER:
+        case Value.BIGINT:
+        case Value.NUMERIC:
+        case Value.REAL:
+        case Value.DOUBLE:
+        case Value.DATE:
+        case Value.TIME:
+        case Value.TIMESTAMP:
+        case Value.BINARY:
+        case Value.VARBINARY:
+        case Value.UUID:
+        case Value.ENUM:
+            return true;
+        default:
+            return false;
+        }
+    }
+
+    private Object getHashKey(Value v) {
+        switch (v.getValueType()) {
+        case Value.CHAR:
+        case Value.VARCHAR:
+            return compareMode.getHashKey(v.getString(), false);
+        case Value.VARCHAR_IGNORECASE:
+            return compareMode.getHashKey(v.getString(), true);
+        case Value.NUMERIC:
+            return v.getBigDecimal().stripTrailingZeros();
+        default:
+            return v;
+        }
+    }
+
     @Override
     public Value getValue(SessionLocal session) {
         return getValue(left.getValue(session), session);
@@ -88,11 +155,18 @@ public final class ConditionInConstantSet extends Condition {
         return getValue(left, session).isTrue();
     }
 
-    private Value getValue(Value left, SessionLocal session) {
+    /**
+     * Checks whether the specified value is in this set.
+     *
+     * @param left the value to check
+     * @param session the session
+     * @return the result of this condition
+     */
+    Value getValue(Value left, SessionLocal session) {
         if ((left = left.convertTo(type, session)).containsNull()) {
             return ValueNull.INSTANCE;
         }
-        boolean result = valueSet.contains(left);
+        boolean result = hashSet != null ? hashSet.contains(getHashKey(left)) : valueSet.contains(left);
         if (!result && hasNull) {
             return ValueNull.INSTANCE;
         }
@@ -135,7 +209,7 @@ public final class ConditionInConstantSet extends Condition {
         if (session.getDatabase().getSettings().optimizeInList) {
             TypeInfo colType = l.getType();
             if (TypeInfo.haveSameOrdering(colType, TypeInfo.getHigherType(colType, type))) {
-                filter.addIndexCondition(IndexCondition.getInList(l, valueList));
+                filter.addIndexCondition(IndexCondition.getInConstantList(l, valueList));
             }
         }
     }
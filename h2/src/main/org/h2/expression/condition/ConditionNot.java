@@ -10,6 +10,7 @@ import org.h2.expression.Expression;
 import org.h2.expression.ExpressionVisitor;
 import org.h2.expression.TypedValueExpression;
 import org.h2.expression.ValueExpression;
+import org.h2.result.RowBatch;
 import org.h2.table.ColumnResolver;
 import org.h2.table.TableFilter;
 import org.h2.value.Value;
@@ -40,6 +41,24 @@ public class ConditionNot extends Condition {
         return v.convertToBoolean().negate();
     }
 
+    @Override
+    public boolean isBatchEvaluatable(TableFilter filter) {
+        return condition.isBatchEvaluatable(filter);
+    }
+
+    @Override
+    public Value[] getValues(SessionLocal session, RowBatch batch) {
+        Value[] values = condition.getValues(session, batch);
+        Value[] result = new Value[batch.size()];
+        int[] selection = batch.getSelection();
+        for (int i = 0, count = batch.getSelectedCount(); i < count; i++) {
+            int row = selection[i];
+            Value v = values[row];
+            result[row] = v == ValueNull.INSTANCE ? v : v.convertToBoolean().negate();
+        }
+        return result;
+    }
+
     @Override
     public void mapColumns(ColumnResolver resolver, int level, int state) {
         condition.mapColumns(resolver, level, state);
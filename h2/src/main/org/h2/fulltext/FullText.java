@@ -590,6 +590,73 @@ public class FullText {
         }
     }
 
+    /**
+     * Initialize the columns, the key columns, and the indexed columns of a
+     * table with a full text index.
+     *
+     * @param conn the connection
+     * @param indexSchema the schema with the INDEXES table
+     * @param schemaName the schema name of the table
+     * @param tableName the table name
+     * @param index the index info to initialize, the id is not set if the
+     *            index is not found
+     * @return the data types of the columns
+     * @throws SQLException on failure
+     */
+    protected static int[] initIndexInfo(Connection conn, String indexSchema, String schemaName,
+            String tableName, IndexInfo index) throws SQLException {
+        DatabaseMetaData meta = conn.getMetaData();
+        ResultSet rs = meta.getColumns(null,
+                StringUtils.escapeMetaDataPattern(schemaName),
+                StringUtils.escapeMetaDataPattern(tableName),
+                null);
+        ArrayList<String> columnList = Utils.newSmallArrayList();
+        ArrayList<Integer> typeList = Utils.newSmallArrayList();
+        while (rs.next()) {
+            columnList.add(rs.getString("COLUMN_NAME"));
+            typeList.add(rs.getInt("DATA_TYPE"));
+        }
+        int[] columnTypes = new int[columnList.size()];
+        for (int i = 0; i < columnTypes.length; i++) {
+            columnTypes[i] = typeList.get(i);
+        }
+        index.schema = schemaName;
+        index.table = tableName;
+        index.columns = columnList.toArray(new String[0]);
+        ArrayList<String> keyList = Utils.newSmallArrayList();
+        rs = meta.getPrimaryKeys(null,
+                StringUtils.escapeMetaDataPattern(schemaName),
+                tableName);
+        while (rs.next()) {
+            keyList.add(rs.getString("COLUMN_NAME"));
+        }
+        if (keyList.isEmpty()) {
+            throw throwException("No primary key for table " + tableName);
+        }
+        ArrayList<String> indexList = Utils.newSmallArrayList();
+        PreparedStatement prep = conn.prepareStatement(
+                "SELECT ID, COLUMNS FROM " + indexSchema + ".INDEXES" +
+                " WHERE SCHEMA=? AND `TABLE`=?");
+        prep.setString(1, schemaName);
+        prep.setString(2, tableName);
+        rs = prep.executeQuery();
+        if (rs.next()) {
+            index.id = rs.getInt(1);
+            String columns = rs.getString(2);
+            if (columns != null) {
+                Collections.addAll(indexList, StringUtils.arraySplit(columns, ',', true));
+            }
+        }
+        if (indexList.isEmpty()) {
+            indexList.addAll(columnList);
+        }
+        index.keys = new int[keyList.size()];
+        setColumns(index.keys, keyList, columnList);
+        index.indexColumns = new int[indexList.size()];
+        setColumns(index.indexColumns, indexList, columnList);
+        return columnTypes;
+    }
+
     /**
      * Do the search.
      *
@@ -899,60 +966,8 @@ public class FullText {
             if (!setting.isInitialized()) {
                 FullText.init(conn);
             }
-            ArrayList<String> keyList = Utils.newSmallArrayList();
-            DatabaseMetaData meta = conn.getMetaData();
-            ResultSet rs = meta.getColumns(null,
-                    StringUtils.escapeMetaDataPattern(schemaName),
-                    StringUtils.escapeMetaDataPattern(tableName),
-                    null);
-            ArrayList<String> columnList = Utils.newSmallArrayList();
-            while (rs.next()) {
-                columnList.add(rs.getString("COLUMN_NAME"));
-            }
-            columnTypes = new int[columnList.size()];
             index = new IndexInfo();
-            index.schema = schemaName;
-            index.table = tableName;
-            index.columns = columnList.toArray(new String[0]);
-            rs = meta.getColumns(null,
-                    StringUtils.escapeMetaDataPattern(schemaName),
-                    StringUtils.escapeMetaDataPattern(tableName),
-                    null);
-            for (int i = 0; rs.next(); i++) {
-                columnTypes[i] = rs.getInt("DATA_TYPE");
-            }
-            if (keyList.isEmpty()) {
-                rs = meta.getPrimaryKeys(null,
-                        StringUtils.escapeMetaDataPattern(schemaName),
-                        tableName);
-                while (rs.next()) {
-                    keyList.add(rs.getString("COLUMN_NAME"));
-                }
-            }
-            if (keyList.isEmpty()) {
-                throw throwException("No primary key for table " + tableName);
-            }
-            ArrayList<String> indexList = Utils.newSmallArrayList();
-            PreparedStatement prep = conn.prepareStatement(
-                    "SELECT ID, COLUMNS FROM " + SCHEMA + ".INDEXES" +
-                    " WHERE SCHEMA=? AND `TABLE`=?");
-            prep.setString(1, schemaName);
-            prep.setString(2, tableName);
-            rs = prep.executeQuery();
-            if (rs.next()) {
-                index.id = rs.getInt(1);
-                String columns = rs.getString(2);
-                if (columns != null) {
-                    Collections.addAll(indexList, StringUtils.arraySplit(columns, ',', true));
-                }
-            }
-            if (indexList.isEmpty()) {
-                indexList.addAll(columnList);
-            }
-            index.keys = new int[keyList.size()];
-            setColumns(index.keys, keyList, columnList);
-            index.indexColumns = new int[indexList.size()];
-            setColumns(index.indexColumns, indexList, columnList);
+            columnTypes = initIndexInfo(conn, SCHEMA, schemaName, tableName, index);
             setting.addIndexInfo(index);
         }
 
@@ -0,0 +1,547 @@
+/*
+ * Copyright 2004-2022 H2 Group. Multiple-Licensed under the MPL 2.0,
+ * and the EPL 1.0 (https://h2database.com/html/license.html).
+ * Initial Developer: H2 Group
+ */
+package org.h2.fulltext;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StreamTokenizer;
+import java.sql.Clob;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.PriorityQueue;
+import java.util.StringTokenizer;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.h2.api.Trigger;
+import org.h2.engine.Session;
+import org.h2.engine.SessionLocal;
+import org.h2.jdbc.JdbcConnection;
+import org.h2.message.DbException;
+import org.h2.mvstore.MVStore;
+import org.h2.tools.SimpleResultSet;
+import org.h2.util.StringUtils;
+import org.h2.util.Utils;
+
+/**
+ * This class implements the full text search with an inverted index that is
+ * stored directly in maps of the MVStore of the database, without the
+ * bookkeeping tables and SQL statements of the native full text search.
+ * Results are ranked with the BM25 function. Most methods can be called using
+ * SQL statements as well.
+ * <p>
+ * Changes of indexed rows are collected per transaction and applied to the
+ * index when the transaction is committed, so they are visible to searches
+ * only after commit. The index maps are not transactional; if the database
+ * was not closed properly, FTM_REINDEX may be needed.
+ */
+public class FullTextMV extends FullText {
+
+    private static final String TRIGGER_PREFIX = "FTM_";
+    private static final String SCHEMA = "FTM";
+
+    /**
+     * The number of rows of existing data that are indexed in one batch.
+     */
+    private static final int INDEX_BATCH_SIZE = 1_000;
+
+    /**
+     * Initializes full text search functionality for this database. This adds
+     * the following Java functions to the database:
+     * <ul>
+     * <li>FTM_CREATE_INDEX(schemaNameString, tableNameString,
+     * columnListString)</li>
+     * <li>FTM_SEARCH(queryString, limitInt, offsetInt): result set</li>
+     * <li>FTM_REINDEX()</li>
+     * <li>FTM_DROP_ALL()</li>
+     * </ul>
+     * It also adds a schema FTM to the database where the list of indexes is
+     * stored. This function may be called from a Java application, or by using
+     * the SQL statements:
+     *
+     * <pre>
+     * CREATE ALIAS IF NOT EXISTS FTM_INIT FOR
+     *      &quot;org.h2.fulltext.FullTextMV.init&quot;;
+     * CALL FTM_INIT();
+     * </pre>
+     *
+     * @param conn the connection
+     * @throws SQLException on failure
+     */
+    public static void init(Connection conn) throws SQLException {
+        try (Statement stat = conn.createStatement()) {
+            stat.execute("CREATE SCHEMA IF NOT EXISTS " + SCHEMA);
+            stat.execute("CREATE TABLE IF NOT EXISTS " + SCHEMA +
+                    ".INDEXES(ID INT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY, " +
+                    "SCHEMA VARCHAR, `TABLE` VARCHAR, COLUMNS VARCHAR, " +
+                    "UNIQUE(SCHEMA, `TABLE`))");
+            String className = FullTextMV.class.getName();
+            stat.execute("CREATE ALIAS IF NOT EXISTS FTM_CREATE_INDEX FOR '" + className + ".createIndex'");
+            stat.execute("CREATE ALIAS IF NOT EXISTS FTM_DROP_INDEX FOR '" + className + ".dropIndex'");
+            stat.execute("CREATE ALIAS IF NOT EXISTS FTM_SEARCH FOR '" + className + ".search'");
+            stat.execute("CREATE ALIAS IF NOT EXISTS FTM_SEARCH_DATA FOR '" + className + ".searchData'");
+            stat.execute("CREATE ALIAS IF NOT EXISTS FTM_REINDEX FOR '" + className + ".reindex'");
+            stat.execute("CREATE ALIAS IF NOT EXISTS FTM_DROP_ALL FOR '" + className + ".dropAll'");
+        }
+    }
+
+    /**
+     * Create a new full text index for a table and column list. Each table may
+     * only have one index at any time.
+     *
+     * @param conn the connection
+     * @param schema the schema name of the table (case sensitive)
+     * @param table the table name (case sensitive)
+     * @param columnList the column list (null for all columns)
+     * @throws SQLException on failure
+     */
+    public static void createIndex(Connection conn, String schema,
+            String table, String columnList) throws SQLException {
+        init(conn);
+        PreparedStatement prep = conn.prepareStatement("INSERT INTO " + SCHEMA
+                + ".INDEXES(SCHEMA, `TABLE`, COLUMNS) VALUES(?, ?, ?)");
+        prep.setString(1, schema);
+        prep.setString(2, table);
+        prep.setString(3, columnList);
+        prep.execute();
+        createTrigger(conn, schema, table);
+        indexExistingRows(conn, schema, table);
+    }
+
+    /**
+     * Re-creates the full text index for this database. Calling this method is
+     * usually not needed, as the index is kept up-to-date automatically.
+     *
+     * @param conn the connection
+     * @throws SQLException on failure
+     */
+    public static void reindex(Connection conn) throws SQLException {
+        init(conn);
+        removeAllTriggers(conn, TRIGGER_PREFIX);
+        MVStore store = getStore(conn);
+        InvertedIndex.remove(store, -1);
+        Statement stat = conn.createStatement();
+        ResultSet rs = stat.executeQuery("SELECT * FROM " + SCHEMA + ".INDEXES");
+        while (rs.next()) {
+            String schema = rs.getString("SCHEMA");
+            String table = rs.getString("TABLE");
+            createTrigger(conn, schema, table);
+            indexExistingRows(conn, schema, table);
+        }
+    }
+
+    /**
+     * Drop an existing full text index for a table. This method returns
+     * silently if no index for this table exists.
+     *
+     * @param conn the connection
+     * @param schema the schema name of the table (case sensitive)
+     * @param table the table name (case sensitive)
+     * @throws SQLException on failure
+     */
+    public static void dropIndex(Connection conn, String schema, String table)
+            throws SQLException {
+        init(conn);
+        PreparedStatement prep = conn.prepareStatement("SELECT ID FROM " + SCHEMA
+                + ".INDEXES WHERE SCHEMA=? AND `TABLE`=?");
+        prep.setString(1, schema);
+        prep.setString(2, table);
+        ResultSet rs = prep.executeQuery();
+        if (!rs.next()) {
+            return;
+        }
+        int indexId = rs.getInt(1);
+        prep = conn.prepareStatement("DELETE FROM " + SCHEMA
+                + ".INDEXES WHERE ID=?");
+        prep.setInt(1, indexId);
+        prep.execute();
+        createOrDropTrigger(conn, schema, table, false);
+        InvertedIndex.remove(getStore(conn), indexId);
+    }
+
+    /**
+     * Drops all full text indexes from the database.
+     *
+     * @param conn the connection
+     * @throws SQLException on failure
+     */
+    public static void dropAll(Connection conn) throws SQLException {
+        Statement stat = conn.createStatement();
+        stat.execute("DROP SCHEMA IF EXISTS " + SCHEMA + " CASCADE");
+        removeAllTriggers(conn, TRIGGER_PREFIX);
+        InvertedIndex.remove(getStore(conn), -1);
+    }
+
+    /**
+     * Searches from the full text index for this database. A row matches if
+     * it contains at least one of the words, rows are returned by descending
+     * BM25 score. The returned result set has the following column:
+     * <ul><li>QUERY (varchar): the query to use to get the data.
+     * The query does not include 'SELECT * FROM '. Example:
+     * PUBLIC.TEST WHERE ID = 1
+     * </li><li>SCORE (float) the BM25 relevance score.
+     * </li></ul>
+     *
+     * @param conn the connection
+     * @param text the search query
+     * @param limit the maximum number of rows or 0 for no limit
+     * @param offset the offset or 0 for no offset
+     * @return the result set
+     * @throws SQLException on failure
+     */
+    public static ResultSet search(Connection conn, String text, int limit,
+            int offset) throws SQLException {
+        try {
+            return search(conn, text, limit, offset, false);
+        } catch (DbException e) {
+            throw DbException.toSQLException(e);
+        }
+    }
+
+    /**
+     * Searches from the full text index for this database. The result contains
+     * the primary key data as an array. The returned result set has the
+     * following columns:
+     * <ul>
+     * <li>SCHEMA (varchar): the schema name. Example: PUBLIC </li>
+     * <li>TABLE (varchar): the table name. Example: TEST </li>
+     * <li>COLUMNS (array of varchar): comma separated list of quoted column
+     * names. The column names are quoted if necessary. Example: (ID) </li>
+     * <li>KEYS (array of values): comma separated list of values. Example: (1)
+     * </li>
+     * <li>SCORE (float) the BM25 relevance score.</li>
+     * </ul>
+     *
+     * @param conn the connection
+     * @param text the search query
+     * @param limit the maximum number of rows or 0 for no limit
+     * @param offset the offset or 0 for no offset
+     * @return the result set
+     * @throws SQLException on failure
+     */
+    public static ResultSet searchData(Connection conn, String text, int limit,
+            int offset) throws SQLException {
+        try {
+            return search(conn, text, limit, offset, true);
+        } catch (DbException e) {
+            throw DbException.toSQLException(e);
+        }
+    }
+
+    /**
+     * Do the search.
+     *
+     * @param conn the database connection
+     * @param text the query
+     * @param limit the limit
+     * @param offset the offset
+     * @param data whether the raw data should be returned
+     * @return the result set
+     * @throws SQLException on failure
+     */
+    protected static ResultSet search(Connection conn, String text, int limit,
+            int offset, boolean data) throws SQLException {
+        SimpleResultSet result = createResultSet(data);
+        if (conn.getMetaData().getURL().startsWith("jdbc:columnlist:")) {
+            // this is just to query the result set columns
+            return result;
+        }
+        if (text == null || StringUtils.isWhitespaceOrEmpty(text)) {
+            return result;
+        }
+        if (!conn.getMetaData().getTables(null, SCHEMA, "INDEXES", null).next()) {
+            return result;
+        }
+        FullTextSettings setting = FullTextSettings.getInstance(conn);
+        InvertedIndex.Document query = new InvertedIndex.Document();
+        addTerms(setting, query, text);
+        if (query.terms.isEmpty()) {
+            return result;
+        }
+        int max = limit > 0 ? (int) Math.min((long) limit + offset, Integer.MAX_VALUE) : Integer.MAX_VALUE;
+        MVStore store = getStore(conn);
+        // the best hits of all indexes
+        Comparator<Object[]> worstFirst = (a, b) -> InvertedIndex.Hit.WORST_FIRST.compare((InvertedIndex.Hit) a[1],
+                (InvertedIndex.Hit) b[1]);
+        PriorityQueue<Object[]> top = new PriorityQueue<>(worstFirst);
+        ResultSet rs = conn.createStatement().executeQuery("SELECT ID, SCHEMA, `TABLE` FROM " + SCHEMA + ".INDEXES");
+        while (rs.next()) {
+            IndexInfo index = new IndexInfo();
+            index.id = rs.getInt(1);
+            index.schema = rs.getString(2);
+            index.table = rs.getString(3);
+            for (InvertedIndex.Hit hit : InvertedIndex.open(store, index.id).search(query.terms.keySet(), max)) {
+                top.add(new Object[] { index, hit });
+                if (top.size() > max) {
+                    top.poll();
+                }
+            }
+        }
+        Object[][] hits = top.toArray(new Object[0][]);
+        Arrays.sort(hits, worstFirst.reversed());
+        for (int i = offset, l = hits.length; i < l; i++) {
+            IndexInfo index = (IndexInfo) hits[i][0];
+            InvertedIndex.Hit hit = (InvertedIndex.Hit) hits[i][1];
+            if (data) {
+                String[][] columnData = parseKey(conn, hit.key);
+                result.addRow(index.schema, index.table, columnData[0], columnData[1], hit.score);
+            } else {
+                String q = StringUtils.quoteIdentifier(index.schema) + "." + StringUtils.quoteIdentifier(index.table)
+                        + " WHERE " + hit.key;
+                result.addRow(q, hit.score);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Add all terms in the given text to the document.
+     *
+     * @param setting the fulltext settings
+     * @param document the document
+     * @param text the text
+     */
+    static void addTerms(FullTextSettings setting, InvertedIndex.Document document, String text) {
+        StringTokenizer tokenizer = new StringTokenizer(text, setting.getWhitespaceChars());
+        while (tokenizer.hasMoreTokens()) {
+            String word = setting.convertWord(tokenizer.nextToken());
+            if (word != null) {
+                document.add(word);
+            }
+        }
+    }
+
+    private static void addTerms(FullTextSettings setting, InvertedIndex.Document document, Reader reader) {
+        StreamTokenizer tokenizer = new StreamTokenizer(reader);
+        tokenizer.resetSyntax();
+        tokenizer.wordChars(' ' + 1, 255);
+        for (char ch : setting.getWhitespaceChars().toCharArray()) {
+            tokenizer.whitespaceChars(ch, ch);
+        }
+        try {
+            while (true) {
+                int token = tokenizer.nextToken();
+                if (token == StreamTokenizer.TT_EOF) {
+                    break;
+                } else if (token == StreamTokenizer.TT_WORD) {
+                    String word = setting.convertWord(tokenizer.sval);
+                    if (word != null) {
+                        document.add(word);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw DbException.convertIOException(e, "Tokenizer error");
+        }
+    }
+
+    private static SessionLocal getSession(Connection conn) throws SQLException {
+        Session session = ((JdbcConnection) conn).getSession();
+        if (!(session instanceof SessionLocal)) {
+            throw throwException("Only embedded connections are supported");
+        }
+        return (SessionLocal) session;
+    }
+
+    private static MVStore getStore(Connection conn) throws SQLException {
+        return getSession(conn).getDatabase().getStore().getMvStore();
+    }
+
+    private static void createTrigger(Connection conn, String schema,
+            String table) throws SQLException {
+        createOrDropTrigger(conn, schema, table, true);
+    }
+
+    private static void createOrDropTrigger(Connection conn,
+            String schema, String table, boolean create) throws SQLException {
+        try (Statement stat = conn.createStatement()) {
+            String trigger = StringUtils.quoteIdentifier(schema) + "."
+                    + StringUtils.quoteIdentifier(TRIGGER_PREFIX + table);
+            stat.execute("DROP TRIGGER IF EXISTS " + trigger);
+            if (create) {
+                StringBuilder buff = new StringBuilder(
+                        "CREATE TRIGGER IF NOT EXISTS ");
+                // the trigger is also called on rollback to a savepoint,
+                // pending changes of the transaction must follow it
+                buff.append(trigger).
+                        append(" AFTER INSERT, UPDATE, DELETE, ROLLBACK ON ");
+                StringUtils.quoteIdentifier(buff, schema).
+                        append('.');
+                StringUtils.quoteIdentifier(buff, table).
+                        append(" FOR EACH ROW CALL \"").
+                        append(FullTextMV.FullTextTrigger.class.getName()).
+                        append('"');
+                stat.execute(buff.toString());
+            }
+        }
+    }
+
+    private static void indexExistingRows(Connection conn, String schema,
+            String table) throws SQLException {
+        FullTextMV.FullTextTrigger existing = new FullTextMV.FullTextTrigger();
+        existing.init(conn, schema, null, table, false, Trigger.INSERT);
+        String sql = "SELECT * FROM " + StringUtils.quoteIdentifier(schema)
+                + "." + StringUtils.quoteIdentifier(table);
+        ResultSet rs = conn.createStatement().executeQuery(sql);
+        int columnCount = rs.getMetaData().getColumnCount();
+        LinkedHashMap<String, InvertedIndex.Document> batch = new LinkedHashMap<>();
+        while (rs.next()) {
+            Object[] row = new Object[columnCount];
+            for (int i = 0; i < columnCount; i++) {
+                row[i] = rs.getObject(i + 1);
+            }
+            existing.insert(batch, row);
+            if (batch.size() >= INDEX_BATCH_SIZE) {
+                existing.invertedIndex.apply(batch);
+                batch.clear();
+            }
+        }
+        existing.invertedIndex.apply(batch);
+    }
+
+    /**
+     * Trigger collects changes of the indexed rows. The changes of a
+     * transaction are applied to the index at commit.
+     */
+    public static final class FullTextTrigger implements Trigger {
+
+        private FullTextSettings setting;
+        private IndexInfo index;
+        private int[] columnTypes;
+
+        /**
+         * The inverted index.
+         */
+        InvertedIndex invertedIndex;
+
+        /**
+         * The changes of running transactions.
+         */
+        private final ConcurrentHashMap<SessionLocal, Batch> batches = new ConcurrentHashMap<>();
+
+        /**
+         * INTERNAL
+         * @see Trigger#init(Connection, String, String, String, boolean, int)
+         */
+        @Override
+        public void init(Connection conn, String schemaName, String triggerName,
+                String tableName, boolean before, int type) throws SQLException {
+            setting = FullTextSettings.getInstance(conn);
+            index = new IndexInfo();
+            columnTypes = initIndexInfo(conn, SCHEMA, schemaName, tableName, index);
+            if (index.id == 0) {
+                throw throwException("No full text index for table " + tableName);
+            }
+            invertedIndex = InvertedIndex.open(getStore(conn), index.id);
+        }
+
+        /**
+         * INTERNAL
+         * @see Trigger#fire(Connection, Object[], Object[])
+         */
+        @Override
+        public void fire(Connection conn, Object[] oldRow, Object[] newRow)
+                throws SQLException {
+            if (oldRow != null && newRow != null && !hasChanged(oldRow, newRow, index.indexColumns)
+                    && !hasChanged(oldRow, newRow, index.keys)) {
+                return;
+            }
+            SessionLocal session = getSession(conn);
+            Batch batch = batches.get(session);
+            if (batch == null) {
+                batch = new Batch();
+                batches.put(session, batch);
+                session.addTransactionListener(batch);
+            }
+            if (oldRow != null) {
+                batch.changes.put(getKey(oldRow), null);
+            }
+            if (newRow != null) {
+                insert(batch.changes, newRow);
+            }
+        }
+
+        /**
+         * Add a row to the batch.
+         *
+         * @param changes the changes
+         * @param row the row
+         * @throws SQLException on failure
+         */
+        void insert(LinkedHashMap<String, InvertedIndex.Document> changes, Object[] row) throws SQLException {
+            InvertedIndex.Document document = new InvertedIndex.Document();
+            for (int idx : index.indexColumns) {
+                int type = columnTypes[idx];
+                Object data = row[idx];
+                if (type == Types.CLOB && data != null) {
+                    Reader reader;
+                    if (data instanceof Reader) {
+                        reader = (Reader) data;
+                    } else {
+                        reader = ((Clob) data).getCharacterStream();
+                    }
+                    addTerms(setting, document, reader);
+                } else {
+                    addTerms(setting, document, asString(data, type));
+                }
+            }
+            String key = getKey(row);
+            // keep the order of changes
+            changes.remove(key);
+            changes.put(key, document);
+        }
+
+        private String getKey(Object[] row) throws SQLException {
+            StringBuilder builder = new StringBuilder();
+            int[] keys = index.keys;
+            for (int i = 0, l = keys.length; i < l; i++) {
+                if (i > 0) {
+                    builder.append(" AND ");
+                }
+                int columnIndex = keys[i];
+                StringUtils.quoteIdentifier(builder, index.columns[columnIndex]);
+                Object o = row[columnIndex];
+                if (o == null) {
+                    builder.append(" IS NULL");
+                } else {
+                    builder.append('=').append(quoteSQL(o, columnTypes[columnIndex]));
+                }
+            }
+            return builder.toString();
+        }
+
+        /**
+         * The changes of one transaction, by key.
+         */
+        private final class Batch implements SessionLocal.TransactionListener {
+
+            final LinkedHashMap<String, InvertedIndex.Document> changes = new LinkedHashMap<>();
+
+            Batch() {
+            }
+
+            @Override
+            public void afterTransaction(SessionLocal session, boolean committed) {
+                batches.remove(session);
+                if (committed) {
+                    invertedIndex.apply(changes);
+                }
+            }
+
+        }
+
+    }
+
+}
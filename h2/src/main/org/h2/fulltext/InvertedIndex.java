@@ -0,0 +1,600 @@
+/*
+ * Copyright 2004-2022 H2 Group. Multiple-Licensed under the MPL 2.0,
+ * and the EPL 1.0 (https://h2database.com/html/license.html).
+ * Initial Developer: H2 Group
+ */
+package org.h2.fulltext;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+
+import org.h2.mvstore.Cursor;
+import org.h2.mvstore.DataUtils;
+import org.h2.mvstore.MVMap;
+import org.h2.mvstore.MVStore;
+import org.h2.mvstore.WriteBuffer;
+
+/**
+ * An inverted index of one table that is stored in maps of the MVStore of the
+ * database.
+ * <p>
+ * The posting list of a term is split into blocks of up to
+ * {@link #BLOCK_SIZE} documents. A block is stored under the key (term, id of
+ * the first document) and contains the number of documents followed by pairs
+ * of the document id delta and the term frequency, both as variable size
+ * numbers. Document ids are never reused, an updated row gets a new document
+ * id, so new documents are always appended to the last block of a term.
+ * <p>
+ * Changes are applied in batches, usually one batch per committed
+ * transaction, so each affected block is rewritten only once per batch.
+ * Batches are applied one at a time, searches don't wait for them and may see
+ * a partially applied batch.
+ */
+final class InvertedIndex {
+
+    /**
+     * The maximum number of documents in a block of a posting list.
+     */
+    static final int BLOCK_SIZE = 128;
+
+    /**
+     * The prefix of names of maps of all indexes.
+     */
+    static final String MAP_PREFIX = "fulltext.";
+
+    /**
+     * The BM25 term frequency saturation parameter.
+     */
+    private static final double K1 = 1.2;
+
+    /**
+     * The BM25 document length normalization parameter.
+     */
+    private static final double B = 0.75;
+
+    private static final String NEXT_DOCUMENT_ID = "nextDocumentId";
+
+    private static final String DOCUMENT_COUNT = "documentCount";
+
+    private static final String TOTAL_LENGTH = "totalLength";
+
+    /**
+     * The number of documents by term.
+     */
+    private final MVMap<String, Long> dictionary;
+
+    /**
+     * The blocks of posting lists by (term, first document id).
+     */
+    private final MVMap<Object[], byte[]> postings;
+
+    /**
+     * The key, length, and distinct terms of documents by document id.
+     */
+    private final MVMap<Long, Object[]> documents;
+
+    /**
+     * The document ids by key.
+     */
+    private final MVMap<String, Long> keys;
+
+    /**
+     * The document counter, the number of documents, and their total length.
+     */
+    private final MVMap<String, Long> meta;
+
+    private InvertedIndex(MVStore store, String prefix) {
+        dictionary = store.openMap(prefix + "dictionary");
+        postings = store.openMap(prefix + "postings");
+        documents = store.openMap(prefix + "documents");
+        keys = store.openMap(prefix + "keys");
+        meta = store.openMap(prefix + "meta");
+    }
+
+    /**
+     * Open the inverted index with the given id.
+     *
+     * @param store the store
+     * @param indexId the index id
+     * @return the index
+     */
+    static InvertedIndex open(MVStore store, int indexId) {
+        return new InvertedIndex(store, MAP_PREFIX + indexId + '.');
+    }
+
+    /**
+     * Remove all maps of the index with the given id.
+     *
+     * @param store the store
+     * @param indexId the index id, or -1 to remove maps of all indexes
+     */
+    static void remove(MVStore store, int indexId) {
+        String prefix = indexId < 0 ? MAP_PREFIX : MAP_PREFIX + indexId + '.';
+        for (String mapName : store.getMapNames()) {
+            if (mapName.startsWith(prefix)) {
+                store.removeMap(mapName);
+            }
+        }
+    }
+
+    /**
+     * Remove all documents.
+     */
+    void clear() {
+        synchronized (postings) {
+            dictionary.clear();
+            postings.clear();
+            documents.clear();
+            keys.clear();
+            meta.clear();
+        }
+    }
+
+    /**
+     * Get the number of documents.
+     *
+     * @return the number of documents
+     */
+    long getDocumentCount() {
+        return getMeta(DOCUMENT_COUNT);
+    }
+
+    /**
+     * Get the number of documents that contain the term.
+     *
+     * @param term the term
+     * @return the number of documents
+     */
+    long getDocumentFrequency(String term) {
+        Long df = dictionary.get(term);
+        return df == null ? 0 : df;
+    }
+
+    /**
+     * Get the number of blocks of all posting lists.
+     *
+     * @return the number of blocks
+     */
+    long getBlockCount() {
+        return postings.sizeAsLong();
+    }
+
+    /**
+     * Apply a batch of changes. A document that is already indexed under the
+     * same key is replaced.
+     *
+     * @param changes the new documents by key, null to remove a document
+     */
+    void apply(Map<String, Document> changes) {
+        if (changes.isEmpty()) {
+            return;
+        }
+        synchronized (postings) {
+            long nextDocumentId = getMeta(NEXT_DOCUMENT_ID);
+            long documentCount = getMeta(DOCUMENT_COUNT);
+            long totalLength = getMeta(TOTAL_LENGTH);
+            HashMap<String, ArrayList<Long>> removed = new HashMap<>();
+            HashMap<String, ArrayList<long[]>> added = new HashMap<>();
+            for (Map.Entry<String, Document> e : changes.entrySet()) {
+                String key = e.getKey();
+                Long old = keys.remove(key);
+                if (old != null) {
+                    Object[] info = documents.remove(old);
+                    for (String term : (String[]) info[2]) {
+                        removed.computeIfAbsent(term, t -> new ArrayList<>()).add(old);
+                    }
+                    documentCount--;
+                    totalLength -= (Integer) info[1];
+                }
+                Document document = e.getValue();
+                if (document != null) {
+                    long id = nextDocumentId++;
+                    String[] terms = new String[document.terms.size()];
+                    int i = 0;
+                    for (Map.Entry<String, int[]> t : document.terms.entrySet()) {
+                        String term = t.getKey();
+                        terms[i++] = term;
+                        added.computeIfAbsent(term, x -> new ArrayList<>()).add(new long[] { id, t.getValue()[0] });
+                    }
+                    keys.put(key, id);
+                    documents.put(id, new Object[] { key, document.length, terms });
+                    documentCount++;
+                    totalLength += document.length;
+                }
+            }
+            HashSet<String> terms = new HashSet<>(removed.keySet());
+            terms.addAll(added.keySet());
+            for (String term : terms) {
+                long df = getDocumentFrequency(term);
+                ArrayList<Long> r = removed.get(term);
+                if (r != null) {
+                    removePostings(term, r);
+                    df -= r.size();
+                }
+                ArrayList<long[]> a = added.get(term);
+                if (a != null) {
+                    appendPostings(term, a);
+                    df += a.size();
+                }
+                if (df > 0) {
+                    dictionary.put(term, df);
+                } else {
+                    dictionary.remove(term);
+                }
+            }
+            meta.put(NEXT_DOCUMENT_ID, nextDocumentId);
+            meta.put(DOCUMENT_COUNT, documentCount);
+            meta.put(TOTAL_LENGTH, totalLength);
+        }
+    }
+
+    private long getMeta(String key) {
+        Long value = meta.get(key);
+        return value == null ? 0 : value;
+    }
+
+    private void removePostings(String term, ArrayList<Long> ids) {
+        ids.sort(null);
+        for (int i = 0, size = ids.size(); i < size;) {
+            Object[] blockKey = postings.floorKey(new Object[] { term, ids.get(i) });
+            if (blockKey == null || !term.equals(blockKey[0])) {
+                // not indexed
+                i++;
+                continue;
+            }
+            long first = (Long) blockKey[1];
+            long[] block = decode(first, postings.get(blockKey));
+            // remove all ids that belong to this block
+            Object[] nextKey = postings.higherKey(blockKey);
+            long limit = nextKey != null && term.equals(nextKey[0]) ? (Long) nextKey[1] : Long.MAX_VALUE;
+            int count = block.length / 2, newCount = 0;
+            for (int j = 0; j < count; j++) {
+                long id = block[j * 2];
+                while (i < size && ids.get(i) < id) {
+                    i++;
+                }
+                if (i < size && ids.get(i) == id) {
+                    i++;
+                } else {
+                    block[newCount * 2] = id;
+                    block[newCount * 2 + 1] = block[j * 2 + 1];
+                    newCount++;
+                }
+            }
+            while (i < size && ids.get(i) < limit) {
+                i++;
+            }
+            postings.remove(blockKey);
+            if (newCount > 0) {
+                postings.put(new Object[] { term, block[0] }, encode(block, 0, newCount));
+            }
+        }
+    }
+
+    private void appendPostings(String term, ArrayList<long[]> list) {
+        int size = list.size();
+        long[] block;
+        int count;
+        Object[] lastKey = postings.floorKey(new Object[] { term, Long.MAX_VALUE });
+        if (lastKey != null && term.equals(lastKey[0])) {
+            long[] last = decode((Long) lastKey[1], postings.get(lastKey));
+            count = last.length / 2;
+            if (count < BLOCK_SIZE) {
+                block = Arrays.copyOf(last, (count + size) * 2);
+            } else {
+                block = new long[size * 2];
+                count = 0;
+                lastKey = null;
+            }
+        } else {
+            block = new long[size * 2];
+            count = 0;
+            lastKey = null;
+        }
+        for (long[] posting : list) {
+            block[count * 2] = posting[0];
+            block[count * 2 + 1] = posting[1];
+            count++;
+        }
+        if (lastKey != null) {
+            postings.remove(lastKey);
+        }
+        for (int start = 0; start < count; start += BLOCK_SIZE) {
+            int n = Math.min(BLOCK_SIZE, count - start);
+            postings.put(new Object[] { term, block[start * 2] }, encode(block, start, n));
+        }
+    }
+
+    private static byte[] encode(long[] block, int start, int count) {
+        WriteBuffer buff = new WriteBuffer(count * 4 + 5);
+        buff.putVarInt(count);
+        long last = block[start * 2];
+        for (int i = start, end = start + count; i < end; i++) {
+            long id = block[i * 2];
+            buff.putVarLong(id - last).putVarInt((int) block[i * 2 + 1]);
+            last = id;
+        }
+        ByteBuffer b = buff.getBuffer();
+        b.flip();
+        byte[] data = new byte[b.remaining()];
+        b.get(data);
+        return data;
+    }
+
+    private static long[] decode(long first, byte[] data) {
+        ByteBuffer buff = ByteBuffer.wrap(data);
+        int count = DataUtils.readVarInt(buff);
+        long[] block = new long[count * 2];
+        long id = first;
+        for (int i = 0; i < count; i++) {
+            id += DataUtils.readVarLong(buff);
+            block[i * 2] = id;
+            block[i * 2 + 1] = DataUtils.readVarInt(buff);
+        }
+        return block;
+    }
+
+    /**
+     * Find the documents with the highest BM25 score for the given terms. A
+     * document matches if it contains at least one of the terms. Only the best
+     * documents are kept, and posting lists of terms that can't move a
+     * document into them any more are only probed instead of scanned (MaxScore
+     * pruning).
+     *
+     * @param terms the distinct query terms
+     * @param limit the maximum number of documents to return
+     * @return the documents, best first
+     */
+    Hit[] search(Iterable<String> terms, int limit) {
+        long documentCount = getDocumentCount();
+        if (documentCount <= 0 || limit <= 0) {
+            return new Hit[0];
+        }
+        double averageLength = Math.max(1d, (double) getMeta(TOTAL_LENGTH) / documentCount);
+        ArrayList<PostingCursor> list = new ArrayList<>();
+        for (String term : terms) {
+            long df = getDocumentFrequency(term);
+            if (df > 0) {
+                double idf = Math.log(1 + (documentCount - df + 0.5) / (df + 0.5));
+                PostingCursor c = new PostingCursor(term, idf);
+                c.next();
+                if (c.docId >= 0) {
+                    list.add(c);
+                }
+            }
+        }
+        int n = list.size();
+        if (n == 0) {
+            return new Hit[0];
+        }
+        // ascending by the maximum score
+        PostingCursor[] cursors = list.toArray(new PostingCursor[0]);
+        Arrays.sort(cursors, Comparator.comparingDouble(c -> c.maxScore));
+        double[] bounds = new double[n];
+        double sum = 0;
+        for (int i = 0; i < n; i++) {
+            sum += cursors[i].maxScore;
+            bounds[i] = sum;
+        }
+        PriorityQueue<Hit> top = new PriorityQueue<>(Hit.WORST_FIRST);
+        double threshold = 0;
+        // cursors before this position are not essential: their total score
+        // can't exceed the threshold
+        int essential = 0;
+        while (true) {
+            long candidate = Long.MAX_VALUE;
+            for (int i = essential; i < n; i++) {
+                long id = cursors[i].docId;
+                if (id >= 0 && id < candidate) {
+                    candidate = id;
+                }
+            }
+            if (candidate == Long.MAX_VALUE) {
+                break;
+            }
+            Object[] info = documents.get(candidate);
+            double lengthNorm = K1 * (1 - B + B * (info == null ? 0 : (Integer) info[1]) / averageLength);
+            double score = 0;
+            for (int i = essential; i < n; i++) {
+                PostingCursor c = cursors[i];
+                if (c.docId == candidate) {
+                    score += c.score(lengthNorm);
+                    c.next();
+                }
+            }
+            for (int i = essential - 1; i >= 0 && score + bounds[i] > threshold; i--) {
+                PostingCursor c = cursors[i];
+                c.advance(candidate);
+                if (c.docId == candidate) {
+                    score += c.score(lengthNorm);
+                }
+            }
+            if (info == null) {
+                continue;
+            }
+            if (top.size() < limit) {
+                top.add(new Hit((String) info[0], candidate, score));
+            } else if (score > threshold) {
+                top.poll();
+                top.add(new Hit((String) info[0], candidate, score));
+            } else {
+                continue;
+            }
+            if (top.size() == limit) {
+                threshold = top.peek().score;
+                while (essential < n && bounds[essential] <= threshold) {
+                    essential++;
+                }
+            }
+        }
+        Hit[] hits = top.toArray(new Hit[0]);
+        Arrays.sort(hits, Hit.WORST_FIRST.reversed());
+        return hits;
+    }
+
+    /**
+     * The terms of a document.
+     */
+    static final class Document {
+
+        /**
+         * The frequency by term.
+         */
+        final HashMap<String, int[]> terms = new HashMap<>();
+
+        /**
+         * The number of terms.
+         */
+        int length;
+
+        /**
+         * Add a term.
+         *
+         * @param term the term
+         */
+        void add(String term) {
+            int[] tf = terms.get(term);
+            if (tf == null) {
+                terms.put(term, new int[] { 1 });
+            } else {
+                tf[0]++;
+            }
+            length++;
+        }
+
+    }
+
+    /**
+     * A search result.
+     */
+    static final class Hit {
+
+        /**
+         * Orders hits by score, then by document id, the worst first.
+         */
+        static final Comparator<Hit> WORST_FIRST = (a, b) -> {
+            int c = Double.compare(a.score, b.score);
+            return c != 0 ? c : Long.compare(b.docId, a.docId);
+        };
+
+        /**
+         * The key of the row.
+         */
+        final String key;
+
+        /**
+         * The document id.
+         */
+        final long docId;
+
+        /**
+         * The BM25 score.
+         */
+        final double score;
+
+        Hit(String key, long docId, double score) {
+            this.key = key;
+            this.docId = docId;
+            this.score = score;
+        }
+
+    }
+
+    /**
+     * Iterates over the posting list of a term.
+     */
+    private final class PostingCursor {
+
+        final String term;
+
+        final double idf;
+
+        /**
+         * The upper bound of the score of this term.
+         */
+        final double maxScore;
+
+        /**
+         * The current document id, or -1 if there are no more documents.
+         */
+        long docId = -1;
+
+        private int tf;
+
+        private Cursor<Object[], byte[]> blocks;
+
+        private long[] block;
+
+        private int position;
+
+        PostingCursor(String term, double idf) {
+            this.term = term;
+            this.idf = idf;
+            maxScore = idf * (K1 + 1);
+        }
+
+        double score(double lengthNorm) {
+            return idf * tf * (K1 + 1) / (tf + lengthNorm);
+        }
+
+        void next() {
+            while (block == null || position >= block.length) {
+                if (blocks == null) {
+                    blocks = postings.cursor(new Object[] { term, 0L });
+                }
+                if (!nextBlock()) {
+                    return;
+                }
+            }
+            docId = block[position];
+            tf = (int) block[position + 1];
+            position += 2;
+        }
+
+        /**
+         * Move to the first document with an id larger or equal to the
+         * target. Blocks that end before the target are not decoded.
+         *
+         * @param target the document id
+         */
+        void advance(long target) {
+            if (docId < 0 || docId >= target) {
+                return;
+            }
+            if (block == null || block[block.length - 2] < target) {
+                Object[] key = postings.floorKey(new Object[] { term, target });
+                blocks = postings.cursor(key);
+                if (!nextBlock()) {
+                    return;
+                }
+            }
+            do {
+                next();
+            } while (docId >= 0 && docId < target);
+        }
+
+        private boolean nextBlock() {
+            if (!blocks.hasNext()) {
+                docId = -1;
+                return false;
+            }
+            Object[] key = blocks.next();
+            if (!term.equals(key[0])) {
+                docId = -1;
+                return false;
+            }
+            block = decode((Long) key[1], blocks.getValue());
+            position = 0;
+            return true;
+        }
+
+    }
+
+}
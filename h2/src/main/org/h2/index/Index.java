@@ -13,6 +13,8 @@ import org.h2.command.query.AllColumnsForPlan;
 import org.h2.engine.Constants;
 import org.h2.engine.DbObject;
 import org.h2.engine.SessionLocal;
+import org.h2.expression.Expression;
+import org.h2.expression.condition.Comparison;
 import org.h2.message.DbException;
 import org.h2.message.Trace;
 import org.h2.result.Row;
@@ -21,6 +23,7 @@ import org.h2.result.SearchRow;
 import org.h2.result.SortOrder;
 import org.h2.schema.SchemaObject;
 import org.h2.table.Column;
+import org.h2.table.ColumnStatistics;
 import org.h2.table.IndexColumn;
 import org.h2.table.Table;
 import org.h2.table.TableFilter;
@@ -543,6 +546,122 @@ public abstract class Index extends SchemaObject {
         return builder;
     }
 
+    /**
+     * Estimates the fraction of rows that match equality or IN conditions on
+     * the specified column using statistics of the column.
+     *
+     * @param tableFilter the table filter
+     * @param column the column
+     * @return the fraction of rows, or a negative value if it cannot be
+     *         estimated
+     */
+    private static double getEqualityFraction(TableFilter tableFilter, Column column) {
+        ColumnStatistics statistics = column.getStatistics();
+        if (statistics == null) {
+            return -1d;
+        }
+        SessionLocal session = tableFilter.getSession();
+        double result = -1d;
+        try {
+            for (IndexCondition condition : tableFilter.getIndexConditions()) {
+                if (condition.getColumn() != column || !condition.isEvaluatable()) {
+                    continue;
+                }
+                double f;
+                switch (condition.getCompareType()) {
+                case Comparison.EQUAL:
+                case Comparison.EQUAL_NULL_SAFE:
+                    f = getEqualityFraction(session, statistics, condition.getExpression());
+                    break;
+                case Comparison.IN_LIST:
+                    f = 0d;
+                    for (Expression e : condition.getExpressionList()) {
+                        f += getEqualityFraction(session, statistics, e);
+                    }
+                    f = Math.min(f, 1d);
+                    break;
+                default:
+                    continue;
+                }
+                result = result < 0d ? f : Math.min(result, f);
+            }
+        } catch (DbException e) {
+            return -1d;
+        }
+        return result;
+    }
+
+    private static double getEqualityFraction(SessionLocal session, ColumnStatistics statistics,
+            Expression expression) {
+        // values of parameters and columns of other tables are unknown
+        return expression.isConstant() ? statistics.getEqualFraction(session, expression.getValue(session))
+                : statistics.getJoinFraction();
+    }
+
+    /**
+     * Estimates the fraction of rows that match range conditions on the
+     * specified column using statistics of the column.
+     *
+     * @param tableFilter the table filter
+     * @param column the column
+     * @return the fraction of rows, or a negative value if it cannot be
+     *         estimated
+     */
+    private static double getRangeFraction(TableFilter tableFilter, Column column) {
+        ColumnStatistics statistics = column.getStatistics();
+        if (statistics == null) {
+            return -1d;
+        }
+        SessionLocal session = tableFilter.getSession();
+        double nonNull = statistics.getNonNullFraction();
+        double lowFraction = nonNull, highFraction = nonNull;
+        boolean found = false;
+        try {
+            for (IndexCondition condition : tableFilter.getIndexConditions()) {
+                if (condition.getColumn() != column || !condition.isEvaluatable()) {
+                    continue;
+                }
+                boolean low;
+                switch (condition.getCompareType()) {
+                case Comparison.BIGGER:
+                case Comparison.BIGGER_EQUAL:
+                    low = true;
+                    break;
+                case Comparison.SMALLER:
+                case Comparison.SMALLER_EQUAL:
+                    low = false;
+                    break;
+                default:
+                    continue;
+                }
+                Expression expression = condition.getExpression();
+                if (!expression.isConstant()) {
+                    return -1d;
+                }
+                Value v = expression.getValue(session);
+                double f = low ? statistics.getRangeFraction(session, v, null)
+                        : statistics.getRangeFraction(session, null, v);
+                if (f < 0d) {
+                    return -1d;
+                }
+                found = true;
+                if (low) {
+                    lowFraction = Math.min(lowFraction, f);
+                } else {
+                    highFraction = Math.min(highFraction, f);
+                }
+            }
+        } catch (DbException e) {
+            return -1d;
+        }
+        if (!found) {
+            return -1d;
+        }
+        // non-null rows above the lower bound without rows above the upper
+        // bound
+        return Math.max(lowFraction + highFraction - nonNull, 0d);
+    }
+
     /**
      * Calculate the cost for the given mask as if this index was a typical
      * b-tree range index. This is the estimated cost required to search one
@@ -566,6 +685,10 @@ public abstract class Index extends SchemaObject {
         if (masks != null) {
             int i = 0, len = columns.length;
             boolean tryAdditional = false;
+            TableFilter tableFilter = filters == null ? null : filters[filter];
+            // fraction of rows estimated from column statistics, or a negative
+            // value if statistics aren't available for some column
+            double fraction = tableFilter != null ? 1d : -1d;
             while (i < len) {
                 Column column = columns[i++];
                 int index = column.getColumnId();
@@ -577,21 +700,32 @@ public abstract class Index extends SchemaObject {
                     }
                     totalSelectivity = 100 - ((100 - totalSelectivity) *
                             (100 - column.getSelectivity()) / 100);
-                    long distinctRows = rowCount * totalSelectivity / 100;
-                    if (distinctRows <= 0) {
-                        distinctRows = 1;
+                    if (fraction >= 0d) {
+                        double f = getEqualityFraction(tableFilter, column);
+                        fraction = f >= 0d ? fraction * f : -1d;
+                    }
+                    if (fraction >= 0d) {
+                        rowsCost = 2 + Math.max((long) (rowCount * fraction), 1);
+                    } else {
+                        long distinctRows = rowCount * totalSelectivity / 100;
+                        if (distinctRows <= 0) {
+                            distinctRows = 1;
+                        }
+                        rowsCost = 2 + Math.max(rowCount / distinctRows, 1);
+                    }
+                } else if ((mask & (IndexCondition.START | IndexCondition.END)) != 0) {
+                    double f = tableFilter != null ? getRangeFraction(tableFilter, column) : -1d;
+                    if (f >= 0d) {
+                        // an additional used column never makes the cost
+                        // higher
+                        rowsCost = Math.max((long) (rowsCost * f) - 1, 1);
+                    } else if ((mask & IndexCondition.RANGE) == IndexCondition.RANGE) {
+                        rowsCost = 2 + rowsCost / 4;
+                    } else if ((mask & IndexCondition.START) == IndexCondition.START) {
+                        rowsCost = 2 + rowsCost / 3;
+                    } else {
+                        rowsCost = rowsCost / 3;
                     }
-                    rowsCost = 2 + Math.max(rowCount / distinctRows, 1);
-                } else if ((mask & IndexCondition.RANGE) == IndexCondition.RANGE) {
-                    rowsCost = 2 + rowsCost / 4;
-                    tryAdditional = true;
-                    break;
-                } else if ((mask & IndexCondition.START) == IndexCondition.START) {
-                    rowsCost = 2 + rowsCost / 3;
-                    tryAdditional = true;
-                    break;
-                } else if ((mask & IndexCondition.END) == IndexCondition.END) {
-                    rowsCost = rowsCost / 3;
                     tryAdditional = true;
                     break;
                 } else {
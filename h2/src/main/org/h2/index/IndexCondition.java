@@ -8,7 +8,6 @@ package org.h2.index;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
-import java.util.TreeSet;
 
 import org.h2.command.query.Query;
 import org.h2.engine.SessionLocal;
@@ -20,6 +19,7 @@ import org.h2.message.DbException;
 import org.h2.result.ResultInterface;
 import org.h2.table.Column;
 import org.h2.table.TableType;
+import org.h2.value.CompareMode;
 import org.h2.value.Value;
 
 /**
@@ -73,6 +73,22 @@ public class IndexCondition {
     private List<Expression> expressionList;
     private Query expressionQuery;
 
+    /**
+     * Whether the expression list contains only constants.
+     */
+    private boolean constantList;
+
+    /**
+     * Sorted distinct values of the list of constants, or {@code null}.
+     */
+    private Value[] constantValueList;
+
+    /**
+     * Columns of a row value comparison, the first column is the
+     * {@link #column}.
+     */
+    private Column[] rowColumns;
+
     /**
      * @param compareType the comparison type, see constants in
      *            {@link Comparison}
@@ -114,6 +130,21 @@ public class IndexCondition {
         return cond;
     }
 
+    /**
+     * Create an index condition with the compare type IN_LIST and with the
+     * given list of constants. Sorted values of the list are computed only
+     * once.
+     *
+     * @param column the column
+     * @param list the list of constant expressions
+     * @return the index condition
+     */
+    public static IndexCondition getInConstantList(ExpressionColumn column, List<Expression> list) {
+        IndexCondition cond = getInList(column, list);
+        cond.constantList = true;
+        return cond;
+    }
+
     /**
      * Create an index condition with the compare type IN_QUERY and with the
      * given parameters.
@@ -129,6 +160,31 @@ public class IndexCondition {
         return cond;
     }
 
+    /**
+     * Create an index condition for a row value comparison such as
+     * {@code (A, B) > (?, ?)}. The condition is used as a range condition on
+     * the first column. If an index starts with the same columns, the other
+     * values are used as a part of the search row.
+     *
+     * @param compareType the comparison type, one of BIGGER, BIGGER_EQUAL,
+     *            SMALLER, or SMALLER_EQUAL
+     * @param columns the columns
+     * @param list the expressions with values to compare columns with
+     * @return the index condition
+     */
+    public static IndexCondition getRowValue(int compareType, ExpressionColumn[] columns,
+            List<Expression> list) {
+        IndexCondition cond = new IndexCondition(compareType, columns[0], list.get(0));
+        int length = columns.length;
+        Column[] rowColumns = new Column[length];
+        for (int i = 0; i < length; i++) {
+            rowColumns[i] = columns[i].getColumn();
+        }
+        cond.rowColumns = rowColumns;
+        cond.expressionList = list;
+        return cond;
+    }
+
     /**
      * Get the current value of the expression.
      *
@@ -147,14 +203,31 @@ public class IndexCondition {
      * @return the value list
      */
     public Value[] getCurrentValueList(SessionLocal session) {
-        TreeSet<Value> valueSet = new TreeSet<>(session.getDatabase().getCompareMode());
-        for (Expression e : expressionList) {
-            Value v = e.getValue(session);
-            v = column.convert(session, v);
-            valueSet.add(v);
+        Value[] array = constantValueList;
+        if (array != null) {
+            return array;
+        }
+        int size = expressionList.size();
+        array = new Value[size];
+        for (int i = 0; i < size; i++) {
+            array[i] = column.convert(session, expressionList.get(i).getValue(session));
+        }
+        CompareMode compareMode = session.getDatabase().getCompareMode();
+        Arrays.sort(array, compareMode);
+        int count = size > 0 ? 1 : 0;
+        for (int i = 1; i < size; i++) {
+            Value v = array[i];
+            if (compareMode.compare(v, array[count - 1]) != 0) {
+                array[count++] = v;
+            }
+        }
+        if (count < size) {
+            array = Arrays.copyOf(array, count);
+        }
+        if (constantList) {
+            // large lists of constants are sorted only once
+            constantValueList = array;
         }
-        Value[] array = valueSet.toArray(new Value[valueSet.size()]);
-        Arrays.sort(array, session.getDatabase().getCompareMode());
         return array;
     }
 
@@ -162,9 +235,11 @@ public class IndexCondition {
      * Get the current result of the expression. The rows may not be of the same
      * type, therefore the rows may not be unique.
      *
+     * @param session the session
      * @return the result
      */
-    public ResultInterface getCurrentResult() {
+    public ResultInterface getCurrentResult(SessionLocal session) {
+        expressionQuery.setSession(session);
         return expressionQuery.query(0);
     }
 
@@ -179,7 +254,18 @@ public class IndexCondition {
             return "FALSE";
         }
         StringBuilder builder = new StringBuilder();
-        column.getSQL(builder, sqlFlags);
+        if (rowColumns != null) {
+            builder.append('(');
+            for (int i = 0, l = rowColumns.length; i < l; i++) {
+                if (i > 0) {
+                    builder.append(", ");
+                }
+                rowColumns[i].getSQL(builder, sqlFlags);
+            }
+            builder.append(')');
+        } else {
+            column.getSQL(builder, sqlFlags);
+        }
         switch (compareType) {
         case Comparison.EQUAL:
             builder.append(" = ");
@@ -216,7 +302,9 @@ public class IndexCondition {
         default:
             throw DbException.getInternalError("type=" + compareType);
         }
-        if (expression != null) {
+        if (rowColumns != null) {
+            Expression.writeExpressions(builder.append('('), expressionList, sqlFlags).append(')');
+        } else if (expression != null) {
             expression.getSQL(builder, sqlFlags, Expression.AUTO_PARENTHESES);
         }
         return builder.toString();
@@ -355,6 +443,16 @@ public class IndexCondition {
         return expressionList;
     }
 
+    /**
+     * Get the columns of a row value comparison.
+     *
+     * @return the columns, or {@code null} if this is not a row value
+     *         comparison
+     */
+    public Column[] getRowColumns() {
+        return rowColumns;
+    }
+
     /**
      * Get expression query.
      *
@@ -370,7 +468,7 @@ public class IndexCondition {
      * @return true if it can be evaluated
      */
     public boolean isEvaluatable() {
-        if (expression != null) {
+        if (expression != null && rowColumns == null) {
             return expression
                     .isEverything(ExpressionVisitor.EVALUATABLE_VISITOR);
         }
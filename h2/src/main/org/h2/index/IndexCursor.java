@@ -6,8 +6,10 @@
 package org.h2.index;
 
 import java.util.ArrayList;
+import java.util.List;
 
 import org.h2.engine.SessionLocal;
+import org.h2.expression.Expression;
 import org.h2.expression.condition.Comparison;
 import org.h2.message.DbException;
 import org.h2.result.ResultInterface;
@@ -100,7 +102,7 @@ public class IndexCursor implements Cursor {
                 if (start == null && end == null) {
                     if (canUseIndexForIn(column)) {
                         this.inColumn = column;
-                        inResult = condition.getCurrentResult();
+                        inResult = condition.getCurrentResult(s);
                     }
                 }
             } else {
@@ -140,6 +142,56 @@ public class IndexCursor implements Cursor {
         }
         if (inColumn != null) {
             start = table.getTemplateRow();
+        } else if (!alwaysFalse && index != null && !index.isFindUsingFullTableScan()) {
+            for (IndexCondition condition : indexConditions) {
+                Column[] rowColumns = condition.getRowColumns();
+                if (rowColumns != null) {
+                    addRowValue(condition, rowColumns);
+                }
+            }
+        }
+    }
+
+    /**
+     * Adds remaining values of a row value comparison to the search row if
+     * the index starts with the same columns sorted in the same direction and
+     * the first value was used as a bound.
+     *
+     * @param condition the row value comparison
+     * @param rowColumns the columns of the comparison
+     */
+    private void addRowValue(IndexCondition condition, Column[] rowColumns) {
+        IndexColumn[] idxCols = index.getIndexColumns();
+        if (idxCols == null || idxCols.length < 2 || idxCols[0].column != rowColumns[0]) {
+            return;
+        }
+        int sortType = idxCols[0].sortType & SortOrder.DESCENDING;
+        boolean isStart = condition.isStart() == (sortType == 0);
+        SearchRow row = isStart ? start : end;
+        int firstId = rowColumns[0].getColumnId();
+        if (row == null || firstId == SearchRow.ROWID_INDEX) {
+            return;
+        }
+        List<Expression> list = condition.getExpressionList();
+        Value first = row.getValue(firstId);
+        if (first == null || first == ValueNull.INSTANCE
+                || session.compare(first, list.get(0).getValue(session)) != 0) {
+            // another condition is more selective
+            return;
+        }
+        for (int i = 1, l = Math.min(rowColumns.length, idxCols.length); i < l; i++) {
+            IndexColumn idxCol = idxCols[i];
+            Column column = rowColumns[i];
+            int columnId = column.getColumnId();
+            if (idxCol.column != column || (idxCol.sortType & SortOrder.DESCENDING) != sortType
+                    || columnId == SearchRow.ROWID_INDEX || row.getValue(columnId) != null) {
+                break;
+            }
+            Value v = list.get(i).getValue(session);
+            if (v == ValueNull.INSTANCE) {
+                break;
+            }
+            row.setValue(columnId, v);
         }
     }
 
@@ -29,6 +29,7 @@ import java.util.HashMap;
 
 import org.h2.api.ErrorCode;
 import org.h2.command.CommandInterface;
+import org.h2.engine.GeneratedKeysMode;
 import org.h2.expression.ParameterInterface;
 import org.h2.message.DbException;
 import org.h2.message.TraceObject;
@@ -125,6 +126,7 @@ public class JdbcPreparedStatement extends JdbcStatement implements PreparedStat
                 boolean updatable = resultSetConcurrency == ResultSet.CONCUR_UPDATABLE;
                 try {
                     setExecutingStatement(command);
+                    command.setFetchSize(getRequestedFetchSize(scrollable, updatable));
                     result = command.executeQuery(maxRows, scrollable);
                     lazy = result.isLazy();
                 } finally {
@@ -245,6 +247,7 @@ public class JdbcPreparedStatement extends JdbcStatement implements PreparedStat
                         returnsResultSet = true;
                         boolean scrollable = resultSetType != ResultSet.TYPE_FORWARD_ONLY;
                         boolean updatable = resultSetConcurrency == ResultSet.CONCUR_UPDATABLE;
+                        command.setFetchSize(getRequestedFetchSize(scrollable, updatable));
                         ResultInterface result = command.executeQuery(maxRows, scrollable);
                         lazy = result.isLazy();
                         resultSet = new JdbcResultSet(conn, this, command, result, id, scrollable, updatable,
@@ -1255,15 +1258,15 @@ public class JdbcPreparedStatement extends JdbcStatement implements PreparedStat
                 batchParameters = new ArrayList<>();
             }
             batchIdentities = new MergedResult();
-            int size = batchParameters.size();
-            int[] result = new int[size];
             SQLException exception = new SQLException();
             checkClosed();
+            long[] updateCounts = executeBatchInternal(exception);
+            int size = updateCounts.length;
+            int[] result = new int[size];
             for (int i = 0; i < size; i++) {
-                long updateCount = executeBatchElement(batchParameters.get(i), exception);
+                long updateCount = updateCounts[i];
                 result[i] = updateCount <= Integer.MAX_VALUE ? (int) updateCount : SUCCESS_NO_INFO;
             }
-            batchParameters = null;
             exception = exception.getNextException();
             if (exception != null) {
                 throw new JdbcBatchUpdateException(exception, result);
@@ -1289,14 +1292,9 @@ public class JdbcPreparedStatement extends JdbcStatement implements PreparedStat
                 batchParameters = new ArrayList<>();
             }
             batchIdentities = new MergedResult();
-            int size = batchParameters.size();
-            long[] result = new long[size];
             SQLException exception = new SQLException();
             checkClosed();
-            for (int i = 0; i < size; i++) {
-                result[i] = executeBatchElement(batchParameters.get(i), exception);
-            }
-            batchParameters = null;
+            long[] result = executeBatchInternal(exception);
             exception = exception.getNextException();
             if (exception != null) {
                 throw new JdbcBatchUpdateException(exception, result);
@@ -1307,6 +1305,35 @@ public class JdbcPreparedStatement extends JdbcStatement implements PreparedStat
         }
     }
 
+    private long[] executeBatchInternal(SQLException exception) {
+        int size = batchParameters.size();
+        long[] result;
+        if (GeneratedKeysMode.valueOf(generatedKeysRequest) == GeneratedKeysMode.NONE) {
+            // There are no generated keys to collect, so the whole batch is
+            // passed to the command (a single round trip in server mode)
+            closeOldResultSet();
+            ArrayList<DbException> exceptions = Utils.newSmallArrayList();
+            synchronized (session) {
+                try {
+                    setExecutingStatement(command);
+                    result = command.executeBatchUpdate(batchParameters, exceptions);
+                } finally {
+                    setExecutingStatement(null);
+                }
+            }
+            for (DbException e : exceptions) {
+                exception.setNextException(logAndConvert(e));
+            }
+        } else {
+            result = new long[size];
+            for (int i = 0; i < size; i++) {
+                result[i] = executeBatchElement(batchParameters.get(i), exception);
+            }
+        }
+        batchParameters = null;
+        return result;
+    }
+
     private long executeBatchElement(Value[] set, SQLException exception) {
         ArrayList<? extends ParameterInterface> parameters = command.getParameters();
         for (int i = 0, l = set.length; i < l; i++) {
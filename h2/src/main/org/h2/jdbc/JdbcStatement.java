@@ -52,6 +52,7 @@ public class JdbcStatement extends TraceObject implements Statement, JdbcStateme
     protected JdbcResultSet resultSet;
     protected long maxRows;
     protected int fetchSize = SysProperties.SERVER_RESULT_SET_FETCH_SIZE;
+    private boolean fetchSizeRequested;
     protected long updateCount;
     protected JdbcResultSet generatedKeys;
     protected final int resultSetType;
@@ -96,6 +97,7 @@ public class JdbcStatement extends TraceObject implements Statement, JdbcStateme
                 boolean updatable = resultSetConcurrency == ResultSet.CONCUR_UPDATABLE;
                 setExecutingStatement(command);
                 try {
+                    command.setFetchSize(getRequestedFetchSize(scrollable, updatable));
                     result = command.executeQuery(maxRows, scrollable);
                     lazy = result.isLazy();
                 } finally {
@@ -244,6 +246,7 @@ public class JdbcStatement extends TraceObject implements Statement, JdbcStateme
                     returnsResultSet = true;
                     boolean scrollable = resultSetType != ResultSet.TYPE_FORWARD_ONLY;
                     boolean updatable = resultSetConcurrency == ResultSet.CONCUR_UPDATABLE;
+                    command.setFetchSize(getRequestedFetchSize(scrollable, updatable));
                     ResultInterface result = command.executeQuery(maxRows, scrollable);
                     lazy = result.isLazy();
                     resultSet = new JdbcResultSet(conn, this, command, result, id, scrollable, updatable, false);
@@ -527,7 +530,9 @@ public class JdbcStatement extends TraceObject implements Statement, JdbcStateme
      * set by the statement or prepared statement, otherwise an exception
      * is throws. Setting the value to 0 will set the default value.
      * The default value can be changed using the system property
-     * h2.serverResultSetFetchSize.
+     * h2.serverResultSetFetchSize. Forward-only read-only queries of a
+     * statement with an explicitly set fetch size are executed lazily, rows
+     * are produced and sent to the client only when they are fetched.
      *
      * @param rows the number of rows
      * @throws SQLException if this object is closed
@@ -540,6 +545,7 @@ public class JdbcStatement extends TraceObject implements Statement, JdbcStateme
             if (rows < 0 || (rows > 0 && maxRows > 0 && rows > maxRows)) {
                 throw DbException.getInvalidValueException("rows", rows);
             }
+            fetchSizeRequested = rows != 0;
             if (rows == 0) {
                 rows = SysProperties.SERVER_RESULT_SET_FETCH_SIZE;
             }
@@ -549,6 +555,18 @@ public class JdbcStatement extends TraceObject implements Statement, JdbcStateme
         }
     }
 
+    /**
+     * Returns the fetch size to pass to a query command.
+     *
+     * @param scrollable whether the result set is scrollable
+     * @param updatable whether the result set is updatable
+     * @return the fetch size set by the application, or 0 if it was not set
+     *         or the query can't be executed lazily
+     */
+    int getRequestedFetchSize(boolean scrollable, boolean updatable) {
+        return fetchSizeRequested && !scrollable && !updatable ? fetchSize : 0;
+    }
+
     /**
      * Gets the number of rows suggested to read in one step.
      *
@@ -167,6 +167,22 @@ public class DatabaseInfo implements DatabaseInfoMBean {
         return 0;
     }
 
+    @Override
+    public int getOffHeapCacheSizeMax() {
+        if (database.isPersistent()) {
+            return database.getStore().getMvStore().getOffHeapCacheSize() * 1024;
+        }
+        return 0;
+    }
+
+    @Override
+    public int getOffHeapCacheHitRatio() {
+        if (database.isPersistent()) {
+            return database.getStore().getMvStore().getOffHeapCacheHitRatio();
+        }
+        return 0;
+    }
+
     @Override
     public String getVersion() {
         return Constants.FULL_VERSION;
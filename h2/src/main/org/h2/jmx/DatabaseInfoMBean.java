@@ -77,6 +77,20 @@ public interface DatabaseInfoMBean {
      */
     int getCacheSize();
 
+    /**
+     * The maximum size of the off-heap page cache in KB.
+     *
+     * @return the maximum size, or 0 if this cache is not used
+     */
+    int getOffHeapCacheSizeMax();
+
+    /**
+     * The hit ratio of the off-heap page cache in percent.
+     *
+     * @return the hit ratio
+     */
+    int getOffHeapCacheHitRatio();
+
     /**
      * The database version.
      *
@@ -432,6 +432,63 @@ public final class Chunk {
         }
     }
 
+    /**
+     * Read a page of this chunk. If the file store maps chunks into memory,
+     * the page is decoded directly from the mapped buffer.
+     *
+     * @param <K> key type
+     * @param <V> value type
+     *
+     * @param fileStore to use
+     * @param offset of page data
+     * @param pos page pos
+     * @param map the map
+     * @return the page
+     */
+    <K,V> Page<K,V> readPage(FileStore fileStore, int offset, long pos, MVMap<K,V> map) {
+        assert isSaved() : this;
+        if (!fileStore.lockMappedRead()) {
+            return Page.read(readBufferForPage(fileStore, offset, pos), pos, map);
+        }
+        try {
+            while (true) {
+                // the space of the chunk is freed only after the block is
+                // changed, so the mapped buffer of the original block can't
+                // be unmapped or overwritten while the lock is held
+                long originalBlock = block;
+                try {
+                    ByteBuffer buff = fileStore.getMappedChunk(originalBlock * MVStore.BLOCK_SIZE,
+                            len * MVStore.BLOCK_SIZE);
+                    if (buff == null) {
+                        return Page.read(readBufferForPage(fileStore, offset, pos), pos, map);
+                    }
+                    int length = DataUtils.getPageMaxLength(pos);
+                    if (length == DataUtils.PAGE_LARGE) {
+                        // pageNo is deliberately not included into length
+                        length = buff.getInt(offset) + 4;
+                    }
+                    length = Math.min(buff.capacity() - offset, length);
+                    if (offset < 0 || length < 0) {
+                        throw DataUtils.newMVStoreException(DataUtils.ERROR_FILE_CORRUPT,
+                                "Illegal page length {0} reading at offset {1} of {2}", length, offset, this);
+                    }
+                    buff.limit(offset + length).position(offset);
+                    fileStore.readBytes.addAndGet(length);
+                    Page<K,V> p = Page.read(buff, pos, map);
+                    if (originalBlock == block) {
+                        return p;
+                    }
+                } catch (RuntimeException ex) {
+                    if (originalBlock == block) {
+                        throw ex;
+                    }
+                }
+            }
+        } finally {
+            fileStore.unlockMappedRead();
+        }
+    }
+
     long[] readToC(FileStore fileStore) {
         assert isSaved() : this;
         assert tocPos > 0;
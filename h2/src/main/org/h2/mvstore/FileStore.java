@@ -7,15 +7,22 @@ package org.h2.mvstore;
 
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
 import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
 import java.nio.channels.FileLock;
 import java.nio.channels.OverlappingFileLockException;
+import java.util.Iterator;
+import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.function.Function;
 import org.h2.mvstore.cache.FilePathCache;
 import org.h2.store.fs.FilePath;
 import org.h2.store.fs.encrypt.FileEncrypt;
 import org.h2.store.fs.encrypt.FilePathEncrypt;
+import org.h2.util.MemoryUnmapper;
 
 /**
  * The default storage mechanism of the MVStore. This implementation persists
@@ -81,6 +88,27 @@ public class FileStore {
      */
     private FileLock fileLock;
 
+    /**
+     * The maximum number of chunks mapped into memory at once.
+     */
+    private static final int MAX_MAPPED_CHUNKS = 4096;
+
+    /**
+     * Whether chunks are read through memory mapped buffers.
+     */
+    private volatile boolean memoryMapped;
+
+    /**
+     * The memory mapped chunks, by the file position of the chunk.
+     */
+    private final ConcurrentHashMap<Long, MappedByteBuffer> mappedChunks = new ConcurrentHashMap<>();
+
+    /**
+     * Readers of mapped buffers hold the read lock, buffers are unmapped only
+     * with the write lock.
+     */
+    private final ReentrantReadWriteLock mappedLock = new ReentrantReadWriteLock();
+
     @Override
     public String toString() {
         return fileName;
@@ -192,6 +220,7 @@ public class FileStore {
      * Close this store.
      */
     public void close() {
+        setMemoryMapped(false);
         try {
             if(file != null && file.isOpen()) {
                 if (fileLock != null) {
@@ -239,23 +268,30 @@ public class FileStore {
      * @param size the new file size
      */
     public void truncate(long size) {
-        int attemptCount = 0;
-        while (true) {
-            try {
-                writeCount.incrementAndGet();
-                file.truncate(size);
-                fileSize = Math.min(fileSize, size);
-                return;
-            } catch (IOException e) {
-                if (++attemptCount == 10) {
-                    throw DataUtils.newMVStoreException(
-                            DataUtils.ERROR_WRITING_FAILED,
-                            "Could not truncate file {0} to size {1}",
-                            fileName, size, e);
+        // readers may not map the truncated space until the size is updated
+        mappedLock.writeLock().lock();
+        try {
+            int attemptCount = 0;
+            while (true) {
+                try {
+                    writeCount.incrementAndGet();
+                    unmap(size, Long.MAX_VALUE);
+                    file.truncate(size);
+                    fileSize = Math.min(fileSize, size);
+                    return;
+                } catch (IOException e) {
+                    if (++attemptCount == 10) {
+                        throw DataUtils.newMVStoreException(
+                                DataUtils.ERROR_WRITING_FAILED,
+                                "Could not truncate file {0} to size {1}",
+                                fileName, size, e);
+                    }
+                    System.gc();
+                    Thread.yield();
                 }
-                System.gc();
-                Thread.yield();
             }
+        } finally {
+            mappedLock.writeLock().unlock();
         }
     }
 
@@ -381,9 +417,131 @@ public class FileStore {
      * @param length the number of bytes
      */
     public void free(long pos, int length) {
+        unmap(pos, pos + length);
         freeSpace.free(pos, length);
     }
 
+    /**
+     * Enable or disable reading of chunks through memory mapped buffers. The
+     * chunks are immutable while they stay at the same position, so pages can
+     * be decoded directly from the mapped memory without copying the data
+     * into the heap. Buffers are unmapped when the space of the chunk is freed,
+     * when the file is truncated and when the file is closed. Encrypted files
+     * are always read with copying.
+     *
+     * @param memoryMapped whether to map chunks into memory
+     */
+    public void setMemoryMapped(boolean memoryMapped) {
+        this.memoryMapped = memoryMapped && file != null && encryptedFile == null;
+        if (!this.memoryMapped) {
+            unmap(0, Long.MAX_VALUE);
+        }
+    }
+
+    /**
+     * Check whether chunks are read through memory mapped buffers.
+     *
+     * @return whether chunks are mapped into memory
+     */
+    public boolean isMemoryMapped() {
+        return memoryMapped;
+    }
+
+    /**
+     * Get the number of chunks mapped into memory.
+     *
+     * @return the number of mapped chunks
+     */
+    public int getMappedChunkCount() {
+        return mappedChunks.size();
+    }
+
+    /**
+     * Prevent unmapping of buffers until {@link #unlockMappedRead()} is
+     * called, if chunks are mapped into memory.
+     *
+     * @return whether chunks are mapped and the lock was acquired
+     */
+    boolean lockMappedRead() {
+        if (!memoryMapped) {
+            return false;
+        }
+        mappedLock.readLock().lock();
+        return true;
+    }
+
+    /**
+     * Allow unmapping of buffers again.
+     */
+    void unlockMappedRead() {
+        mappedLock.readLock().unlock();
+    }
+
+    /**
+     * Get a buffer with the content of a chunk mapped into memory. The caller
+     * must hold the lock acquired with {@link #lockMappedRead()} while it uses
+     * the buffer.
+     *
+     * @param pos the position of the chunk in bytes
+     * @param length the length of the chunk in bytes
+     * @return the buffer, or null if the chunk can't be mapped
+     */
+    ByteBuffer getMappedChunk(long pos, int length) {
+        MappedByteBuffer buff = mappedChunks.get(pos);
+        if (buff == null) {
+            // accessing a mapping beyond the end of the file crashes the JVM
+            if (!memoryMapped || pos + length > fileSize || mappedChunks.size() >= MAX_MAPPED_CHUNKS) {
+                return null;
+            }
+            try {
+                buff = file.map(MapMode.READ_ONLY, pos, length);
+            } catch (IOException | UnsupportedOperationException e) {
+                // the file system doesn't support memory mapped files
+                memoryMapped = false;
+                return null;
+            }
+            MappedByteBuffer old = mappedChunks.putIfAbsent(pos, buff);
+            if (old != null) {
+                MemoryUnmapper.unmap(buff);
+                buff = old;
+            }
+        }
+        if (buff.capacity() != length) {
+            // the space was reused by a chunk of a different length
+            return null;
+        }
+        readCount.incrementAndGet();
+        return buff.duplicate();
+    }
+
+    /**
+     * Unmap all mapped chunks that overlap with the specified range. Waits
+     * for readers of mapped buffers, so changes of chunk positions made
+     * before this call are visible to all later readers.
+     *
+     * @param start the start of the range in bytes
+     * @param end the end of the range in bytes, exclusive
+     */
+    private void unmap(long start, long end) {
+        if (!memoryMapped && mappedChunks.isEmpty()) {
+            return;
+        }
+        mappedLock.writeLock().lock();
+        try {
+            for (Iterator<Entry<Long, MappedByteBuffer>> i = mappedChunks.entrySet().iterator(); i.hasNext();) {
+                Entry<Long, MappedByteBuffer> e = i.next();
+                long pos = e.getKey();
+                MappedByteBuffer buff = e.getValue();
+                if (pos < end && pos + buff.capacity() > start) {
+                    i.remove();
+                    MemoryUnmapper.unmap(buff);
+                }
+            }
+        } finally {
+            mappedLock.writeLock().unlock();
+        }
+    }
+
     public int getFillRate() {
         return freeSpace.getFillRate();
     }
@@ -45,6 +45,7 @@ import org.h2.compress.CompressDeflate;
 import org.h2.compress.CompressLZF;
 import org.h2.compress.Compressor;
 import org.h2.mvstore.cache.CacheLongKeyLIRS;
+import org.h2.mvstore.cache.OffHeapPageCache;
 import org.h2.mvstore.type.StringDataType;
 import org.h2.util.MathUtils;
 import org.h2.util.Utils;
@@ -166,9 +167,14 @@ public class MVStore implements AutoCloseable {
     static final int BLOCK_SIZE = 4 * 1024;
 
     private static final int FORMAT_WRITE_MIN = 2;
-    private static final int FORMAT_WRITE_MAX = 2;
+    private static final int FORMAT_WRITE_MAX = 3;
     private static final int FORMAT_READ_MIN = 2;
-    private static final int FORMAT_READ_MAX = 2;
+    private static final int FORMAT_READ_MAX = 3;
+
+    /**
+     * The format of stores that may contain pages with a columnar layout.
+     */
+    static final int FORMAT_COLUMNAR = 3;
 
     /**
      * Store is open.
@@ -245,6 +251,12 @@ public class MVStore implements AutoCloseable {
      */
     private final CacheLongKeyLIRS<long[]> chunksToC;
 
+    /**
+     * The optional second level cache with compressed serialized pages
+     * outside of the heap, or null.
+     */
+    private final OffHeapPageCache offHeapCache;
+
     /**
      * The newest chunk. If nothing was stored yet, this field is not set.
      */
@@ -298,6 +310,11 @@ public class MVStore implements AutoCloseable {
 
     private final boolean recoveryMode;
 
+    /**
+     * Whether data types may write new pages with a columnar layout.
+     */
+    private final boolean columnarPages;
+
     public final UncaughtExceptionHandler backgroundExceptionHandler;
 
     private volatile long currentVersion;
@@ -381,6 +398,7 @@ public class MVStore implements AutoCloseable {
     MVStore(Map<String, Object> config) {
         recoveryMode = config.containsKey("recoveryMode");
         compressionLevel = DataUtils.getConfigParam(config, "compress", 0);
+        columnarPages = config.containsKey("columnarPages");
         String fileName = (String) config.get("fileName");
         FileStore fileStore = (FileStore) config.get("fileStore");
         boolean fileStoreShallBeOpen = false;
@@ -422,6 +440,8 @@ public class MVStore implements AutoCloseable {
             cache = null;
         }
         chunksToC = cc2 == null ? null : new CacheLongKeyLIRS<>(cc2);
+        int offHeapMb = this.fileStore == null ? 0 : DataUtils.getConfigParam(config, "offHeapCacheSize", 0);
+        offHeapCache = offHeapMb > 0 ? new OffHeapPageCache(offHeapMb * 1024L * 1024L, 16) : null;
 
         pgSplitSize = DataUtils.getConfigParam(config, "pageSplitSize", pgSplitSize);
         // Make sure pages will fit into cache
@@ -451,16 +471,22 @@ public class MVStore implements AutoCloseable {
                         boolean readOnly = config.containsKey("readOnly");
                         this.fileStore.open(fileName, readOnly, encryptionKey);
                     }
+                    if (config.containsKey("memoryMapped")) {
+                        this.fileStore.setMemoryMapped(true);
+                    }
                     if (this.fileStore.size() == 0) {
                         creationTime = getTimeAbsolute();
                         storeHeader.put(HDR_H, 2);
                         storeHeader.put(HDR_BLOCK_SIZE, BLOCK_SIZE);
-                        storeHeader.put(HDR_FORMAT, FORMAT_WRITE_MAX);
+                        storeHeader.put(HDR_FORMAT, columnarPages ? FORMAT_COLUMNAR : FORMAT_WRITE_MIN);
                         storeHeader.put(HDR_CREATED, creationTime);
                         setLastChunk(null);
                         writeStoreHeader();
                     } else {
                         readStoreHeader();
+                        if (columnarPages && !this.fileStore.isReadOnly()) {
+                            upgradeFormat(FORMAT_COLUMNAR);
+                        }
                     }
                 } finally {
                     saveChunkLock.unlock();
@@ -1264,6 +1290,77 @@ public class MVStore implements AutoCloseable {
         write(0, header);
     }
 
+    /**
+     * Raises the format of the store, so older versions that do not support
+     * the new format refuse to open it.
+     *
+     * @param format the required format
+     */
+    void upgradeFormat(int format) {
+        if (fileStore != null && getFormat() < format) {
+            saveChunkLock.lock();
+            try {
+                storeHeader.put(HDR_FORMAT, format);
+                writeStoreHeader();
+            } finally {
+                saveChunkLock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Returns the write format of the store.
+     *
+     * @return the format
+     */
+    int getFormat() {
+        return DataUtils.readHexInt(storeHeader, HDR_FORMAT, 1);
+    }
+
+    /**
+     * Converts pages of the store to the layout selected by
+     * {@link #isColumnarPages()}. All live pages of open maps are rewritten,
+     * so their data types write them again. If columnar pages are disabled,
+     * the format of the store is lowered to the format without columnar pages
+     * afterwards, so older versions can open it again. All maps that may have
+     * pages with columnar layout must be open. Nothing is done if columnar
+     * pages are disabled and the store doesn't have the columnar format.
+     */
+    public void convertPages() {
+        if (fileStore == null || fileStore.isReadOnly() || !columnarPages && getFormat() < FORMAT_COLUMNAR) {
+            return;
+        }
+        storeLock.lock();
+        try {
+            checkOpen();
+            commit();
+            serializationLock.lock();
+            try {
+                TxCounter txCounter = registerVersionUsage();
+                try {
+                    compactRewrite(new HashSet<>(chunks.keySet()));
+                } finally {
+                    deregisterVersionUsage(txCounter);
+                }
+            } finally {
+                serializationLock.unlock();
+            }
+            commit();
+            if (!columnarPages) {
+                sync();
+                saveChunkLock.lock();
+                try {
+                    storeHeader.put(HDR_FORMAT, FORMAT_WRITE_MIN);
+                    writeStoreHeader();
+                } finally {
+                    saveChunkLock.unlock();
+                }
+            }
+        } finally {
+            storeLock.unlock();
+        }
+    }
+
     private void write(long pos, ByteBuffer buffer) {
         try {
             fileStore.writeFully(pos, buffer);
@@ -1458,6 +1555,31 @@ public class MVStore implements AutoCloseable {
         return commit(x -> true);
     }
 
+    /**
+     * Commit the changes and wait until all stores that were started before,
+     * including asynchronous stores of the background writer, are written to
+     * the file. Unlike {@link #commit()}, this method also waits when there
+     * are no unsaved changes, because the last changes may still be queued for
+     * writing. The file is not forced to the disk.
+     *
+     * @return the new version (incremented if there were changes)
+     */
+    public long commitAndWait() {
+        storeLock.lock();
+        try {
+            store(true);
+            // stores are submitted to the single-threaded serialization
+            // executor only under storeLock, and buffers are submitted to the
+            // single-threaded save executor only by serialization tasks, so
+            // the dummy tasks complete after all previously started stores
+            Utils.flushExecutor(serializationExecutor);
+            Utils.flushExecutor(bufferSaveExecutor);
+        } finally {
+            unlockAndCheckPanicCondition();
+        }
+        return currentVersion;
+    }
+
     private long commit(Predicate<MVStore> check) {
         // we need to prevent re-entrance, which may be possible,
         // because meta map is modified within storeNow() and that
@@ -2247,9 +2369,11 @@ public class MVStore implements AutoCloseable {
         } finally {
             releaseWriteBuffer(buff);
         }
-        fileStore.free(start, length);
         chunk.block = block;
         chunk.next = 0;
+        // readers of the old location see the new block after the space is
+        // freed
+        fileStore.free(start, length);
         layout.put(Chunk.getMetaKey(chunk.id), chunk.asString());
         return true;
     }
@@ -2566,8 +2690,8 @@ public class MVStore implements AutoCloseable {
                 Chunk chunk = getChunk(pos);
                 int pageOffset = DataUtils.getPageOffset(pos);
                 try {
-                    ByteBuffer buff = chunk.readBufferForPage(fileStore, pageOffset, pos);
-                    p = Page.read(buff, pos, map);
+                    p = offHeapCache == null ? chunk.readPage(fileStore, pageOffset, pos, map)
+                            : readPageThroughOffHeapCache(chunk, pageOffset, pos, map);
                 } catch (MVStoreException e) {
                     throw e;
                 } catch (Exception e) {
@@ -2586,6 +2710,26 @@ public class MVStore implements AutoCloseable {
         }
     }
 
+    /**
+     * Read a page from the off-heap cache, or read it from the file and add
+     * it to the off-heap cache. The caller puts the page into the heap cache,
+     * so pages found in the off-heap cache are promoted.
+     */
+    private <K,V> Page<K,V> readPageThroughOffHeapCache(Chunk chunk, int pageOffset, long pos, MVMap<K,V> map) {
+        ByteBuffer buff = offHeapCache.get(pos);
+        if (buff != null) {
+            return Page.read(buff, pos, map);
+        }
+        buff = chunk.readBufferForPage(fileStore, pageOffset, pos);
+        ByteBuffer data = buff.duplicate();
+        Page<K,V> p = Page.read(buff, pos, map);
+        // the page length is verified by Page.read(), the remaining bytes of
+        // the buffer belong to other pages
+        data.limit(data.position() + Math.min(data.remaining(), data.getInt(data.position())));
+        offHeapCache.put(pos, data);
+        return p;
+    }
+
     private long[] getToC(Chunk chunk) {
         if (chunk.tocPos == 0) {
             // legacy chunk without table of content
@@ -2663,6 +2807,15 @@ public class MVStore implements AutoCloseable {
         return compressionLevel;
     }
 
+    /**
+     * Returns whether data types may write new pages with a columnar layout.
+     *
+     * @return whether columnar pages are enabled
+     */
+    public boolean isColumnarPages() {
+        return columnarPages;
+    }
+
     public int getPageSplitSize() {
         return pageSplitSize;
     }
@@ -3045,6 +3198,9 @@ public class MVStore implements AutoCloseable {
         if (chunksToC != null) {
             chunksToC.clear();
         }
+        if (offHeapCache != null) {
+            offHeapCache.clear();
+        }
     }
 
     private long getRootPos(int mapId) {
@@ -3524,6 +3680,48 @@ public class MVStore implements AutoCloseable {
         return getCacheHitRatio(chunksToC);
     }
 
+    /**
+     * Get the off-heap page cache.
+     *
+     * @return the off-heap cache, or null if it is not used
+     */
+    public OffHeapPageCache getOffHeapCache() {
+        return offHeapCache;
+    }
+
+    /**
+     * Get the maximum size of the off-heap page cache, in MB.
+     *
+     * @return the off-heap cache size, or 0 if it is not used
+     */
+    public int getOffHeapCacheSize() {
+        return offHeapCache == null ? 0 : (int) (offHeapCache.getMaxMemory() >> 20);
+    }
+
+    /**
+     * Get the amount of memory used by the off-heap page cache, in MB.
+     *
+     * @return the used memory of the off-heap cache
+     */
+    public int getOffHeapCacheSizeUsed() {
+        return offHeapCache == null ? 0 : (int) (offHeapCache.getUsedMemory() >> 20);
+    }
+
+    /**
+     * Get the hit ratio of the off-heap page cache, in percent. Only reads
+     * of pages that were not found in the heap cache access the off-heap
+     * cache.
+     *
+     * @return the hit ratio
+     */
+    public int getOffHeapCacheHitRatio() {
+        if (offHeapCache == null) {
+            return 0;
+        }
+        long hits = offHeapCache.getHits();
+        return (int) (100 * hits / (hits + offHeapCache.getMisses() + 1));
+    }
+
     private static int getCacheHitRatio(CacheLongKeyLIRS<?> cache) {
         if (cache == null) {
             return 0;
@@ -3655,6 +3853,10 @@ public class MVStore implements AutoCloseable {
                                 cache.remove(pagePos);
                             }
                         }
+                        if (offHeapCache != null) {
+                            // the chunk id can be reused
+                            offHeapCache.removeChunk(chunk.id);
+                        }
 
                         if (layout.remove(Chunk.getMetaKey(chunk.id)) != null) {
                             markMetaChanged();
@@ -3995,6 +4197,20 @@ public class MVStore implements AutoCloseable {
             return set("cacheConcurrency", concurrency);
         }
 
+        /**
+         * Set the size of the off-heap page cache in MB. The default is 0,
+         * meaning this cache is not used. This second level cache keeps
+         * serialized pages in compressed form in direct byte buffers. Pages
+         * that are evicted from the read cache are read from this cache
+         * instead of the file, without increasing the heap size.
+         *
+         * @param mb the off-heap cache size in megabytes
+         * @return this
+         */
+        public Builder offHeapCacheSize(int mb) {
+            return set("offHeapCacheSize", mb);
+        }
+
         /**
          * Compress data before writing using the LZF algorithm. This will save
          * about 50% of the disk space, but will slow down read and write
@@ -4025,6 +4241,35 @@ public class MVStore implements AutoCloseable {
             return set("compress", 2);
         }
 
+        /**
+         * Allow data types to write leaf pages in a columnar layout, see
+         * {@link MVStore#isColumnarPages()}. A new store is created with
+         * format 3, and an existing store is upgraded to this format.
+         * Stores of format 3 cannot be opened by older versions, they can be
+         * converted back with {@link MVStore#convertPages()} without this
+         * setting.
+         * <p>
+         * This setting only affects writes; pages with columnar layout can be
+         * read even if this setting is disabled.
+         *
+         * @return this
+         */
+        public Builder columnarPages() {
+            return set("columnarPages", 1);
+        }
+
+        /**
+         * Read chunks through memory mapped buffers, see
+         * {@link FileStore#setMemoryMapped(boolean)}. Pages that are not in
+         * the cache are decoded directly from the mapped memory of the file.
+         * This setting has no effect for encrypted and in-memory stores.
+         *
+         * @return this
+         */
+        public Builder memoryMapped() {
+            return set("memoryMapped", 1);
+        }
+
         /**
          * Set the amount of memory a page should contain at most, in bytes,
          * before it is split. The default is 16 KB for persistent stores and 4
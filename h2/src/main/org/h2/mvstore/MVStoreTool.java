@@ -512,12 +512,17 @@ public class MVStoreTool {
     }
 
     /**
-     * Copy all live pages from the source store to the target store.
+     * Copy all live pages from the source store to the target store. Pages
+     * are copied as is, so the target store has at least the format of the
+     * source store. Use {@link MVStore#convertPages()} on the source store to
+     * change the layout of pages before.
      *
      * @param source the source store
      * @param target the target store
      */
     public static void compact(MVStore source, MVStore target) {
+        // pages are copied as is, they may have columnar layout
+        target.upgradeFormat(source.getFormat());
         target.adoptMetaFrom(source);
         int autoCommitDelay = target.getAutoCommitDelay();
         boolean reuseSpace = target.getReuseSpace();
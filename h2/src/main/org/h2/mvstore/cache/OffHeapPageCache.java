@@ -0,0 +1,436 @@
+/*
+ * Copyright 2004-2022 H2 Group. Multiple-Licensed under the MPL 2.0,
+ * and the EPL 1.0 (https://h2database.com/html/license.html).
+ * Initial Developer: H2 Group
+ */
+package org.h2.mvstore.cache;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+
+import org.h2.compress.CompressLZF;
+import org.h2.mvstore.DataUtils;
+import org.h2.util.MemoryUnmapper;
+
+/**
+ * A second level cache for serialized pages. The pages are compressed with
+ * the LZF algorithm and kept outside of the Java heap in direct byte buffers,
+ * so a large cache does not increase the garbage collection pauses. The keys
+ * are page positions.
+ * <p>
+ * The cache is split into a number of segments. Each segment appends entries
+ * to a number of fixed size slabs and uses the CLOCK replacement algorithm
+ * for whole slabs: when all slabs are full, the oldest slab is reclaimed.
+ * Entries of this slab that were accessed since they were written get a
+ * second chance and are moved to the beginning of the slab (up to half of
+ * the slab), other entries are evicted.
+ * <p>
+ * This implementation is multi-threading safe. Access to a segment is
+ * synchronized, but entries are decompressed outside of the lock.
+ */
+public class OffHeapPageCache {
+
+    private static final int MIN_SLAB_SIZE = 64 * 1024;
+
+    private static final int MAX_SLAB_SIZE = 4 * 1024 * 1024;
+
+    private final long maxMemory;
+
+    private final Segment[] segments;
+
+    private final int segmentMask;
+
+    /**
+     * Create a new cache.
+     *
+     * @param maxMemory the maximum memory to use, in bytes
+     * @param segmentCount the number of segments, a power of 2
+     */
+    public OffHeapPageCache(long maxMemory, int segmentCount) {
+        DataUtils.checkArgument(Integer.bitCount(segmentCount) == 1,
+                "The segment count must be a power of 2, is {0}", segmentCount);
+        long segmentMemory = Math.max(maxMemory / segmentCount, 2 * MIN_SLAB_SIZE);
+        int slabSize = (int) Math.max(MIN_SLAB_SIZE, Math.min(MAX_SLAB_SIZE, segmentMemory / 16));
+        int slabCount = (int) Math.max(2, segmentMemory / slabSize);
+        this.maxMemory = (long) slabSize * slabCount * segmentCount;
+        segments = new Segment[segmentCount];
+        for (int i = 0; i < segmentCount; i++) {
+            segments[i] = new Segment(slabSize, slabCount);
+        }
+        segmentMask = segmentCount - 1;
+    }
+
+    private Segment getSegment(long pos) {
+        // the lower bits of a page position are its length code and type
+        long h = pos * 0x9E3779B97F4A7C15L;
+        return segments[(int) (h >>> 32) & segmentMask];
+    }
+
+    /**
+     * Add a page to the cache, if it is not cached yet.
+     *
+     * @param pos the page position
+     * @param buff the serialized page, the remaining bytes are stored
+     */
+    public void put(long pos, ByteBuffer buff) {
+        getSegment(pos).put(pos, buff);
+    }
+
+    /**
+     * Get a page from the cache.
+     *
+     * @param pos the page position
+     * @return a new buffer with the serialized page, or null if the page is
+     *         not cached
+     */
+    public ByteBuffer get(long pos) {
+        return getSegment(pos).get(pos);
+    }
+
+    /**
+     * Remove all pages of a chunk. This method must be called before the id
+     * of the chunk is reused.
+     *
+     * @param chunkId the chunk id
+     */
+    public void removeChunk(int chunkId) {
+        for (Segment s : segments) {
+            s.removeChunk(chunkId);
+        }
+    }
+
+    /**
+     * Remove all entries and release the memory.
+     */
+    public void clear() {
+        for (Segment s : segments) {
+            s.clear();
+        }
+    }
+
+    /**
+     * Get the maximum memory to use.
+     *
+     * @return the maximum memory in bytes
+     */
+    public long getMaxMemory() {
+        return maxMemory;
+    }
+
+    /**
+     * Get the memory used by the cached entries, in compressed form.
+     *
+     * @return the used memory in bytes
+     */
+    public long getUsedMemory() {
+        long x = 0;
+        for (Segment s : segments) {
+            x += s.usedMemory;
+        }
+        return x;
+    }
+
+    /**
+     * Get the number of cache hits.
+     *
+     * @return the cache hits
+     */
+    public long getHits() {
+        long x = 0;
+        for (Segment s : segments) {
+            x += s.hits;
+        }
+        return x;
+    }
+
+    /**
+     * Get the number of cache misses.
+     *
+     * @return the cache misses
+     */
+    public long getMisses() {
+        long x = 0;
+        for (Segment s : segments) {
+            x += s.misses;
+        }
+        return x;
+    }
+
+    /**
+     * Get the number of cached pages.
+     *
+     * @return the number of pages
+     */
+    public int size() {
+        int x = 0;
+        for (Segment s : segments) {
+            x += s.size;
+        }
+        return x;
+    }
+
+    /**
+     * A cached page.
+     */
+    private static final class Entry {
+
+        /**
+         * The page position.
+         */
+        final long pos;
+
+        /**
+         * The number of stored bytes.
+         */
+        final int length;
+
+        /**
+         * The uncompressed length, or -1 if the page is stored uncompressed.
+         */
+        final int expandedLength;
+
+        /**
+         * The slab index.
+         */
+        int slab;
+
+        /**
+         * The offset within the slab.
+         */
+        int offset;
+
+        /**
+         * Whether the entry was accessed since it was written.
+         */
+        boolean referenced;
+
+        Entry(long pos, int length, int expandedLength) {
+            this.pos = pos;
+            this.length = length;
+            this.expandedLength = expandedLength;
+        }
+
+    }
+
+    /**
+     * A segment of the cache.
+     */
+    private static final class Segment {
+
+        private final int slabSize;
+
+        private final ByteBuffer[] slabs;
+
+        private final ArrayList<ArrayList<Entry>> slabEntries;
+
+        /**
+         * The entries by chunk id and page position.
+         */
+        private final HashMap<Integer, HashMap<Long, Entry>> chunks = new HashMap<>();
+
+        private final CompressLZF compressor = new CompressLZF();
+
+        private byte[] compressBuffer = new byte[0];
+
+        private int currentSlab = -1;
+
+        private int writePos;
+
+        volatile long usedMemory;
+
+        volatile long hits;
+
+        volatile long misses;
+
+        volatile int size;
+
+        Segment(int slabSize, int slabCount) {
+            this.slabSize = slabSize;
+            slabs = new ByteBuffer[slabCount];
+            slabEntries = new ArrayList<>(slabCount);
+            for (int i = 0; i < slabCount; i++) {
+                slabEntries.add(null);
+            }
+        }
+
+        void put(long pos, ByteBuffer buff) {
+            int len = buff.remaining();
+            if (len == 0 || len > slabSize / 4) {
+                return;
+            }
+            byte[] in;
+            int inPos;
+            if (buff.hasArray()) {
+                in = buff.array();
+                inPos = buff.arrayOffset() + buff.position();
+            } else {
+                in = new byte[len];
+                inPos = 0;
+                buff.duplicate().get(in);
+            }
+            synchronized (this) {
+                if (find(pos) != null) {
+                    return;
+                }
+                if (compressBuffer.length < len * 2) {
+                    compressBuffer = new byte[len * 2];
+                }
+                int compLen = compressor.compress(in, inPos, len, compressBuffer, 0);
+                Entry e;
+                byte[] data;
+                int dataPos;
+                if (compLen < len) {
+                    e = new Entry(pos, compLen, len);
+                    data = compressBuffer;
+                    dataPos = 0;
+                } else {
+                    e = new Entry(pos, len, -1);
+                    data = in;
+                    dataPos = inPos;
+                }
+                if (!allocate(e)) {
+                    return;
+                }
+                ByteBuffer slab = slabs[e.slab].duplicate();
+                slab.position(e.offset);
+                slab.put(data, dataPos, e.length);
+                slabEntries.get(e.slab).add(e);
+                chunks.computeIfAbsent(DataUtils.getPageChunkId(pos), k -> new HashMap<>()).put(pos, e);
+                usedMemory += e.length;
+                size++;
+            }
+        }
+
+        ByteBuffer get(long pos) {
+            byte[] data;
+            int expandedLength;
+            synchronized (this) {
+                Entry e = find(pos);
+                if (e == null) {
+                    misses++;
+                    return null;
+                }
+                hits++;
+                e.referenced = true;
+                data = new byte[e.length];
+                ByteBuffer slab = slabs[e.slab].duplicate();
+                slab.position(e.offset);
+                slab.get(data);
+                expandedLength = e.expandedLength;
+            }
+            if (expandedLength < 0) {
+                return ByteBuffer.wrap(data);
+            }
+            byte[] expanded = new byte[expandedLength];
+            // expanding does not use the state of the compressor
+            compressor.expand(data, 0, data.length, expanded, 0, expandedLength);
+            return ByteBuffer.wrap(expanded);
+        }
+
+        synchronized void removeChunk(int chunkId) {
+            HashMap<Long, Entry> map = chunks.remove(chunkId);
+            if (map != null) {
+                for (Entry e : map.values()) {
+                    // the space is reclaimed with the slab
+                    usedMemory -= e.length;
+                }
+                size -= map.size();
+            }
+        }
+
+        synchronized void clear() {
+            chunks.clear();
+            for (int i = 0; i < slabs.length; i++) {
+                if (slabs[i] != null) {
+                    MemoryUnmapper.unmap(slabs[i]);
+                    slabs[i] = null;
+                    slabEntries.set(i, null);
+                }
+            }
+            currentSlab = -1;
+            writePos = 0;
+            usedMemory = 0;
+            size = 0;
+        }
+
+        private Entry find(long pos) {
+            HashMap<Long, Entry> map = chunks.get(DataUtils.getPageChunkId(pos));
+            return map == null ? null : map.get(pos);
+        }
+
+        private boolean isCached(Entry e) {
+            return find(e.pos) == e;
+        }
+
+        /**
+         * Allocate space for the entry in the current slab, reclaim the next
+         * slab if the current one is full.
+         *
+         * @param e the entry
+         * @return whether space was allocated
+         */
+        private boolean allocate(Entry e) {
+            if (currentSlab < 0 || writePos + e.length > slabSize) {
+                currentSlab = (currentSlab + 1) % slabs.length;
+                if (slabs[currentSlab] == null) {
+                    slabs[currentSlab] = ByteBuffer.allocateDirect(slabSize);
+                    slabEntries.set(currentSlab, new ArrayList<>());
+                    writePos = 0;
+                } else {
+                    reclaim(currentSlab);
+                }
+                if (writePos + e.length > slabSize) {
+                    return false;
+                }
+            }
+            e.slab = currentSlab;
+            e.offset = writePos;
+            writePos += e.length;
+            return true;
+        }
+
+        private void reclaim(int slabIndex) {
+            ByteBuffer slab = slabs[slabIndex];
+            ArrayList<Entry> old = slabEntries.get(slabIndex);
+            ArrayList<Entry> kept = new ArrayList<>();
+            int pos = 0;
+            for (Entry e : old) {
+                if (!isCached(e)) {
+                    // removed with its chunk
+                    continue;
+                }
+                if (e.referenced && pos + e.length <= slabSize / 2) {
+                    // entries were written at increasing offsets, so moving
+                    // them towards the start never overwrites an entry that
+                    // is not moved yet
+                    if (pos != e.offset) {
+                        byte[] data = new byte[e.length];
+                        ByteBuffer b = slab.duplicate();
+                        b.position(e.offset);
+                        b.get(data);
+                        b.position(pos);
+                        b.put(data);
+                        e.offset = pos;
+                    }
+                    e.referenced = false;
+                    pos += e.length;
+                    kept.add(e);
+                } else {
+                    int chunkId = DataUtils.getPageChunkId(e.pos);
+                    HashMap<Long, Entry> map = chunks.get(chunkId);
+                    map.remove(e.pos);
+                    if (map.isEmpty()) {
+                        chunks.remove(chunkId);
+                    }
+                    usedMemory -= e.length;
+                    size--;
+                }
+            }
+            slabEntries.set(slabIndex, kept);
+            writePos = pos;
+        }
+
+    }
+
+}
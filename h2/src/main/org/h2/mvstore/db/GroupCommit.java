@@ -0,0 +1,122 @@
+/*
+ * Copyright 2004-2022 H2 Group. Multiple-Licensed under the MPL 2.0,
+ * and the EPL 1.0 (https://h2database.com/html/license.html).
+ * Initial Developer: H2 Group
+ */
+package org.h2.mvstore.db;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.h2.mvstore.FileStore;
+import org.h2.mvstore.MVStore;
+
+/**
+ * Makes committed transactions durable in groups. Each committing session
+ * takes a ticket and waits until its ticket is synced. One of the waiting
+ * sessions becomes the leader, it stores all changes and forces the file to
+ * the disk once on behalf of all sessions that took tickets before it
+ * started. Sessions that commit while the leader is writing are served by the
+ * next leader. The number of file syncs therefore grows with the disk latency
+ * and not with the number of commits.
+ */
+public final class GroupCommit {
+
+    private final MVStore mvStore;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final Condition synced = lock.newCondition();
+
+    /**
+     * The last issued ticket.
+     */
+    private long lastTicket;
+
+    /**
+     * All tickets up to this one are durable.
+     */
+    private long lastSyncedTicket;
+
+    /**
+     * Whether a leader is writing now.
+     */
+    private boolean leaderActive;
+
+    private final AtomicLong commitCount = new AtomicLong();
+
+    private final AtomicLong syncCount = new AtomicLong();
+
+    GroupCommit(MVStore mvStore) {
+        this.mvStore = mvStore;
+    }
+
+    /**
+     * Waits until all changes committed before this call are stored and
+     * synced to the disk. The changes of the committed transaction must be
+     * visible in the store before this method is invoked.
+     */
+    public void sync() {
+        commitCount.incrementAndGet();
+        lock.lock();
+        try {
+            long ticket = ++lastTicket;
+            while (lastSyncedTicket < ticket) {
+                if (leaderActive) {
+                    synced.awaitUninterruptibly();
+                    continue;
+                }
+                leaderActive = true;
+                // all sessions with these tickets have committed already
+                long target = lastTicket;
+                boolean success = false;
+                lock.unlock();
+                try {
+                    storeAndSync();
+                    success = true;
+                } finally {
+                    lock.lock();
+                    leaderActive = false;
+                    if (success && lastSyncedTicket < target) {
+                        lastSyncedTicket = target;
+                    }
+                    // on failure the next waiting session tries again
+                    synced.signalAll();
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void storeAndSync() {
+        // the background writer may have started to store these changes
+        // asynchronously, wait until they are written before the sync
+        mvStore.commitAndWait();
+        FileStore fileStore = mvStore.getFileStore();
+        if (fileStore != null) {
+            fileStore.sync();
+        }
+        syncCount.incrementAndGet();
+    }
+
+    /**
+     * Returns the number of commits that waited for a sync.
+     *
+     * @return the number of commits
+     */
+    public long getCommitCount() {
+        return commitCount.get();
+    }
+
+    /**
+     * Returns the number of file syncs performed for the commits.
+     *
+     * @return the number of syncs
+     */
+    public long getSyncCount() {
+        return syncCount.get();
+    }
+
+}
@@ -0,0 +1,449 @@
+/*
+ * Copyright 2004-2022 H2 Group. Multiple-Licensed under the MPL 2.0,
+ * and the EPL 1.0 (https://h2database.com/html/license.html).
+ * Initial Developer: H2 Group
+ */
+package org.h2.mvstore.db;
+
+import java.io.IOException;
+import java.lang.ref.Reference;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.PriorityQueue;
+
+import org.h2.engine.Constants;
+import org.h2.engine.Database;
+import org.h2.expression.Expression;
+import org.h2.message.DbException;
+import org.h2.mvstore.FileStore;
+import org.h2.mvstore.WriteBuffer;
+import org.h2.result.ResultExternal;
+import org.h2.result.RowFactory.DefaultRowFactory;
+import org.h2.result.SortOrder;
+import org.h2.store.fs.FileUtils;
+import org.h2.util.TempFileDeleter;
+import org.h2.value.Value;
+import org.h2.value.ValueRow;
+
+/**
+ * Sorted temporary result that uses an external merge sort.
+ *
+ * <p>
+ * This result is used for sorted results without DISTINCT. Rows are collected
+ * in memory, each run of rows is sorted and written sequentially to a
+ * temporary file, and runs are merged lazily while rows are read. The last
+ * run is not written to the file and stays in memory.
+ * </p>
+ */
+class MVMergeSortTempResult implements ResultExternal {
+
+    /**
+     * Size of the write buffer that is flushed to the file.
+     */
+    private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * Minimal number of bytes read from a run at once.
+     */
+    private static final int READ_BLOCK_SIZE = 16 * 1024;
+
+    /**
+     * Sorted run of rows stored in the file.
+     */
+    private static final class Run {
+
+        /**
+         * Position of the first byte of the run.
+         */
+        final long start;
+
+        /**
+         * Position after the last byte of the run.
+         */
+        final long end;
+
+        Run(long start, long end) {
+            this.start = start;
+            this.end = end;
+        }
+
+    }
+
+    /**
+     * Cursor over rows of a sorted run.
+     */
+    private abstract static class RunCursor {
+
+        /**
+         * The current row.
+         */
+        Value[] current;
+
+        /**
+         * Moves to the next row.
+         *
+         * @return {@code true} if the next row is available, {@code false} if
+         *         there are no more rows in the run
+         */
+        abstract boolean next();
+
+    }
+
+    /**
+     * Cursor over rows of the sorted run in memory.
+     */
+    private static final class MemoryRunCursor extends RunCursor {
+
+        private final ArrayList<Value[]> rows;
+
+        private int index;
+
+        MemoryRunCursor(ArrayList<Value[]> rows) {
+            this.rows = rows;
+        }
+
+        @Override
+        boolean next() {
+            if (index < rows.size()) {
+                current = rows.get(index++);
+                return true;
+            }
+            current = null;
+            return false;
+        }
+
+    }
+
+    /**
+     * Cursor over rows of the sorted run in the file.
+     */
+    private final class FileRunCursor extends RunCursor {
+
+        private final long end;
+
+        private long position;
+
+        private ByteBuffer buff;
+
+        FileRunCursor(Run run) {
+            position = run.start;
+            end = run.end;
+            buff = ByteBuffer.allocate(0);
+        }
+
+        @Override
+        boolean next() {
+            if (!buff.hasRemaining() && position >= end) {
+                current = null;
+                return false;
+            }
+            fill(4);
+            int length = buff.getInt();
+            fill(length);
+            int limit = buff.limit();
+            buff.limit(buff.position() + length);
+            current = ((ValueRow) valueType.read(buff)).getList();
+            buff.limit(limit);
+            return true;
+        }
+
+        /**
+         * Ensures that the buffer has at least the specified number of
+         * remaining bytes.
+         *
+         * @param required
+         *            number of required bytes
+         */
+        private void fill(int required) {
+            int remaining = buff.remaining();
+            if (remaining >= required) {
+                return;
+            }
+            int length = (int) Math.min(Math.max(required, READ_BLOCK_SIZE) - remaining, end - position);
+            ByteBuffer data = fileStore.readFully(position, length);
+            position += length;
+            ByteBuffer b = ByteBuffer.allocate(remaining + length);
+            b.put(buff).put(data);
+            b.flip();
+            buff = b;
+        }
+
+    }
+
+    /**
+     * Sort order.
+     */
+    private final SortOrder sort;
+
+    /**
+     * Data type of rows.
+     */
+    final ValueDataType valueType;
+
+    /**
+     * File store with sorted runs.
+     */
+    final FileStore fileStore;
+
+    /**
+     * Maximum number of rows in a run.
+     */
+    private final int maxRunRows;
+
+    /**
+     * Sorted runs in the file.
+     */
+    private final ArrayList<Run> runs;
+
+    /**
+     * Rows of the current run. After the first read this list contains the
+     * last sorted run.
+     */
+    private final ArrayList<Value[]> rows;
+
+    /**
+     * Position of the end of the file.
+     */
+    private long filePosition;
+
+    /**
+     * Count of rows.
+     */
+    private int rowCount;
+
+    /**
+     * Whether all rows were added and the last run was sorted.
+     */
+    private boolean sorted;
+
+    /**
+     * Queue of run cursors for the {@link #next()} method.
+     */
+    private PriorityQueue<RunCursor> queue;
+
+    /**
+     * Parent result for copies. If {@code null} this result is a root result.
+     */
+    private final MVMergeSortTempResult parent;
+
+    /**
+     * Count of child results.
+     */
+    private int childCount;
+
+    /**
+     * Whether this result is closed.
+     */
+    private boolean closed;
+
+    /**
+     * Temporary file deleter.
+     */
+    private final TempFileDeleter tempFileDeleter;
+
+    /**
+     * Closeable to close the storage.
+     */
+    private final MVTempResult.CloseImpl closeable;
+
+    /**
+     * Reference to the record in the temporary file deleter.
+     */
+    private final Reference<?> fileRef;
+
+    /**
+     * Creates a shallow copy of the result.
+     *
+     * @param parent
+     *                   parent result
+     */
+    private MVMergeSortTempResult(MVMergeSortTempResult parent) {
+        this.parent = parent;
+        this.sort = parent.sort;
+        this.valueType = parent.valueType;
+        this.fileStore = parent.fileStore;
+        this.maxRunRows = parent.maxRunRows;
+        this.runs = parent.runs;
+        this.rows = parent.rows;
+        this.rowCount = parent.rowCount;
+        this.sorted = true;
+        this.tempFileDeleter = null;
+        this.closeable = null;
+        this.fileRef = null;
+    }
+
+    /**
+     * Creates a new sorted temporary result.
+     *
+     * @param database
+     *            database
+     * @param expressions
+     *            column expressions
+     * @param resultColumnCount
+     *            the number of columns including visible columns and additional
+     *            virtual columns for ORDER BY clause
+     * @param sort
+     *            sort order
+     */
+    MVMergeSortTempResult(Database database, Expression[] expressions, int resultColumnCount, SortOrder sort) {
+        this.sort = sort;
+        valueType = new ValueDataType(database, new int[resultColumnCount]);
+        valueType.setRowFactory(DefaultRowFactory.INSTANCE.createRowFactory(database, database.getCompareMode(),
+                database, expressions, null, false));
+        maxRunRows = Math.max(database.getMaxMemoryRows(), 1);
+        runs = new ArrayList<>();
+        rows = new ArrayList<>();
+        String fileName;
+        try {
+            fileName = FileUtils.createTempFile("h2tmp", Constants.SUFFIX_TEMP_FILE, true);
+        } catch (IOException e) {
+            throw DbException.convert(e);
+        }
+        fileStore = database.getStore().getMvStore().getFileStore().open(fileName, false);
+        tempFileDeleter = database.getTempFileDeleter();
+        closeable = new MVTempResult.CloseImpl(fileStore::close, fileName);
+        fileRef = tempFileDeleter.addFile(closeable, this);
+        parent = null;
+    }
+
+    @Override
+    public int addRow(Value[] values) {
+        assert parent == null && !sorted;
+        rows.add(values);
+        if (rows.size() >= maxRunRows) {
+            writeRun();
+        }
+        return ++rowCount;
+    }
+
+    @Override
+    public int addRows(Collection<Value[]> rows) {
+        for (Value[] row : rows) {
+            addRow(row);
+        }
+        return rowCount;
+    }
+
+    /**
+     * Sorts the collected rows and writes them to the file as a new run.
+     */
+    private void writeRun() {
+        sort.sort(rows);
+        long start = filePosition;
+        WriteBuffer buff = new WriteBuffer(WRITE_BUFFER_SIZE + READ_BLOCK_SIZE);
+        for (Value[] row : rows) {
+            int p = buff.position();
+            buff.putInt(0);
+            valueType.write(buff, ValueRow.get(row));
+            buff.putInt(p, buff.position() - p - 4);
+            if (buff.position() >= WRITE_BUFFER_SIZE) {
+                flush(buff);
+            }
+        }
+        flush(buff);
+        runs.add(new Run(start, filePosition));
+        rows.clear();
+    }
+
+    private void flush(WriteBuffer buff) {
+        ByteBuffer b = buff.getBuffer();
+        b.flip();
+        int length = b.remaining();
+        if (length > 0) {
+            fileStore.writeFully(filePosition, b);
+            filePosition += length;
+        }
+        buff.clear();
+    }
+
+    @Override
+    public boolean contains(Value[] values) {
+        throw DbException.getUnsupportedException("contains()");
+    }
+
+    @Override
+    public int removeRow(Value[] values) {
+        throw DbException.getUnsupportedException("removeRow()");
+    }
+
+    @Override
+    public synchronized ResultExternal createShallowCopy() {
+        if (parent != null) {
+            return parent.createShallowCopy();
+        }
+        if (closed) {
+            return null;
+        }
+        sortLastRun();
+        childCount++;
+        return new MVMergeSortTempResult(this);
+    }
+
+    private void sortLastRun() {
+        if (!sorted) {
+            sort.sort(rows);
+            sorted = true;
+        }
+    }
+
+    @Override
+    public Value[] next() {
+        PriorityQueue<RunCursor> queue = this.queue;
+        if (queue == null) {
+            sortLastRun();
+            this.queue = queue = new PriorityQueue<>(runs.size() + 1,
+                    (a, b) -> sort.compare(a.current, b.current));
+            for (Run run : runs) {
+                RunCursor cursor = new FileRunCursor(run);
+                if (cursor.next()) {
+                    queue.offer(cursor);
+                }
+            }
+            RunCursor cursor = new MemoryRunCursor(rows);
+            if (cursor.next()) {
+                queue.offer(cursor);
+            }
+        }
+        RunCursor cursor = queue.poll();
+        if (cursor == null) {
+            return null;
+        }
+        Value[] row = cursor.current;
+        if (cursor.next()) {
+            queue.offer(cursor);
+        }
+        return row;
+    }
+
+    @Override
+    public void reset() {
+        queue = null;
+    }
+
+    @Override
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (parent != null) {
+            parent.closeChild();
+        } else {
+            if (childCount == 0) {
+                delete();
+            }
+        }
+    }
+
+    private synchronized void closeChild() {
+        if (--childCount == 0 && closed) {
+            delete();
+        }
+    }
+
+    private void delete() {
+        tempFileDeleter.deleteFile(fileRef, closeable);
+    }
+
+}
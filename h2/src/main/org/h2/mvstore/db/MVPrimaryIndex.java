@@ -5,6 +5,7 @@
  */
 package org.h2.mvstore.db;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map.Entry;
 import java.util.concurrent.atomic.AtomicLong;
@@ -48,6 +49,7 @@ public class MVPrimaryIndex extends MVIndex<Long, SearchRow> {
         super(table, id, table.getName() + "_DATA", columns, 0, indexType);
         this.mvTable = table;
         RowDataType valueType = table.getRowFactory().getRowDataType();
+        valueType.setColumnar(db.getStore().getMvStore().isColumnarPages());
         mapName = "table." + getId();
         Transaction t = mvTable.getTransactionBegin();
         dataMap = t.openMap(mapName, LongDataType.INSTANCE, valueType);
@@ -232,6 +234,35 @@ public class MVPrimaryIndex extends MVIndex<Long, SearchRow> {
         return find(session, min, max);
     }
 
+    /**
+     * Creates cursors over disjoint ranges of keys that together cover all
+     * rows of this index. The ranges contain approximately the same number of
+     * rows. The cursors may be iterated by different threads, but must be
+     * created by the thread that owns the session.
+     *
+     * @param session the session
+     * @param parts the maximum number of ranges
+     * @return the cursors
+     */
+    public Cursor[] findParallel(SessionLocal session, int parts) {
+        TransactionMap<Long, SearchRow> map = getMap(session);
+        MVMap<Long, VersionedValue<SearchRow>> mvMap = map.map;
+        long size = mvMap.sizeAsLong();
+        ArrayList<Cursor> cursors = new ArrayList<>(parts);
+        Long first = null;
+        for (int i = 1; i < parts && size > 0; i++) {
+            // uncommitted keys are counted too, only bounds are needed
+            Long key = mvMap.getKey(size * i / parts);
+            if (key == null || key == Long.MIN_VALUE || first != null && key <= first) {
+                continue;
+            }
+            cursors.add(new MVStoreCursor(map.entryIterator(first, key - 1)));
+            first = key;
+        }
+        cursors.add(new MVStoreCursor(map.entryIterator(first, null)));
+        return cursors.toArray(new Cursor[0]);
+    }
+
     private long extractPKFromRow(SearchRow row, long defaultValue) {
         long result;
         if (row == null) {
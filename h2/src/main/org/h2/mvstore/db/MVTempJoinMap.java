@@ -0,0 +1,161 @@
+/*
+ * Copyright 2004-2022 H2 Group. Multiple-Licensed under the MPL 2.0,
+ * and the EPL 1.0 (https://h2database.com/html/license.html).
+ * Initial Developer: H2 Group
+ */
+package org.h2.mvstore.db;
+
+import java.io.IOException;
+import java.lang.ref.Reference;
+import java.util.Arrays;
+
+import org.h2.engine.Constants;
+import org.h2.engine.Database;
+import org.h2.message.DbException;
+import org.h2.mvstore.Cursor;
+import org.h2.mvstore.FileStore;
+import org.h2.mvstore.MVMap;
+import org.h2.mvstore.MVStore;
+import org.h2.result.Row;
+import org.h2.result.SearchRow;
+import org.h2.store.fs.FileUtils;
+import org.h2.util.TempFileDeleter;
+import org.h2.value.CompareMode;
+import org.h2.value.Value;
+import org.h2.value.ValueBigint;
+import org.h2.value.ValueRow;
+
+/**
+ * Temporary storage for rows of the build side of a hash join that does not
+ * fit into memory. Rows are stored in a temporary MVStore map ordered by the
+ * join key, so all rows with the same key can be read with one range scan.
+ */
+public final class MVTempJoinMap implements AutoCloseable {
+
+    /**
+     * A cursor over the rows with the same join key.
+     */
+    public final class RowCursor {
+
+        private final Value[] key;
+
+        private final Cursor<ValueRow, ValueRow> cursor;
+
+        private Row current;
+
+        RowCursor(Value[] key) {
+            this.key = key;
+            Value[] from = Arrays.copyOf(key, key.length + 1);
+            from[key.length] = ValueBigint.get(Long.MIN_VALUE);
+            cursor = map.cursor(ValueRow.get(from));
+        }
+
+        /**
+         * Moves to the next row with the same join key.
+         *
+         * @return whether there is such row
+         */
+        public boolean next() {
+            if (!cursor.hasNext()) {
+                current = null;
+                return false;
+            }
+            Value[] k = cursor.next().getList();
+            for (int i = 0, l = key.length; i < l; i++) {
+                if (key[i].compareTo(k[i], database, compareMode) != 0) {
+                    current = null;
+                    return false;
+                }
+            }
+            Value[] v = cursor.getValue().getList();
+            int columnCount = v.length - 1;
+            current = Row.get(Arrays.copyOf(v, columnCount), SearchRow.MEMORY_CALCULATE, v[columnCount].getLong());
+            return true;
+        }
+
+        /**
+         * Returns the current row.
+         *
+         * @return the current row
+         */
+        public Row get() {
+            return current;
+        }
+
+    }
+
+    private final Database database;
+
+    private final CompareMode compareMode;
+
+    private final MVStore store;
+
+    private final MVMap<ValueRow, ValueRow> map;
+
+    private final TempFileDeleter tempFileDeleter;
+
+    private final MVTempResult.CloseImpl closeable;
+
+    private final Reference<?> fileRef;
+
+    private long nextId;
+
+    /**
+     * Creates a new temporary join map.
+     *
+     * @param database
+     *            the database
+     */
+    public MVTempJoinMap(Database database) {
+        this.database = database;
+        compareMode = database.getCompareMode();
+        try {
+            String fileName = FileUtils.createTempFile("h2tmp", Constants.SUFFIX_TEMP_FILE, true);
+            FileStore fileStore = database.getStore().getMvStore().getFileStore().open(fileName, false);
+            store = new MVStore.Builder().adoptFileStore(fileStore).cacheSize(0).autoCommitDisabled().open();
+            ValueDataType keyType = new ValueDataType(database, null);
+            ValueDataType valueType = new ValueDataType(database, null);
+            map = store.openMap("tmp", new MVMap.Builder<ValueRow, ValueRow>().keyType(keyType).valueType(valueType));
+            tempFileDeleter = database.getTempFileDeleter();
+            closeable = new MVTempResult.CloseImpl(store::closeImmediately, fileName);
+            fileRef = tempFileDeleter.addFile(closeable, this);
+        } catch (IOException e) {
+            throw DbException.convert(e);
+        }
+    }
+
+    /**
+     * Adds a row.
+     *
+     * @param key
+     *            the values of the join key, must not contain NULL
+     * @param row
+     *            the row
+     */
+    public void add(Value[] key, Row row) {
+        int keyLength = key.length;
+        Value[] k = Arrays.copyOf(key, keyLength + 1);
+        k[keyLength] = ValueBigint.get(nextId++);
+        int columnCount = row.getColumnCount();
+        Value[] v = Arrays.copyOf(row.getValueList(), columnCount + 1);
+        v[columnCount] = ValueBigint.get(row.getKey());
+        map.put(ValueRow.get(k), ValueRow.get(v));
+    }
+
+    /**
+     * Returns a cursor over the rows with the specified join key.
+     *
+     * @param key
+     *            the values of the join key, must not contain NULL
+     * @return the cursor
+     */
+    public RowCursor find(Value[] key) {
+        return new RowCursor(key);
+    }
+
+    @Override
+    public void close() {
+        tempFileDeleter.deleteFile(fileRef, closeable);
+    }
+
+}
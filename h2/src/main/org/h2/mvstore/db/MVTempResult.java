@@ -33,32 +33,35 @@ import org.h2.value.Value;
  */
 public abstract class MVTempResult implements ResultExternal {
 
-    private static final class CloseImpl implements AutoCloseable {
+    /**
+     * Closes the storage of a temporary result and deletes its file.
+     */
+    static final class CloseImpl implements AutoCloseable {
         /**
-         * MVStore.
+         * Closes the MVStore or the file store.
          */
-        private final MVStore store;
+        private final Runnable closeStore;
 
         /**
          * File name.
          */
         private final String fileName;
 
-        CloseImpl(MVStore store, String fileName) {
-            this.store = store;
+        CloseImpl(Runnable closeStore, String fileName) {
+            this.closeStore = closeStore;
             this.fileName = fileName;
         }
 
         @Override
-        public void close() throws Exception {
-            store.closeImmediately();
+        public void close() {
+            closeStore.run();
             FileUtils.tryDelete(fileName);
         }
 
     }
 
     /**
-     * Creates MVStore-based temporary result.
+     * Creates file-based temporary result.
      *
      * @param database
      *            database
@@ -79,9 +82,11 @@ public abstract class MVTempResult implements ResultExternal {
      */
     public static ResultExternal of(Database database, Expression[] expressions, boolean distinct,
             int[] distinctIndexes, int visibleColumnCount, int resultColumnCount, SortOrder sort) {
-        return distinct || distinctIndexes != null || sort != null
-                ? new MVSortedTempResult(database, expressions, distinct, distinctIndexes, visibleColumnCount,
-                        resultColumnCount, sort)
+        if (distinct || distinctIndexes != null) {
+            return new MVSortedTempResult(database, expressions, distinct, distinctIndexes, visibleColumnCount,
+                    resultColumnCount, sort);
+        }
+        return sort != null ? new MVMergeSortTempResult(database, expressions, resultColumnCount, sort)
                 : new MVPlainTempResult(database, expressions, visibleColumnCount, resultColumnCount);
     }
 
@@ -185,7 +190,7 @@ public abstract class MVTempResult implements ResultExternal {
             this.visibleColumnCount = visibleColumnCount;
             this.resultColumnCount = resultColumnCount;
             tempFileDeleter = database.getTempFileDeleter();
-            closeable = new CloseImpl(store, fileName);
+            closeable = new CloseImpl(store::closeImmediately, fileName);
             fileRef = tempFileDeleter.addFile(closeable, this);
         } catch (IOException e) {
             throw DbException.convert(e);
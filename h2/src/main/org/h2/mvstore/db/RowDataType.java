@@ -7,6 +7,7 @@ package org.h2.mvstore.db;
 
 import java.nio.ByteBuffer;
 import java.util.Arrays;
+import java.util.HashMap;
 import org.h2.engine.CastDataProvider;
 import org.h2.engine.Database;
 import org.h2.mvstore.DataUtils;
@@ -20,6 +21,12 @@ import org.h2.store.DataHandler;
 import org.h2.value.CompareMode;
 import org.h2.value.TypeInfo;
 import org.h2.value.Value;
+import org.h2.value.ValueBigint;
+import org.h2.value.ValueInteger;
+import org.h2.value.ValueNull;
+import org.h2.value.ValueSmallint;
+import org.h2.value.ValueTinyint;
+import org.h2.value.ValueVarchar;
 
 /**
  * The data type for rows.
@@ -28,11 +35,36 @@ import org.h2.value.Value;
  */
 public final class RowDataType extends BasicDataType<SearchRow> implements StatefulDataType<Database> {
 
+    /**
+     * The first byte of rows written in columnar layout. It is not used as a
+     * type tag by {@link ValueDataType}, so rows written in row layout can't
+     * start with it.
+     */
+    private static final int COLUMNAR = 255;
+
+    /**
+     * Column encoding: values are written one by one.
+     */
+    private static final int PLAIN = 0;
+
+    /**
+     * Column encoding: integer values of the same data type are written as
+     * bit-packed differences between adjacent values.
+     */
+    private static final int DELTA = 1;
+
+    /**
+     * Column encoding: character strings are written once, followed by
+     * bit-packed indexes of strings (0 for NULL).
+     */
+    private static final int DICTIONARY = 2;
+
     private final ValueDataType valueDataType;
     private final int[]         sortTypes;
     private final int[]         indexes;
     private final int           columnCount;
     private final boolean       storeKeys;
+    private boolean             columnar;
 
     public RowDataType(CastDataProvider provider, CompareMode compareMode, DataHandler handler, int[] sortTypes,
             int[] indexes, int columnCount, boolean storeKeys) {
@@ -64,6 +96,17 @@ public final class RowDataType extends BasicDataType<SearchRow> implements State
         return storeKeys;
     }
 
+    /**
+     * Enables or disables columnar layout of written pages. Rows in columnar
+     * layout can be read even if it is disabled. Only rows of tables, without
+     * stored keys, can use this layout.
+     *
+     * @param columnar whether columnar layout should be used
+     */
+    void setColumnar(boolean columnar) {
+        this.columnar = columnar;
+    }
+
     @Override
     public SearchRow[] createStorage(int capacity) {
         return new SearchRow[capacity];
@@ -181,6 +224,223 @@ public final class RowDataType extends BasicDataType<SearchRow> implements State
         }
     }
 
+    @Override
+    public void write(WriteBuffer buff, Object storage, int len) {
+        SearchRow[] rows = (SearchRow[]) storage;
+        if (columnar && canUseColumnar() && len > 1) {
+            boolean sameColumnCount = true;
+            for (int i = 0; i < len; i++) {
+                if (rows[i].getColumnCount() != columnCount) {
+                    sameColumnCount = false;
+                    break;
+                }
+            }
+            if (sameColumnCount) {
+                buff.put((byte) COLUMNAR);
+                for (int i = 0; i < columnCount; i++) {
+                    writeColumn(buff, rows, len, i);
+                }
+                return;
+            }
+        }
+        super.write(buff, storage, len);
+    }
+
+    @Override
+    public void read(ByteBuffer buff, Object storage, int len) {
+        if (len > 0 && canUseColumnar() && (buff.get(buff.position()) & 255) == COLUMNAR) {
+            buff.get();
+            SearchRow[] rows = (SearchRow[]) storage;
+            RowFactory rowFactory = valueDataType.getRowFactory();
+            for (int i = 0; i < len; i++) {
+                rows[i] = rowFactory.createRow();
+            }
+            TypeInfo[] columnTypes = rowFactory.getColumnTypes();
+            for (int i = 0; i < columnCount; i++) {
+                readColumn(buff, rows, len, i, columnTypes != null ? columnTypes[i] : null);
+            }
+        } else {
+            super.read(buff, storage, len);
+        }
+    }
+
+    private boolean canUseColumnar() {
+        return !storeKeys && indexes == null && columnCount > 0;
+    }
+
+    private void writeColumn(WriteBuffer buff, SearchRow[] rows, int len, int column) {
+        int valueType = rows[0].getValue(column).getValueType();
+        switch (valueType) {
+        case Value.TINYINT:
+        case Value.SMALLINT:
+        case Value.INTEGER:
+        case Value.BIGINT:
+            if (writeDelta(buff, rows, len, column, valueType)) {
+                return;
+            }
+            break;
+        case Value.NULL:
+        case Value.VARCHAR:
+            if (writeDictionary(buff, rows, len, column)) {
+                return;
+            }
+        }
+        buff.put((byte) PLAIN);
+        for (int i = 0; i < len; i++) {
+            valueDataType.write(buff, rows[i].getValue(column));
+        }
+    }
+
+    private static boolean writeDelta(WriteBuffer buff, SearchRow[] rows, int len, int column, int valueType) {
+        long[] deltas = new long[len - 1];
+        long previous = rows[0].getValue(column).getLong(), first = previous, mask = 0L;
+        for (int i = 1; i < len; i++) {
+            Value v = rows[i].getValue(column);
+            if (v.getValueType() != valueType) {
+                return false;
+            }
+            long l = v.getLong(), d = l - previous;
+            // zigzag encoding
+            mask |= deltas[i - 1] = (d << 1) ^ (d >> 63);
+            previous = l;
+        }
+        int bits = 64 - Long.numberOfLeadingZeros(mask);
+        buff.put((byte) DELTA).putVarInt(valueType).putVarLong(first).put((byte) bits);
+        writeBits(buff, deltas, deltas.length, bits);
+        return true;
+    }
+
+    private static boolean writeDictionary(WriteBuffer buff, SearchRow[] rows, int len, int column) {
+        HashMap<String, Integer> dictionary = new HashMap<>();
+        String[] strings = new String[len / 2];
+        long[] codes = new long[len];
+        for (int i = 0; i < len; i++) {
+            Value v = rows[i].getValue(column);
+            int valueType = v.getValueType();
+            if (valueType == Value.VARCHAR) {
+                String s = v.getString();
+                Integer code = dictionary.get(s);
+                if (code == null) {
+                    int size = dictionary.size();
+                    if (size == strings.length) {
+                        // not enough repeated values
+                        return false;
+                    }
+                    strings[size] = s;
+                    dictionary.put(s, code = size + 1);
+                }
+                codes[i] = code;
+            } else if (valueType != Value.NULL) {
+                return false;
+            }
+        }
+        int size = dictionary.size();
+        buff.put((byte) DICTIONARY).putVarInt(size);
+        for (int i = 0; i < size; i++) {
+            String s = strings[i];
+            int l = s.length();
+            buff.putVarInt(l).putStringData(s, l);
+        }
+        writeBits(buff, codes, len, 32 - Integer.numberOfLeadingZeros(size));
+        return true;
+    }
+
+    private void readColumn(ByteBuffer buff, SearchRow[] rows, int len, int column, TypeInfo columnType) {
+        switch (buff.get()) {
+        case PLAIN:
+            for (int i = 0; i < len; i++) {
+                rows[i].setValue(column, valueDataType.readValue(buff, columnType));
+            }
+            break;
+        case DELTA: {
+            int valueType = DataUtils.readVarInt(buff);
+            long l = DataUtils.readVarLong(buff);
+            int bits = buff.get();
+            long[] deltas = readBits(buff, len - 1, bits);
+            for (int i = 0;;) {
+                rows[i].setValue(column, getInteger(valueType, l));
+                if (++i == len) {
+                    break;
+                }
+                long z = deltas[i - 1];
+                l += (z >>> 1) ^ -(z & 1);
+            }
+            break;
+        }
+        case DICTIONARY: {
+            int size = DataUtils.readVarInt(buff);
+            Value[] dictionary = new Value[size + 1];
+            dictionary[0] = ValueNull.INSTANCE;
+            for (int i = 1; i <= size; i++) {
+                dictionary[i] = ValueVarchar.get(DataUtils.readString(buff));
+            }
+            long[] codes = readBits(buff, len, 32 - Integer.numberOfLeadingZeros(size));
+            for (int i = 0; i < len; i++) {
+                rows[i].setValue(column, dictionary[(int) codes[i]]);
+            }
+            break;
+        }
+        default:
+            throw DataUtils.newMVStoreException(DataUtils.ERROR_FILE_CORRUPT, "Unknown column encoding");
+        }
+    }
+
+    private static Value getInteger(int valueType, long l) {
+        switch (valueType) {
+        case Value.TINYINT:
+            return ValueTinyint.get((byte) l);
+        case Value.SMALLINT:
+            return ValueSmallint.get((short) l);
+        case Value.INTEGER:
+            return ValueInteger.get((int) l);
+        case Value.BIGINT:
+            return ValueBigint.get(l);
+        default:
+            throw DataUtils.newMVStoreException(DataUtils.ERROR_FILE_CORRUPT, "Unknown data type {0}", valueType);
+        }
+    }
+
+    private static void writeBits(WriteBuffer buff, long[] values, int len, int bits) {
+        int current = 0, filled = 0;
+        for (int i = 0; i < len; i++) {
+            long v = values[i];
+            for (int shift = 0; shift < bits;) {
+                int n = Math.min(8 - filled, bits - shift);
+                current |= (int) (v >>> shift & (1 << n) - 1) << filled;
+                shift += n;
+                if ((filled += n) == 8) {
+                    buff.put((byte) current);
+                    current = 0;
+                    filled = 0;
+                }
+            }
+        }
+        if (filled > 0) {
+            buff.put((byte) current);
+        }
+    }
+
+    private static long[] readBits(ByteBuffer buff, int len, int bits) {
+        long[] values = new long[len];
+        int current = 0, available = 0;
+        for (int i = 0; i < len; i++) {
+            long v = 0L;
+            for (int shift = 0; shift < bits;) {
+                if (available == 0) {
+                    current = buff.get() & 255;
+                    available = 8;
+                }
+                int n = Math.min(available, bits - shift);
+                v |= (long) (current & (1 << n) - 1) << shift;
+                current >>>= n;
+                available -= n;
+                shift += n;
+            }
+            values[i] = v;
+        }
+        return values;
+    }
+
     @Override
     public boolean equals(Object obj) {
         if (obj == this) {
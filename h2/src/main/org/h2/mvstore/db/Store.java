@@ -10,11 +10,13 @@ import java.nio.channels.FileChannel;
 import java.util.ArrayList;
 import java.util.BitSet;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
 import org.h2.api.ErrorCode;
+import org.h2.command.Parser;
 import org.h2.command.ddl.CreateTableData;
 import org.h2.engine.Constants;
 import org.h2.engine.Database;
@@ -22,6 +24,7 @@ import org.h2.engine.SessionLocal;
 import org.h2.message.DbException;
 import org.h2.mvstore.DataUtils;
 import org.h2.mvstore.FileStore;
+import org.h2.mvstore.MVMap;
 import org.h2.mvstore.MVStore;
 import org.h2.mvstore.MVStoreException;
 import org.h2.mvstore.MVStoreTool;
@@ -31,6 +34,8 @@ import org.h2.mvstore.type.MetaType;
 import org.h2.store.InDoubtTransaction;
 import org.h2.store.fs.FileChannelInputStream;
 import org.h2.store.fs.FileUtils;
+import org.h2.table.Column;
+import org.h2.table.ColumnStatistics;
 import org.h2.util.HasSQL;
 import org.h2.util.StringUtils;
 import org.h2.util.Utils;
@@ -57,6 +62,11 @@ public final class Store {
         return password;
     }
 
+    /**
+     * The name of the map with statistics of columns.
+     */
+    private static final String COLUMN_STATISTICS_MAP_NAME = "columnStatistics";
+
     /**
      * The map of open tables.
      * Key: the map name, value: the table.
@@ -73,6 +83,14 @@ public final class Store {
      */
     private final TransactionStore transactionStore;
 
+    /**
+     * The statistics of columns collected by ANALYZE, or {@code null} in a
+     * read-only database without them. Key: the table id, value: the
+     * statistics of its columns. They aren't a part of the metadata table,
+     * older versions of H2 can't parse them.
+     */
+    private final MVMap<Integer, String> columnStatisticsMap;
+
     private long statisticsStart;
 
     private int temporaryMapId;
@@ -81,6 +99,11 @@ public final class Store {
 
     private final String fileName;
 
+    /**
+     * The group commit, or {@code null} for in-memory databases.
+     */
+    private final GroupCommit groupCommit;
+
     /**
      * Creates the store.
      *
@@ -122,6 +145,16 @@ public final class Store {
                 // use a larger page split size to improve the compression ratio
                 builder.pageSplitSize(64 * 1024);
             }
+            if (db.getSettings().columnarPages) {
+                builder.columnarPages();
+            }
+            if (db.getSettings().memoryMapped) {
+                builder.memoryMapped();
+            }
+            int offHeapCacheSize = db.getSettings().offHeapCacheSize;
+            if (offHeapCacheSize > 0) {
+                builder.offHeapCacheSize(offHeapCacheSize);
+            }
             builder.backgroundExceptionHandler((t, e) -> db.setBackgroundException(DbException.convert(e)));
             // always start without background thread first, and if necessary,
             // it will be set up later, after db has been fully started,
@@ -141,6 +174,9 @@ public final class Store {
             this.transactionStore = new TransactionStore(mvStore,
                     new MetaType<>(db, mvStore.backgroundExceptionHandler), new ValueDataType(db, null),
                     db.getLockTimeout());
+            groupCommit = fileName != null ? new GroupCommit(mvStore) : null;
+            columnStatisticsMap = db.isReadOnly() && !mvStore.hasMap(COLUMN_STATISTICS_MAP_NAME) ? null
+                    : mvStore.openMap(COLUMN_STATISTICS_MAP_NAME);
         } catch (MVStoreException e) {
             throw convertMVStoreException(e);
         }
@@ -194,6 +230,15 @@ public final class Store {
         return mvStore;
     }
 
+    /**
+     * Returns the group commit that makes committed transactions durable.
+     *
+     * @return the group commit, or {@code null} for in-memory databases
+     */
+    public GroupCommit getGroupCommit() {
+        return groupCommit;
+    }
+
     public TransactionStore getTransactionStore() {
         return transactionStore;
     }
@@ -218,6 +263,16 @@ public final class Store {
         try {
             MVTable table = new MVTable(data, this);
             tableMap.put(table.getMapName(), table);
+            if (columnStatisticsMap != null) {
+                String statistics = columnStatisticsMap.get(data.id);
+                if (statistics != null) {
+                    try {
+                        new Parser(data.session).parseColumnStatistics(statistics, table);
+                    } catch (DbException e) {
+                        // ignore, statistics will be collected again by ANALYZE
+                    }
+                }
+            }
             return table;
         } catch (MVStoreException e) {
             throw convertMVStoreException(e);
@@ -232,6 +287,39 @@ public final class Store {
     public void removeTable(MVTable table) {
         try {
             tableMap.remove(table.getMapName());
+            if (columnStatisticsMap != null) {
+                columnStatisticsMap.remove(table.getId());
+            }
+        } catch (MVStoreException e) {
+            throw convertMVStoreException(e);
+        }
+    }
+
+    /**
+     * Store the statistics of columns of a table collected by ANALYZE.
+     *
+     * @param table the table
+     */
+    public void storeColumnStatistics(MVTable table) {
+        if (columnStatisticsMap == null) {
+            return;
+        }
+        StringBuilder builder = new StringBuilder();
+        for (Column column : table.getColumns()) {
+            ColumnStatistics statistics = column.getStatistics();
+            if (statistics != null) {
+                if (builder.length() > 0) {
+                    builder.append(", ");
+                }
+                statistics.getSQL(column.getSQL(builder, HasSQL.DEFAULT_SQL_FLAGS).append(' '));
+            }
+        }
+        try {
+            if (builder.length() > 0) {
+                columnStatisticsMap.put(table.getId(), builder.toString());
+            } else {
+                columnStatisticsMap.remove(table.getId());
+            }
         } catch (MVStoreException e) {
             throw convertMVStoreException(e);
         }
@@ -275,6 +363,16 @@ public final class Store {
                 }
             }
         }
+        FileStore s = mvStore.getFileStore();
+        if (columnStatisticsMap != null && (s == null || !s.isReadOnly())) {
+            // statistics of tables dropped by older versions
+            for (Iterator<Integer> i = columnStatisticsMap.keyIterator(null); i.hasNext();) {
+                int id = i.next();
+                if (!objectIds.get(id)) {
+                    columnStatisticsMap.remove(id);
+                }
+            }
+        }
     }
 
     /**
@@ -372,6 +470,9 @@ public final class Store {
                 }
                 if (compactFully) {
                     allowedCompactionTime = 0;
+                    // the full compaction copies pages as is, convert them to
+                    // the layout selected by COLUMNAR_PAGES before
+                    mvStore.convertPages();
                 }
 
                 String fileName = null;
@@ -0,0 +1,69 @@
+/*
+ * Copyright 2004-2022 H2 Group. Multiple-Licensed under the MPL 2.0,
+ * and the EPL 1.0 (https://h2database.com/html/license.html).
+ * Initial Developer: H2 Group
+ */
+package org.h2.mvstore.tx;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A histogram of times spent by transactions waiting for locked entries of a
+ * map. Bucket {@code i} counts waits shorter than {@code 2^i} milliseconds,
+ * the last bucket counts all longer waits.
+ */
+public final class LockWaitHistogram {
+
+    /**
+     * The number of buckets.
+     */
+    public static final int BUCKET_COUNT = 17;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+
+    private final AtomicLongArray totalNanos = new AtomicLongArray(BUCKET_COUNT);
+
+    /**
+     * Returns the upper bound of the specified bucket.
+     *
+     * @param bucket the bucket
+     * @return the upper bound in milliseconds (exclusive), or -1 for the last
+     *         bucket
+     */
+    public static long getUpperBoundMillis(int bucket) {
+        return bucket < BUCKET_COUNT - 1 ? 1L << bucket : -1L;
+    }
+
+    /**
+     * Adds a wait.
+     *
+     * @param nanos the wait time in nanoseconds
+     */
+    void add(long nanos) {
+        long millis = nanos / 1_000_000L;
+        int bucket = Math.min(64 - Long.numberOfLeadingZeros(millis), BUCKET_COUNT - 1);
+        counts.incrementAndGet(bucket);
+        totalNanos.addAndGet(bucket, nanos);
+    }
+
+    /**
+     * Returns the number of waits in the specified bucket.
+     *
+     * @param bucket the bucket
+     * @return the number of waits
+     */
+    public long getCount(int bucket) {
+        return counts.get(bucket);
+    }
+
+    /**
+     * Returns the total wait time of the specified bucket.
+     *
+     * @param bucket the bucket
+     * @return the total wait time in nanoseconds
+     */
+    public long getTotalNanos(int bucket) {
+        return totalNanos.get(bucket);
+    }
+
+}
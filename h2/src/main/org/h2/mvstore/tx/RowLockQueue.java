@@ -0,0 +1,231 @@
+/*
+ * Copyright 2004-2022 H2 Group. Multiple-Licensed under the MPL 2.0,
+ * and the EPL 1.0 (https://h2database.com/html/license.html).
+ * Initial Developer: H2 Group
+ */
+package org.h2.mvstore.tx;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+
+/**
+ * A FIFO queue of transactions waiting for an entry of a map. Only the first
+ * transaction in the queue waits for the transaction that owns the entry;
+ * when it takes the entry it stays first in the queue until it is closed.
+ * Other transactions wait until they become first, so the end of the owner
+ * wakes up only one waiting transaction instead of all of them. For deadlock
+ * detection each of them waits for the previous transaction in the queue.
+ */
+final class RowLockQueue {
+
+    /**
+     * The identity of a map entry.
+     */
+    static final class EntryKey {
+
+        private final int mapId;
+
+        private final Object key;
+
+        EntryKey(int mapId, Object key) {
+            this.mapId = mapId;
+            this.key = key;
+        }
+
+        @Override
+        public int hashCode() {
+            return mapId * 31 + key.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof EntryKey)) {
+                return false;
+            }
+            EntryKey other = (EntryKey) obj;
+            return mapId == other.mapId && key.equals(other.key);
+        }
+
+    }
+
+    /**
+     * A transaction in the queue.
+     */
+    static final class Waiter {
+
+        /**
+         * The queue.
+         */
+        final RowLockQueue queue;
+
+        /**
+         * The waiting transaction.
+         */
+        final Transaction transaction;
+
+        /**
+         * The id of the map.
+         */
+        final int mapId;
+
+        /**
+         * The time when the transaction started to wait, in nanoseconds.
+         */
+        final long startNanos = System.nanoTime();
+
+        /**
+         * Whether this waiter is the first in the queue.
+         */
+        private boolean first;
+
+        Waiter(RowLockQueue queue, Transaction transaction) {
+            this.queue = queue;
+            this.transaction = transaction;
+            mapId = queue.entryKey.mapId;
+        }
+
+        synchronized boolean isFirst() {
+            return first;
+        }
+
+        synchronized void setFirst() {
+            first = true;
+            notifyAll();
+        }
+
+        /**
+         * Wake up the transaction, it checks its status.
+         */
+        synchronized void wakeUp() {
+            notifyAll();
+        }
+
+        /**
+         * Wait until this waiter is the first in the queue.
+         *
+         * @param millis the maximum time to wait
+         * @return true if this waiter is the first, false on timeout
+         */
+        synchronized boolean awaitFirst(int millis) {
+            long until = System.currentTimeMillis() + millis;
+            while (!first) {
+                if (transaction.getStatus() != Transaction.STATUS_OPEN) {
+                    transaction.tryThrowDeadLockException(true);
+                }
+                long dur = until - System.currentTimeMillis();
+                if (dur <= 0) {
+                    return false;
+                }
+                try {
+                    wait(dur);
+                } catch (InterruptedException ex) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+    }
+
+    private final TransactionStore store;
+
+    private final EntryKey entryKey;
+
+    private final ArrayDeque<Waiter> waiters = new ArrayDeque<>();
+
+    /**
+     * Whether this queue was removed from the store, a new queue is created
+     * for new waiters then.
+     */
+    private boolean removed;
+
+    RowLockQueue(TransactionStore store, EntryKey entryKey) {
+        this.store = store;
+        this.entryKey = entryKey;
+    }
+
+    /**
+     * Add a transaction to the end of the queue.
+     *
+     * @param transaction the transaction
+     * @return the waiter, or null if this queue was removed
+     */
+    synchronized Waiter add(Transaction transaction) {
+        if (removed) {
+            return null;
+        }
+        Waiter waiter = new Waiter(this, transaction);
+        waiters.addLast(waiter);
+        if (waiters.size() == 1) {
+            waiter.setFirst();
+        }
+        return waiter;
+    }
+
+    /**
+     * Sets the transaction the transaction of the specified waiter waits for.
+     * The first waiter waits for the owner of the entry, other waiters wait
+     * for the previous waiter.
+     *
+     * @param waiter the waiter
+     * @param owner the transaction that owns the entry
+     * @return the previous waiter, or {@code null} if the specified waiter is
+     *         the first
+     */
+    synchronized Waiter setBlockingTransaction(Waiter waiter, Transaction owner) {
+        Waiter previous = null;
+        for (Waiter w : waiters) {
+            if (w == waiter) {
+                break;
+            }
+            previous = w;
+        }
+        waiter.transaction.setBlockingTransaction(previous != null ? previous.transaction : owner, true);
+        return previous;
+    }
+
+    /**
+     * The transaction of the specified waiter doesn't wait for another
+     * transaction any more.
+     *
+     * @param waiter the waiter
+     */
+    synchronized void stopWaiting(Waiter waiter) {
+        waiter.transaction.setBlockingTransaction(null, true);
+    }
+
+    /**
+     * Remove a waiter from the queue. If it was the first, the next waiter
+     * becomes the first, otherwise the next waiter waits for the previous one.
+     *
+     * @param waiter the waiter
+     */
+    synchronized void remove(Waiter waiter) {
+        Waiter previous = null, next = null;
+        for (Iterator<Waiter> i = waiters.iterator(); i.hasNext();) {
+            Waiter w = i.next();
+            if (w == waiter) {
+                i.remove();
+                if (i.hasNext()) {
+                    next = i.next();
+                }
+                break;
+            }
+            previous = w;
+        }
+        if (waiters.isEmpty()) {
+            removed = true;
+            store.removeRowLockQueue(entryKey, this);
+        } else if (next != null) {
+            if (previous == null) {
+                next.setFirst();
+            } else {
+                next.transaction.setBlockingTransaction(previous.transaction, false);
+            }
+        }
+    }
+
+}
@@ -5,6 +5,7 @@
  */
 package org.h2.mvstore.tx;
 
+import java.util.ArrayList;
 import java.util.BitSet;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -160,6 +161,18 @@ public final class Transaction {
      */
     private volatile boolean notificationRequested;
 
+    /**
+     * The position of this transaction in the queue of the entry it waits
+     * for, if any.
+     */
+    private volatile RowLockQueue.Waiter rowLockWaiter;
+
+    /**
+     * Positions of this transaction in queues of entries it took after
+     * waiting, the next waiters are woken up when this transaction is closed.
+     */
+    private final ArrayList<RowLockQueue.Waiter> takenRowLocks = new ArrayList<>();
+
     /**
      * RootReferences for undo log snapshots
      */
@@ -534,6 +547,7 @@ public final class Transaction {
             store.rollbackTo(this, logId, savepointId);
         } finally {
             notifyAllWaitingTransactions();
+            releaseRowLockQueues();
             long expectedState = composeState(STATUS_ROLLING_BACK, logId, hasRollback(lastState));
             long newState = composeState(STATUS_OPEN, savepointId, true);
             do {
@@ -647,6 +661,37 @@ public final class Transaction {
         if((hasChanges(lastState) || hasRollback(lastState))) {
             notifyAllWaitingTransactions();
         }
+        releaseRowLockQueues();
+    }
+
+    /**
+     * Let next transactions in queues of entries taken by this transaction
+     * try to take them.
+     */
+    private void releaseRowLockQueues() {
+        synchronized (takenRowLocks) {
+            for (RowLockQueue.Waiter waiter : takenRowLocks) {
+                waiter.queue.remove(waiter);
+            }
+            takenRowLocks.clear();
+        }
+    }
+
+    /**
+     * This transaction stopped to wait for an entry.
+     *
+     * @param waiter the position of this transaction in the queue
+     * @param taken whether this transaction has taken the entry
+     */
+    void rowLockWaitFinished(RowLockQueue.Waiter waiter, boolean taken) {
+        store.recordLockWait(waiter.mapId, System.nanoTime() - waiter.startNanos);
+        if (taken) {
+            synchronized (takenRowLocks) {
+                takenRowLocks.add(waiter);
+            }
+        } else {
+            waiter.queue.remove(waiter);
+        }
     }
 
     private void notifyAllWaitingTransactions() {
@@ -667,19 +712,73 @@ public final class Transaction {
      * @return true if other transaction was closed and this one can proceed, false if timed out
      */
     public boolean waitFor(Transaction toWaitFor, String mapName, Object key) {
-        blockingTransaction = toWaitFor;
+        return waitFor(toWaitFor, mapName, key, null);
+    }
+
+    /**
+     * Make this transaction to wait for the specified transaction to be closed,
+     * because both of them try to modify the same map entry. If other
+     * transactions wait for the same entry, this transaction waits until they
+     * are done with it first.
+     *
+     * @param toWaitFor transaction to wait for
+     * @param mapName name of the map containing blocking entry
+     * @param key of the blocking entry
+     * @param waiter the position of this transaction in the queue of
+     *            transactions waiting for this entry, or {@code null}
+     * @return true if other transaction was closed or all previous waiters
+     *         are done and this one can proceed, false if timed out
+     */
+    boolean waitFor(Transaction toWaitFor, String mapName, Object key, RowLockQueue.Waiter waiter) {
         blockingMapName = mapName;
         blockingKey = key;
-        if (isDeadlocked(toWaitFor)) {
-            tryThrowDeadLockException(false);
+        RowLockQueue.Waiter previous = null;
+        if (waiter != null) {
+            previous = waiter.queue.setBlockingTransaction(waiter, toWaitFor);
+        } else {
+            blockingTransaction = toWaitFor;
+        }
+        boolean result;
+        try {
+            if (isDeadlocked(previous != null ? previous.transaction : toWaitFor)) {
+                tryThrowDeadLockException(false);
+            }
+            if (previous != null) {
+                rowLockWaiter = waiter;
+                try {
+                    result = waiter.awaitFirst(timeoutMillis);
+                } finally {
+                    rowLockWaiter = null;
+                }
+            } else {
+                result = toWaitFor.waitForThisToEnd(timeoutMillis, this);
+            }
+        } finally {
+            blockingMapName = null;
+            blockingKey = null;
+            if (waiter != null) {
+                waiter.queue.stopWaiting(waiter);
+            } else {
+                blockingTransaction = null;
+            }
         }
-        boolean result = toWaitFor.waitForThisToEnd(timeoutMillis, this);
-        blockingMapName = null;
-        blockingKey = null;
-        blockingTransaction = null;
         return result;
     }
 
+    /**
+     * Change the transaction this transaction waits for in the queue of
+     * transactions waiting for an entry.
+     *
+     * @param toWaitFor the new transaction to wait for
+     * @param start whether this transaction starts to wait, otherwise the
+     *            transaction is changed only if this transaction waits
+     */
+    void setBlockingTransaction(Transaction toWaitFor, boolean start) {
+        if (start || blockingTransaction != null) {
+            blockingTransaction = toWaitFor;
+        }
+    }
+
     private boolean isDeadlocked(Transaction toWaitFor) {
         // use transaction sequence No as a tie-breaker
         // the youngest transaction should be selected as a victim
@@ -701,6 +800,10 @@ public final class Transaction {
                 if (btx != null) {
                     youngest.setStatus(STATUS_ROLLING_BACK);
                     btx.notifyAllWaitingTransactions();
+                    RowLockQueue.Waiter waiter = youngest.rowLockWaiter;
+                    if (waiter != null) {
+                        waiter.wakeUp();
+                    }
                     return false;
                 }
             }
@@ -708,7 +811,13 @@ public final class Transaction {
         return false;
     }
 
-    private void tryThrowDeadLockException(boolean throwIt) {
+    /**
+     * Throw the deadlock exception if this transaction is a part of a cycle
+     * of waiting transactions or if the exception is requested.
+     *
+     * @param throwIt whether the exception should be thrown anyway
+     */
+    void tryThrowDeadLockException(boolean throwIt) {
         BitSet visited = new BitSet();
         StringBuilder details = new StringBuilder(
                 String.format("Transaction %d has been chosen as a deadlock victim. Details:%n", transactionId));
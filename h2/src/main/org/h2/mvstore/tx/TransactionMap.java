@@ -337,28 +337,41 @@ public final class TransactionMap<K, V> extends AbstractMap<K,V> {
         Transaction blockingTransaction;
         VersionedValue<V> result;
         String mapName = null;
-        do {
-            assert transaction.getBlockerId() == 0;
-            @SuppressWarnings("unchecked")
-            K k = (K) key;
-            // second parameter (value) is not really used,
-            // since TxDecisionMaker has it embedded
-            result = map.operate(k, null, decisionMaker);
-
-            MVMap.Decision decision = decisionMaker.getDecision();
-            assert decision != null;
-            assert decision != MVMap.Decision.REPEAT;
-            blockingTransaction = decisionMaker.getBlockingTransaction();
-            if (decision != MVMap.Decision.ABORT || blockingTransaction == null) {
-                hasChanges |= decision != MVMap.Decision.ABORT;
-                V res = result == null ? null : result.getCurrentValue();
-                return res;
-            }
-            decisionMaker.reset();
-            if (mapName == null) {
-                mapName = map.getName();
+        RowLockQueue.Waiter waiter = null;
+        boolean taken = false;
+        try {
+            do {
+                assert transaction.getBlockerId() == 0;
+                @SuppressWarnings("unchecked")
+                K k = (K) key;
+                // second parameter (value) is not really used,
+                // since TxDecisionMaker has it embedded
+                result = map.operate(k, null, decisionMaker);
+
+                MVMap.Decision decision = decisionMaker.getDecision();
+                assert decision != null;
+                assert decision != MVMap.Decision.REPEAT;
+                blockingTransaction = decisionMaker.getBlockingTransaction();
+                if (decision != MVMap.Decision.ABORT || blockingTransaction == null) {
+                    taken = decision != MVMap.Decision.ABORT;
+                    hasChanges |= taken;
+                    V res = result == null ? null : result.getCurrentValue();
+                    return res;
+                }
+                decisionMaker.reset();
+                if (mapName == null) {
+                    mapName = map.getName();
+                }
+                if (waiter == null) {
+                    // waiters for the same entry are woken up one by one
+                    waiter = transaction.store.addRowLockWaiter(map.getId(), key, transaction);
+                }
+            } while (transaction.waitFor(blockingTransaction, mapName, key, waiter));
+        } finally {
+            if (waiter != null) {
+                transaction.rowLockWaitFinished(waiter, taken);
             }
-        } while (transaction.waitFor(blockingTransaction, mapName, key));
+        }
 
         throw DataUtils.newMVStoreException(DataUtils.ERROR_TRANSACTION_LOCKED,
                 "Map entry <{0}> with key <{1}> and value {2} is locked by tx {3} and can not be updated by tx {4}"
@@ -11,6 +11,7 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.concurrent.atomic.AtomicReferenceArray;
 import org.h2.engine.IsolationLevel;
@@ -100,6 +101,16 @@ public class TransactionStore {
     private final AtomicReferenceArray<Transaction> transactions =
                                                         new AtomicReferenceArray<>(MAX_OPEN_TRANSACTIONS + 1);
 
+    /**
+     * Queues of transactions waiting for locked entries.
+     */
+    private final ConcurrentHashMap<RowLockQueue.EntryKey, RowLockQueue> rowLockQueues = new ConcurrentHashMap<>();
+
+    /**
+     * Histograms of lock wait times by map id.
+     */
+    private final ConcurrentHashMap<Integer, LockWaitHistogram> lockWaitHistograms = new ConcurrentHashMap<>();
+
     private static final String TYPE_REGISTRY_NAME = "_";
 
     /**
@@ -480,9 +491,59 @@ public class TransactionStore {
      * @param map the map
      */
     void removeMap(TransactionMap<?,?> map) {
+        lockWaitHistograms.remove(map.map.getId());
         store.removeMap(map.map);
     }
 
+    /**
+     * Add a transaction to the end of the queue of transactions waiting for
+     * the specified entry.
+     *
+     * @param mapId the map id
+     * @param key the key of the entry
+     * @param transaction the waiting transaction
+     * @return the waiter
+     */
+    RowLockQueue.Waiter addRowLockWaiter(int mapId, Object key, Transaction transaction) {
+        RowLockQueue.EntryKey entryKey = new RowLockQueue.EntryKey(mapId, key);
+        RowLockQueue.Waiter waiter;
+        do {
+            waiter = rowLockQueues.computeIfAbsent(entryKey, k -> new RowLockQueue(this, k)).add(transaction);
+        } while (waiter == null);
+        return waiter;
+    }
+
+    /**
+     * Remove the empty queue.
+     *
+     * @param entryKey the key of the entry
+     * @param queue the queue
+     */
+    void removeRowLockQueue(RowLockQueue.EntryKey entryKey, RowLockQueue queue) {
+        rowLockQueues.remove(entryKey, queue);
+    }
+
+    /**
+     * Record the time a transaction waited for a locked entry.
+     *
+     * @param mapId the map id
+     * @param nanos the wait time in nanoseconds
+     */
+    void recordLockWait(int mapId, long nanos) {
+        lockWaitHistograms.computeIfAbsent(mapId, k -> new LockWaitHistogram()).add(nanos);
+    }
+
+    /**
+     * Returns the histogram of lock wait times for the specified map.
+     *
+     * @param mapId the map id
+     * @return the histogram, or {@code null} if no transactions waited for
+     *         entries of this map
+     */
+    public LockWaitHistogram getLockWaitHistogram(int mapId) {
+        return lockWaitHistograms.get(mapId);
+    }
+
     /**
      * Commit a transaction.
      *  @param t transaction to commit
@@ -53,8 +53,10 @@ public class VersionedValueType<T,D> extends BasicDataType<VersionedValue<T>> im
     public void read(ByteBuffer buff, Object storage, int len) {
         if (buff.get() == 0) {
             // fast path (no op ids or null entries)
+            T[] values = valueType.createStorage(len);
+            valueType.read(buff, values, len);
             for (int i = 0; i < len; i++) {
-                cast(storage)[i] = VersionedValueCommitted.getInstance(valueType.read(buff));
+                cast(storage)[i] = VersionedValueCommitted.getInstance(values[i]);
             }
         } else {
             // slow path (some entries may be null)
@@ -88,10 +90,13 @@ public class VersionedValueType<T,D> extends BasicDataType<VersionedValue<T>> im
         }
         if (fastPath) {
             buff.put((byte) 0);
+            // values are written together, so the value type can use its own
+            // layout of multiple values, such as a columnar one
+            T[] values = valueType.createStorage(len);
             for (int i = 0; i < len; i++) {
-                VersionedValue<T> v = cast(storage)[i];
-                valueType.write(buff, v.getCurrentValue());
+                values[i] = cast(storage)[i].getCurrentValue();
             }
+            valueType.write(buff, values, len);
         } else {
             // slow path:
             // store op ids, and some entries may be null
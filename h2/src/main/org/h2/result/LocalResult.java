@@ -7,6 +7,9 @@ package org.h2.result;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.PriorityQueue;
 import java.util.TreeMap;
 
 import org.h2.engine.Database;
@@ -20,6 +23,8 @@ import org.h2.mvstore.db.MVTempResult;
 import org.h2.table.Column;
 import org.h2.table.Table;
 import org.h2.util.Utils;
+import org.h2.value.CompareMode;
+import org.h2.value.DataType;
 import org.h2.value.TypeInfo;
 import org.h2.value.Value;
 import org.h2.value.ValueBigint;
@@ -66,9 +71,13 @@ public class LocalResult implements ResultInterface, ResultTarget {
     private long rowId, rowCount;
     private ArrayList<Value[]> rows;
     private SortOrder sort;
-    // HashSet cannot be used here, because we need to compare values of
-    // different type or scale properly.
-    private TreeMap<ValueRow, Value[]> distinctRows;
+    // A tree map is used when values of different type or scale need to be
+    // compared properly, a hash map is used otherwise.
+    private Map<ValueRow, Value[]> distinctRows;
+    // A heap with the first rows of a sorted result with a limit, the last of
+    // them is on the top.
+    private PriorityQueue<Value[]> topRows;
+    private int topRowsLimit;
     private Value[] currentRow;
     private long offset;
     private long limit = -1;
@@ -206,7 +215,7 @@ public class LocalResult implements ResultInterface, ResultTarget {
     public void setDistinct() {
         assert distinctIndexes == null;
         distinct = true;
-        distinctRows = new TreeMap<>(session.getDatabase().getCompareMode());
+        distinctRows = createDistinctRows();
     }
 
     /**
@@ -217,7 +226,25 @@ public class LocalResult implements ResultInterface, ResultTarget {
     public void setDistinct(int[] distinctIndexes) {
         assert !distinct;
         this.distinctIndexes = distinctIndexes;
-        distinctRows = new TreeMap<>(session.getDatabase().getCompareMode());
+        distinctRows = createDistinctRows();
+    }
+
+    private Map<ValueRow, Value[]> createDistinctRows() {
+        CompareMode compareMode = session.getDatabase().getCompareMode();
+        if (distinctIndexes != null) {
+            for (int idx : distinctIndexes) {
+                if (!DataType.isHashable(expressions[idx].getType(), compareMode)) {
+                    return new TreeMap<>(compareMode);
+                }
+            }
+        } else {
+            for (int i = 0; i < visibleColumnCount; i++) {
+                if (!DataType.isHashable(expressions[i].getType(), compareMode)) {
+                    return new TreeMap<>(compareMode);
+                }
+            }
+        }
+        return new HashMap<>();
     }
 
     /**
@@ -244,6 +271,11 @@ public class LocalResult implements ResultInterface, ResultTarget {
                 ValueRow array = getDistinctRow(row);
                 distinctRows.put(array, array.getList());
             }
+        } else if (!(distinctRows instanceof TreeMap)) {
+            // values to look up may have a different data type
+            TreeMap<ValueRow, Value[]> map = new TreeMap<>(session.getDatabase().getCompareMode());
+            map.putAll(distinctRows);
+            distinctRows = map;
         }
         ValueRow array = ValueRow.get(values);
         return distinctRows.get(array) != null;
@@ -427,6 +459,14 @@ public class LocalResult implements ResultInterface, ResultTarget {
             } else {
                 rowCount = external.addRow(values);
             }
+        } else if (topRows != null || rowCount == 0 && initTopRows()) {
+            if (rowCount < topRowsLimit) {
+                topRows.offer(values);
+                rowCount++;
+            } else if (sort.compare(topRows.peek(), values) > 0) {
+                topRows.poll();
+                topRows.offer(values);
+            }
         } else {
             rows.add(values);
             rowCount++;
@@ -436,6 +476,25 @@ public class LocalResult implements ResultInterface, ResultTarget {
         }
     }
 
+    /**
+     * Checks whether only the first rows of this result need to be kept and
+     * prepares a bounded heap for them.
+     *
+     * @return whether the heap should be used
+     */
+    private boolean initTopRows() {
+        if (sort == null || limit <= 0 || fetchPercent || withTiesSortOrder != null || limitsWereApplied) {
+            return false;
+        }
+        long count = Math.max(offset, 0) + limit;
+        if (count < 0 || count > maxMemoryRows) {
+            return false;
+        }
+        topRows = new PriorityQueue<>(sort.reversed());
+        topRowsLimit = (int) count;
+        return true;
+    }
+
     private void addRowsToDisk() {
         if (external == null) {
             createExternalResult();
@@ -458,6 +517,9 @@ public class LocalResult implements ResultInterface, ResultTarget {
         } else {
             if (isAnyDistinct()) {
                 rows = new ArrayList<>(distinctRows.values());
+            } else if (topRows != null) {
+                rows = new ArrayList<>(topRows);
+                topRows = null;
             }
             if (sort != null && limit != 0 && !limitsWereApplied) {
                 boolean withLimit = limit > 0 && withTiesSortOrder == null;
@@ -0,0 +1,191 @@
+/*
+ * Copyright 2004-2022 H2 Group. Multiple-Licensed under the MPL 2.0,
+ * and the EPL 1.0 (https://h2database.com/html/license.html).
+ * Initial Developer: H2 Group
+ */
+package org.h2.result;
+
+import org.h2.value.Value;
+import org.h2.value.ValueBigint;
+
+/**
+ * A batch of rows of one table for evaluation of expressions with whole
+ * vectors of values. The selection contains positions of rows that still
+ * need to be processed, conditions remove positions of rows that don't match
+ * from it. Vectors of values are indexed by the position of the row in the
+ * batch, only values at the selected positions are valid. A batch read from a
+ * covering index contains index search rows instead of complete rows, only
+ * values of indexed columns are available in it.
+ */
+public final class RowBatch {
+
+    /**
+     * The maximum number of rows in a batch.
+     */
+    public static final int CAPACITY = 1024;
+
+    private SearchRow[] rows = new SearchRow[16];
+
+    private int size;
+
+    private int[] selection = new int[16];
+
+    private int selectedCount;
+
+    /**
+     * Vectors of column values, by column id + 1.
+     */
+    private Value[][] columns = new Value[0][];
+
+    /**
+     * Whether the vector of a column is filled for the current rows.
+     */
+    private boolean[] columnFilled = new boolean[0];
+
+    /**
+     * Removes all rows from this batch.
+     */
+    public void clear() {
+        for (int i = 0; i < size; i++) {
+            rows[i] = null;
+        }
+        size = 0;
+        selectedCount = 0;
+        for (int i = 0, l = columnFilled.length; i < l; i++) {
+            columnFilled[i] = false;
+        }
+    }
+
+    /**
+     * Adds a row to this batch.
+     *
+     * @param row the row or the index search row
+     * @return whether more rows can be added
+     */
+    public boolean add(SearchRow row) {
+        if (size == rows.length) {
+            SearchRow[] r = new SearchRow[size << 1];
+            System.arraycopy(rows, 0, r, 0, size);
+            rows = r;
+            for (int i = 0; i < columns.length; i++) {
+                columns[i] = null;
+            }
+        }
+        rows[size++] = row;
+        return size < CAPACITY;
+    }
+
+    /**
+     * Selects all rows of this batch.
+     */
+    public void selectAll() {
+        int[] s = selection;
+        if (s.length < size) {
+            selection = s = new int[rows.length];
+        }
+        for (int i = 0; i < size; i++) {
+            s[i] = i;
+        }
+        selectedCount = size;
+    }
+
+    /**
+     * Returns the number of rows in this batch.
+     *
+     * @return the number of rows
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the row at the specified position.
+     *
+     * @param index the position of the row
+     * @return the row or the index search row
+     */
+    public SearchRow getRow(int index) {
+        return rows[index];
+    }
+
+    /**
+     * Returns the positions of selected rows. Only the first
+     * {@link #getSelectedCount()} elements are valid. Conditions may remove
+     * positions from the selection in place and update the count with
+     * {@link #setSelectedCount(int)}.
+     *
+     * @return the selection
+     */
+    public int[] getSelection() {
+        return selection;
+    }
+
+    /**
+     * Returns the number of selected rows.
+     *
+     * @return the number of selected rows
+     */
+    public int getSelectedCount() {
+        return selectedCount;
+    }
+
+    /**
+     * Sets the number of selected rows.
+     *
+     * @param selectedCount the number of selected rows
+     */
+    public void setSelectedCount(int selectedCount) {
+        this.selectedCount = selectedCount;
+    }
+
+    /**
+     * Replaces the selection. This is used to evaluate an expression only for
+     * a subset of selected rows; the caller should restore the previous
+     * selection afterwards.
+     *
+     * @param selection the positions of selected rows
+     * @param selectedCount the number of selected rows
+     */
+    public void setSelection(int[] selection, int selectedCount) {
+        this.selection = selection;
+        this.selectedCount = selectedCount;
+    }
+
+    /**
+     * Returns the values of the specified column for all rows of this batch.
+     * The returned array may not be modified.
+     *
+     * @param columnId the column id, or {@link SearchRow#ROWID_INDEX} for the
+     *            row key
+     * @return the vector of values
+     */
+    public Value[] getColumn(int columnId) {
+        int index = columnId + 1;
+        if (index >= columns.length) {
+            Value[][] c = new Value[index + 1][];
+            System.arraycopy(columns, 0, c, 0, columns.length);
+            columns = c;
+            boolean[] f = new boolean[index + 1];
+            System.arraycopy(columnFilled, 0, f, 0, columnFilled.length);
+            columnFilled = f;
+        }
+        Value[] values = columns[index];
+        if (values == null) {
+            columns[index] = values = new Value[rows.length];
+        } else if (columnFilled[index]) {
+            return values;
+        }
+        if (columnId == SearchRow.ROWID_INDEX) {
+            for (int i = 0; i < size; i++) {
+                values[i] = ValueBigint.get(rows[i].getKey());
+            }
+        } else {
+            for (int i = 0; i < size; i++) {
+                values[i] = rows[i].getValue(columnId);
+            }
+        }
+        columnFilled[index] = true;
+        return values;
+    }
+
+}
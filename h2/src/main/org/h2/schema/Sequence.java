@@ -5,6 +5,8 @@
  */
 package org.h2.schema;
 
+import java.util.concurrent.atomic.AtomicReference;
+
 import org.h2.api.ErrorCode;
 import org.h2.command.ddl.SequenceOptions;
 import org.h2.engine.DbObject;
@@ -58,8 +60,12 @@ public final class Sequence extends SchemaObject {
      */
     public static final int DEFAULT_CACHE_SIZE = 32;
 
-    private long baseValue;
-    private long margin;
+    /**
+     * The base value and the margin. Values between them are cached, they
+     * are taken with a compare-and-set operation without locking. Only the
+     * allocation of a new range of values requires the lock on this object.
+     */
+    private final AtomicReference<State> state = new AtomicReference<>();
 
     private TypeInfo dataType;
 
@@ -125,7 +131,6 @@ public final class Sequence extends SchemaObject {
         } else if (cycle == Cycle.EXHAUSTED) {
             baseValue = startValue;
         }
-        this.margin = this.baseValue = baseValue;
         this.increment = increment;
         this.cacheSize = cacheSize;
         this.startValue = startValue;
@@ -133,6 +138,7 @@ public final class Sequence extends SchemaObject {
         this.maxValue = maxValue;
         this.cycle = cycle;
         this.belongsToTable = belongsToTable;
+        state.set(new State(baseValue, baseValue));
     }
 
     /**
@@ -158,7 +164,7 @@ public final class Sequence extends SchemaObject {
      */
     public synchronized void modify(Long baseValue, Long startValue, Long minValue, Long maxValue, Long increment,
             Cycle cycle, Long cacheSize) {
-        long baseValueAsLong = baseValue != null ? baseValue : this.baseValue;
+        long baseValueAsLong = baseValue != null ? baseValue : state.get().base;
         long startValueAsLong = startValue != null ? startValue : this.startValue;
         long minValueAsLong = minValue != null ? minValue : this.minValue;
         long maxValueAsLong = maxValue != null ? maxValue : this.maxValue;
@@ -182,13 +188,14 @@ public final class Sequence extends SchemaObject {
         } else if (cycle == Cycle.EXHAUSTED) {
             baseValueAsLong = startValueAsLong;
         }
-        this.margin = this.baseValue = baseValueAsLong;
         this.startValue = startValueAsLong;
         this.minValue = minValueAsLong;
         this.maxValue = maxValueAsLong;
         this.increment = incrementAsLong;
         this.cacheSize = cacheSizeAsLong;
         this.cycle = cycle;
+        // new options are visible to threads that see the new state
+        state.set(new State(baseValueAsLong, baseValueAsLong));
     }
 
     /**
@@ -357,7 +364,8 @@ public final class Sequence extends SchemaObject {
         }
         builder.append(' ');
         synchronized (this) {
-            getSequenceOptionsSQL(builder, writeWithMargin ? margin : baseValue);
+            State s = state.get();
+            getSequenceOptionsSQL(builder, writeWithMargin ? s.margin : s.base);
         }
         if (belongsToTable) {
             builder.append(" BELONGS_TO_TABLE");
@@ -372,7 +380,7 @@ public final class Sequence extends SchemaObject {
      * @return the builder
      */
     public synchronized StringBuilder getSequenceOptionsSQL(StringBuilder builder) {
-        return getSequenceOptionsSQL(builder, baseValue);
+        return getSequenceOptionsSQL(builder, state.get().base);
     }
 
     private StringBuilder getSequenceOptionsSQL(StringBuilder builder, long value) {
@@ -414,24 +422,98 @@ public final class Sequence extends SchemaObject {
      * @return the next value
      */
     public Value getNext(SessionLocal session) {
+        return getNext(session, 1L);
+    }
+
+    /**
+     * Get the first value of a block of consecutive values of this sequence.
+     * Values of the block are the returned value plus multiples of the
+     * increment. Should not be called directly, use
+     * {@link SessionLocal#getNextValuesFor(Sequence, long)} instead.
+     *
+     * @param session the session
+     * @param count the number of values, must be positive
+     * @return the first value of the block
+     */
+    public Value getNext(SessionLocal session, long count) {
+        long result;
+        State s = state.get();
+        for (;;) {
+            /*
+             * The cached range may only be used if the whole block is in it.
+             * Options are written before the state, so they are up to date
+             * for this state.
+             */
+            long increment = this.increment;
+            if (count > (s.margin - s.base) / increment) {
+                result = getNextSlow(session, count);
+                break;
+            }
+            if (state.compareAndSet(s, new State(s.base + increment * count, s.margin))) {
+                result = s.base;
+                break;
+            }
+            s = state.get();
+        }
+        return ValueBigint.get(result).castTo(dataType, session);
+    }
+
+    private long getNextSlow(SessionLocal session, long count) {
         long result;
         boolean needsFlush;
         synchronized (this) {
-            if (cycle == Cycle.EXHAUSTED) {
-                throw DbException.get(ErrorCode.SEQUENCE_EXHAUSTED, getName());
+            for (;;) {
+                if (cycle == Cycle.EXHAUSTED) {
+                    throw DbException.get(ErrorCode.SEQUENCE_EXHAUSTED, getName());
+                }
+                State s = state.get();
+                result = s.base;
+                if (!isInRange(result, count)) {
+                    // a block is never split between the end and the start
+                    result = increment > 0 ? minValue : maxValue;
+                    if (cycle != Cycle.CYCLE || !isInRange(result, count)) {
+                        throw DbException.get(ErrorCode.SEQUENCE_EXHAUSTED, getName());
+                    }
+                }
+                long last = result + increment * (count - 1);
+                long newBase = last + increment;
+                NextState next = increment > 0 ? increment(s.margin, last, newBase)
+                        : decrement(s.margin, last, newBase);
+                // other threads may take cached values concurrently
+                if (state.compareAndSet(s, next.state)) {
+                    if (next.exhausted) {
+                        cycle = Cycle.EXHAUSTED;
+                    }
+                    needsFlush = next.needsFlush;
+                    break;
+                }
             }
-            result = baseValue;
-            long newBase = result + increment;
-            needsFlush = increment > 0 ? increment(result, newBase) : decrement(result, newBase);
         }
         if (needsFlush) {
             flush(session);
         }
-        return ValueBigint.get(result).castTo(dataType, session);
+        return result;
+    }
+
+    /**
+     * Checks whether all values of a block are in the range of this sequence.
+     *
+     * @param first the first value of the block, it is in the range
+     * @param count the number of values in the block
+     * @return whether the last value of the block is in the range
+     */
+    private boolean isInRange(long first, long count) {
+        if (count == 1L) {
+            return true;
+        }
+        // differences may exceed Long.MAX_VALUE
+        long available = increment > 0 ? Long.divideUnsigned(maxValue - first, increment)
+                : Long.divideUnsigned(first - minValue, -increment);
+        return Long.compareUnsigned(count - 1, available) <= 0;
     }
 
-    private boolean increment(long oldBase, long newBase) {
-        boolean needsFlush = false;
+    private NextState increment(long margin, long oldBase, long newBase) {
+        boolean needsFlush = false, exhausted = false;
         /*
          * If old base is not negative and new base is negative there is an
          * overflow.
@@ -443,7 +525,7 @@ public final class Sequence extends SchemaObject {
                 margin = newBase + increment * (cacheSize - 1);
             } else {
                 margin = newBase;
-                cycle = Cycle.EXHAUSTED;
+                exhausted = true;
             }
         } else if (newBase > margin) {
             long newMargin = newBase + increment * (cacheSize - 1);
@@ -457,12 +539,11 @@ public final class Sequence extends SchemaObject {
             margin = newMargin;
             needsFlush = true;
         }
-        baseValue = newBase;
-        return needsFlush;
+        return new NextState(new State(newBase, margin), needsFlush, exhausted);
     }
 
-    private boolean decrement(long oldBase, long newBase) {
-        boolean needsFlush = false;
+    private NextState decrement(long margin, long oldBase, long newBase) {
+        boolean needsFlush = false, exhausted = false;
         /*
          * If old base is negative and new base is not negative there is an
          * overflow.
@@ -474,7 +555,7 @@ public final class Sequence extends SchemaObject {
                 margin = newBase + increment * (cacheSize - 1);
             } else {
                 margin = newBase;
-                cycle = Cycle.EXHAUSTED;
+                exhausted = true;
             }
         } else if (newBase < margin) {
             long newMargin = newBase + increment * (cacheSize - 1);
@@ -488,16 +569,25 @@ public final class Sequence extends SchemaObject {
             margin = newMargin;
             needsFlush = true;
         }
-        baseValue = newBase;
-        return needsFlush;
+        return new NextState(new State(newBase, margin), needsFlush, exhausted);
     }
 
     /**
      * Flush the current value to disk.
      */
     public void flushWithoutMargin() {
-        if (margin != baseValue) {
-            margin = baseValue;
+        boolean changed = false;
+        synchronized (this) {
+            State s;
+            do {
+                s = state.get();
+                if (s.margin == s.base) {
+                    break;
+                }
+                changed = true;
+            } while (!state.compareAndSet(s, new State(s.base, s.base)));
+        }
+        if (changed) {
             flush(null);
         }
     }
@@ -559,13 +649,12 @@ public final class Sequence extends SchemaObject {
         invalidate();
     }
 
-    public synchronized long getBaseValue() {
-        // Use synchronized because baseValue is not volatile
-        return baseValue;
+    public long getBaseValue() {
+        return state.get().base;
     }
 
-    public synchronized long getCurrentValue() {
-        return baseValue - increment;
+    public long getCurrentValue() {
+        return state.get().base - increment;
     }
 
     public void setBelongsToTable(boolean b) {
@@ -576,4 +665,46 @@ public final class Sequence extends SchemaObject {
         return cacheSize;
     }
 
+    /**
+     * The base value and the margin of a sequence.
+     */
+    private static final class State {
+
+        /**
+         * The next value to return.
+         */
+        final long base;
+
+        /**
+         * The last value that may be returned without a write of the sequence
+         * to the disk.
+         */
+        final long margin;
+
+        State(long base, long margin) {
+            this.base = base;
+            this.margin = margin;
+        }
+
+    }
+
+    /**
+     * The state after allocation of values with the lock.
+     */
+    private static final class NextState {
+
+        final State state;
+
+        final boolean needsFlush;
+
+        final boolean exhausted;
+
+        NextState(State state, boolean needsFlush, boolean exhausted) {
+            this.state = state;
+            this.needsFlush = needsFlush;
+            this.exhausted = exhausted;
+        }
+
+    }
+
 }
@@ -6,13 +6,17 @@
 package org.h2.server;
 
 import java.io.IOException;
+import java.lang.reflect.Method;
 import java.net.ServerSocket;
 import java.net.Socket;
+import java.net.SocketTimeoutException;
 import java.net.UnknownHostException;
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.Set;
@@ -22,6 +26,7 @@ import org.h2.api.ErrorCode;
 import org.h2.engine.Constants;
 import org.h2.jdbc.JdbcConnection;
 import org.h2.message.DbException;
+import org.h2.util.IOUtils;
 import org.h2.util.MathUtils;
 import org.h2.util.NetUtils;
 import org.h2.util.StringUtils;
@@ -47,6 +52,17 @@ public class TcpServer implements Service {
      */
     private static final String MANAGEMENT_DB_PREFIX = "management_db_";
 
+    /**
+     * The default time in milliseconds a connection may wait for a free
+     * session when the maximum number of sessions is reached.
+     */
+    private static final int DEFAULT_QUEUE_TIMEOUT = 30_000;
+
+    /**
+     * The interval in milliseconds for checking the queued connections.
+     */
+    private static final int QUEUE_CHECK_INTERVAL = 100;
+
     private static final ConcurrentHashMap<Integer, TcpServer> SERVERS = new ConcurrentHashMap<>();
 
     private int port;
@@ -67,7 +83,13 @@ public class TcpServer implements Service {
     private PreparedStatement managementDbRemove;
     private String managementPassword = "";
     private Thread listenerThread;
+    private String threadName;
     private int nextThreadId;
+    private boolean virtualThreads;
+    private Method ofVirtual, builderName, builderUnstarted;
+    private int maxSessions;
+    private int queueTimeout = DEFAULT_QUEUE_TIMEOUT;
+    private final ArrayDeque<QueuedSocket> queued = new ArrayDeque<>();
     private String key, keyDatabase;
 
     /**
@@ -182,12 +204,36 @@ public class TcpServer implements Service {
                 allowOthers = true;
             } else if (Tool.isOption(a, "-tcpDaemon")) {
                 isDaemon = true;
+            } else if (Tool.isOption(a, "-tcpVirtualThreads")) {
+                virtualThreads = true;
+            } else if (Tool.isOption(a, "-tcpMaxSessions")) {
+                maxSessions = Integer.decode(args[++i]);
+                if (maxSessions <= 0) {
+                    throw DbException.getInvalidValueException("tcpMaxSessions", maxSessions);
+                }
+            } else if (Tool.isOption(a, "-tcpQueueTimeout")) {
+                queueTimeout = Integer.decode(args[++i]);
+                if (queueTimeout < 0) {
+                    throw DbException.getInvalidValueException("tcpQueueTimeout", queueTimeout);
+                }
             } else if (Tool.isOption(a, "-ifExists")) {
                 ifExists = true;
             } else if (Tool.isOption(a, "-ifNotExists")) {
                 ifExists = false;
             }
         }
+        if (virtualThreads) {
+            try {
+                ofVirtual = Thread.class.getMethod("ofVirtual");
+                Class<?> builder = Class.forName("java.lang.Thread$Builder");
+                builderName = builder.getMethod("name", String.class);
+                builderUnstarted = builder.getMethod("unstarted", Runnable.class);
+            } catch (ReflectiveOperationException e) {
+                // virtual threads require Java 21 or later
+                trace("Virtual threads are not supported, using platform threads");
+                virtualThreads = false;
+            }
+        }
     }
 
     @Override
@@ -248,18 +294,31 @@ public class TcpServer implements Service {
     @Override
     public void listen() {
         listenerThread = Thread.currentThread();
-        String threadName = listenerThread.getName();
+        threadName = listenerThread.getName();
         try {
             while (!stop) {
-                Socket s = serverSocket.accept();
+                Socket s;
+                if (maxSessions > 0) {
+                    rejectQueued();
+                    synchronized (queued) {
+                        serverSocket.setSoTimeout(queued.isEmpty() ? 0 : QUEUE_CHECK_INTERVAL);
+                    }
+                    try {
+                        s = serverSocket.accept();
+                    } catch (SocketTimeoutException e) {
+                        continue;
+                    }
+                } else {
+                    s = serverSocket.accept();
+                }
                 Utils10.setTcpQuickack(s, true);
-                int id = nextThreadId++;
-                TcpServerThread c = new TcpServerThread(s, this, id);
-                running.add(c);
-                Thread thread = new Thread(c, threadName + " thread-" + id);
-                thread.setDaemon(isDaemon);
-                c.setThread(thread);
-                thread.start();
+                synchronized (queued) {
+                    if (maxSessions > 0 && running.size() >= maxSessions) {
+                        queued.add(new QueuedSocket(s, System.nanoTime() + queueTimeout * 1_000_000L));
+                    } else {
+                        startThread(s, null);
+                    }
+                }
             }
             serverSocket = NetUtils.closeSilently(serverSocket);
         } catch (Exception e) {
@@ -267,9 +326,70 @@ public class TcpServer implements Service {
                 DbException.traceThrowable(e);
             }
         }
+        closeQueued();
         stopManagementDb();
     }
 
+    /**
+     * Start a thread for the connection.
+     *
+     * @param s the socket
+     * @param rejection the error to send to the client instead of serving
+     *            the connection, or {@code null}
+     */
+    private void startThread(Socket s, DbException rejection) {
+        int id = nextThreadId++;
+        TcpServerThread c = new TcpServerThread(s, this, id);
+        if (rejection == null) {
+            running.add(c);
+        } else {
+            c.setRejection(rejection);
+        }
+        String name = threadName + " thread-" + id;
+        Thread thread;
+        if (virtualThreads) {
+            try {
+                thread = (Thread) builderUnstarted.invoke(builderName.invoke(ofVirtual.invoke(null), name), c);
+            } catch (ReflectiveOperationException e) {
+                throw DbException.convert(e);
+            }
+        } else {
+            thread = new Thread(c, name);
+            thread.setDaemon(isDaemon);
+        }
+        c.setThread(thread);
+        thread.start();
+    }
+
+    /**
+     * Reject the queued connections that wait for a free session longer than
+     * the queue timeout.
+     */
+    private void rejectQueued() {
+        synchronized (queued) {
+            long now = System.nanoTime();
+            for (QueuedSocket q; (q = queued.peek()) != null && now - q.deadline >= 0;) {
+                queued.poll();
+                try {
+                    startThread(q.socket, DbException.get(ErrorCode.CONNECTION_BROKEN_1,
+                            "timeout waiting for a free session, the maximum number of sessions of the TCP server is "
+                                    + maxSessions));
+                } catch (Exception e) {
+                    IOUtils.closeSilently(q.socket);
+                    traceError(e);
+                }
+            }
+        }
+    }
+
+    private void closeQueued() {
+        synchronized (queued) {
+            for (QueuedSocket q; (q = queued.poll()) != null;) {
+                IOUtils.closeSilently(q.socket);
+            }
+        }
+    }
+
     @Override
     public synchronized boolean isRunning(boolean traceError) {
         if (serverSocket == null) {
@@ -314,6 +434,7 @@ public class TcpServer implements Service {
                 }
             }
         }
+        closeQueued();
         // TODO server: using a boolean 'now' argument? a timeout?
         for (TcpServerThread c : new ArrayList<>(running)) {
             if (c != null) {
@@ -372,7 +493,77 @@ public class TcpServer implements Service {
      * @param t the thread to remove
      */
     void remove(TcpServerThread t) {
-        running.remove(t);
+        synchronized (queued) {
+            if (running.remove(t) && !stop) {
+                QueuedSocket q = queued.poll();
+                if (q != null) {
+                    try {
+                        startThread(q.socket, null);
+                    } catch (Exception e) {
+                        IOUtils.closeSilently(q.socket);
+                        traceError(e);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the number of connections that are currently served by this
+     * server.
+     *
+     * @return the number of active sessions
+     */
+    public int getActiveSessionCount() {
+        return running.size();
+    }
+
+    /**
+     * Returns the number of accepted connections that wait for a free slot
+     * because the maximum number of sessions is reached.
+     *
+     * @return the number of queued sessions
+     */
+    public int getQueuedSessionCount() {
+        synchronized (queued) {
+            return queued.size();
+        }
+    }
+
+    /**
+     * Returns the maximum number of concurrently served connections.
+     *
+     * @return the maximum number of sessions, or 0 if not limited
+     */
+    public int getMaxSessions() {
+        return maxSessions;
+    }
+
+    /**
+     * Returns the maximum time a connection waits for a free session.
+     *
+     * @return the queue timeout in milliseconds
+     */
+    public int getQueueTimeout() {
+        return queueTimeout;
+    }
+
+    /**
+     * Returns the running TCP servers of this JVM.
+     *
+     * @return the running TCP servers
+     */
+    public static Collection<TcpServer> getServers() {
+        return SERVERS.values();
+    }
+
+    /**
+     * Returns whether client connections are served on virtual threads.
+     *
+     * @return whether virtual threads are used
+     */
+    public boolean isVirtualThreads() {
+        return virtualThreads;
     }
 
     /**
@@ -513,4 +704,27 @@ public class TcpServer implements Service {
         return isDaemon;
     }
 
+    /**
+     * A connection that waits for a free session.
+     */
+    private static final class QueuedSocket {
+
+        /**
+         * The socket.
+         */
+        final Socket socket;
+
+        /**
+         * The value of {@link System#nanoTime()} when the connection is
+         * rejected.
+         */
+        final long deadline;
+
+        QueuedSocket(Socket socket, long deadline) {
+            this.socket = socket;
+            this.deadline = deadline;
+        }
+
+    }
+
 }
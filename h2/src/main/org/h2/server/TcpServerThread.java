@@ -67,6 +67,7 @@ public class TcpServerThread implements Runnable {
     private int clientVersion;
     private String sessionId;
     private long lastRemoteSettingsId;
+    private DbException rejection;
 
     TcpServerThread(Socket socket, TcpServer server, int id) {
         this.server = server;
@@ -78,6 +79,16 @@ public class TcpServerThread implements Runnable {
         server.trace(this + " " + s);
     }
 
+    /**
+     * Send the specified error to the client instead of serving the
+     * connection.
+     *
+     * @param rejection the error
+     */
+    void setRejection(DbException rejection) {
+        this.rejection = rejection;
+    }
+
     @Override
     public void run() {
         try {
@@ -94,6 +105,9 @@ public class TcpServerThread implements Runnable {
                 if (!server.allow(transfer.getSocket())) {
                     throw DbException.get(ErrorCode.REMOTE_CONNECTION_NOT_ALLOWED);
                 }
+                if (rejection != null) {
+                    throw rejection;
+                }
                 int minClientVersion = transfer.readInt();
                 if (minClientVersion < 6) {
                     throw DbException.get(ErrorCode.DRIVER_VERSION_ERROR_2,
@@ -240,25 +254,11 @@ public class TcpServerThread implements Runnable {
     private void sendError(Throwable t, boolean withStatus) {
         try {
             SQLException e = DbException.convert(t).getSQLException();
-            StringWriter writer = new StringWriter();
-            e.printStackTrace(new PrintWriter(writer));
-            String trace = writer.toString();
-            String message;
-            String sql;
-            if (e instanceof JdbcException) {
-                JdbcException j = (JdbcException) e;
-                message = j.getOriginalMessage();
-                sql = j.getSQL();
-            } else {
-                message = e.getMessage();
-                sql = null;
-            }
             if (withStatus) {
                 transfer.writeInt(SessionRemote.STATUS_ERROR);
             }
-            transfer.
-                    writeString(e.getSQLState()).writeString(message).
-                    writeString(sql).writeInt(e.getErrorCode()).writeString(trace).flush();
+            writeException(e);
+            transfer.flush();
         } catch (Exception e2) {
             if (!transfer.isClosed()) {
                 server.traceError(e2);
@@ -268,6 +268,25 @@ public class TcpServerThread implements Runnable {
         }
     }
 
+    private void writeException(SQLException e) throws IOException {
+        StringWriter writer = new StringWriter();
+        e.printStackTrace(new PrintWriter(writer));
+        String trace = writer.toString();
+        String message;
+        String sql;
+        if (e instanceof JdbcException) {
+            JdbcException j = (JdbcException) e;
+            message = j.getOriginalMessage();
+            sql = j.getSQL();
+        } else {
+            message = e.getMessage();
+            sql = null;
+        }
+        transfer.
+                writeString(e.getSQLState()).writeString(message).
+                writeString(sql).writeInt(e.getErrorCode()).writeString(trace);
+    }
+
     private void setParameters(Command command) throws IOException {
         int len = transfer.readInt();
         ArrayList<? extends ParameterInterface> params = command.getParameters();
@@ -345,7 +364,9 @@ public class TcpServerThread implements Runnable {
             int objectId = transfer.readInt();
             long maxRows = transfer.readRowCount();
             int fetchSize = transfer.readInt();
+            boolean lazy = clientVersion >= Constants.TCP_PROTOCOL_VERSION_21 && transfer.readBoolean();
             Command command = (Command) cache.getObject(id, false);
+            command.setFetchSize(lazy ? fetchSize : 0);
             setParameters(command);
             int old = session.getModificationId();
             ResultInterface result;
@@ -432,6 +453,44 @@ public class TcpServerThread implements Runnable {
             transfer.flush();
             break;
         }
+        case SessionRemote.COMMAND_EXECUTE_BATCH_UPDATE: {
+            int id = transfer.readInt();
+            Command command = (Command) cache.getObject(id, false);
+            int size = transfer.readInt();
+            ArrayList<Value[]> batchParameters = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                int len = transfer.readInt();
+                Value[] set = new Value[len];
+                for (int j = 0; j < len; j++) {
+                    set[j] = transfer.readValue(null);
+                }
+                batchParameters.add(set);
+            }
+            int old = session.getModificationId();
+            ArrayList<DbException> exceptions = new ArrayList<>();
+            long[] updateCounts;
+            synchronized (session) {
+                updateCounts = command.executeBatchUpdate(batchParameters, exceptions);
+            }
+            int status;
+            if (session.isClosed()) {
+                status = SessionRemote.STATUS_CLOSED;
+                stop = true;
+            } else {
+                status = getState(old);
+            }
+            transfer.writeInt(status);
+            for (long updateCount : updateCounts) {
+                transfer.writeRowCount(updateCount);
+            }
+            transfer.writeInt(exceptions.size());
+            for (DbException e : exceptions) {
+                writeException(e.getSQLException());
+            }
+            transfer.writeBoolean(session.getAutoCommit());
+            transfer.flush();
+            break;
+        }
         case SessionRemote.COMMAND_CLOSE: {
             int id = transfer.readInt();
             Command command = (Command) cache.getObject(id, true);
@@ -0,0 +1,765 @@
+/*
+ * Copyright 2004-2022 H2 Group. Multiple-Licensed under the MPL 2.0,
+ * and the EPL 1.0 (https://h2database.com/html/license.html).
+ * Initial Developer: H2 Group
+ */
+package org.h2.server.pg;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import org.h2.api.ErrorCode;
+import org.h2.message.DbException;
+import org.h2.util.StringUtils;
+
+/**
+ * A COPY FROM STDIN or COPY TO STDOUT statement of the PostgreSQL protocol.
+ * This class parses the statement and converts rows between the text, CSV,
+ * or binary COPY formats and field strings or bytes; the protocol messages
+ * are handled by the server thread.
+ */
+final class PgCopy {
+
+    /**
+     * The text format: tab separated fields with backslash escapes.
+     */
+    static final int FORMAT_TEXT = 0;
+
+    /**
+     * The CSV format.
+     */
+    static final int FORMAT_CSV = 1;
+
+    /**
+     * The binary format.
+     */
+    static final int FORMAT_BINARY = 2;
+
+    /**
+     * The signature at the beginning of the binary format.
+     */
+    static final byte[] BINARY_SIGNATURE = { 'P', 'G', 'C', 'O', 'P', 'Y', '\n', (byte) 0xff, '\r', '\n', 0 };
+
+    private final String sql;
+
+    private int pos;
+
+    /**
+     * The table name as written in the statement, or {@code null} for a
+     * query.
+     */
+    String table;
+
+    /**
+     * The list of columns without parentheses as written in the statement,
+     * or {@code null} for all columns.
+     */
+    String columns;
+
+    /**
+     * The query, or {@code null} for a table.
+     */
+    String query;
+
+    /**
+     * Whether it is COPY FROM STDIN.
+     */
+    boolean from;
+
+    /**
+     * The format.
+     */
+    int format = FORMAT_TEXT;
+
+    /**
+     * The delimiter of fields.
+     */
+    char delimiter;
+
+    /**
+     * The string that represents NULL.
+     */
+    String nullString;
+
+    /**
+     * Whether the first line contains names of columns.
+     */
+    boolean header;
+
+    /**
+     * The quote character of the CSV format.
+     */
+    char quote = '"';
+
+    /**
+     * The escape character of the CSV format.
+     */
+    char escape;
+
+    private byte[] buff = new byte[0];
+
+    private int start, end;
+
+    private boolean headerRead;
+
+    private boolean ended;
+
+    private PgCopy(String sql) {
+        this.sql = sql;
+    }
+
+    /**
+     * Parses a COPY statement.
+     *
+     * @param sql the SQL statement
+     * @return the parsed statement, or {@code null} if this is not a COPY
+     *         statement
+     */
+    static PgCopy parse(String sql) {
+        PgCopy copy = new PgCopy(sql);
+        if (!copy.readIf("COPY")) {
+            return null;
+        }
+        copy.parse();
+        return copy;
+    }
+
+    private void parse() {
+        skipWhitespace();
+        if (readIf('(')) {
+            query = readParenthesized();
+        } else {
+            if (readIf("BINARY")) {
+                format = FORMAT_BINARY;
+            }
+            int tableStart = pos;
+            do {
+                readIdentifier();
+            } while (readIf('.'));
+            table = sql.substring(tableStart, pos);
+            if (readIf('(')) {
+                columns = readParenthesized();
+            }
+        }
+        if (readIf("FROM")) {
+            from = true;
+            if (query != null || !readIf("STDIN")) {
+                throw syntaxError();
+            }
+        } else if (readIf("TO")) {
+            if (!readIf("STDOUT")) {
+                throw syntaxError();
+            }
+        } else {
+            throw syntaxError();
+        }
+        readIf("WITH");
+        if (readIf('(')) {
+            do {
+                readOption();
+            } while (readIf(','));
+            if (!readIf(')')) {
+                throw syntaxError();
+            }
+        } else {
+            readLegacyOptions();
+        }
+        readIf(';');
+        skipWhitespace();
+        if (pos < sql.length()) {
+            throw syntaxError();
+        }
+        if (delimiter == 0) {
+            delimiter = format == FORMAT_CSV ? ',' : '\t';
+        }
+        if (nullString == null) {
+            nullString = format == FORMAT_CSV ? "" : "\\N";
+        }
+        if (escape == 0) {
+            escape = quote;
+        }
+        if (delimiter > 127 || delimiter == '\r' || delimiter == '\n'
+                || format == FORMAT_TEXT && (delimiter == '\\' || delimiter >= 'a' && delimiter <= 'z'
+                        || delimiter >= '0' && delimiter <= '9' || delimiter == '.')
+                || format == FORMAT_CSV && (delimiter == quote || quote > 127 || escape > 127)) {
+            throw DbException.getInvalidValueException("DELIMITER", delimiter);
+        }
+        if (format == FORMAT_BINARY && header) {
+            throw DbException.getUnsupportedException("COPY BINARY HEADER");
+        }
+    }
+
+    private void readOption() {
+        String option = readIdentifier();
+        switch (option) {
+        case "FORMAT": {
+            String f = readIdentifier();
+            switch (f) {
+            case "TEXT":
+                format = FORMAT_TEXT;
+                break;
+            case "CSV":
+                format = FORMAT_CSV;
+                break;
+            case "BINARY":
+                format = FORMAT_BINARY;
+                break;
+            default:
+                throw DbException.getInvalidValueException("FORMAT", f);
+            }
+            break;
+        }
+        case "DELIMITER":
+            delimiter = readCharacter("DELIMITER");
+            break;
+        case "NULL":
+            nullString = readString();
+            break;
+        case "HEADER":
+            header = readBooleanOption();
+            break;
+        case "QUOTE":
+            quote = readCharacter("QUOTE");
+            break;
+        case "ESCAPE":
+            escape = readCharacter("ESCAPE");
+            break;
+        case "ENCODING":
+            // the client encoding is used
+            readString();
+            break;
+        case "FREEZE":
+            readBooleanOption();
+            break;
+        default:
+            throw DbException.get(ErrorCode.FEATURE_NOT_SUPPORTED_1, "COPY option " + option);
+        }
+    }
+
+    private boolean readBooleanOption() {
+        skipWhitespace();
+        if (pos >= sql.length() || sql.charAt(pos) == ',' || sql.charAt(pos) == ')') {
+            return true;
+        }
+        String value = readIdentifier();
+        switch (value) {
+        case "TRUE":
+        case "ON":
+        case "1":
+            return true;
+        case "FALSE":
+        case "OFF":
+        case "0":
+            return false;
+        default:
+            throw DbException.getInvalidValueException("HEADER", value);
+        }
+    }
+
+    private void readLegacyOptions() {
+        while (true) {
+            if (readIf("BINARY")) {
+                format = FORMAT_BINARY;
+            } else if (readIf("CSV")) {
+                format = FORMAT_CSV;
+            } else if (readIf("HEADER")) {
+                header = true;
+            } else if (readIf("DELIMITER")) {
+                readIf("AS");
+                delimiter = readCharacter("DELIMITER");
+            } else if (readIf("NULL")) {
+                readIf("AS");
+                nullString = readString();
+            } else if (readIf("QUOTE")) {
+                readIf("AS");
+                quote = readCharacter("QUOTE");
+            } else if (readIf("ESCAPE")) {
+                readIf("AS");
+                escape = readCharacter("ESCAPE");
+            } else {
+                return;
+            }
+        }
+    }
+
+    private char readCharacter(String option) {
+        String s = readString();
+        if (s.length() != 1) {
+            throw DbException.getInvalidValueException(option, s);
+        }
+        return s.charAt(0);
+    }
+
+    private String readString() {
+        skipWhitespace();
+        int length = sql.length();
+        boolean escapes = false;
+        if (pos < length && (sql.charAt(pos) == 'E' || sql.charAt(pos) == 'e') && pos + 1 < length
+                && sql.charAt(pos + 1) == '\'') {
+            escapes = true;
+            pos++;
+        }
+        if (pos >= length || sql.charAt(pos) != '\'') {
+            throw syntaxError();
+        }
+        StringBuilder builder = new StringBuilder();
+        for (pos++; pos < length; pos++) {
+            char c = sql.charAt(pos);
+            if (c == '\'') {
+                if (pos + 1 < length && sql.charAt(pos + 1) == '\'') {
+                    builder.append('\'');
+                    pos++;
+                } else {
+                    pos++;
+                    String s = builder.toString();
+                    return escapes ? unescape(s, 0, s.length()) : s;
+                }
+            } else if (escapes && c == '\\' && pos + 1 < length) {
+                builder.append(c).append(sql.charAt(++pos));
+            } else {
+                builder.append(c);
+            }
+        }
+        throw syntaxError();
+    }
+
+    private String readIdentifier() {
+        skipWhitespace();
+        int length = sql.length();
+        if (pos < length && sql.charAt(pos) == '"') {
+            int s = pos;
+            for (pos++; pos < length; pos++) {
+                if (sql.charAt(pos) == '"') {
+                    if (pos + 1 < length && sql.charAt(pos + 1) == '"') {
+                        pos++;
+                    } else {
+                        pos++;
+                        return sql.substring(s, pos);
+                    }
+                }
+            }
+            throw syntaxError();
+        }
+        int s = pos;
+        while (pos < length) {
+            char c = sql.charAt(pos);
+            if (!Character.isLetterOrDigit(c) && c != '_' && c != '$') {
+                break;
+            }
+            pos++;
+        }
+        if (s == pos) {
+            throw syntaxError();
+        }
+        return StringUtils.toUpperEnglish(sql.substring(s, pos));
+    }
+
+    private String readParenthesized() {
+        int s = pos, level = 1, length = sql.length();
+        for (; pos < length; pos++) {
+            char c = sql.charAt(pos);
+            switch (c) {
+            case '(':
+                level++;
+                break;
+            case ')':
+                if (--level == 0) {
+                    return sql.substring(s, pos++);
+                }
+                break;
+            case '\'':
+            case '"':
+                int e = sql.indexOf(c, pos + 1);
+                if (e < 0) {
+                    throw syntaxError();
+                }
+                pos = e;
+                break;
+            case '-':
+                if (pos + 1 < length && sql.charAt(pos + 1) == '-') {
+                    e = sql.indexOf('\n', pos);
+                    pos = e < 0 ? length : e;
+                }
+                break;
+            default:
+            }
+        }
+        throw syntaxError();
+    }
+
+    private boolean readIf(String keyword) {
+        skipWhitespace();
+        int l = keyword.length(), e = pos + l;
+        if (e <= sql.length() && sql.regionMatches(true, pos, keyword, 0, l)
+                && (e == sql.length() || !Character.isLetterOrDigit(sql.charAt(e)) && sql.charAt(e) != '_')) {
+            pos = e;
+            return true;
+        }
+        return false;
+    }
+
+    private boolean readIf(char c) {
+        skipWhitespace();
+        if (pos < sql.length() && sql.charAt(pos) == c) {
+            pos++;
+            return true;
+        }
+        return false;
+    }
+
+    private void skipWhitespace() {
+        int length = sql.length();
+        while (pos < length && Character.isWhitespace(sql.charAt(pos))) {
+            pos++;
+        }
+    }
+
+    private DbException syntaxError() {
+        return DbException.getSyntaxError(sql, pos);
+    }
+
+    /**
+     * Appends a CopyData message to the input.
+     *
+     * @param data the data
+     */
+    void addData(byte[] data) {
+        int length = data.length, remaining = end - start;
+        if (end + length > buff.length) {
+            byte[] b = buff;
+            if (remaining + length > b.length) {
+                b = new byte[Math.max(remaining + length, b.length * 2)];
+            }
+            System.arraycopy(buff, start, b, 0, remaining);
+            buff = b;
+            start = 0;
+            end = remaining;
+        }
+        System.arraycopy(data, 0, buff, end, length);
+        end += length;
+    }
+
+    /**
+     * Returns whether the end of data marker was read.
+     *
+     * @return whether the end of data marker was read
+     */
+    boolean isEnded() {
+        return ended;
+    }
+
+    /**
+     * Reads the next row of the text or CSV format.
+     *
+     * @param encoding the client encoding
+     * @param eof whether no more data will be added
+     * @return the values of fields, {@code null} elements for NULL, or
+     *         {@code null} if more data is needed or there are no more rows
+     */
+    String[] readRow(Charset encoding, boolean eof) {
+        while (!ended) {
+            int lineEnd = format == FORMAT_CSV ? findCsvLineEnd(eof) : findLineEnd(eof);
+            if (lineEnd < 0) {
+                return null;
+            }
+            int next = lineEnd < end ? lineEnd + 1 : lineEnd;
+            if (lineEnd > start && buff[lineEnd - 1] == '\r') {
+                lineEnd--;
+            }
+            String line = new String(buff, start, lineEnd - start, encoding);
+            start = next;
+            if (line.equals("\\.")) {
+                ended = true;
+                return null;
+            }
+            if (header && !headerRead) {
+                headerRead = true;
+                continue;
+            }
+            return format == FORMAT_CSV ? splitCsv(line) : splitText(line);
+        }
+        return null;
+    }
+
+    private int findLineEnd(boolean eof) {
+        for (int i = start; i < end; i++) {
+            if (buff[i] == '\n') {
+                return i;
+            }
+        }
+        return eof && start < end ? end : -1;
+    }
+
+    private int findCsvLineEnd(boolean eof) {
+        boolean quoted = false;
+        for (int i = start; i < end; i++) {
+            byte b = buff[i];
+            if (quoted) {
+                if (b == escape && escape != quote) {
+                    if (i + 1 == end) {
+                        break;
+                    }
+                    if (buff[i + 1] == quote || buff[i + 1] == escape) {
+                        i++;
+                    }
+                } else if (b == quote) {
+                    quoted = false;
+                }
+            } else if (b == quote) {
+                quoted = true;
+            } else if (b == '\n') {
+                return i;
+            }
+        }
+        return eof && start < end ? end : -1;
+    }
+
+    private String[] splitText(String line) {
+        ArrayList<String> fields = new ArrayList<>();
+        int length = line.length(), s = 0;
+        for (int i = 0; i <= length; i++) {
+            char c = i < length ? line.charAt(i) : delimiter;
+            if (c == '\\' && i + 1 < length) {
+                i++;
+            } else if (c == delimiter) {
+                int e = Math.min(i, length);
+                fields.add(line.regionMatches(s, nullString, 0, nullString.length())
+                        && e - s == nullString.length() ? null : unescape(line, s, e));
+                s = i + 1;
+            }
+        }
+        return fields.toArray(new String[0]);
+    }
+
+    private static String unescape(String s, int start, int end) {
+        int i = s.indexOf('\\', start);
+        if (i < 0 || i >= end) {
+            return s.substring(start, end);
+        }
+        StringBuilder builder = new StringBuilder(end - start).append(s, start, i);
+        for (; i < end; i++) {
+            char c = s.charAt(i);
+            if (c != '\\' || i + 1 == end) {
+                builder.append(c);
+                continue;
+            }
+            c = s.charAt(++i);
+            switch (c) {
+            case 'b':
+                builder.append('\b');
+                break;
+            case 'f':
+                builder.append('\f');
+                break;
+            case 'n':
+                builder.append('\n');
+                break;
+            case 'r':
+                builder.append('\r');
+                break;
+            case 't':
+                builder.append('\t');
+                break;
+            case 'v':
+                builder.append('\u000b');
+                break;
+            case 'x': {
+                int v = 0, j = i + 1;
+                for (int d; j < end && j <= i + 2 && (d = Character.digit(s.charAt(j), 16)) >= 0; j++) {
+                    v = (v << 4) + d;
+                }
+                if (j == i + 1) {
+                    builder.append('x');
+                } else {
+                    builder.append((char) v);
+                    i = j - 1;
+                }
+                break;
+            }
+            default:
+                if (c >= '0' && c <= '7') {
+                    int v = c - '0', j = i + 1;
+                    for (char d; j < end && j <= i + 2 && (d = s.charAt(j)) >= '0' && d <= '7'; j++) {
+                        v = (v << 3) + d - '0';
+                    }
+                    builder.append((char) v);
+                    i = j - 1;
+                } else {
+                    builder.append(c);
+                }
+            }
+        }
+        return builder.toString();
+    }
+
+    private String[] splitCsv(String line) {
+        ArrayList<String> fields = new ArrayList<>();
+        StringBuilder builder = new StringBuilder();
+        int length = line.length();
+        for (int i = 0;; i++) {
+            builder.setLength(0);
+            boolean quoted = false;
+            for (; i < length; i++) {
+                char c = line.charAt(i);
+                if (c == delimiter) {
+                    break;
+                } else if (c == quote) {
+                    quoted = true;
+                    for (i++; i < length; i++) {
+                        c = line.charAt(i);
+                        if (c == escape && i + 1 < length
+                                && (line.charAt(i + 1) == quote || line.charAt(i + 1) == escape)) {
+                            builder.append(line.charAt(++i));
+                        } else if (c == quote) {
+                            break;
+                        } else {
+                            builder.append(c);
+                        }
+                    }
+                } else {
+                    builder.append(c);
+                }
+            }
+            String value = builder.toString();
+            fields.add(!quoted && value.equals(nullString) ? null : value);
+            if (i >= length) {
+                return fields.toArray(new String[0]);
+            }
+        }
+    }
+
+    /**
+     * Reads the next tuple of the binary format.
+     *
+     * @param eof whether no more data will be added
+     * @return the tuple starting with the number of fields, or {@code null}
+     *         if more data is needed or there are no more tuples
+     */
+    byte[] readTuple(boolean eof) {
+        if (ended) {
+            return null;
+        }
+        if (!headerRead) {
+            int length = BINARY_SIGNATURE.length + 8;
+            if (end - start < length + (end - start >= length ? getInt(start + length - 4) : 0)) {
+                if (eof) {
+                    throw DbException.get(ErrorCode.DATA_CONVERSION_ERROR_1, "COPY file signature not recognized");
+                }
+                return null;
+            }
+            for (int i = 0; i < BINARY_SIGNATURE.length; i++) {
+                if (buff[start + i] != BINARY_SIGNATURE[i]) {
+                    throw DbException.get(ErrorCode.DATA_CONVERSION_ERROR_1, "COPY file signature not recognized");
+                }
+            }
+            start += length + getInt(start + length - 4);
+            headerRead = true;
+        }
+        if (end - start < 2) {
+            if (eof && start < end) {
+                throw DbException.get(ErrorCode.DATA_CONVERSION_ERROR_1, "unexpected EOF in COPY data");
+            }
+            return null;
+        }
+        int count = (short) ((buff[start] & 0xff) << 8 | buff[start + 1] & 0xff);
+        if (count == -1) {
+            ended = true;
+            return null;
+        }
+        int p = start + 2;
+        for (int i = 0; i < count; i++) {
+            if (end - p < 4) {
+                p = -1;
+                break;
+            }
+            int length = getInt(p);
+            p += 4;
+            if (length > 0) {
+                p += length;
+                if (p > end) {
+                    p = -1;
+                    break;
+                }
+            }
+        }
+        if (p < 0) {
+            if (eof) {
+                throw DbException.get(ErrorCode.DATA_CONVERSION_ERROR_1, "unexpected EOF in COPY data");
+            }
+            return null;
+        }
+        byte[] tuple = new byte[p - start];
+        System.arraycopy(buff, start, tuple, 0, tuple.length);
+        start = p;
+        return tuple;
+    }
+
+    private int getInt(int p) {
+        return (buff[p] & 0xff) << 24 | (buff[p + 1] & 0xff) << 16 | (buff[p + 2] & 0xff) << 8 | buff[p + 3] & 0xff;
+    }
+
+    /**
+     * Writes a field of the text or CSV format.
+     *
+     * @param out the output stream
+     * @param data the encoded text value, or {@code null} for NULL
+     * @param encoding the client encoding
+     * @throws IOException on failure
+     */
+    void writeField(OutputStream out, byte[] data, Charset encoding) throws IOException {
+        if (data == null) {
+            out.write(nullString.getBytes(encoding));
+        } else if (format == FORMAT_CSV) {
+            boolean needQuotes = data.length == 0 ? nullString.isEmpty()
+                    : nullString.length() == data.length && nullString.equals(new String(data, encoding));
+            if (!needQuotes) {
+                for (byte b : data) {
+                    if (b == delimiter || b == quote || b == '\n' || b == '\r') {
+                        needQuotes = true;
+                        break;
+                    }
+                }
+            }
+            if (!needQuotes) {
+                out.write(data);
+                return;
+            }
+            out.write(quote);
+            for (byte b : data) {
+                if (b == quote || b == escape) {
+                    out.write(escape);
+                }
+                out.write(b);
+            }
+            out.write(quote);
+        } else {
+            for (byte b : data) {
+                switch (b) {
+                case '\\':
+                    out.write('\\');
+                    out.write('\\');
+                    break;
+                case '\n':
+                    out.write('\\');
+                    out.write('n');
+                    break;
+                case '\r':
+                    out.write('\\');
+                    out.write('r');
+                    break;
+                case '\t':
+                    out.write('\\');
+                    out.write('t');
+                    break;
+                default:
+                    if (b == delimiter) {
+                        out.write('\\');
+                    }
+                    out.write(b);
+                }
+            }
+        }
+    }
+
+}
@@ -5,6 +5,7 @@
  */
 package org.h2.server.pg;
 
+import java.io.BufferedOutputStream;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.DataInputStream;
@@ -55,6 +56,7 @@ import org.h2.value.TypeInfo;
 import org.h2.value.Value;
 import org.h2.value.ValueArray;
 import org.h2.value.ValueBigint;
+import org.h2.value.ValueBoolean;
 import org.h2.value.ValueDate;
 import org.h2.value.ValueDecfloat;
 import org.h2.value.ValueDouble;
@@ -77,6 +79,23 @@ public final class PgServerThread implements Runnable {
 
     private static final boolean INTEGER_DATE_TYPES = false;
 
+    private static final byte[] TEXT_TRUE = { 't' };
+
+    private static final byte[] TEXT_FALSE = { 'f' };
+
+    private static final int[] BINARY_FORMAT = { 1 };
+
+    /**
+     * The maximum number of rows in one INSERT command of COPY FROM STDIN.
+     */
+    private static final int COPY_BATCH_ROWS = 1_000;
+
+    /**
+     * The maximum number of parameters in one INSERT command of COPY FROM
+     * STDIN.
+     */
+    private static final int COPY_BATCH_PARAMETERS = 10_000;
+
     private static final Pattern SHOULD_QUOTE = Pattern.compile(".*[\",\\\\{}].*");
 
     private static String pgTimeZone(String value) {
@@ -134,7 +153,7 @@ public final class PgServerThread implements Runnable {
         try {
             server.trace("Connect");
             InputStream ins = socket.getInputStream();
-            out = socket.getOutputStream();
+            out = new BufferedOutputStream(socket.getOutputStream(), 65_536);
             dataInRaw = new DataInputStream(ins);
             while (!stop) {
                 process();
@@ -466,6 +485,19 @@ public final class PgServerThread implements Runnable {
                     break;
                 }
                 s = getSQL(s);
+                PgCopy copy;
+                try {
+                    copy = PgCopy.parse(s);
+                } catch (Exception e) {
+                    sendErrorResponse(e);
+                    break;
+                }
+                if (copy != null) {
+                    if (!copy(copy)) {
+                        break;
+                    }
+                    continue;
+                }
                 try (CommandInterface command = session.prepareLocal(s)) {
                     setActiveRequest(command);
                     if (command.isQuery()) {
@@ -530,6 +562,269 @@ public final class PgServerThread implements Runnable {
         }
     }
 
+    /**
+     * Executes a COPY FROM STDIN or COPY TO STDOUT statement.
+     *
+     * @param copy the statement
+     * @return whether the statement was executed successfully
+     */
+    private boolean copy(PgCopy copy) throws IOException {
+        try {
+            long count = copy.from ? copyIn(copy) : copyOut(copy);
+            startMessage('C');
+            writeString("COPY " + count);
+            sendMessage();
+            return true;
+        } catch (Exception e) {
+            sendErrorOrCancelResponse(e);
+            return false;
+        } finally {
+            setActiveRequest(null);
+        }
+    }
+
+    private long copyIn(PgCopy copy) throws IOException {
+        StringBuilder builder = new StringBuilder("INSERT INTO ").append(copy.table).append('(');
+        int columnCount;
+        int[] pgTypes;
+        try (CommandInterface command = session.prepareLocal(
+                "SELECT " + (copy.columns != null ? copy.columns : "*") + " FROM " + copy.table)) {
+            ResultInterface meta = command.getMetaData();
+            columnCount = meta.getVisibleColumnCount();
+            pgTypes = new int[columnCount];
+            for (int i = 0; i < columnCount; i++) {
+                if (i > 0) {
+                    builder.append(", ");
+                }
+                StringUtils.quoteIdentifier(builder, meta.getColumnName(i));
+                pgTypes[i] = PgServer.convertType(meta.getColumnType(i));
+            }
+        }
+        builder.append(") VALUES ");
+        String insert = builder.toString();
+        // rows are inserted with multi-row INSERT commands, each one is
+        // committed separately in auto-commit mode
+        int batchSize = Math.max(1, Math.min(COPY_BATCH_ROWS, COPY_BATCH_PARAMETERS / columnCount));
+        CopyBatch batch = new CopyBatch(insert, columnCount, batchSize);
+        sendCopyResponse('G', copy, columnCount);
+        out.flush();
+        try {
+            return copyIn(copy, batch, pgTypes);
+        } finally {
+            batch.close();
+        }
+    }
+
+    private long copyIn(PgCopy copy, CopyBatch batch, int[] pgTypes) throws IOException {
+        int columnCount = pgTypes.length;
+        Charset encoding = getEncoding();
+        DbException error = null;
+        while (true) {
+            int x = dataInRaw.read();
+            if (x < 0) {
+                throw new EOFException();
+            }
+            int len = dataInRaw.readInt() - 4;
+            byte[] data = Utils.newBytes(len);
+            dataInRaw.readFully(data, 0, len);
+            boolean eof;
+            switch (x) {
+            case 'd':
+                copy.addData(data);
+                eof = false;
+                break;
+            case 'c':
+                server.trace("CopyDone");
+                eof = true;
+                break;
+            case 'f': {
+                String message = new String(data, 0, Math.max(len - 1, 0), encoding);
+                server.trace("CopyFail " + message);
+                throw DbException.get(ErrorCode.GENERAL_ERROR_1, "COPY from stdin failed: " + message);
+            }
+            case 'H':
+            case 'S':
+                continue;
+            default:
+                throw DbException.get(ErrorCode.GENERAL_ERROR_1,
+                        "unexpected message type 0x" + Integer.toHexString(x) + " during COPY from stdin");
+            }
+            if (error == null) {
+                try {
+                    if (copy.format == PgCopy.FORMAT_BINARY) {
+                        for (byte[] tuple; (tuple = copy.readTuple(eof)) != null;) {
+                            dataIn = new DataInputStream(new ByteArrayInputStream(tuple));
+                            if (readShort() != columnCount) {
+                                throw DbException.get(ErrorCode.COLUMN_COUNT_DOES_NOT_MATCH);
+                            }
+                            int offset = batch.nextRow();
+                            for (int i = 0; i < columnCount; i++) {
+                                setParameter(batch.parameters, pgTypes[i], offset + i, BINARY_FORMAT);
+                            }
+                            batch.rowAdded();
+                        }
+                    } else {
+                        for (String[] row; (row = copy.readRow(encoding, eof)) != null;) {
+                            if (row.length != columnCount) {
+                                throw DbException.get(ErrorCode.COLUMN_COUNT_DOES_NOT_MATCH);
+                            }
+                            int offset = batch.nextRow();
+                            for (int i = 0; i < columnCount; i++) {
+                                String s = row[i];
+                                Value v;
+                                if (s == null) {
+                                    v = ValueNull.INSTANCE;
+                                } else if (pgTypes[i] == PgServer.PG_TYPE_BYTEA && s.startsWith("\\x")) {
+                                    v = ValueVarbinary.getNoCopy(StringUtils.convertHexToBytes(s.substring(2)));
+                                } else {
+                                    v = ValueVarchar.get(s, session);
+                                }
+                                batch.parameters.get(offset + i).setValue(v, true);
+                            }
+                            batch.rowAdded();
+                        }
+                    }
+                    if (eof) {
+                        batch.finish();
+                    }
+                } catch (DbException e) {
+                    // the rest of data is read and ignored
+                    error = e;
+                }
+            }
+            if (eof) {
+                break;
+            }
+        }
+        if (error != null) {
+            throw error;
+        }
+        return batch.count;
+    }
+
+    private long copyOut(PgCopy copy) throws IOException {
+        String query = copy.query != null ? copy.query
+                : "SELECT " + (copy.columns != null ? copy.columns : "*") + " FROM " + copy.table;
+        try (CommandInterface command = session.prepareLocal(query)) {
+            if (!command.isQuery()) {
+                throw DbException.get(ErrorCode.METHOD_ONLY_ALLOWED_FOR_QUERY);
+            }
+            setActiveRequest(command);
+            try (ResultInterface result = command.executeQuery(0, false)) {
+                int columnCount = result.getVisibleColumnCount();
+                int[] pgTypes = new int[columnCount];
+                for (int i = 0; i < columnCount; i++) {
+                    TypeInfo type = result.getColumnType(i);
+                    int pgType = PgServer.convertType(type);
+                    if (copy.format == PgCopy.FORMAT_BINARY && !hasBinaryOutput(pgType) && !isTextType(pgType)) {
+                        throw DbException.getUnsupportedException("binary COPY of " + type.getTraceSQL());
+                    }
+                    pgTypes[i] = pgType;
+                }
+                sendCopyResponse('H', copy, columnCount);
+                Charset encoding = getEncoding();
+                if (copy.format == PgCopy.FORMAT_BINARY) {
+                    startMessage('d');
+                    write(PgCopy.BINARY_SIGNATURE);
+                    writeInt(0);
+                    writeInt(0);
+                    sendMessage();
+                } else if (copy.header) {
+                    startMessage('d');
+                    for (int i = 0; i < columnCount; i++) {
+                        if (i > 0) {
+                            write(copy.delimiter);
+                        }
+                        copy.writeField(dataOut, result.getColumnName(i).getBytes(encoding), encoding);
+                    }
+                    write('\n');
+                    sendMessage();
+                }
+                long count = 0;
+                while (result.next()) {
+                    Value[] row = result.currentRow();
+                    // one row per message
+                    startMessage('d');
+                    if (copy.format == PgCopy.FORMAT_BINARY) {
+                        writeShort(columnCount);
+                        for (int i = 0; i < columnCount; i++) {
+                            int pgType = pgTypes[i];
+                            writeDataColumn(row[i], pgType, !hasBinaryOutput(pgType));
+                        }
+                    } else {
+                        for (int i = 0; i < columnCount; i++) {
+                            if (i > 0) {
+                                write(copy.delimiter);
+                            }
+                            Value v = row[i];
+                            copy.writeField(dataOut, v == ValueNull.INSTANCE ? null : getTextBytes(v, pgTypes[i]),
+                                    encoding);
+                        }
+                        write('\n');
+                    }
+                    sendMessage();
+                    count++;
+                }
+                if (copy.format == PgCopy.FORMAT_BINARY) {
+                    startMessage('d');
+                    writeShort(-1);
+                    sendMessage();
+                }
+                startMessage('c');
+                sendMessage();
+                return count;
+            }
+        }
+    }
+
+    /**
+     * Returns whether values of the specified type can be written in the
+     * binary format. Values of character string types are written as text,
+     * this is their binary format.
+     */
+    private static boolean hasBinaryOutput(int pgType) {
+        switch (pgType) {
+        case PgServer.PG_TYPE_BOOL:
+        case PgServer.PG_TYPE_INT2:
+        case PgServer.PG_TYPE_INT4:
+        case PgServer.PG_TYPE_INT8:
+        case PgServer.PG_TYPE_FLOAT4:
+        case PgServer.PG_TYPE_FLOAT8:
+        case PgServer.PG_TYPE_NUMERIC:
+        case PgServer.PG_TYPE_BYTEA:
+        case PgServer.PG_TYPE_DATE:
+        case PgServer.PG_TYPE_TIME:
+        case PgServer.PG_TYPE_TIMETZ:
+        case PgServer.PG_TYPE_TIMESTAMP:
+        case PgServer.PG_TYPE_TIMESTAMPTZ:
+            return true;
+        default:
+            return false;
+        }
+    }
+
+    private static boolean isTextType(int pgType) {
+        switch (pgType) {
+        case PgServer.PG_TYPE_VARCHAR:
+        case PgServer.PG_TYPE_BPCHAR:
+        case PgServer.PG_TYPE_TEXT:
+            return true;
+        default:
+            return false;
+        }
+    }
+
+    private void sendCopyResponse(int type, PgCopy copy, int columnCount) throws IOException {
+        startMessage(type);
+        int format = copy.format == PgCopy.FORMAT_BINARY ? 1 : 0;
+        write(format);
+        writeShort(columnCount);
+        for (int i = 0; i < columnCount; i++) {
+            writeShort(format);
+        }
+        sendMessage();
+    }
+
     private String getSQL(String s) {
         String lower = StringUtils.toLowerEnglish(s);
         if (lower.startsWith("show max_identifier_length")) {
@@ -603,72 +898,9 @@ public final class PgServerThread implements Runnable {
         }
         if (text) {
             // plain text
-            switch (pgType) {
-            case PgServer.PG_TYPE_BOOL:
-                writeInt(1);
-                dataOut.writeByte(v.getBoolean() ? 't' : 'f');
-                break;
-            case PgServer.PG_TYPE_BYTEA: {
-                byte[] bytes = v.getBytesNoCopy();
-                int length = bytes.length;
-                int cnt = length;
-                for (int i = 0; i < length; i++) {
-                    byte b = bytes[i];
-                    if (b < 32 || b > 126) {
-                        cnt += 3;
-                    } else if (b == 92) {
-                        cnt++;
-                    }
-                }
-                byte[] data = new byte[cnt];
-                for (int i = 0, j = 0; i < length; i++) {
-                    byte b = bytes[i];
-                    if (b < 32 || b > 126) {
-                        data[j++] = '\\';
-                        data[j++] = (byte) (((b >>> 6) & 3) + '0');
-                        data[j++] = (byte) (((b >>> 3) & 7) + '0');
-                        data[j++] = (byte) ((b & 7) + '0');
-                    } else if (b == 92) {
-                        data[j++] = '\\';
-                        data[j++] = '\\';
-                    } else {
-                        data[j++] = b;
-                    }
-                }
-                writeInt(data.length);
-                write(data);
-                break;
-            }
-            case PgServer.PG_TYPE_INT2_ARRAY:
-            case PgServer.PG_TYPE_INT4_ARRAY:
-            case PgServer.PG_TYPE_VARCHAR_ARRAY:
-                ByteArrayOutputStream baos = new ByteArrayOutputStream();
-                baos.write('{');
-                Value[] values = ((ValueArray) v).getList();
-                Charset encoding = getEncoding();
-                for (int i = 0; i < values.length; i++) {
-                    if (i > 0) {
-                        baos.write(',');
-                    }
-                    String s = values[i].getString();
-                    if (SHOULD_QUOTE.matcher(s).matches()) {
-                        List<String> ss = new ArrayList<>();
-                        for (String s0 : s.split("\\\\")) {
-                            ss.add(s0.replace("\"", "\\\""));
-                        }
-                        s = "\"" + String.join("\\\\", ss) + "\"";
-                    }
-                    baos.write(s.getBytes(encoding));
-                }
-                baos.write('}');
-                writeInt(baos.size());
-                write(baos);
-                break;
-            default:
-                byte[] data = v.getString().getBytes(getEncoding());
-                writeInt(data.length);
-                write(data);
-            }
+            byte[] data = getTextBytes(v, pgType);
+            writeInt(data.length);
+            write(data);
         } else {
             // binary
             switch (pgType) {
@@ -742,6 +974,67 @@ public final class PgServerThread implements Runnable {
         }
     }
 
+    private byte[] getTextBytes(Value v, int pgType) throws IOException {
+        switch (pgType) {
+        case PgServer.PG_TYPE_BOOL:
+            return v.getBoolean() ? TEXT_TRUE : TEXT_FALSE;
+        case PgServer.PG_TYPE_BYTEA: {
+            byte[] bytes = v.getBytesNoCopy();
+            int length = bytes.length;
+            int cnt = length;
+            for (int i = 0; i < length; i++) {
+                byte b = bytes[i];
+                if (b < 32 || b > 126) {
+                    cnt += 3;
+                } else if (b == 92) {
+                    cnt++;
+                }
+            }
+            byte[] data = new byte[cnt];
+            for (int i = 0, j = 0; i < length; i++) {
+                byte b = bytes[i];
+                if (b < 32 || b > 126) {
+                    data[j++] = '\\';
+                    data[j++] = (byte) (((b >>> 6) & 3) + '0');
+                    data[j++] = (byte) (((b >>> 3) & 7) + '0');
+                    data[j++] = (byte) ((b & 7) + '0');
+                } else if (b == 92) {
+                    data[j++] = '\\';
+                    data[j++] = '\\';
+                } else {
+                    data[j++] = b;
+                }
+            }
+            return data;
+        }
+        case PgServer.PG_TYPE_INT2_ARRAY:
+        case PgServer.PG_TYPE_INT4_ARRAY:
+        case PgServer.PG_TYPE_VARCHAR_ARRAY:
+            ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            baos.write('{');
+            Value[] values = ((ValueArray) v).getList();
+            Charset encoding = getEncoding();
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) {
+                    baos.write(',');
+                }
+                String s = values[i].getString();
+                if (SHOULD_QUOTE.matcher(s).matches()) {
+                    List<String> ss = new ArrayList<>();
+                    for (String s0 : s.split("\\\\")) {
+                        ss.add(s0.replace("\"", "\\\""));
+                    }
+                    s = "\"" + String.join("\\\\", ss) + "\"";
+                }
+                baos.write(s.getBytes(encoding));
+            }
+            baos.write('}');
+            return baos.toByteArray();
+        default:
+            return v.getString().getBytes(getEncoding());
+        }
+    }
+
     private static final int[] POWERS10 = {1, 10, 100, 1000, 10000};
     private static final int MAX_GROUP_SCALE = 4;
     private static final int MAX_GROUP_SIZE = POWERS10[4];
@@ -881,6 +1174,10 @@ public final class PgServerThread implements Runnable {
         } else {
             // binary
             switch (pgType) {
+            case PgServer.PG_TYPE_BOOL:
+                checkParamLength(1, paramLen);
+                value = ValueBoolean.get(readByte() != 0);
+                break;
             case PgServer.PG_TYPE_INT2:
                 checkParamLength(2, paramLen);
                 value = ValueSmallint.get(readShort());
@@ -1268,7 +1565,6 @@ public final class PgServerThread implements Runnable {
         write(messageType);
         writeInt(outBuffer.size() + 4);
         write(outBuffer);
-        dataOut.flush();
     }
 
     private void sendParameterStatus(String param, String value)
@@ -1309,6 +1605,103 @@ public final class PgServerThread implements Runnable {
         }
     }
 
+    /**
+     * Rows of COPY FROM STDIN that are inserted with one INSERT command.
+     */
+    private final class CopyBatch {
+
+        private final String insert;
+
+        private final int columnCount;
+
+        private final int batchSize;
+
+        private CommandInterface command;
+
+        /**
+         * The parameters of the command.
+         */
+        ArrayList<? extends ParameterInterface> parameters;
+
+        private int rows;
+
+        /**
+         * The number of inserted rows.
+         */
+        long count;
+
+        CopyBatch(String insert, int columnCount, int batchSize) {
+            this.insert = insert;
+            this.columnCount = columnCount;
+            this.batchSize = batchSize;
+        }
+
+        /**
+         * Returns the index of the first parameter of the next row.
+         *
+         * @return the index of the first parameter
+         */
+        int nextRow() {
+            if (command == null) {
+                command = prepare(batchSize);
+                parameters = command.getParameters();
+            }
+            return rows * columnCount;
+        }
+
+        /**
+         * Executes the command if the batch is full.
+         */
+        void rowAdded() {
+            if (++rows == batchSize) {
+                execute(command);
+            }
+        }
+
+        /**
+         * Inserts the remaining rows.
+         */
+        void finish() {
+            if (rows > 0) {
+                try (CommandInterface c = prepare(rows)) {
+                    ArrayList<? extends ParameterInterface> p = c.getParameters();
+                    for (int i = 0, l = p.size(); i < l; i++) {
+                        p.get(i).setValue(parameters.get(i).getParamValue(), true);
+                    }
+                    execute(c);
+                }
+            }
+        }
+
+        /**
+         * Closes the command.
+         */
+        void close() {
+            if (command != null) {
+                command.close();
+                command = null;
+            }
+        }
+
+        private CommandInterface prepare(int rowCount) {
+            StringBuilder builder = new StringBuilder(insert);
+            for (int r = 0; r < rowCount; r++) {
+                builder.append(r > 0 ? ", (" : "(");
+                for (int i = 0; i < columnCount; i++) {
+                    builder.append(i > 0 ? ", ?" : "?");
+                }
+                builder.append(')');
+            }
+            return session.prepareLocal(builder.toString());
+        }
+
+        private void execute(CommandInterface c) {
+            setActiveRequest(c);
+            count += c.executeUpdate(null).getUpdateCount();
+            rows = 0;
+        }
+    }
+
     /**
      * Represents a PostgreSQL Prepared object.
      */
@@ -72,6 +72,7 @@ public final class Column implements HasSQL, Typed, ColumnTemplate {
     private boolean isGeneratedAlways;
     private GeneratedColumnResolver generatedTableFilter;
     private int selectivity;
+    private ColumnStatistics statistics;
     private String comment;
     private boolean primaryKey;
     private boolean visible = true;
@@ -684,6 +685,24 @@ public final class Column implements HasSQL, Typed, ColumnTemplate {
         this.selectivity = selectivity;
     }
 
+    /**
+     * Get the value distribution of this column collected by ANALYZE.
+     *
+     * @return the statistics, or {@code null}
+     */
+    public ColumnStatistics getStatistics() {
+        return statistics;
+    }
+
+    /**
+     * Set the value distribution of this column.
+     *
+     * @param statistics the statistics, or {@code null}
+     */
+    public void setStatistics(ColumnStatistics statistics) {
+        this.statistics = statistics;
+    }
+
     @Override
     public String getDefaultSQL() {
         return defaultExpression == null ? null
@@ -812,6 +831,7 @@ public final class Column implements HasSQL, Typed, ColumnTemplate {
         generatedTableFilter = source.generatedTableFilter;
         isGeneratedAlways = source.isGeneratedAlways;
         selectivity = source.selectivity;
+        statistics = source.statistics;
         primaryKey = source.primaryKey;
         visible = source.visible;
     }
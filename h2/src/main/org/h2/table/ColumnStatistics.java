@@ -0,0 +1,365 @@
+/*
+ * Copyright 2004-2022 H2 Group. Multiple-Licensed under the MPL 2.0,
+ * and the EPL 1.0 (https://h2database.com/html/license.html).
+ * Initial Developer: H2 Group
+ */
+package org.h2.table;
+
+import java.util.Arrays;
+
+import org.h2.engine.SessionLocal;
+import org.h2.util.HasSQL;
+import org.h2.value.CompareMode;
+import org.h2.value.DataType;
+import org.h2.value.TypeInfo;
+import org.h2.value.Value;
+import org.h2.value.ValueArray;
+import org.h2.value.ValueBigint;
+import org.h2.value.ValueNull;
+
+/**
+ * Value distribution of a column, collected by the ANALYZE statement from a
+ * sample of rows. It contains a list of most common values with their
+ * frequencies and bounds of an equi-depth histogram of other non-null
+ * values. Each histogram bucket contains approximately the same number of
+ * sampled values. The statistics are used by the optimizer to estimate how many rows
+ * match an equality, IN or range condition.
+ */
+public final class ColumnStatistics {
+
+    /**
+     * The maximum number of most common values.
+     */
+    private static final int MAX_COMMON_VALUES = 10;
+
+    /**
+     * The maximum number of histogram buckets.
+     */
+    private static final int MAX_BUCKETS = 32;
+
+    /**
+     * The maximum length of a string value that is stored in the statistics.
+     */
+    private static final int MAX_STRING_LENGTH = 64;
+
+    private static final Value[] EMPTY = new Value[0];
+
+    private final long sampleSize;
+
+    private final long nullCount;
+
+    private final long distinctCount;
+
+    private final Value[] commonValues;
+
+    private final long[] commonCounts;
+
+    private final long commonTotal;
+
+    private final Value[] bounds;
+
+    /**
+     * Creates new column statistics.
+     *
+     * @param sampleSize
+     *            the number of sampled rows
+     * @param nullCount
+     *            the number of sampled rows with NULL
+     * @param distinctCount
+     *            the number of distinct non-null values in the sample
+     * @param commonValues
+     *            the most common values
+     * @param commonCounts
+     *            the number of sampled rows with each of the most common
+     *            values
+     * @param bounds
+     *            the sorted bounds of the histogram buckets of values that
+     *            are not most common values, the first bound is the smallest
+     *            such value and the last bound is the largest one, or an
+     *            empty array
+     */
+    public ColumnStatistics(long sampleSize, long nullCount, long distinctCount, Value[] commonValues,
+            long[] commonCounts, Value[] bounds) {
+        this.sampleSize = Math.max(sampleSize, 1);
+        this.nullCount = nullCount;
+        this.distinctCount = distinctCount;
+        this.commonValues = commonValues;
+        this.commonCounts = commonCounts;
+        long total = 0;
+        for (long c : commonCounts) {
+            total += c;
+        }
+        commonTotal = total;
+        this.bounds = bounds.length == 1 ? EMPTY : bounds;
+    }
+
+    /**
+     * Returns whether statistics can be collected for columns of the
+     * specified data type.
+     *
+     * @param type
+     *            the data type
+     * @return whether statistics are supported
+     */
+    public static boolean isSupported(TypeInfo type) {
+        int valueType = type.getValueType();
+        return DataType.isNumericType(valueType) || DataType.isStringType(valueType)
+                || DataType.isDateTimeType(valueType) || valueType == Value.BOOLEAN || valueType == Value.UUID;
+    }
+
+    /**
+     * Builds statistics from the sampled values of a column.
+     *
+     * @param session
+     *            the session
+     * @param values
+     *            the sampled values, including NULL values; this array is
+     *            sorted in place
+     * @param count
+     *            the number of sampled values
+     * @return the statistics
+     */
+    public static ColumnStatistics build(SessionLocal session, Value[] values, int count) {
+        CompareMode compareMode = session.getDatabase().getCompareMode();
+        Arrays.sort(values, 0, count, (a, b) -> a.compareTo(b, session, compareMode));
+        int nullCount = 0;
+        while (nullCount < count && values[nullCount] == ValueNull.INSTANCE) {
+            nullCount++;
+        }
+        int nonNull = count - nullCount;
+        // Runs of equal values; a value is a candidate for the list of most
+        // common values if it appears notably more often than an average one
+        int distinct = 0;
+        int[] runStarts = new int[nonNull];
+        for (int i = nullCount; i < count; i++) {
+            if (i == nullCount || values[i].compareTo(values[i - 1], session, compareMode) != 0) {
+                runStarts[distinct++] = i;
+            }
+        }
+        Value[] commonValues = new Value[MAX_COMMON_VALUES];
+        long[] commonCounts = new long[MAX_COMMON_VALUES];
+        int commonCount = 0;
+        long threshold = Math.max(2, nonNull / Math.max(distinct, 1) * 5 / 4 + 1);
+        for (int r = 0; r < distinct; r++) {
+            int start = runStarts[r];
+            long runLength = (r + 1 < distinct ? runStarts[r + 1] : count) - start;
+            if (runLength < threshold || isTooLong(values[start])) {
+                continue;
+            }
+            int pos = commonCount;
+            if (pos == MAX_COMMON_VALUES) {
+                if (commonCounts[pos - 1] >= runLength) {
+                    continue;
+                }
+                pos--;
+            } else {
+                commonCount++;
+            }
+            while (pos > 0 && commonCounts[pos - 1] < runLength) {
+                commonValues[pos] = commonValues[pos - 1];
+                commonCounts[pos] = commonCounts[pos - 1];
+                pos--;
+            }
+            commonValues[pos] = values[start];
+            commonCounts[pos] = runLength;
+        }
+        // The histogram is built from the remaining values, the most common
+        // values are accounted separately
+        Value[] uncommon = new Value[nonNull];
+        int uncommonCount = 0;
+        runs: for (int r = 0; r < distinct; r++) {
+            int start = runStarts[r];
+            for (int i = 0; i < commonCount; i++) {
+                if (commonValues[i] == values[start]) {
+                    continue runs;
+                }
+            }
+            int end = r + 1 < distinct ? runStarts[r + 1] : count;
+            System.arraycopy(values, start, uncommon, uncommonCount, end - start);
+            uncommonCount += end - start;
+        }
+        Value[] bounds = EMPTY;
+        if (uncommonCount > 1) {
+            int buckets = Math.min(MAX_BUCKETS, uncommonCount - 1);
+            bounds = new Value[buckets + 1];
+            for (int i = 0; i <= buckets; i++) {
+                Value v = uncommon[(int) ((long) (uncommonCount - 1) * i / buckets)];
+                if (isTooLong(v)) {
+                    bounds = EMPTY;
+                    break;
+                }
+                bounds[i] = v;
+            }
+        }
+        return new ColumnStatistics(count, nullCount, distinct, Arrays.copyOf(commonValues, commonCount),
+                Arrays.copyOf(commonCounts, commonCount), bounds);
+    }
+
+    private static boolean isTooLong(Value v) {
+        return DataType.isStringType(v.getValueType()) && v.getString().length() > MAX_STRING_LENGTH;
+    }
+
+    /**
+     * Returns the estimated fraction of rows with the specified value.
+     *
+     * @param session
+     *            the session
+     * @param v
+     *            the value
+     * @return the fraction of rows, from 0 to 1
+     */
+    public double getEqualFraction(SessionLocal session, Value v) {
+        if (v == ValueNull.INSTANCE) {
+            return Math.max(nullCount, 1) / (double) sampleSize;
+        }
+        CompareMode compareMode = session.getDatabase().getCompareMode();
+        for (int i = 0, l = commonValues.length; i < l; i++) {
+            if (v.compareTo(commonValues[i], session, compareMode) == 0) {
+                return commonCounts[i] / (double) sampleSize;
+            }
+        }
+        int l = bounds.length;
+        if (l > 0 && (v.compareTo(bounds[0], session, compareMode) < 0
+                || v.compareTo(bounds[l - 1], session, compareMode) > 0)) {
+            return getMinimalFraction();
+        }
+        return Math.max(getUncommonFraction() / Math.max(distinctCount - commonValues.length, 1),
+                getMinimalFraction());
+    }
+
+    /**
+     * Returns the estimated fraction of rows with the same value as a value
+     * from another row of the same distribution. This estimation is used for
+     * join conditions and parameters.
+     *
+     * @return the fraction of rows, from 0 to 1
+     */
+    public double getJoinFraction() {
+        double f = 0d;
+        for (long c : commonCounts) {
+            double p = c / (double) sampleSize;
+            f += p * p;
+        }
+        double uncommon = getUncommonFraction();
+        f += uncommon * uncommon / Math.max(distinctCount - commonValues.length, 1);
+        return Math.max(f, getMinimalFraction());
+    }
+
+    /**
+     * Returns the estimated fraction of rows with values between the
+     * specified bounds.
+     *
+     * @param session
+     *            the session
+     * @param low
+     *            the lower bound, or {@code null}
+     * @param high
+     *            the upper bound, or {@code null}
+     * @return the fraction of rows, from 0 to 1, or a negative value if
+     *         histogram is not available
+     */
+    public double getRangeFraction(SessionLocal session, Value low, Value high) {
+        double f;
+        if (bounds.length > 0) {
+            double from = low == null ? 0d : getCumulativeFraction(session, low);
+            double to = high == null ? 1d : getCumulativeFraction(session, high);
+            f = (to - from) * getUncommonFraction();
+        } else if (sampleSize - nullCount - commonTotal <= 1) {
+            // all values, except possibly one, are most common values
+            f = 0d;
+        } else {
+            return -1d;
+        }
+        CompareMode compareMode = session.getDatabase().getCompareMode();
+        for (int i = 0, l = commonValues.length; i < l; i++) {
+            Value v = commonValues[i];
+            if ((low == null || v.compareTo(low, session, compareMode) >= 0)
+                    && (high == null || v.compareTo(high, session, compareMode) <= 0)) {
+                f += commonCounts[i] / (double) sampleSize;
+            }
+        }
+        return Math.max(f, getMinimalFraction());
+    }
+
+    /**
+     * Returns the estimated fraction of rows with non-null values.
+     *
+     * @return the fraction of rows, from 0 to 1
+     */
+    public double getNonNullFraction() {
+        return (sampleSize - nullCount) / (double) sampleSize;
+    }
+
+    /**
+     * Returns the estimated fraction of values in the histogram that are
+     * smaller than the specified value.
+     *
+     * @param session
+     *            the session
+     * @param v
+     *            the value
+     * @return the fraction of values in the histogram, from 0 to 1
+     */
+    private double getCumulativeFraction(SessionLocal session, Value v) {
+        if (v == ValueNull.INSTANCE) {
+            return 0d;
+        }
+        CompareMode compareMode = session.getDatabase().getCompareMode();
+        int buckets = bounds.length - 1;
+        if (v.compareTo(bounds[0], session, compareMode) <= 0) {
+            return 0d;
+        }
+        if (v.compareTo(bounds[buckets], session, compareMode) >= 0) {
+            return 1d;
+        }
+        // find the last bound that is smaller than the value
+        int l = 0, h = buckets;
+        while (h - l > 1) {
+            int m = (l + h) >>> 1;
+            if (bounds[m].compareTo(v, session, compareMode) < 0) {
+                l = m;
+            } else {
+                h = m;
+            }
+        }
+        double inBucket = 0.5d;
+        Value a = bounds[l], b = bounds[l + 1];
+        if (DataType.isNumericType(a.getValueType()) && DataType.isNumericType(v.getValueType())) {
+            double da = a.getDouble(), db = b.getDouble();
+            if (db > da) {
+                inBucket = Math.min(Math.max((v.getDouble() - da) / (db - da), 0d), 1d);
+            }
+        }
+        return (l + inBucket) / buckets;
+    }
+
+    private double getUncommonFraction() {
+        return Math.max(sampleSize - nullCount - commonTotal, 0) / (double) sampleSize;
+    }
+
+    private double getMinimalFraction() {
+        return 1d / sampleSize;
+    }
+
+    /**
+     * Appends the SQL representation of these statistics. It is stored by
+     * {@link org.h2.mvstore.db.Store} separately from the metadata table.
+     *
+     * @param builder
+     *            the string builder
+     * @return the specified string builder
+     */
+    public StringBuilder getSQL(StringBuilder builder) {
+        builder.append("STATISTICS(").append(sampleSize).append(", ").append(nullCount).append(", ")
+                .append(distinctCount).append(", ");
+        ValueArray.get(commonValues, null).getSQL(builder, HasSQL.DEFAULT_SQL_FLAGS).append(", ");
+        int l = commonCounts.length;
+        Value[] counts = new Value[l];
+        for (int i = 0; i < l; i++) {
+            counts[i] = ValueBigint.get(commonCounts[i]);
+        }
+        ValueArray.get(counts, null).getSQL(builder, HasSQL.DEFAULT_SQL_FLAGS).append(", ");
+        return ValueArray.get(bounds, null).getSQL(builder, HasSQL.DEFAULT_SQL_FLAGS).append(')');
+    }
+
+}
@@ -0,0 +1,288 @@
+/*
+ * Copyright 2004-2022 H2 Group. Multiple-Licensed under the MPL 2.0,
+ * and the EPL 1.0 (https://h2database.com/html/license.html).
+ * Initial Developer: H2 Group
+ */
+package org.h2.table;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+
+import org.h2.engine.Database;
+import org.h2.engine.SessionLocal;
+import org.h2.expression.Expression;
+import org.h2.expression.condition.Comparison;
+import org.h2.index.Cursor;
+import org.h2.index.IndexCondition;
+import org.h2.mvstore.db.MVTempJoinMap;
+import org.h2.result.Row;
+import org.h2.util.HasSQL;
+import org.h2.value.DataType;
+import org.h2.value.TypeInfo;
+import org.h2.value.Value;
+import org.h2.value.ValueNull;
+import org.h2.value.ValueRow;
+
+/**
+ * The build side of a hash join. All rows of the table are read once per
+ * query execution and put into a hash table keyed on the join columns. The
+ * hash table is then probed with the current values of the join expressions
+ * for each row of the outer tables, instead of scanning the table again.
+ * If the table has more than MAX_MEMORY_ROWS rows, the rows are moved to a
+ * temporary MVStore map.
+ */
+final class HashJoin {
+
+    private final TableFilter filter;
+
+    private final IndexCondition[] conditions;
+
+    private final int[] columnIds;
+
+    /**
+     * Row or ArrayList of rows by join key.
+     */
+    private HashMap<Value, Object> rows;
+
+    private MVTempJoinMap tempRows;
+
+    private ArrayList<?> matches;
+
+    private Row match;
+
+    private MVTempJoinMap.RowCursor tempCursor;
+
+    private int index;
+
+    private Row current;
+
+    private HashJoin(TableFilter filter, IndexCondition[] conditions) {
+        this.filter = filter;
+        this.conditions = conditions;
+        int length = conditions.length;
+        int[] columnIds = new int[length];
+        for (int i = 0; i < length; i++) {
+            columnIds[i] = conditions[i].getColumn().getColumnId();
+        }
+        this.columnIds = columnIds;
+    }
+
+    /**
+     * Creates a hash join for the specified table filter if some of its index
+     * conditions can be used as join keys.
+     *
+     * @param filter
+     *            the table filter
+     * @param indexConditions
+     *            the index conditions
+     * @return the hash join, or {@code null}
+     */
+    static HashJoin get(TableFilter filter, ArrayList<IndexCondition> indexConditions) {
+        Database database = filter.getSession().getDatabase();
+        ArrayList<IndexCondition> keys = new ArrayList<>();
+        for (IndexCondition condition : indexConditions) {
+            if (isApplicable(database, condition)) {
+                keys.add(condition);
+            }
+        }
+        return keys.isEmpty() ? null : new HashJoin(filter, keys.toArray(new IndexCondition[0]));
+    }
+
+    /**
+     * Returns whether the specified index condition can be used as a join key
+     * of a hash join. The expression must depend on other tables, the values
+     * of the column and the expression must have
+     * the same data type, and equality of values of this data type must be
+     * consistent with {@link Value#equals(Object)} and
+     * {@link Value#hashCode()}.
+     *
+     * @param database
+     *            the database
+     * @param condition
+     *            the index condition
+     * @return whether the condition can be used
+     */
+    static boolean isApplicable(Database database, IndexCondition condition) {
+        if (condition.getCompareType() != Comparison.EQUAL) {
+            return false;
+        }
+        Column column = condition.getColumn();
+        Expression expression = condition.getExpression();
+        if (column.getColumnId() < 0 || expression == null || expression.isConstant()) {
+            return false;
+        }
+        TypeInfo type = column.getType();
+        int valueType = type.getValueType();
+        return valueType != Value.ARRAY && valueType != Value.ROW
+                && expression.getType().getValueType() == valueType
+                && DataType.isHashable(type, database.getCompareMode());
+    }
+
+    /**
+     * Discards the hash table, it will be built again on the next lookup.
+     */
+    void reset() {
+        rows = null;
+        if (tempRows != null) {
+            tempRows.close();
+            tempRows = null;
+        }
+        matches = null;
+        match = null;
+        tempCursor = null;
+        current = null;
+    }
+
+    /**
+     * Looks up rows with the current values of the join expressions, builds
+     * the hash table if required.
+     *
+     * @param session
+     *            the session
+     */
+    void find(SessionLocal session) {
+        if (rows == null && tempRows == null) {
+            build(session);
+        }
+        matches = null;
+        match = null;
+        tempCursor = null;
+        index = 0;
+        int length = conditions.length;
+        Value[] key = new Value[length];
+        for (int i = 0; i < length; i++) {
+            Value v = conditions[i].getCurrentValue(session);
+            if (v == ValueNull.INSTANCE) {
+                return;
+            }
+            key[i] = v;
+        }
+        if (tempRows != null) {
+            tempCursor = tempRows.find(key);
+        } else {
+            Object o = rows.get(length == 1 ? key[0] : ValueRow.get(key));
+            if (o instanceof Row) {
+                match = (Row) o;
+            } else {
+                matches = (ArrayList<?>) o;
+            }
+        }
+    }
+
+    private void build(SessionLocal session) {
+        Table table = filter.getTable();
+        Database database = session.getDatabase();
+        int maxMemoryRows = database.isPersistent() && !database.isReadOnly() ? database.getMaxMemoryRows()
+                : Integer.MAX_VALUE;
+        HashMap<Value, Object> rows = new HashMap<>();
+        int rowCount = 0;
+        Cursor cursor = table.getScanIndex(session).find(session, null, null);
+        while (cursor.next()) {
+            Row row = cursor.get();
+            Value[] key = getKey(row);
+            if (key == null) {
+                continue;
+            }
+            if (tempRows != null) {
+                tempRows.add(key, row);
+            } else if (++rowCount > maxMemoryRows) {
+                tempRows = new MVTempJoinMap(database);
+                for (Object o : rows.values()) {
+                    if (o instanceof Row) {
+                        Row r = (Row) o;
+                        tempRows.add(getKey(r), r);
+                    } else {
+                        for (Object r : (ArrayList<?>) o) {
+                            tempRows.add(getKey((Row) r), (Row) r);
+                        }
+                    }
+                }
+                tempRows.add(key, row);
+                rows = null;
+            } else {
+                Value k = key.length == 1 ? key[0] : ValueRow.get(key);
+                Object old = rows.putIfAbsent(k, row);
+                if (old != null) {
+                    ArrayList<Row> list;
+                    if (old instanceof Row) {
+                        list = new ArrayList<>(4);
+                        list.add((Row) old);
+                        rows.put(k, list);
+                    } else {
+                        @SuppressWarnings("unchecked")
+                        ArrayList<Row> l = (ArrayList<Row>) old;
+                        list = l;
+                    }
+                    list.add(row);
+                }
+            }
+        }
+        this.rows = rows;
+    }
+
+    private Value[] getKey(Row row) {
+        int length = columnIds.length;
+        Value[] key = new Value[length];
+        for (int i = 0; i < length; i++) {
+            Value v = row.getValue(columnIds[i]);
+            if (v == ValueNull.INSTANCE) {
+                return null;
+            }
+            key[i] = v;
+        }
+        return key;
+    }
+
+    /**
+     * Moves to the next row with the current join key.
+     *
+     * @return whether there is such row
+     */
+    boolean next() {
+        if (match != null) {
+            current = match;
+            match = null;
+            return true;
+        } else if (matches != null) {
+            if (index < matches.size()) {
+                current = (Row) matches.get(index++);
+                return true;
+            }
+        } else if (tempCursor != null) {
+            if (tempCursor.next()) {
+                current = tempCursor.get();
+                return true;
+            }
+        }
+        current = null;
+        return false;
+    }
+
+    /**
+     * Returns the current row.
+     *
+     * @return the current row
+     */
+    Row get() {
+        return current;
+    }
+
+    /**
+     * Appends the join keys to the specified builder.
+     *
+     * @param builder
+     *            string builder
+     * @return the specified string builder
+     */
+    StringBuilder getPlanSQL(StringBuilder builder) {
+        builder.append("hash join: ");
+        for (int i = 0, length = conditions.length; i < length; i++) {
+            if (i > 0) {
+                builder.append("\n    AND ");
+            }
+            builder.append(conditions[i].getSQL(HasSQL.TRACE_SQL_FLAGS | HasSQL.ADD_PLAN_INFORMATION));
+        }
+        return builder;
+    }
+
+}
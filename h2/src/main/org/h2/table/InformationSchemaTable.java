@@ -24,12 +24,14 @@ import org.h2.constraint.ConstraintReferential;
 import org.h2.constraint.ConstraintUnique;
 import org.h2.engine.Constants;
 import org.h2.engine.DbObject;
+import org.h2.engine.QueryResultCache;
 import org.h2.engine.QueryStatisticsData;
 import org.h2.engine.Right;
 import org.h2.engine.RightOwner;
 import org.h2.engine.Role;
 import org.h2.engine.SessionLocal;
 import org.h2.engine.SessionLocal.State;
+import org.h2.engine.SharedQueryCache;
 import org.h2.engine.Setting;
 import org.h2.engine.User;
 import org.h2.expression.Expression;
@@ -40,7 +42,10 @@ import org.h2.index.MetaIndex;
 import org.h2.message.DbException;
 import org.h2.mvstore.FileStore;
 import org.h2.mvstore.MVStore;
+import org.h2.mvstore.db.MVIndex;
 import org.h2.mvstore.db.Store;
+import org.h2.mvstore.tx.LockWaitHistogram;
+import org.h2.mvstore.tx.TransactionStore;
 import org.h2.result.Row;
 import org.h2.result.SearchRow;
 import org.h2.result.SortOrder;
@@ -52,6 +57,7 @@ import org.h2.schema.Sequence;
 import org.h2.schema.TriggerObject;
 import org.h2.schema.UserDefinedFunction;
 import org.h2.schema.FunctionAlias.JavaMethod;
+import org.h2.server.TcpServer;
 import org.h2.store.InDoubtTransaction;
 import org.h2.util.DateTimeUtils;
 import org.h2.util.MathUtils;
@@ -142,7 +148,9 @@ public final class InformationSchemaTable extends MetaTable {
 
     private static final int LOCKS = IN_DOUBT + 1;
 
-    private static final int QUERY_STATISTICS = LOCKS + 1;
+    private static final int LOCK_WAITS = LOCKS + 1;
+
+    private static final int QUERY_STATISTICS = LOCK_WAITS + 1;
 
     private static final int RIGHTS = QUERY_STATISTICS + 1;
 
@@ -756,6 +764,17 @@ public final class InformationSchemaTable extends MetaTable {
                     column("LOCK_TYPE"), //
             };
             break;
+        case LOCK_WAITS:
+            setMetaTableName("LOCK_WAITS");
+            isView = false;
+            cols = new Column[] {
+                    column("TABLE_SCHEMA"), //
+                    column("TABLE_NAME"), //
+                    column("WAIT_TIME_UPPER_BOUND", TypeInfo.TYPE_BIGINT), //
+                    column("WAIT_COUNT", TypeInfo.TYPE_BIGINT), //
+                    column("CUMULATIVE_WAIT_TIME", TypeInfo.TYPE_DOUBLE), //
+            };
+            break;
         case QUERY_STATISTICS:
             setMetaTableName("QUERY_STATISTICS");
             isView = false;
@@ -968,6 +987,9 @@ public final class InformationSchemaTable extends MetaTable {
         case LOCKS:
             locks(session, rows);
             break;
+        case LOCK_WAITS:
+            lockWaits(session, rows);
+            break;
         case QUERY_STATISTICS:
             queryStatistics(session, rows);
             break;
@@ -2719,6 +2741,72 @@ public final class InformationSchemaTable extends MetaTable {
         }
     }
 
+    private void lockWaits(SessionLocal session, ArrayList<Row> rows) {
+        Store store = database.getStore();
+        if (store == null) {
+            return;
+        }
+        TransactionStore transactionStore = store.getTransactionStore();
+        for (Schema schema : database.getAllSchemas()) {
+            for (Table table : schema.getAllTablesAndViews(session)) {
+                if (!hideTable(table, session)) {
+                    lockWaits(session, rows, transactionStore, table);
+                }
+            }
+        }
+        for (Table table : session.getLocalTempTables()) {
+            lockWaits(session, rows, transactionStore, table);
+        }
+    }
+
+    private void lockWaits(SessionLocal session, ArrayList<Row> rows, TransactionStore transactionStore,
+            Table table) {
+        ArrayList<Index> indexes = table.getIndexes();
+        if (indexes == null) {
+            return;
+        }
+        long[] counts = null, nanos = null;
+        HashSet<Integer> mapIds = new HashSet<>();
+        for (Index index : indexes) {
+            if (index instanceof MVIndex) {
+                int mapId = ((MVIndex<?, ?>) index).getMVMap().getId();
+                LockWaitHistogram histogram;
+                // delegate indexes use the map of the primary index
+                if (mapIds.add(mapId) && (histogram = transactionStore.getLockWaitHistogram(mapId)) != null) {
+                    if (counts == null) {
+                        counts = new long[LockWaitHistogram.BUCKET_COUNT];
+                        nanos = new long[LockWaitHistogram.BUCKET_COUNT];
+                    }
+                    for (int i = 0; i < LockWaitHistogram.BUCKET_COUNT; i++) {
+                        counts[i] += histogram.getCount(i);
+                        nanos[i] += histogram.getTotalNanos(i);
+                    }
+                }
+            }
+        }
+        if (counts == null) {
+            return;
+        }
+        for (int i = 0; i < LockWaitHistogram.BUCKET_COUNT; i++) {
+            if (counts[i] == 0L) {
+                continue;
+            }
+            long bound = LockWaitHistogram.getUpperBoundMillis(i);
+            add(session, rows,
+                    // TABLE_SCHEMA
+                    table.getSchema().getName(),
+                    // TABLE_NAME
+                    table.getName(),
+                    // WAIT_TIME_UPPER_BOUND
+                    bound >= 0L ? ValueBigint.get(bound) : ValueNull.INSTANCE,
+                    // WAIT_COUNT
+                    ValueBigint.get(counts[i]),
+                    // CUMULATIVE_WAIT_TIME
+                    ValueDouble.get(nanos[i] / 1_000_000d)
+            );
+        }
+    }
+
     private void queryStatistics(SessionLocal session, ArrayList<Row> rows) {
         QueryStatisticsData control = database.getQueryStatisticsData();
         if (control != null) {
@@ -2954,6 +3042,7 @@ public final class InformationSchemaTable extends MetaTable {
         }
         add(session, rows, "DEFAULT_NULL_ORDERING", database.getDefaultNullOrdering().name());
         add(session, rows, "EXCLUSIVE", database.getExclusiveSession() == null ? "FALSE" : "TRUE");
+        add(session, rows, "MAX_PARALLEL_WORKERS", Integer.toString(session.getMaxParallelWorkers()));
         add(session, rows, "MODE", database.getMode().getName());
         add(session, rows, "QUERY_TIMEOUT", Integer.toString(session.getQueryTimeout()));
         add(session, rows, "TIME ZONE", session.currentTimeZone().getId());
@@ -2965,6 +3054,27 @@ public final class InformationSchemaTable extends MetaTable {
             add(session, rows, "NON_KEYWORDS", Parser.formatNonKeywords(nonKeywords));
         }
         add(session, rows, "RETENTION_TIME", Integer.toString(database.getRetentionTime()));
+        SharedQueryCache sharedQueryCache = database.getSharedQueryCache();
+        if (sharedQueryCache != null) {
+            add(session, rows, "info.SHARED_QUERY_CACHE_HITS", Long.toString(sharedQueryCache.getHits()));
+            add(session, rows, "info.SHARED_QUERY_CACHE_TOKEN_HITS", Long.toString(sharedQueryCache.getTokenHits()));
+            add(session, rows, "info.SHARED_QUERY_CACHE_MISSES", Long.toString(sharedQueryCache.getMisses()));
+        }
+        QueryResultCache queryResultCache = database.getQueryResultCache();
+        if (queryResultCache != null) {
+            add(session, rows, "info.RESULT_CACHE_HITS", Long.toString(queryResultCache.getHits()));
+            add(session, rows, "info.RESULT_CACHE_MISSES", Long.toString(queryResultCache.getMisses()));
+            add(session, rows, "info.RESULT_CACHE_SIZE", Integer.toString(queryResultCache.size()));
+            add(session, rows, "info.RESULT_CACHE_MEMORY", Long.toString(queryResultCache.getUsedMemory()));
+        }
+        if (session.getUser().isAdmin()) {
+            for (TcpServer server : TcpServer.getServers()) {
+                String prefix = "info.TCP_SERVER." + server.getPort() + '.';
+                add(session, rows, prefix + "ACTIVE_SESSIONS", Integer.toString(server.getActiveSessionCount()));
+                add(session, rows, prefix + "QUEUED_SESSIONS", Integer.toString(server.getQueuedSessionCount()));
+                add(session, rows, prefix + "MAX_SESSIONS", Integer.toString(server.getMaxSessions()));
+            }
+        }
         // database settings
         for (Map.Entry<String, String> entry : database.getSettings().getSortedSettings()) {
             add(session, rows, entry.getKey(), entry.getValue());
@@ -3010,6 +3120,12 @@ public final class InformationSchemaTable extends MetaTable {
                     "info.CACHE_HIT_RATIO", Integer.toString(mvStore.getCacheHitRatio()));
             add(session, rows, "info.TOC_CACHE_HIT_RATIO",
                     Integer.toString(mvStore.getTocCacheHitRatio()));
+            add(session, rows,
+                    "info.OFF_HEAP_CACHE_MAX_SIZE", Integer.toString(mvStore.getOffHeapCacheSize()));
+            add(session, rows,
+                    "info.OFF_HEAP_CACHE_SIZE", Integer.toString(mvStore.getOffHeapCacheSizeUsed()));
+            add(session, rows,
+                    "info.OFF_HEAP_CACHE_HIT_RATIO", Integer.toString(mvStore.getOffHeapCacheHitRatio()));
             add(session, rows,
                     "info.LEAF_RATIO", Integer.toString(mvStore.getLeafRatio()));
         }
@@ -3158,6 +3274,7 @@ public final class InformationSchemaTable extends MetaTable {
         case IN_DOUBT:
         case SESSIONS:
         case LOCKS:
+        case LOCK_WAITS:
         case SESSION_STATE:
             return Long.MAX_VALUE;
         }
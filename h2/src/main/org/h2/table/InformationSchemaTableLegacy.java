@@ -1158,6 +1158,12 @@ public final class InformationSchemaTableLegacy extends MetaTable {
                         "info.CACHE_HIT_RATIO", Integer.toString(mvStore.getCacheHitRatio()));
                 add(session, rows, "info.TOC_CACHE_HIT_RATIO",
                         Integer.toString(mvStore.getTocCacheHitRatio()));
+                add(session, rows,
+                        "info.OFF_HEAP_CACHE_MAX_SIZE", Integer.toString(mvStore.getOffHeapCacheSize()));
+                add(session, rows,
+                        "info.OFF_HEAP_CACHE_SIZE", Integer.toString(mvStore.getOffHeapCacheSizeUsed()));
+                add(session, rows,
+                        "info.OFF_HEAP_CACHE_HIT_RATIO", Integer.toString(mvStore.getOffHeapCacheHitRatio()));
                 add(session, rows,
                         "info.LEAF_RATIO", Integer.toString(mvStore.getLeafRatio()));
             }
@@ -118,7 +118,8 @@ public class Plan {
                 t.debug("Plan       :   best plan item cost {0} index {1}",
                         item.cost, item.getIndex().getPlanSQL());
             }
-            cost += cost * item.cost;
+            // the hash table of a hash join is built only once
+            cost += cost * item.cost + item.hashJoinBuildCost;
             setEvaluatable(tableFilter, true);
             Expression on = tableFilter.getJoinCondition();
             if (on != null) {
@@ -18,6 +18,12 @@ public class PlanItem {
      */
     double cost;
 
+    /**
+     * The one-time cost of building the hash table of a hash join, or 0 if
+     * the table is not read with a hash join.
+     */
+    double hashJoinBuildCost;
+
     private int[] masks;
     private Index index;
     private PlanItem joinPlan;
@@ -55,4 +61,8 @@ public class PlanItem {
         this.nestedJoinPlan = nestedJoinPlan;
     }
 
+    boolean isHashJoin() {
+        return hashJoinBuildCost > 0;
+    }
+
 }
@@ -103,6 +103,7 @@ public abstract class Table extends SchemaObject {
     private ArrayList<TableSynonym> synonyms;
     /** Is foreign key constraint checking enabled for this table. */
     private boolean checkForeignKeyConstraints = true;
+    private volatile boolean resultCache;
     private boolean onCommitDrop, onCommitTruncate;
     private volatile Row nullRow;
     private RowFactory rowFactory = RowFactory.getRowFactory();
@@ -1245,6 +1246,24 @@ public abstract class Table extends SchemaObject {
         return checkForeignKeyConstraints;
     }
 
+    /**
+     * Enables or disables caching of results of queries over this table in
+     * the result cache shared by all sessions. This setting is not
+     * persistent.
+     *
+     * @param resultCache whether results should be cached
+     */
+    public void setResultCache(boolean resultCache) {
+        this.resultCache = resultCache;
+    }
+
+    /**
+     * @return whether results of queries over this table are cached
+     */
+    public boolean isResultCache() {
+        return resultCache;
+    }
+
     /**
      * Get the index that has the given column as the first element.
      * This method returns null if no matching index is found.
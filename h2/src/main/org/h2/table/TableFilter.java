@@ -14,6 +14,7 @@ import java.util.Map.Entry;
 import org.h2.api.ErrorCode;
 import org.h2.command.query.AllColumnsForPlan;
 import org.h2.command.query.Select;
+import org.h2.engine.Constants;
 import org.h2.engine.Database;
 import org.h2.engine.Right;
 import org.h2.engine.SessionLocal;
@@ -25,6 +26,7 @@ import org.h2.index.IndexCondition;
 import org.h2.index.IndexCursor;
 import org.h2.message.DbException;
 import org.h2.result.Row;
+import org.h2.result.RowBatch;
 import org.h2.result.SearchRow;
 import org.h2.result.SortOrder;
 import org.h2.util.HasSQL;
@@ -90,6 +92,11 @@ public class TableFilter implements ColumnResolver {
      */
     private final ArrayList<IndexCondition> indexConditions = Utils.newSmallArrayList();
 
+    /**
+     * The hash join used instead of the index cursor, or {@code null}.
+     */
+    private HashJoin hashJoin;
+
     /**
      * Additional conditions that can't be used for index lookup, but for row
      * filter for this table (ID=ID, NAME LIKE '%X%')
@@ -105,6 +112,12 @@ public class TableFilter implements ColumnResolver {
     private Row current;
     private int state;
 
+    /**
+     * Whether the current search row was set from a batch and the cursor is
+     * not positioned on it.
+     */
+    private boolean detachedSearchRow;
+
     /**
      * The joined table (if there is one).
      */
@@ -249,6 +262,13 @@ public class TableFilter implements ColumnResolver {
             item = item1;
         }
 
+        if (filter > 0 && masks != null && item.getIndex().getIndexType().isScan()) {
+            PlanItem hashItem = getHashJoinPlanItem(s, masks);
+            if (hashItem != null && hashItem.cost < item.cost) {
+                item = hashItem;
+            }
+        }
+
         if (nestedJoin != null) {
             setEvaluatable(true);
             item.setNestedJoinPlan(nestedJoin.getBestPlanItem(s, filters, filter, allColumnsSet));
@@ -269,6 +289,61 @@ public class TableFilter implements ColumnResolver {
         return item;
     }
 
+    /**
+     * Get the plan item for a hash join on this table, if it is possible.
+     * A hash join is only considered when no index can be used for the join
+     * conditions. It reads the table only once; the cost of a lookup is
+     * estimated like the cost of an equality lookup in an index on the join
+     * columns.
+     *
+     * @param s the session
+     * @param masks the condition masks
+     * @return the plan item, or {@code null}
+     */
+    private PlanItem getHashJoinPlanItem(SessionLocal s, int[] masks) {
+        if (select == null || nestedJoin != null || table.getTableType() != TableType.TABLE) {
+            return null;
+        }
+        Database database = s.getDatabase();
+        long rowCount = table.getRowCountApproximation(s) + Constants.COST_ROW_OFFSET;
+        int totalSelectivity = 0;
+        // fraction of rows estimated from column statistics
+        double fraction = 1d;
+        boolean applicable = false;
+        for (IndexCondition condition : indexConditions) {
+            if (condition.isEvaluatable() && HashJoin.isApplicable(database, condition)) {
+                applicable = true;
+                Column column = condition.getColumn();
+                totalSelectivity = 100 - ((100 - totalSelectivity) *
+                        (100 - column.getSelectivity()) / 100);
+                if (fraction >= 0d) {
+                    ColumnStatistics statistics = column.getStatistics();
+                    fraction = statistics != null ? fraction * statistics.getJoinFraction() : -1d;
+                }
+            }
+        }
+        if (!applicable) {
+            return null;
+        }
+        long matchingRows;
+        if (fraction >= 0d) {
+            matchingRows = (long) (rowCount * fraction);
+        } else {
+            long distinctRows = rowCount * totalSelectivity / 100;
+            if (distinctRows <= 0) {
+                distinctRows = 1;
+            }
+            matchingRows = rowCount / distinctRows;
+        }
+        PlanItem item = new PlanItem();
+        item.setIndex(table.getScanIndex(s));
+        item.setMasks(masks);
+        // same scale as Index.getCostRangeIndex() of a scan index
+        item.cost = 10 * (2 + Math.max(matchingRows, 1) + 20);
+        item.hashJoinBuildCost = rowCount;
+        return item;
+    }
+
     /**
      * Set what plan item (index, cost, masks) to use.
      *
@@ -282,6 +357,7 @@ public class TableFilter implements ColumnResolver {
         }
         setIndex(item.getIndex());
         masks = item.getMasks();
+        hashJoin = item.isHashJoin() ? HashJoin.get(this, indexConditions) : null;
         if (nestedJoin != null) {
             if (item.getNestedJoinPlan() != null) {
                 nestedJoin.setPlanItem(item.getNestedJoinPlan());
@@ -360,6 +436,9 @@ public class TableFilter implements ColumnResolver {
     public void startQuery(SessionLocal s) {
         this.session = s;
         scanCount = 0;
+        if (hashJoin != null) {
+            hashJoin.reset();
+        }
         if (nestedJoin != null) {
             nestedJoin.startQuery(s);
         }
@@ -391,7 +470,11 @@ public class TableFilter implements ColumnResolver {
         if (state == AFTER_LAST) {
             return false;
         } else if (state == BEFORE_FIRST) {
-            cursor.find(session, indexConditions);
+            if (hashJoin != null) {
+                hashJoin.find(session);
+            } else {
+                cursor.find(session, indexConditions);
+            }
             if (!cursor.isAlwaysFalse()) {
                 if (nestedJoin != null) {
                     nestedJoin.reset();
@@ -422,9 +505,18 @@ public class TableFilter implements ColumnResolver {
                 if ((++scanCount & 4095) == 0) {
                     checkTimeout();
                 }
-                if (cursor.next()) {
+                if (hashJoin != null) {
+                    if (hashJoin.next()) {
+                        current = hashJoin.get();
+                        currentSearchRow = current;
+                        state = FOUND;
+                    } else {
+                        state = AFTER_LAST;
+                    }
+                } else if (cursor.next()) {
                     currentSearchRow = cursor.getSearchRow();
                     current = null;
+                    detachedSearchRow = false;
                     state = FOUND;
                 } else {
                     state = AFTER_LAST;
@@ -471,6 +563,14 @@ public class TableFilter implements ColumnResolver {
             }
         }
         state = AFTER_LAST;
+        if (select != null && select.getTopTableFilter() == this) {
+            // all rows are read, hash tables of joined tables are not needed
+            visit(f -> {
+                if (f.hashJoin != null) {
+                    f.hashJoin.reset();
+                }
+            });
+        }
         return false;
     }
 
@@ -512,11 +612,15 @@ public class TableFilter implements ColumnResolver {
      */
     public Row get() {
         if (current == null && currentSearchRow != null) {
-            current = cursor.get();
+            current = getCurrentRow();
         }
         return current;
     }
 
+    private Row getCurrentRow() {
+        return detachedSearchRow ? table.getRow(session, currentSearchRow.getKey()) : cursor.get();
+    }
+
     /**
      * Set the current row.
      *
@@ -527,6 +631,41 @@ public class TableFilter implements ColumnResolver {
         this.currentSearchRow = current;
     }
 
+    /**
+     * Set the current search row that was read by
+     * {@link #nextBatch(RowBatch, int, boolean)}. The complete row is read
+     * from the table if needed.
+     *
+     * @param searchRow the search row of the index
+     */
+    public void setSearchRow(SearchRow searchRow) {
+        current = null;
+        currentSearchRow = searchRow;
+        detachedSearchRow = true;
+    }
+
+    /**
+     * Read the next rows into the batch and select all of them. This method
+     * may only be used for a filter without joins and without filter or join
+     * conditions, the current row of this filter is undefined after the call.
+     *
+     * @param batch the batch to fill
+     * @param maxRows the maximum number of rows to read
+     * @param searchRows whether the index covers all needed columns and only
+     *            its search rows should be added to the batch
+     * @return true if at least one row was read
+     */
+    public boolean nextBatch(RowBatch batch, int maxRows, boolean searchRows) {
+        batch.clear();
+        while (batch.size() < maxRows && next()) {
+            if (!batch.add(searchRows ? currentSearchRow : get())) {
+                break;
+            }
+        }
+        batch.selectAll();
+        return batch.size() > 0;
+    }
+
     /**
      * Get the table alias name. If no alias is specified, the table name is
      * returned.
@@ -757,7 +896,9 @@ public class TableFilter implements ColumnResolver {
         if (index != null && (sqlFlags & HasSQL.ADD_PLAN_INFORMATION) != 0) {
             builder.append('\n');
             StringBuilder planBuilder = new StringBuilder().append("/* ").append(index.getPlanSQL());
-            if (!indexConditions.isEmpty()) {
+            if (hashJoin != null) {
+                hashJoin.getPlanSQL(planBuilder.append(", "));
+            } else if (!indexConditions.isEmpty()) {
                 planBuilder.append(": ");
                 for (int i = 0, size = indexConditions.size(); i < size; i++) {
                     if (i > 0) {
@@ -1029,7 +1170,7 @@ public class TableFilter implements ColumnResolver {
             if (columnId == column.getTable().getMainIndexColumn()) {
                 return getDelegatedValue(column);
             }
-            current = cursor.get();
+            current = getCurrentRow();
             if (current == null) {
                 return ValueNull.INSTANCE;
             }
@@ -140,6 +140,12 @@ public class Console extends Tool implements ShutdownHandler {
                     // no parameters
                 } else if ("-tcpDaemon".equals(arg)) {
                     // no parameters
+                } else if ("-tcpVirtualThreads".equals(arg)) {
+                    // no parameters
+                } else if ("-tcpMaxSessions".equals(arg)) {
+                    i++;
+                } else if ("-tcpQueueTimeout".equals(arg)) {
+                    i++;
                 } else if ("-tcpSSL".equals(arg)) {
                     // no parameters
                 } else if ("-tcpPort".equals(arg)) {
@@ -84,6 +84,12 @@ public class Server extends Tool implements Runnable, ShutdownHandler {
      * <td>Allow other computers to connect - see below</td></tr>
      * <tr><td>[-tcpDaemon]</td>
      * <td>Use a daemon thread</td></tr>
+     * <tr><td>[-tcpVirtualThreads]</td>
+     * <td>Serve connections on virtual threads (Java 21 and later)</td></tr>
+     * <tr><td>[-tcpMaxSessions &lt;n&gt;]</td>
+     * <td>Queue connections above this number (default: unlimited)</td></tr>
+     * <tr><td>[-tcpQueueTimeout &lt;ms&gt;]</td>
+     * <td>Reject queued connections after this time (default: 30000)</td></tr>
      * <tr><td>[-tcpPort &lt;port&gt;]</td>
      * <td>The port (default: 9092)</td></tr>
      * <tr><td>[-tcpSSL]</td>
@@ -159,6 +165,12 @@ public class Server extends Tool implements Runnable, ShutdownHandler {
                     // no parameters
                 } else if ("-tcpDaemon".equals(arg)) {
                     // no parameters
+                } else if ("-tcpVirtualThreads".equals(arg)) {
+                    // no parameters
+                } else if ("-tcpMaxSessions".equals(arg)) {
+                    i++;
+                } else if ("-tcpQueueTimeout".equals(arg)) {
+                    i++;
                 } else if ("-tcpSSL".equals(arg)) {
                     // no parameters
                 } else if ("-tcpPort".equals(arg)) {
@@ -262,6 +274,12 @@ public class Server extends Tool implements Runnable, ShutdownHandler {
                     // no parameters
                 } else if ("-tcpDaemon".equals(arg)) {
                     // no parameters
+                } else if ("-tcpVirtualThreads".equals(arg)) {
+                    // no parameters
+                } else if ("-tcpMaxSessions".equals(arg)) {
+                    i++;
+                } else if ("-tcpQueueTimeout".equals(arg)) {
+                    i++;
                 } else if ("-tcpSSL".equals(arg)) {
                     // no parameters
                 } else if ("-tcpPort".equals(arg)) {
@@ -466,7 +484,8 @@ public class Server extends Tool implements Runnable, ShutdownHandler {
      * </pre>
      * Supported options are:
      * -tcpPort, -tcpSSL, -tcpPassword, -tcpAllowOthers, -tcpDaemon,
-     * -trace, -ifExists, -ifNotExists, -baseDir, -key.
+     * -tcpVirtualThreads, -tcpMaxSessions, -tcpQueueTimeout, -trace,
+     * -ifExists, -ifNotExists, -baseDir, -key.
      * See the main method for details.
      * <p>
      * If no port is specified, the default port is used if possible,
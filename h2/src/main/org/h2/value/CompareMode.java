@@ -165,6 +165,19 @@ public class CompareMode implements Comparator<Value> {
         return a.compareTo(b);
     }
 
+    /**
+     * Returns a key of the string for hash-based collections. Keys are equal
+     * if and only if the strings are equal according to
+     * {@link #compareString(String, String, boolean)}.
+     *
+     * @param s the string
+     * @param ignoreCase true if a case-insensitive comparison should be made
+     * @return the key, or {@code null} if this compare mode can't create keys
+     */
+    public Object getHashKey(String s, boolean ignoreCase) {
+        return ignoreCase ? new IgnoreCaseKey(s) : s;
+    }
+
     /**
      * Get the collation name.
      *
@@ -280,4 +293,39 @@ public class CompareMode implements Comparator<Value> {
         return o1.compareTo(o2, null, this);
     }
 
+    /**
+     * A key of a string for case-insensitive comparison.
+     */
+    private static final class IgnoreCaseKey {
+
+        private final String value;
+
+        private final int hash;
+
+        IgnoreCaseKey(String value) {
+            this.value = value;
+            int h = 0;
+            for (int i = 0, l = value.length(); i < l; i++) {
+                char c = value.charAt(i);
+                // case-insensitive comparison of supplementary characters
+                // depends on the version of Java
+                if (!Character.isSurrogate(c)) {
+                    h = 31 * h + Character.toLowerCase(Character.toUpperCase(c));
+                }
+            }
+            hash = h;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof IgnoreCaseKey && value.compareToIgnoreCase(((IgnoreCaseKey) obj).value) == 0;
+        }
+
+    }
+
 }
@@ -40,11 +40,7 @@ public class CompareModeDefault extends CompareMode {
     @Override
     public int compareString(String a, String b, boolean ignoreCase) {
         if (ignoreCase && getStrength() > Collator.SECONDARY) {
-            CompareModeDefault i = caseInsensitive;
-            if (i == null) {
-                caseInsensitive = i = new CompareModeDefault(getName(), Collator.SECONDARY);
-            }
-            return i.compareString(a, b, false);
+            return getCaseInsensitive().compareString(a, b, false);
         }
         int comp;
         if (collationKeys != null) {
@@ -57,6 +53,22 @@ public class CompareModeDefault extends CompareMode {
         return comp;
     }
 
+    @Override
+    public Object getHashKey(String s, boolean ignoreCase) {
+        if (ignoreCase && getStrength() > Collator.SECONDARY) {
+            return getCaseInsensitive().getHashKey(s, false);
+        }
+        return collationKeys != null ? getKey(s) : collator.getCollationKey(s);
+    }
+
+    private CompareModeDefault getCaseInsensitive() {
+        CompareModeDefault i = caseInsensitive;
+        if (i == null) {
+            caseInsensitive = i = new CompareModeDefault(getName(), Collator.SECONDARY);
+        }
+        return i;
+    }
+
     @Override
     public boolean equalsChars(String a, int ai, String b, int bi,
             boolean ignoreCase) {
@@ -40,6 +40,11 @@ public class CompareModeIcu4J extends CompareMode {
         return collator.compare(a, b);
     }
 
+    @Override
+    public Object getHashKey(String s, boolean ignoreCase) {
+        return null;
+    }
+
     @Override
     public boolean equalsChars(String a, int ai, String b, int bi,
             boolean ignoreCase) {
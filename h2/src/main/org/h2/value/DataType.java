@@ -627,6 +627,57 @@ public class DataType {
         }
     }
 
+    /**
+     * Returns whether {@link Value#equals(Object)} and {@link Value#hashCode()}
+     * of values of the specified data type are consistent with comparison
+     * of these values, so they may be used as keys of hash tables instead of
+     * sorted maps.
+     *
+     * @param type
+     *            the data type
+     * @param compareMode
+     *            the compare mode of the database
+     * @return whether values of the specified data type may be used as keys of
+     *         hash tables
+     */
+    public static boolean isHashable(TypeInfo type, CompareMode compareMode) {
+        switch (type.getValueType()) {
+        case Value.VARCHAR:
+            return CompareMode.OFF.equals(compareMode.getName());
+        case Value.NULL:
+        case Value.VARBINARY:
+        case Value.BOOLEAN:
+        case Value.TINYINT:
+        case Value.SMALLINT:
+        case Value.INTEGER:
+        case Value.BIGINT:
+        case Value.REAL:
+        case Value.DOUBLE:
+        case Value.DATE:
+        case Value.TIME:
+        case Value.TIMESTAMP:
+        case Value.UUID:
+        case Value.ENUM:
+            return true;
+        case Value.ARRAY: {
+            // element type is unknown in TYPE_ARRAY_UNKNOWN
+            TypeInfo componentType = (TypeInfo) type.getExtTypeInfo();
+            return componentType != null && isHashable(componentType, compareMode);
+        }
+        case Value.ROW: {
+            ExtTypeInfoRow ext = (ExtTypeInfoRow) type.getExtTypeInfo();
+            for (Map.Entry<String, TypeInfo> entry : ext.getFields()) {
+                if (!isHashable(entry.getValue(), compareMode)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        default:
+            return false;
+        }
+    }
+
     /**
      * Check if the given value type is a date-time type (TIME, DATE, TIMESTAMP,
      * TIMESTAMP_TZ).
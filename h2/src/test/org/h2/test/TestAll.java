@@ -140,6 +140,7 @@ import org.h2.test.store.TestMVStoreStopCompact;
 import org.h2.test.store.TestMVStoreTool;
 import org.h2.test.store.TestMVTableEngine;
 import org.h2.test.store.TestObjectDataType;
+import org.h2.test.store.TestOffHeapPageCache;
 import org.h2.test.store.TestRandomMapOps;
 import org.h2.test.store.TestSpinLock;
 import org.h2.test.store.TestStreamStore;
@@ -901,6 +902,7 @@ kill -9 `jps -l | grep "org.h2.test." | cut -d " " -f 1`
         addTest(new TestCacheConcurrentLIRS());
         addTest(new TestCacheLIRS());
         addTest(new TestCacheLongKeyLIRS());
+        addTest(new TestOffHeapPageCache());
         addTest(new TestDataUtils());
         addTest(new TestFreeSpace());
         addTest(new TestKillProcessWhileWriting());
@@ -16,6 +16,7 @@ import java.sql.Types;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.BitSet;
+import java.util.Random;
 
 import org.h2.message.TraceSystem;
 import org.h2.store.FileLister;
@@ -49,6 +50,8 @@ public class TestBigResult extends TestDb {
     public void test() throws SQLException {
         testLargeSubquery();
         testSortingAndDistinct();
+        testExternalSort();
+        testLargeGroups();
         testLOB();
         testLargeUpdateDelete();
         testCloseConnectionDelete();
@@ -303,6 +306,107 @@ public class TestBigResult extends TestDb {
         assertFalse(rs.next());
     }
 
+    private void testExternalSort() throws SQLException {
+        deleteDb("bigResult");
+        Connection conn = getConnection("bigResult");
+        Statement stat = conn.createStatement();
+        int count = getSize(1000, 20000);
+        stat.execute("CREATE TABLE TEST(ID INT PRIMARY KEY, A INT, B VARCHAR)");
+        PreparedStatement ps = conn.prepareStatement("INSERT INTO TEST VALUES (?, ?, ?)");
+        Random random = new Random(1);
+        int[] a = new int[count];
+        for (int i = 0; i < count; i++) {
+            ps.setInt(1, i);
+            if (random.nextInt(20) == 0) {
+                a[i] = Integer.MIN_VALUE;
+                ps.setNull(2, Types.INTEGER);
+            } else {
+                a[i] = random.nextInt(count / 4);
+                ps.setInt(2, a[i]);
+            }
+            // Some rows are larger than blocks read from sorted runs
+            ps.setString(3, i % 500 == 0 ? new String(new char[20_000]).replace('\0', 'x') : "b" + i);
+            ps.executeUpdate();
+        }
+        // Expected order: A DESC NULLS LAST, ID
+        Integer[] expected = new Integer[count];
+        for (int i = 0; i < count; i++) {
+            expected[i] = i;
+        }
+        Arrays.sort(expected, (x, y) -> a[x] != a[y] ? Integer.compare(a[y], a[x]) : Integer.compare(x, y));
+        String sql = "SELECT ID, A, B FROM TEST ORDER BY A DESC NULLS LAST, ID";
+        for (int maxRows : new int[] { count, 100, 1 }) {
+            stat.execute("SET MAX_MEMORY_ROWS " + maxRows);
+            testExternalSort(stat, sql, expected, 0, count);
+            // Result can be reused from the cache
+            testExternalSort(stat, sql, expected, 0, count);
+            for (int offset : new int[] { 0, 50, count / 2 }) {
+                for (int limit : new int[] { 1, 10, 150, count }) {
+                    testExternalSort(stat, sql + " OFFSET " + offset + " ROWS FETCH FIRST " + limit + " ROWS ONLY",
+                            expected, offset, Math.min(offset + limit, count));
+                }
+            }
+        }
+        conn.close();
+    }
+
+    private void testExternalSort(Statement stat, String sql, Integer[] expected, int from, int to)
+            throws SQLException {
+        ResultSet rs = stat.executeQuery(sql);
+        for (int i = from; i < to; i++) {
+            assertTrue(rs.next());
+            int id = expected[i];
+            assertEquals(id, rs.getInt(1));
+            assertEquals(id % 500 == 0 ? 20_000 : ("b" + id).length(), rs.getString(3).length());
+        }
+        assertFalse(rs.next());
+    }
+
+    private void testLargeGroups() throws SQLException {
+        deleteDb("bigResult");
+        Connection conn = getConnection("bigResult");
+        Statement stat = conn.createStatement();
+        // enough rows for parallel workers
+        int count = 40_000, groups = count / 4;
+        stat.execute("CREATE TABLE TEST(ID INT PRIMARY KEY, G INT, V INT, N VARCHAR)");
+        // rows of each group are far from each other
+        stat.execute("INSERT INTO TEST SELECT X, MOD(X * 7919, " + groups + "), MOD(X, 1000), "
+                + "CASE WHEN MOD(X, 3) = 0 THEN NULL ELSE 'n' || X END FROM SYSTEM_RANGE(1, " + count + ')');
+        String[] queries = {
+                "SELECT G, COUNT(*), COUNT(N), SUM(V), AVG(V), AVG(CAST(V AS DOUBLE)), "
+                + "AVG(V * INTERVAL '1' SECOND), MIN(N), MAX(N), BIT_OR_AGG(V) FROM TEST GROUP BY G "
+                + "HAVING SUM(V) > 100",
+                "SELECT G, COUNT(*) C, SUM(V) AS S, MAX(N) M FROM TEST GROUP BY G" };
+        for (String sql : queries) {
+            stat.execute("SET MAX_MEMORY_ROWS 1000000");
+            ArrayList<String> expected = getLargeGroups(stat, sql);
+            assertTrue(expected.size() > groups / 2);
+            for (int maxRows : new int[] { 100, 1 }) {
+                stat.execute("SET MAX_MEMORY_ROWS " + maxRows);
+                assertEquals(expected, getLargeGroups(stat, sql));
+                stat.execute("SET MAX_PARALLEL_WORKERS 4");
+                assertEquals(expected, getLargeGroups(stat, sql));
+                stat.execute("SET MAX_PARALLEL_WORKERS 1");
+            }
+        }
+        conn.close();
+    }
+
+    private ArrayList<String> getLargeGroups(Statement stat, String sql) throws SQLException {
+        ArrayList<String> list = new ArrayList<>();
+        ResultSet rs = stat.executeQuery(sql);
+        int columnCount = rs.getMetaData().getColumnCount();
+        while (rs.next()) {
+            StringBuilder builder = new StringBuilder();
+            for (int i = 1; i <= columnCount; i++) {
+                builder.append(rs.getString(i)).append(',');
+            }
+            list.add(builder.toString());
+        }
+        list.sort(null);
+        return list;
+    }
+
     private void testLOB() throws SQLException {
         if (config.traceLevelFile == TraceSystem.DEBUG) {
             // Trace system on this level can throw OOME with such large
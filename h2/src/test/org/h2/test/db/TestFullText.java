@@ -12,6 +12,7 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Savepoint;
 import java.sql.Statement;
 import java.util.ArrayList;
 import java.util.Collection;
@@ -62,6 +63,10 @@ public class TestFullText extends TestDb {
         testPerformance(false);
         testReopen(false);
         testDropIndex(false);
+        testMVStoreRanking();
+        testMVStoreTransaction();
+        testMVStoreManyRows();
+        testMVStoreReopen();
         if (!config.reopen) {
             try {
                 Class.forName(LUCENE_FULLTEXT_CLASS_NAME);
@@ -83,6 +88,7 @@ public class TestFullText extends TestDb {
         }
         deleteDb("fullText");
         deleteDb("fullTextReopen");
+        deleteDb("fullTextMV");
     }
 
     private static void close(Collection<Connection> list) {
@@ -239,6 +245,177 @@ public class TestFullText extends TestDb {
         FileUtils.deleteRecursive(getBaseDir() + "/fullTextTransaction", false);
     }
 
+    private void testMVStoreRanking() throws SQLException {
+        deleteDb("fullTextMV");
+        try (Connection conn = getConnection("fullTextMV")) {
+            Statement stat = conn.createStatement();
+            stat.execute("CREATE ALIAS IF NOT EXISTS FTM_INIT FOR 'org.h2.fulltext.FullTextMV.init'");
+            stat.execute("CALL FTM_INIT()");
+            stat.execute("CREATE TABLE TEST(ID INT PRIMARY KEY, NAME VARCHAR)");
+            stat.execute("INSERT INTO TEST VALUES(1, 'apple banana'), (2, 'apple apple apple'), (3, 'cherry'),"
+                    + " (4, 'banana cherry apple')");
+            stat.execute("CALL FTM_CREATE_INDEX('PUBLIC', 'TEST', NULL)");
+            ResultSet rs = stat.executeQuery("SELECT * FROM FTM_SEARCH('Apple', 0, 0)");
+            assertTrue(rs.next());
+            assertEquals("QUERY", rs.getMetaData().getColumnLabel(1));
+            assertEquals("SCORE", rs.getMetaData().getColumnLabel(2));
+            assertEquals("\"PUBLIC\".\"TEST\" WHERE \"ID\"=2", rs.getString(1));
+            float score = rs.getFloat(2);
+            assertTrue(rs.next());
+            assertTrue(rs.getFloat(2) < score);
+            assertTrue(rs.next());
+            assertFalse(rs.next());
+            // rows with more of the words are ranked first
+            rs = stat.executeQuery("SELECT * FROM FTM_SEARCH_DATA('cherry banana', 1, 0)");
+            assertTrue(rs.next());
+            assertEquals("TEST", rs.getString("TABLE"));
+            assertEquals("4", ((Object[]) rs.getArray("KEYS").getArray())[0].toString());
+            assertFalse(rs.next());
+            rs = stat.executeQuery("SELECT COUNT(*) FROM FTM_SEARCH('cherry banana', 0, 0)");
+            rs.next();
+            assertEquals(3, rs.getInt(1));
+            rs = stat.executeQuery("SELECT * FROM FTM_SEARCH('melon', 0, 0)");
+            assertFalse(rs.next());
+            stat.execute("CALL FTM_DROP_INDEX('PUBLIC', 'TEST')");
+            rs = stat.executeQuery("SELECT * FROM FTM_SEARCH('apple', 0, 0)");
+            assertFalse(rs.next());
+            stat.execute("CALL FTM_DROP_ALL()");
+        }
+    }
+
+    private void testMVStoreTransaction() throws SQLException {
+        deleteDb("fullTextMV");
+        try (Connection conn = getConnection("fullTextMV"); Connection conn2 = getConnection("fullTextMV")) {
+            Statement stat = conn.createStatement();
+            Statement stat2 = conn2.createStatement();
+            stat.execute("CREATE ALIAS IF NOT EXISTS FTM_INIT FOR 'org.h2.fulltext.FullTextMV.init'");
+            stat.execute("CALL FTM_INIT()");
+            stat.execute("CREATE TABLE TEST(ID INT PRIMARY KEY, NAME VARCHAR)");
+            stat.execute("CALL FTM_CREATE_INDEX('PUBLIC', 'TEST', 'NAME')");
+            conn.setAutoCommit(false);
+            stat.execute("INSERT INTO TEST VALUES(1, 'Hello World')");
+            // not visible before commit
+            assertFalse(stat2.executeQuery("SELECT * FROM FTM_SEARCH('Hello', 0, 0)").next());
+            conn.commit();
+            assertTrue(stat2.executeQuery("SELECT * FROM FTM_SEARCH('Hello', 0, 0)").next());
+            stat.execute("INSERT INTO TEST VALUES(2, 'Hello Moon')");
+            Savepoint sp = conn.setSavepoint();
+            stat.execute("UPDATE TEST SET NAME = 'Hello Mars' WHERE ID = 2");
+            stat.execute("UPDATE TEST SET ID = 3 WHERE ID = 1");
+            conn.rollback(sp);
+            conn.commit();
+            assertTrue(stat2.executeQuery("SELECT * FROM FTM_SEARCH('Moon', 0, 0)").next());
+            assertFalse(stat2.executeQuery("SELECT * FROM FTM_SEARCH('Mars', 0, 0)").next());
+            ResultSet rs = stat2.executeQuery("SELECT * FROM FTM_SEARCH('World', 0, 0)");
+            assertTrue(rs.next());
+            assertEquals("\"PUBLIC\".\"TEST\" WHERE \"ID\"=1", rs.getString(1));
+            stat.execute("INSERT INTO TEST VALUES(4, 'Hello Venus')");
+            stat.execute("DELETE FROM TEST WHERE ID = 1");
+            conn.rollback();
+            assertFalse(stat2.executeQuery("SELECT * FROM FTM_SEARCH('Venus', 0, 0)").next());
+            assertTrue(stat2.executeQuery("SELECT * FROM FTM_SEARCH('World', 0, 0)").next());
+            stat.execute("UPDATE TEST SET ID = 5 WHERE ID = 1");
+            conn.commit();
+            rs = stat2.executeQuery("SELECT * FROM FTM_SEARCH('World', 0, 0)");
+            assertTrue(rs.next());
+            assertEquals("\"PUBLIC\".\"TEST\" WHERE \"ID\"=5", rs.getString(1));
+            assertFalse(rs.next());
+            conn.setAutoCommit(true);
+            // prepared transactions of closed sessions
+            try (Connection conn3 = getConnection("fullTextMV")) {
+                conn3.setAutoCommit(false);
+                Statement stat3 = conn3.createStatement();
+                stat3.execute("INSERT INTO TEST VALUES(6, 'Hello Jupiter')");
+                stat3.execute("PREPARE COMMIT TX1");
+            }
+            try (Connection conn3 = getConnection("fullTextMV")) {
+                conn3.setAutoCommit(false);
+                Statement stat3 = conn3.createStatement();
+                stat3.execute("INSERT INTO TEST VALUES(7, 'Hello Saturn')");
+                stat3.execute("PREPARE COMMIT TX2");
+            }
+            assertFalse(stat2.executeQuery("SELECT * FROM FTM_SEARCH('Jupiter', 0, 0)").next());
+            stat2.execute("COMMIT TRANSACTION TX1");
+            stat2.execute("ROLLBACK TRANSACTION TX2");
+            assertTrue(stat2.executeQuery("SELECT * FROM FTM_SEARCH('Jupiter', 0, 0)").next());
+            assertFalse(stat2.executeQuery("SELECT * FROM FTM_SEARCH('Saturn', 0, 0)").next());
+            stat.execute("CALL FTM_DROP_ALL()");
+        }
+    }
+
+    private void testMVStoreManyRows() throws SQLException {
+        deleteDb("fullTextMV");
+        try (Connection conn = getConnection("fullTextMV")) {
+            Statement stat = conn.createStatement();
+            stat.execute("CREATE ALIAS IF NOT EXISTS FTM_INIT FOR 'org.h2.fulltext.FullTextMV.init'");
+            stat.execute("CALL FTM_INIT()");
+            stat.execute("CREATE TABLE TEST(ID INT PRIMARY KEY, NAME VARCHAR)");
+            stat.execute("INSERT INTO TEST SELECT X, 'common W' || MOD(X, 7) || REPEAT(' pad', MOD(X, 5))"
+                    + " FROM SYSTEM_RANGE(1, 1500)");
+            stat.execute("CALL FTM_CREATE_INDEX('PUBLIC', 'TEST', NULL)");
+            // rows that are added one by one are appended to the last blocks
+            PreparedStatement prep = conn.prepareStatement(
+                    "INSERT INTO TEST VALUES(?, 'common W' || MOD(?, 7) || ' extra')");
+            for (int i = 1501; i <= 1800; i++) {
+                prep.setInt(1, i);
+                prep.setInt(2, i);
+                prep.execute();
+            }
+            stat.execute("DELETE FROM TEST WHERE MOD(ID, 3) = 0");
+            stat.execute("UPDATE TEST SET NAME = 'common W3 extra' WHERE MOD(ID, 10) = 1");
+            assertEquals(getSize(stat, "SELECT COUNT(*) FROM TEST WHERE NAME LIKE '%W3%'"),
+                    getSize(stat, "SELECT COUNT(*) FROM FTM_SEARCH('W3', 0, 0)"));
+            assertEquals(1200, getSize(stat, "SELECT COUNT(*) FROM FTM_SEARCH('common', 0, 0)"));
+            // the top hits are the same as the first ones of all hits
+            ArrayList<String> all = new ArrayList<>();
+            ResultSet rs = stat.executeQuery("SELECT * FROM FTM_SEARCH('W2 extra pad', 0, 0)");
+            while (rs.next()) {
+                all.add(rs.getString(1) + ' ' + rs.getFloat(2));
+            }
+            rs = stat.executeQuery("SELECT * FROM FTM_SEARCH('W2 extra pad', 10, 5)");
+            for (int i = 5; i < 15; i++) {
+                assertTrue(rs.next());
+                assertEquals(all.get(i), rs.getString(1) + ' ' + rs.getFloat(2));
+            }
+            assertFalse(rs.next());
+            stat.execute("CALL FTM_DROP_ALL()");
+        }
+    }
+
+    private static int getSize(Statement stat, String sql) throws SQLException {
+        ResultSet rs = stat.executeQuery(sql);
+        rs.next();
+        return rs.getInt(1);
+    }
+
+    private void testMVStoreReopen() throws SQLException {
+        if (config.memory) {
+            return;
+        }
+        deleteDb("fullTextMV");
+        Connection conn = getConnection("fullTextMV");
+        Statement stat = conn.createStatement();
+        stat.execute("CREATE ALIAS IF NOT EXISTS FTM_INIT FOR 'org.h2.fulltext.FullTextMV.init'");
+        stat.execute("CALL FTM_INIT()");
+        stat.execute("CREATE TABLE TEST(ID INT PRIMARY KEY, NAME VARCHAR)");
+        stat.execute("INSERT INTO TEST VALUES(1, 'Hello World')");
+        stat.execute("CALL FTM_CREATE_INDEX('PUBLIC', 'TEST', NULL)");
+        conn.close();
+
+        conn = getConnection("fullTextMV");
+        stat = conn.createStatement();
+        stat.execute("INSERT INTO TEST VALUES(2, 'Hello Moon')");
+        ResultSet rs = stat.executeQuery("SELECT COUNT(*) FROM FTM_SEARCH('Hello', 0, 0)");
+        rs.next();
+        assertEquals(2, rs.getInt(1));
+        stat.execute("CALL FTM_REINDEX()");
+        rs = stat.executeQuery("SELECT COUNT(*) FROM FTM_SEARCH('Hello', 0, 0)");
+        rs.next();
+        assertEquals(2, rs.getInt(1));
+        stat.execute("CALL FTM_DROP_ALL()");
+        conn.close();
+    }
+
     private void testMultiThreaded(boolean lucene) throws Exception {
         final String prefix = lucene ? "FTL" : "FT";
         trace("Testing multithreaded " + prefix);
@@ -17,6 +17,9 @@ import java.util.Random;
 import java.util.TreeSet;
 import java.util.concurrent.TimeUnit;
 import org.h2.api.ErrorCode;
+import org.h2.engine.SessionLocal;
+import org.h2.jdbc.JdbcConnection;
+import org.h2.mvstore.MVMap;
 import org.h2.test.TestBase;
 import org.h2.test.TestDb;
 import org.h2.tools.SimpleResultSet;
@@ -47,6 +50,8 @@ public class TestOptimizations extends TestDb {
         testOrderByExpression();
         testGroupSubquery();
         testAnalyzeLob();
+        testAnalyzeHistogram();
+        testParallelAggregation();
         testLike();
         testExistsSubquery();
         testQueryCacheConcurrentUse();
@@ -85,9 +90,120 @@ public class TestOptimizations extends TestDb {
         testIndexUseDespiteNullsFirst();
         testConvertOrToIn();
         testConditionAndOrDistributiveLaw();
+        testHashJoin();
+        testBatchEvaluation();
+        testBatchEvaluationLimit();
         deleteDb("optimizations");
     }
 
+    private void testHashJoin() throws SQLException {
+        Connection conn = getConnection("optimizations");
+        Statement stat = conn.createStatement();
+        stat.execute("create table a(id int, v int) as select x, mod(x, 7) from system_range(1, 1000)");
+        stat.execute("create table b(id int, a_id int) as select x, mod(x, 500) from system_range(1, 2000)");
+        stat.execute("insert into b values (2001, null)");
+        ResultSet rs = stat.executeQuery("explain select count(*) from a join b on b.a_id = a.id");
+        rs.next();
+        assertContains(rs.getString(1), "hash join:");
+        String sql = "select count(*), sum(a.v), sum(b.id) from a join b on b.a_id = a.id";
+        String expected = "1996 5976 1996000";
+        rs = stat.executeQuery(sql);
+        rs.next();
+        assertEquals(expected, rs.getLong(1) + " " + rs.getLong(2) + " " + rs.getLong(3));
+        if (!config.memory) {
+            // rows of the build side are moved to a temporary file
+            stat.execute("set max_memory_rows 100");
+            rs = stat.executeQuery(sql);
+            rs.next();
+            assertEquals(expected, rs.getLong(1) + " " + rs.getLong(2) + " " + rs.getLong(3));
+        }
+        stat.execute("create index b_a_id on b(a_id)");
+        rs = stat.executeQuery("explain select count(*) from a join b on b.a_id = a.id");
+        rs.next();
+        assertFalse(rs.getString(1).contains("hash join:"));
+        stat.execute("drop table a, b");
+        conn.close();
+    }
+
+    private void testBatchEvaluation() throws SQLException {
+        String[] queries = {
+                "select id from t where a >= 500",
+                "select id from t where a = 7 or a is null",
+                "select id from t where not (a < 100 or b = 'x3')",
+                "select id from t where a + 1 > ? and b <> 'x1'",
+                "select id from t where a <> 0 and 1000 / a > 2",
+                "select id from t where a * 2 = b2 and a is not distinct from ?",
+                "select id from t where _rowid_ between 10 and 20 or c = true",
+                "select id, rownum() from t where b = 'x2' order by id",
+                "select id from t where a > 100 offset 5 rows fetch first 3 rows only",
+                "select count(*), sum(a) from t where a < 300 and b2 > 100",
+                "select b, count(*) from t where c group by b order by b",
+                "select id, b2 from t where b2 > 1900 and b <> 'x1'",
+                "select b from t where b2 between 100 and 300 and b <> 'x2' fetch first 10 rows only",
+        };
+        String[] expected = new String[queries.length];
+        for (int run = 0; run < 2; run++) {
+            deleteDb("optimizations");
+            Connection conn = getConnection("optimizations" + (run == 0 ? ";BATCH_EVALUATION=FALSE" : ""));
+            Statement stat = conn.createStatement();
+            stat.execute("create table t(id int primary key, a int, b varchar, b2 bigint, c boolean)");
+            stat.execute("insert into t select x, case when mod(x, 10) = 0 then null else mod(x * 37, 1001) end, "
+                    + "'x' || mod(x, 5), mod(x * 37, 1001) * 2 + mod(x, 3), mod(x, 4) = 0 "
+                    + "from system_range(1, 3000)");
+            stat.execute("create index t_b2_b on t(b2, b)");
+            for (int i = 0; i < queries.length; i++) {
+                PreparedStatement prep = conn.prepareStatement(queries[i]);
+                int count = prep.getParameterMetaData().getParameterCount();
+                for (int j = 1; j <= count; j++) {
+                    prep.setInt(j, 400);
+                }
+                StringBuilder builder = new StringBuilder();
+                ResultSet rs = prep.executeQuery();
+                int columnCount = rs.getMetaData().getColumnCount();
+                while (rs.next()) {
+                    for (int j = 1; j <= columnCount; j++) {
+                        builder.append(rs.getString(j)).append(' ');
+                    }
+                    builder.append('\n');
+                }
+                if (run == 0) {
+                    expected[i] = builder.toString();
+                } else {
+                    assertEquals(queries[i], expected[i], builder.toString());
+                }
+            }
+            conn.close();
+        }
+    }
+
+    private void testBatchEvaluationLimit() throws SQLException {
+        deleteDb("optimizations");
+        Connection conn = getConnection("optimizations");
+        Statement stat = conn.createStatement();
+        stat.execute("create table t(id int primary key, x int)");
+        stat.execute("insert into t values (1, 1), (2, 2), (3, 0), (4, 4)");
+        for (int lazy = 0; lazy < 2; lazy++) {
+            stat.execute("set lazy_query_execution " + lazy);
+            ResultSet rs = stat.executeQuery("select 1 / x from t where 10 / x > 0 fetch first 2 rows only");
+            assertTrue(rs.next());
+            assertEquals(1, rs.getInt(1));
+            assertTrue(rs.next());
+            assertEquals(0, rs.getInt(1));
+            assertFalse(rs.next());
+            rs = stat.executeQuery("select id from t where 10 / x > 0 offset 1 row fetch first 1 row only");
+            assertTrue(rs.next());
+            assertEquals(2, rs.getInt(1));
+            assertFalse(rs.next());
+            assertThrows(ErrorCode.DIVISION_BY_ZERO_1, () -> {
+                ResultSet r = stat.executeQuery("select id from t where 10 / x > 0 fetch first 3 rows only");
+                while (r.next()) {
+                    // read all rows
+                }
+            });
+        }
+        conn.close();
+    }
+
     private void testIdentityIndexUsage() throws Exception {
         Connection conn = getConnection("optimizations");
         Statement stat = conn.createStatement();
@@ -194,6 +310,121 @@ public class TestOptimizations extends TestDb {
         conn.close();
     }
 
+    private void testAnalyzeHistogram() throws Exception {
+        deleteDb("optimizations");
+        Connection conn = getConnection("optimizations;ANALYZE_AUTO=0");
+        Statement stat = conn.createStatement();
+        stat.execute("create table test(id int primary key, a int, b int, c int) as "
+                + "select x, x, mod(x, 10), case when x < 9000 then 0 else x end from system_range(1, 10000)");
+        stat.execute("create index idx_a on test(a)");
+        stat.execute("create index idx_b on test(b)");
+        stat.execute("create index idx_c on test(c)");
+        stat.execute("analyze");
+        assertAnalyzeHistogramPlans(stat);
+        conn.close();
+        if (!config.memory) {
+            conn = getConnection("optimizations;ANALYZE_AUTO=0");
+            stat = conn.createStatement();
+            assertAnalyzeHistogramPlans(stat);
+            if (config.networked) {
+                stat.execute("drop table test");
+            } else {
+                // statistics are stored outside of the metadata table
+                MVMap<Integer, String> map = ((SessionLocal) ((JdbcConnection) conn).getSession()).getDatabase()
+                        .getStore().getMvStore().openMap("columnStatistics");
+                assertEquals(1, map.size());
+                assertContains(map.values().iterator().next(), "STATISTICS(");
+                stat.execute("drop table test");
+                assertEquals(0, map.size());
+            }
+            conn.close();
+        }
+        deleteDb("optimizations");
+    }
+
+    private void testParallelAggregation() throws Exception {
+        deleteDb("optimizations");
+        Connection conn = getConnection("optimizations");
+        Statement stat = conn.createStatement();
+        assertThrows(ErrorCode.INVALID_VALUE_2, stat).execute("set max_parallel_workers 0");
+        stat.execute("create table test(id int primary key, g int, v bigint, d double, n varchar)");
+        String[] queries = {
+                "select g, count(*), sum(v), avg(v), min(d), max(n), count(n) from test group by g order by g",
+                "select count(*), sum(v), avg(d), bit_or_agg(v), every(v > 0) from test where g > 3",
+                "select n, sum(v) / count(*) from test group by n having count(*) > 1 order by n",
+                "select count(distinct g) from test",
+                "select g, count(*) c, sum(v) as s, avg(d) a from test group by g order by g",
+                "select count(*) c, sum(v) s from test where g > 3" };
+        // empty table
+        assertParallelAggregation(stat, queries);
+        stat.execute("insert into test select x, mod(x, 17), x * 3, x / 7.0, case when mod(x, 11) > 0 "
+                + "then 'n' || mod(x, 5) end from system_range(1, 100000)");
+        assertParallelAggregation(stat, queries);
+        PreparedStatement prep = conn.prepareStatement("select sum(v) from test where v > ?");
+        stat.execute("set max_parallel_workers 4");
+        prep.setLong(1, 150_000L);
+        ResultSet rs = prep.executeQuery();
+        rs.next();
+        assertEquals(11_250_075_000L, rs.getLong(1));
+        // workers must see the cancellation
+        stat.execute("set query_timeout 10");
+        assertThrows(ErrorCode.STATEMENT_WAS_CANCELED, stat)
+                .executeQuery("select g, sum(length(repeat(n, 10000))) from test group by g");
+        stat.execute("set query_timeout 0");
+        rs = prep.executeQuery();
+        rs.next();
+        assertEquals(11_250_075_000L, rs.getLong(1));
+        stat.execute("set max_parallel_workers 1");
+        stat.execute("drop table test");
+        conn.close();
+        deleteDb("optimizations");
+    }
+
+    private void assertParallelAggregation(Statement stat, String[] queries) throws SQLException {
+        for (String query : queries) {
+            stat.execute("set max_parallel_workers 1");
+            String expected = getResult(stat.executeQuery(query));
+            stat.execute("set max_parallel_workers 4");
+            assertEquals(expected, getResult(stat.executeQuery(query)));
+        }
+        stat.execute("set max_parallel_workers 1");
+    }
+
+    private static String getResult(ResultSet rs) throws SQLException {
+        StringBuilder builder = new StringBuilder();
+        int columnCount = rs.getMetaData().getColumnCount();
+        while (rs.next()) {
+            for (int i = 1; i <= columnCount; i++) {
+                builder.append(rs.getString(i)).append(',');
+            }
+            builder.append('\n');
+        }
+        return builder.toString();
+    }
+
+    private void assertAnalyzeHistogramPlans(Statement stat) throws SQLException {
+        // the range contains only a few rows
+        assertAnalyzeHistogramPlan(stat, "a > 9990 and b = 1", "IDX_A");
+        assertAnalyzeHistogramPlan(stat, "a between 100 and 120 and b = 1", "IDX_A");
+        // the range contains most of rows
+        assertAnalyzeHistogramPlan(stat, "a > 10 and b = 1", "IDX_B");
+        // 0 is the most common value
+        assertAnalyzeHistogramPlan(stat, "c = 0 and b = 1", "IDX_B");
+        assertAnalyzeHistogramPlan(stat, "c in (0, 9001) and b = 1", "IDX_B");
+        // ranges with the most common value
+        assertAnalyzeHistogramPlan(stat, "c <= 0 and b = 1", "IDX_B");
+        assertAnalyzeHistogramPlan(stat, "c between 0 and 9001 and b = 1", "IDX_B");
+        assertAnalyzeHistogramPlan(stat, "c between 1 and 9100 and b = 1", "IDX_C");
+        assertAnalyzeHistogramPlan(stat, "c = 9500 and b = 1", "IDX_C");
+        assertAnalyzeHistogramPlan(stat, "c in (9001, 9500) and b = 1", "IDX_C");
+    }
+
+    private void assertAnalyzeHistogramPlan(Statement stat, String condition, String index) throws SQLException {
+        ResultSet rs = stat.executeQuery("explain select * from test where " + condition);
+        rs.next();
+        assertContains(rs.getString(1), "/* PUBLIC." + index + ":");
+    }
+
     private void testLike() throws Exception {
         Connection conn = getConnection("optimizations");
         Statement stat = conn.createStatement();
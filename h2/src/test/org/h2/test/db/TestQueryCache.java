@@ -9,10 +9,12 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.Statement;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.h2.api.ErrorCode;
 import org.h2.test.TestBase;
 import org.h2.test.TestDb;
+import org.h2.util.Task;
 
 /**
  * Tests the query cache.
@@ -33,6 +35,9 @@ public class TestQueryCache extends TestDb {
         deleteDb("queryCache");
         test1();
         testClearingCacheWithTableStructureChanges();
+        testSharedCache();
+        testResultCache();
+        testResultCacheConcurrentCommits();
         deleteDb("queryCache");
     }
 
@@ -107,4 +112,202 @@ public class TestQueryCache extends TestDb {
                     prepareStatement("SELECT * FROM TEST");
         }
     }
+
+    private void testSharedCache() throws Exception {
+        try (Connection conn = getConnection("queryCache")) {
+            Statement stat = conn.createStatement();
+            stat.execute("create table test(id int primary key, name varchar)");
+            stat.execute("insert into test values (1, 'a'), (2, 'b')");
+            String sql = "select count(*) from test where id >= ?";
+            long hits = getSharedQueryCacheHits(stat);
+            try (Connection conn2 = getConnection("queryCache")) {
+                PreparedStatement prep = conn2.prepareStatement(sql);
+                prep.setInt(1, 1);
+                ResultSet rs = prep.executeQuery();
+                rs.next();
+                assertEquals(2, rs.getInt(1));
+                prep.close();
+            }
+            stat.execute("insert into test values (3, 'c')");
+            try (Connection conn2 = getConnection("queryCache")) {
+                PreparedStatement prep = conn2.prepareStatement(sql);
+                assertEquals(hits + 1, getSharedQueryCacheHits(stat));
+                prep.setInt(1, 1);
+                ResultSet rs = prep.executeQuery();
+                rs.next();
+                assertEquals(3, rs.getInt(1));
+                prep.setInt(1, 3);
+                rs = prep.executeQuery();
+                rs.next();
+                assertEquals(1, rs.getInt(1));
+            }
+            // statements of open connections can't be taken, but their tokens
+            // are shared
+            String sql2 = "select sum(id) from test where id <> ?";
+            PreparedStatement getTokenHits = conn.prepareStatement("select setting_value "
+                    + "from information_schema.settings where setting_name = 'info.SHARED_QUERY_CACHE_TOKEN_HITS'");
+            try (Connection conn2 = getConnection("queryCache");
+                    Connection conn3 = getConnection("queryCache")) {
+                PreparedStatement prep2 = conn2.prepareStatement(sql2);
+                ResultSet rs = getTokenHits.executeQuery();
+                rs.next();
+                long tokenHits = rs.getLong(1);
+                PreparedStatement prep3 = conn3.prepareStatement(sql2);
+                rs = getTokenHits.executeQuery();
+                rs.next();
+                assertEquals(tokenHits + 1, rs.getLong(1));
+                prep2.setInt(1, 1);
+                prep3.setInt(1, 2);
+                ResultSet rs2 = prep2.executeQuery();
+                ResultSet rs3 = prep3.executeQuery();
+                rs2.next();
+                rs3.next();
+                assertEquals(5, rs2.getInt(1));
+                assertEquals(4, rs3.getInt(1));
+            }
+            try (Connection conn2 = getConnection("queryCache")) {
+                Statement stat2 = conn2.createStatement();
+                stat2.execute("create schema s");
+                stat2.execute("create table s.test(id int)");
+                stat2.execute("set schema s");
+                // the cached statement was prepared for another schema
+                PreparedStatement prep = conn2.prepareStatement(sql);
+                prep.setInt(1, 1);
+                ResultSet rs = prep.executeQuery();
+                rs.next();
+                assertEquals(0, rs.getInt(1));
+                stat2.execute("drop schema s cascade");
+            }
+            stat.execute("drop table test");
+        }
+    }
+
+    private void testResultCache() throws Exception {
+        try (Connection conn = getConnection("queryCache"); Connection conn2 = getConnection("queryCache")) {
+            Statement stat = conn.createStatement();
+            Statement stat2 = conn2.createStatement();
+            stat.execute("create table test(id int primary key, name varchar)");
+            stat.execute("insert into test values (1, 'a'), (2, 'b')");
+            String sql = "select /*+ RESULT_CACHE */ count(*) from test where id >= ?";
+            long hits = getSetting(stat, "info.RESULT_CACHE_HITS");
+            assertEquals(2, queryCount(conn, sql, 1));
+            assertEquals(hits, getSetting(stat, "info.RESULT_CACHE_HITS"));
+            assertEquals(2, queryCount(conn2, sql, 1));
+            assertEquals(hits + 1, getSetting(stat, "info.RESULT_CACHE_HITS"));
+            // other parameter values
+            assertEquals(1, queryCount(conn2, sql, 2));
+            assertEquals(hits + 1, getSetting(stat, "info.RESULT_CACHE_HITS"));
+            assertEquals(1, queryCount(conn, sql, 2));
+            assertEquals(hits + 2, getSetting(stat, "info.RESULT_CACHE_HITS"));
+            // modifications invalidate cached results
+            stat2.execute("insert into test values (3, 'c')");
+            assertEquals(3, queryCount(conn, sql, 1));
+            assertEquals(3, queryCount(conn2, sql, 1));
+            assertEquals(hits + 3, getSetting(stat, "info.RESULT_CACHE_HITS"));
+            // uncommitted changes
+            conn.setAutoCommit(false);
+            stat.execute("insert into test values (4, 'd')");
+            assertEquals(4, queryCount(conn, sql, 1));
+            assertEquals(3, queryCount(conn2, sql, 1));
+            conn.commit();
+            conn.setAutoCommit(true);
+            assertEquals(4, queryCount(conn2, sql, 1));
+            assertEquals(4, queryCount(conn, sql, 1));
+            // the hint before the query
+            hits = getSetting(stat, "info.RESULT_CACHE_HITS");
+            String sql2 = "/*+ RESULT_CACHE */ select count(*) from test where id >= ?";
+            assertEquals(4, queryCount(conn, sql2, 1));
+            assertEquals(4, queryCount(conn2, sql2, 1));
+            assertEquals(hits + 1, getSetting(stat, "info.RESULT_CACHE_HITS"));
+            // the table setting
+            String sql3 = "select count(*) from test where id >= ?";
+            assertEquals(4, queryCount(conn, sql3, 1));
+            assertEquals(4, queryCount(conn2, sql3, 1));
+            assertEquals(hits + 1, getSetting(stat, "info.RESULT_CACHE_HITS"));
+            stat.execute("alter table test set result_cache true");
+            assertEquals(4, queryCount(conn, sql3, 1));
+            assertEquals(4, queryCount(conn2, sql3, 1));
+            assertEquals(hits + 2, getSetting(stat, "info.RESULT_CACHE_HITS"));
+            stat.execute("alter table test set result_cache false");
+            assertEquals(4, queryCount(conn2, sql3, 1));
+            assertEquals(hits + 2, getSetting(stat, "info.RESULT_CACHE_HITS"));
+            // non-deterministic queries are not cached
+            String sql4 = "select /*+ RESULT_CACHE */ count(*) + rand() * 0 from test where id >= ?";
+            queryCount(conn, sql4, 1);
+            queryCount(conn2, sql4, 1);
+            assertEquals(hits + 2, getSetting(stat, "info.RESULT_CACHE_HITS"));
+            stat.execute("drop table test");
+        }
+    }
+
+    private void testResultCacheConcurrentCommits() throws Exception {
+        int readerCount = 4, rowCount = 150;
+        Connection[] readers = new Connection[readerCount];
+        try (Connection conn = getConnection("queryCache")) {
+            Statement stat = conn.createStatement();
+            stat.execute("create table test(id int primary key)");
+            for (int i = 0; i < readerCount; i++) {
+                readers[i] = getConnection("queryCache");
+            }
+            String sql = "select /*+ RESULT_CACHE */ count(*) from test where id >= ?";
+            AtomicBoolean done = new AtomicBoolean();
+            Task[] tasks = new Task[readerCount];
+            for (int i = 0; i < readerCount; i++) {
+                Connection reader = readers[i];
+                tasks[i] = new Task() {
+                    @Override
+                    public void call() throws Exception {
+                        while (!done.get()) {
+                            queryCount(reader, sql, 0);
+                        }
+                    }
+                }.execute();
+            }
+            PreparedStatement prep = conn.prepareStatement("insert into test values ?");
+            try {
+                for (int i = 0; i < rowCount; i++) {
+                    prep.setInt(1, i);
+                    prep.executeUpdate();
+                    // results computed concurrently with the commit must not
+                    // stay in the cache
+                    assertEquals(i + 1, queryCount(conn, sql, 0));
+                }
+            } finally {
+                done.set(true);
+            }
+            for (Task task : tasks) {
+                task.get();
+            }
+            for (Connection reader : readers) {
+                assertEquals(rowCount, queryCount(reader, sql, 0));
+            }
+            stat.execute("drop table test");
+        } finally {
+            for (Connection reader : readers) {
+                if (reader != null) {
+                    reader.close();
+                }
+            }
+        }
+    }
+
+    private static int queryCount(Connection conn, String sql, int id) throws Exception {
+        try (PreparedStatement prep = conn.prepareStatement(sql)) {
+            prep.setInt(1, id);
+            ResultSet rs = prep.executeQuery();
+            rs.next();
+            return rs.getInt(1);
+        }
+    }
+
+    private static long getSharedQueryCacheHits(Statement stat) throws Exception {
+        return getSetting(stat, "info.SHARED_QUERY_CACHE_HITS");
+    }
+
+    private static long getSetting(Statement stat, String name) throws Exception {
+        ResultSet rs = stat.executeQuery("select setting_value from information_schema.settings "
+                + "where setting_name = '" + name + "'");
+        rs.next();
+        return rs.getLong(1);
+    }
 }
@@ -13,6 +13,7 @@ import java.sql.Statement;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
 import org.h2.api.Trigger;
 import org.h2.engine.Constants;
 import org.h2.test.TestBase;
@@ -37,6 +38,7 @@ public class TestSequence extends TestDb {
     public void test() throws Exception {
         testConcurrentCreate();
         testConcurrentNextAndCurrentValue();
+        testConcurrentNextValues();
         testSchemaSearchPath();
         testAlterSequenceColumn();
         testAlterSequence();
@@ -166,6 +168,56 @@ public class TestSequence extends TestDb {
         }
     }
 
+    private void testConcurrentNextValues() throws Exception {
+        deleteDb("sequence");
+        final String url = getURL("sequence", true);
+        final int count = 1000;
+        try (Connection conn = getConnection(url)) {
+            Statement stat = conn.createStatement();
+            stat.execute("CREATE SEQUENCE SEQ CACHE 3");
+            ConcurrentHashMap<Long, Boolean> values = new ConcurrentHashMap<>();
+            Task[] tasks = new Task[4];
+            for (int i = 0; i < tasks.length; i++) {
+                tasks[i] = new Task() {
+                    @Override
+                    public void call() throws Exception {
+                        try (Connection conn = getConnection(url)) {
+                            PreparedStatement next = conn.prepareStatement("CALL NEXT VALUE FOR SEQ");
+                            PreparedStatement nextValues = conn.prepareStatement(
+                                    "CALL NEXT VALUES FOR SEQ COUNT 5");
+                            for (int j = 0; j < count; j++) {
+                                try (ResultSet rs = next.executeQuery()) {
+                                    rs.next();
+                                    add(values, rs.getLong(1));
+                                }
+                                try (ResultSet rs = nextValues.executeQuery()) {
+                                    rs.next();
+                                    long v = rs.getLong(1);
+                                    for (int k = 0; k < 5; k++) {
+                                        add(values, v + k);
+                                    }
+                                }
+                            }
+                        }
+                    }
+                }.execute();
+            }
+            for (Task t : tasks) {
+                t.get();
+            }
+            assertEquals(tasks.length * count * 6, values.size());
+            ResultSet rs = stat.executeQuery("CALL NEXT VALUE FOR SEQ");
+            rs.next();
+            assertEquals(tasks.length * count * 6 + 1, rs.getLong(1));
+        }
+    }
+
+    private static void add(ConcurrentHashMap<Long, Boolean> values, long v) {
+        if (values.put(v, Boolean.TRUE) != null) {
+            throw new RuntimeException("Duplicate value " + v);
+        }
+    }
+
     private void testSchemaSearchPath() throws SQLException {
         deleteDb("sequence");
         Connection conn = getConnection("sequence");
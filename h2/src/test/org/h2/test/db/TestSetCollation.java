@@ -40,6 +40,7 @@ public class TestSetCollation extends TestDb {
         testReopenDatabaseWithUrlParameter();
         testReopenDatabaseWithDifferentCollationInUrl();
         testReopenDatabaseWithSameCollationInUrl();
+        testInList();
     }
 
 
@@ -151,6 +152,28 @@ public class TestSetCollation extends TestDb {
         }
     }
 
+    private void testInList() throws Exception {
+        deleteDb(DB_NAME);
+        try (Connection con = getConnection(DB_NAME); Statement statement = con.createStatement()) {
+            statement.execute("SET COLLATION ENGLISH STRENGTH PRIMARY");
+            statement.execute("CREATE TABLE charsettable(id INT PRIMARY KEY, testvalue VARCHAR(50))");
+            insertValues(con, new String[] { "a", "A", "\u00e4", "b", "c", null }, 1);
+            for (int i = 0; i < 2; i++) {
+                assertEquals(3, getCount(statement, "testvalue IN ('A', 'x', 'y')"));
+                assertEquals(1, getCount(statement, "testvalue NOT IN ('\u00c4', 'B', 'x')"));
+                assertEquals(4, getCount(statement, "testvalue IN ('\u00c4', 'B', 'x')"));
+                // the values are looked up in the index
+                statement.execute("CREATE INDEX IF NOT EXISTS charsettable_idx ON charsettable(testvalue)");
+            }
+        }
+    }
+
+    private static int getCount(Statement statement, String condition) throws SQLException {
+        try (ResultSet rs = statement.executeQuery("SELECT COUNT(*) FROM charsettable WHERE " + condition)) {
+            rs.next();
+            return rs.getInt(1);
+        }
+    }
 
     private List<String> orderedWithCollator(String collator) throws SQLException {
         deleteDb(DB_NAME);
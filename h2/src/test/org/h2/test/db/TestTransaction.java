@@ -16,8 +16,15 @@ import java.util.ArrayList;
 import java.util.Random;
 import org.h2.api.ErrorCode;
 import org.h2.engine.Constants;
+import org.h2.engine.Session;
+import org.h2.engine.SessionLocal;
+import org.h2.jdbc.JdbcConnection;
+import org.h2.mvstore.FileStore;
+import org.h2.mvstore.MVStore;
+import org.h2.mvstore.db.GroupCommit;
 import org.h2.test.TestBase;
 import org.h2.test.TestDb;
+import org.h2.util.Task;
 
 /**
  * Transactional tests, including transaction isolation tests, and tests related
@@ -42,6 +49,9 @@ public class TestTransaction extends TestDb {
         testConstraintCreationRollback();
         testCommitOnAutoCommitChange();
         testConcurrentSelectForUpdate();
+        testRowLockQueue();
+        testRowLockDeadlock();
+        testRowLockQueueDeadlock();
         testRollback();
         testRollback2();
         testForUpdate();
@@ -60,6 +70,88 @@ public class TestTransaction extends TestDb {
         testIsolationLevels4();
         testIsolationLevelsCountAggregate();
         testIsolationLevelsCountAggregate2();
+        testGroupCommit();
+        testGroupCommitWriteDelay();
+        deleteDb("transaction");
+    }
+
+    private void testGroupCommit() throws Exception {
+        if (config.memory) {
+            return;
+        }
+        deleteDb("transaction");
+        String url = "transaction;GROUP_COMMIT=TRUE";
+        Connection conn = getConnection(url);
+        Statement stat = conn.createStatement();
+        stat.execute("create table test(id int primary key)");
+        int threadCount = 8, rowCount = 50;
+        Task[] tasks = new Task[threadCount];
+        for (int i = 0; i < threadCount; i++) {
+            int base = i * rowCount;
+            tasks[i] = new Task() {
+                @Override
+                public void call() throws Exception {
+                    try (Connection c = getConnection(url)) {
+                        PreparedStatement prep = c.prepareStatement("insert into test values ?");
+                        for (int j = 0; j < rowCount; j++) {
+                            prep.setInt(1, base + j);
+                            prep.executeUpdate();
+                        }
+                    }
+                }
+            }.execute();
+        }
+        for (Task task : tasks) {
+            task.get();
+        }
+        Session session = ((JdbcConnection) conn).getSession();
+        if (session instanceof SessionLocal) {
+            GroupCommit groupCommit = ((SessionLocal) session).getDatabase().getGroupCommit();
+            assertTrue(groupCommit.getCommitCount() >= threadCount * rowCount);
+            assertTrue(groupCommit.getSyncCount() <= groupCommit.getCommitCount());
+        }
+        assertThrows(ErrorCode.INVALID_VALUE_2, stat).execute("set group_commit 2");
+        conn.close();
+        conn = getConnection("transaction");
+        stat = conn.createStatement();
+        ResultSet rs = stat.executeQuery("select count(*) from test");
+        rs.next();
+        assertEquals(threadCount * rowCount, rs.getInt(1));
+        rs = stat.executeQuery("select setting_value from information_schema.settings"
+                + " where setting_name = 'GROUP_COMMIT'");
+        rs.next();
+        assertEquals("1", rs.getString(1));
+        stat.execute("set group_commit false");
+        stat.execute("drop table test");
+        conn.close();
+    }
+
+    private void testGroupCommitWriteDelay() throws Exception {
+        if (config.memory || config.networked) {
+            return;
+        }
+        deleteDb("transaction");
+        Connection conn = getConnection("transaction;GROUP_COMMIT=TRUE;WRITE_DELAY=1");
+        Statement stat = conn.createStatement();
+        stat.execute("create table test(id int primary key, v varchar)");
+        conn.setAutoCommit(false);
+        SessionLocal session = (SessionLocal) ((JdbcConnection) conn).getSession();
+        GroupCommit groupCommit = session.getDatabase().getGroupCommit();
+        MVStore mvStore = session.getDatabase().getStore().getMvStore();
+        FileStore fileStore = mvStore.getFileStore();
+        for (int i = 0; i < 20; i++) {
+            // enough changes to keep the asynchronous store busy for a while
+            stat.execute("insert into test select x, repeat('v', 100) from system_range("
+                    + (i * 10_000 + 1) + ", " + (i + 1) * 10_000 + ')');
+            long writeCount = fileStore.getWriteCount();
+            // the background writer stores changes asynchronously
+            mvStore.tryCommit();
+            // the changes must be written before the group commit returns
+            groupCommit.sync();
+            assertTrue(fileStore.getWriteCount() > writeCount);
+            conn.commit();
+        }
+        conn.close();
         deleteDb("transaction");
     }
 
@@ -122,6 +214,172 @@ public class TestTransaction extends TestDb {
         conn.close();
     }
 
+    private void testRowLockQueue() throws Exception {
+        deleteDb("transaction");
+        String url = "transaction;LOCK_TIMEOUT=60000";
+        try (Connection conn = getConnection(url)) {
+            Statement stat = conn.createStatement();
+            stat.execute("CREATE TABLE TEST(ID INT PRIMARY KEY, V INT) AS VALUES (1, 0)");
+            conn.setAutoCommit(false);
+            stat.execute("UPDATE TEST SET V = V + 1 WHERE ID = 1");
+            int threadCount = 6, count = 20;
+            Task[] tasks = new Task[threadCount];
+            for (int i = 0; i < threadCount; i++) {
+                tasks[i] = new Task() {
+                    @Override
+                    public void call() throws Exception {
+                        try (Connection c = getConnection(url)) {
+                            c.setAutoCommit(false);
+                            Statement s = c.createStatement();
+                            for (int j = 0; j < count; j++) {
+                                s.execute("SELECT V FROM TEST WHERE ID = 1 FOR UPDATE");
+                                s.execute("UPDATE TEST SET V = V + 1 WHERE ID = 1");
+                                c.commit();
+                            }
+                        }
+                    }
+                }.execute();
+            }
+            Thread.sleep(100);
+            conn.commit();
+            for (Task task : tasks) {
+                task.get();
+            }
+            ResultSet rs = stat.executeQuery("SELECT V FROM TEST");
+            rs.next();
+            assertEquals(threadCount * count + 1, rs.getInt(1));
+            rs = stat.executeQuery("SELECT SUM(WAIT_COUNT), COUNT(*) FILTER (WHERE WAIT_TIME_UPPER_BOUND IS NULL)"
+                    + " FROM INFORMATION_SCHEMA.LOCK_WAITS WHERE TABLE_NAME = 'TEST'");
+            rs.next();
+            assertTrue(rs.getLong(1) > 0);
+            assertTrue(rs.getInt(2) <= 1);
+            conn.commit();
+            stat.execute("DROP TABLE TEST");
+            conn.commit();
+        }
+    }
+
+    private void testRowLockDeadlock() throws Exception {
+        deleteDb("transaction");
+        String url = "transaction;LOCK_TIMEOUT=60000";
+        try (Connection conn1 = getConnection(url); Connection conn2 = getConnection(url);
+                Connection conn3 = getConnection(url)) {
+            Statement stat1 = conn1.createStatement();
+            stat1.execute("CREATE TABLE TEST(ID INT PRIMARY KEY, V INT) AS VALUES (1, 0), (2, 0)");
+            conn1.setAutoCommit(false);
+            conn2.setAutoCommit(false);
+            conn3.setAutoCommit(false);
+            Statement stat2 = conn2.createStatement();
+            Statement stat3 = conn3.createStatement();
+            stat1.execute("UPDATE TEST SET V = 1 WHERE ID = 1");
+            stat2.execute("UPDATE TEST SET V = 2 WHERE ID = 2");
+            // the third transaction is queued behind the second one
+            Task t3 = new Task() {
+                @Override
+                public void call() throws Exception {
+                    stat3.execute("UPDATE TEST SET V = 3 WHERE ID = 2");
+                }
+            }.execute();
+            Task t2 = new Task() {
+                @Override
+                public void call() throws Exception {
+                    stat2.execute("UPDATE TEST SET V = 2 WHERE ID = 1");
+                }
+            }.execute();
+            Thread.sleep(100);
+            int deadlocks = 0;
+            try {
+                stat1.execute("UPDATE TEST SET V = 1 WHERE ID = 2");
+                conn1.commit();
+            } catch (SQLException e) {
+                assertEquals(ErrorCode.DEADLOCK_1, e.getErrorCode());
+                conn1.rollback();
+                deadlocks++;
+            }
+            Exception e2 = t2.getException();
+            if (e2 == null) {
+                conn2.commit();
+            } else {
+                assertEquals(ErrorCode.DEADLOCK_1, ((SQLException) e2).getErrorCode());
+                conn2.rollback();
+                deadlocks++;
+            }
+            // the third transaction is a part of the cycle too, the first one
+            // is queued behind it
+            Exception e3 = t3.getException();
+            if (e3 == null) {
+                conn3.commit();
+            } else {
+                assertEquals(ErrorCode.DEADLOCK_1, ((SQLException) e3).getErrorCode());
+                conn3.rollback();
+                deadlocks++;
+            }
+            assertTrue(deadlocks > 0);
+            stat1.execute("DROP TABLE TEST");
+            conn1.commit();
+        }
+    }
+
+    private void testRowLockQueueDeadlock() throws Exception {
+        deleteDb("transaction");
+        String url = "transaction;LOCK_TIMEOUT=60000";
+        try (Connection conn0 = getConnection(url); Connection conn1 = getConnection(url);
+                Connection conn2 = getConnection(url)) {
+            Statement stat0 = conn0.createStatement();
+            stat0.execute("CREATE TABLE TEST(ID INT PRIMARY KEY, V INT) AS VALUES (1, 0), (2, 0)");
+            stat0.execute("SET LOCK_TIMEOUT 1");
+            conn0.setAutoCommit(false);
+            conn1.setAutoCommit(false);
+            conn2.setAutoCommit(false);
+            Statement stat1 = conn1.createStatement();
+            Statement stat2 = conn2.createStatement();
+            for (int attempt = 0;; attempt++) {
+                stat0.execute("UPDATE TEST SET V = 0 WHERE ID = 1");
+                stat2.execute("UPDATE TEST SET V = 2 WHERE ID = 2");
+                // the first transaction in the queue
+                Task t1 = new Task() {
+                    @Override
+                    public void call() throws Exception {
+                        stat1.execute("UPDATE TEST SET V = 1 WHERE ID = 1");
+                    }
+                }.execute();
+                Thread.sleep(100);
+                // the second transaction in the queue
+                Task t2 = new Task() {
+                    @Override
+                    public void call() throws Exception {
+                        stat2.execute("UPDATE TEST SET V = 2 WHERE ID = 1");
+                    }
+                }.execute();
+                Thread.sleep(100);
+                // a new transaction takes the row before the first transaction
+                // in the queue
+                boolean taken;
+                try {
+                    stat0.execute("COMMIT; UPDATE TEST SET V = 3 WHERE ID = 1");
+                    taken = true;
+                } catch (SQLException e) {
+                    assertEquals(ErrorCode.LOCK_TIMEOUT_1, e.getErrorCode());
+                    taken = false;
+                }
+                if (taken) {
+                    // it waits for the second transaction in the queue
+                    assertThrows(ErrorCode.DEADLOCK_1, stat0).execute("UPDATE TEST SET V = 3 WHERE ID = 2");
+                }
+                conn0.rollback();
+                t1.get();
+                conn1.commit();
+                t2.get();
+                conn2.commit();
+                if (taken || attempt == 20) {
+                    break;
+                }
+            }
+            stat0.execute("DROP TABLE TEST");
+            conn0.commit();
+        }
+    }
+
     private void testConcurrentSelectForUpdateImpl(Connection conn, String expressions) throws SQLException {
         Connection conn2;
         PreparedStatement prep;
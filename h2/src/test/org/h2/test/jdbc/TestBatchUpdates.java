@@ -63,6 +63,7 @@ public class TestBatchUpdates extends TestDb {
     @Override
     public void test() throws SQLException {
         testRootCause();
+        testPartialFailure();
         testExecuteCall();
         testException();
         testCoffee();
@@ -111,6 +112,43 @@ public class TestBatchUpdates extends TestDb {
         conn.close();
     }
 
+    private void testPartialFailure() throws SQLException {
+        deleteDb("batchUpdates");
+        conn = getConnection("batchUpdates");
+        stat = conn.createStatement();
+        stat.execute("create table test(id int primary key, name varchar)");
+        prep = conn.prepareStatement("insert into test values(?, ?)");
+        for (int id : new int[] { 1, 2, 1, 3 }) {
+            prep.setInt(1, id);
+            prep.setString(2, "Hello " + id);
+            prep.addBatch();
+        }
+        try {
+            prep.executeBatch();
+            fail();
+        } catch (BatchUpdateException e) {
+            int[] updateCounts = e.getUpdateCounts();
+            assertEquals(4, updateCounts.length);
+            assertEquals(1, updateCounts[0]);
+            assertEquals(1, updateCounts[1]);
+            assertEquals(Statement.EXECUTE_FAILED, updateCounts[2]);
+            assertEquals(1, updateCounts[3]);
+            assertEquals(ErrorCode.DUPLICATE_KEY_1, e.getNextException().getErrorCode());
+            assertNull(e.getNextException().getNextException());
+        }
+        prep.setInt(1, 4);
+        prep.setString(2, "Hello 4");
+        prep.addBatch();
+        long[] largeUpdateCounts = prep.executeLargeBatch();
+        assertEquals(1, largeUpdateCounts.length);
+        assertEquals(1L, largeUpdateCounts[0]);
+        ResultSet rs = stat.executeQuery("select count(*) from test");
+        rs.next();
+        assertEquals(4, rs.getInt(1));
+        stat.execute("drop table test");
+        conn.close();
+    }
+
     private void testExecuteCall() throws SQLException {
         deleteDb("batchUpdates");
         conn = getConnection("batchUpdates");
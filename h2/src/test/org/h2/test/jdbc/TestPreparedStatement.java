@@ -123,6 +123,7 @@ public class TestPreparedStatement extends TestDb {
         testPreparedStatementWithLiteralsNone();
         testPreparedStatementWithIndexedParameterAndLiteralsNone();
         testPreparedStatementWithAnyParameter();
+        testPreparedStatementWithInParameters();
         deleteDb("preparedStatement");
     }
 
@@ -1637,6 +1638,44 @@ public class TestPreparedStatement extends TestDb {
         deleteDb("preparedStatement");
     }
 
+    private void testPreparedStatementWithInParameters() throws SQLException {
+        deleteDb("preparedStatement");
+        Connection conn = getConnection("preparedStatement");
+        Statement stat = conn.createStatement();
+        stat.execute("CREATE TABLE TEST(ID INT PRIMARY KEY, NAME VARCHAR, V NUMERIC(10, 2))");
+        stat.execute("INSERT INTO TEST SELECT X, 'n' || X, X / 10.0 FROM SYSTEM_RANGE(1, 1000)");
+        // values are looked up in a set of values of parameters
+        PreparedStatement ps = conn.prepareStatement(
+                "SELECT ID FROM TEST WHERE NAME IN (?, ?, ?, 'n5') ORDER BY ID");
+        inParametersCheck(ps, new Object[] { "n1", "n20", "x" }, new int[] {1, 5, 20});
+        // the set is created again for new values
+        inParametersCheck(ps, new Object[] { "n7", "n7", "n300" }, new int[] {5, 7, 300});
+        inParametersCheck(ps, new Object[] { null, "n2", null }, new int[] {2, 5});
+        ps = conn.prepareStatement("SELECT ID FROM TEST WHERE UPPER(NAME) NOT IN (?, ?) AND ID < 5 ORDER BY ID");
+        inParametersCheck(ps, new Object[] { "N1", "N3" }, new int[] {2, 4});
+        inParametersCheck(ps, new Object[] { "N2", null }, new int[0]);
+        // equal values of different scale
+        ps = conn.prepareStatement("SELECT ID FROM TEST WHERE V IN (?, ?) ORDER BY ID");
+        inParametersCheck(ps, new Object[] { new BigDecimal("0.5"), new BigDecimal("2.000") }, new int[] {5, 20});
+        inParametersCheck(ps, new Object[] { 3, new BigDecimal("1.10") }, new int[] {11, 30});
+        stat.execute("DROP TABLE TEST");
+        conn.close();
+        deleteDb("preparedStatement");
+    }
+
+    private void inParametersCheck(PreparedStatement ps, Object[] values, int[] expected) throws SQLException {
+        for (int i = 0; i < values.length; i++) {
+            ps.setObject(i + 1, values[i]);
+        }
+        try (ResultSet rs = ps.executeQuery()) {
+            for (int exp : expected) {
+                assertTrue(rs.next());
+                assertEquals(exp, rs.getInt(1));
+            }
+            assertFalse(rs.next());
+        }
+    }
+
     private void anyParameterCheck(PreparedStatement ps, Object values, int[] expected) throws SQLException {
         ps.setObject(1, values);
         try (ResultSet rs = ps.executeQuery()) {
@@ -28,6 +28,8 @@ public class TestStatement extends TestDb {
 
     private Connection conn;
 
+    private static int rowCount;
+
     /**
      * Run just this test.
      *
@@ -48,6 +50,7 @@ public class TestStatement extends TestDb {
         testConnectionRollback();
         testStatement();
         testPreparedStatement();
+        testFetchSize();
         testCloseOnCompletion();
         testIdentityMerge();
         conn.close();
@@ -439,6 +442,57 @@ public class TestStatement extends TestDb {
         stat.execute("drop table test");
     }
 
+    private void testFetchSize() throws SQLException {
+        Statement stat = conn.createStatement();
+        stat.execute("CREATE ALIAS COUNT_ROW DETERMINISTIC FOR '" + getClass().getName() + ".countRow'");
+        String sql = "SELECT COUNT_ROW(X) FROM SYSTEM_RANGE(1, 1000)";
+        if (!config.lazy) {
+            rowCount = 0;
+            try (ResultSet rs = stat.executeQuery(sql)) {
+                assertTrue(rs.next());
+                assertEquals(1000, rowCount);
+            }
+        }
+        stat.setFetchSize(10);
+        rowCount = 0;
+        try (ResultSet rs = stat.executeQuery(sql)) {
+            assertTrue(rs.next());
+            assertTrue(rowCount <= 10);
+            for (int i = 1; i < 1000; i++) {
+                assertTrue(rs.next());
+            }
+            assertEquals(1000, rs.getInt(1));
+            assertFalse(rs.next());
+        }
+        PreparedStatement prep = conn.prepareStatement(sql);
+        prep.setFetchSize(10);
+        rowCount = 0;
+        try (ResultSet rs = prep.executeQuery()) {
+            assertTrue(rs.next());
+            assertTrue(rowCount <= 10);
+        }
+        // scrollable results are not lazy
+        stat = conn.createStatement(ResultSet.TYPE_SCROLL_INSENSITIVE, ResultSet.CONCUR_READ_ONLY);
+        stat.setFetchSize(10);
+        rowCount = 0;
+        try (ResultSet rs = stat.executeQuery(sql)) {
+            assertTrue(rs.next());
+            assertEquals(1000, rowCount);
+        }
+        stat.execute("DROP ALIAS COUNT_ROW");
+    }
+
+    /**
+     * This method is called via reflection from the database.
+     *
+     * @param x the value
+     * @return the value
+     */
+    public static long countRow(long x) {
+        rowCount++;
+        return x;
+    }
+
     private void testIdentifiers() throws SQLException {
         Connection conn = getConnection("statement");
 
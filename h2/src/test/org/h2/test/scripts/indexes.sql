@@ -335,8 +335,12 @@ EXPLAIN SELECT * FROM TEST WHERE A = 0;
 EXPLAIN SELECT * FROM TEST WHERE A = 0 AND B >= 0;
 >> SELECT "PUBLIC"."TEST"."A", "PUBLIC"."TEST"."B", "PUBLIC"."TEST"."C" FROM "PUBLIC"."TEST" /* PUBLIC.T_A_B: A = 0 AND B >= 0 */ WHERE ("A" = 0) AND ("B" >= 0)
 
+-- Histogram from automatic ANALYZE: almost all rows have A > 0
 EXPLAIN SELECT * FROM TEST WHERE A > 0 AND B >= 0;
->> SELECT "PUBLIC"."TEST"."A", "PUBLIC"."TEST"."B", "PUBLIC"."TEST"."C" FROM "PUBLIC"."TEST" /* PUBLIC.T_A_B: A > 0 AND B >= 0 */ WHERE ("A" > 0) AND ("B" >= 0)
+>> SELECT "PUBLIC"."TEST"."A", "PUBLIC"."TEST"."B", "PUBLIC"."TEST"."C" FROM "PUBLIC"."TEST" /* PUBLIC.TEST.tableScan */ WHERE ("A" > 0) AND ("B" >= 0)
+
+EXPLAIN SELECT * FROM TEST WHERE A > 25 AND B >= 0;
+>> SELECT "PUBLIC"."TEST"."A", "PUBLIC"."TEST"."B", "PUBLIC"."TEST"."C" FROM "PUBLIC"."TEST" /* PUBLIC.T_A_B: A > 25 AND B >= 0 */ WHERE ("A" > 25) AND ("B" >= 0)
 
 -- Test that creation order of indexes has no effect
 CREATE INDEX T_A2 ON TEST(A);
@@ -410,3 +414,41 @@ SELECT * FROM TEST WHERE _ROWID_ >= 2 AND _ROWID_ <= 3;
 
 DROP TABLE TEST;
 > ok
+
+CREATE TABLE TEST(ID BIGINT PRIMARY KEY, NAME VARCHAR, V INT);
+> ok
+
+CREATE INDEX TEST_NAME_ID_IDX ON TEST(NAME DESC, ID DESC);
+> ok
+
+INSERT INTO TEST SELECT X, 'n' || MOD(X, 10), X FROM SYSTEM_RANGE(1, 100);
+> update count: 100
+
+EXPLAIN ANALYZE SELECT ID FROM TEST WHERE (NAME, ID) < ('n5', 55) ORDER BY NAME DESC, ID DESC FETCH FIRST 3 ROWS ONLY;
+>> SELECT "ID" FROM "PUBLIC"."TEST" /* PUBLIC.TEST_NAME_ID_IDX: (NAME, ID) < ('n5', 55) */ /* scanCount: 4 */ WHERE ROW ("NAME", "ID") < ROW ('n5', 55) ORDER BY "NAME" DESC, 1 DESC FETCH FIRST 3 ROWS ONLY /* index sorted */
+
+SELECT ID FROM TEST WHERE (NAME, ID) < ('n5', 55) ORDER BY NAME DESC, ID DESC FETCH FIRST 3 ROWS ONLY;
+> ID
+> --
+> 45
+> 35
+> 25
+> rows (ordered): 3
+
+EXPLAIN SELECT COUNT(*) FROM TEST WHERE ('n5', 55) < (NAME, ID);
+>> SELECT COUNT(*) FROM "PUBLIC"."TEST" /* PUBLIC.TEST_NAME_ID_IDX: (NAME, ID) > ('n5', 55) */ WHERE ROW ('n5', 55) < ROW ("NAME", "ID")
+
+SELECT COUNT(*) FROM TEST WHERE ('n5', 55) < (NAME, ID);
+>> 44
+
+SELECT COUNT(*) FROM TEST WHERE (NAME, ID) >= ('n5', 55) AND NAME <= 'n6';
+>> 15
+
+EXPLAIN SELECT V FROM TEST WHERE (NAME, V) = ('n5', 55);
+>> SELECT "V" FROM "PUBLIC"."TEST" /* PUBLIC.TEST_NAME_ID_IDX: NAME = 'n5' */ WHERE ROW ("NAME", "V") = ROW ('n5', 55)
+
+SELECT V FROM TEST WHERE (NAME, V) = ('n5', 55);
+>> 55
+
+DROP TABLE TEST;
+> ok
@@ -488,3 +488,52 @@ SELECT NEXT VALUE FOR SEQ;
 
 DROP SEQUENCE SEQ;
 > ok
+
+CREATE SEQUENCE SEQ START WITH 1 INCREMENT BY 10 MAXVALUE 100;
+> ok
+
+SELECT NEXT VALUES FOR SEQ COUNT 3, CURRENT VALUE FOR SEQ;
+> NEXT VALUES FOR PUBLIC.SEQ COUNT 3 CURRENT VALUE FOR PUBLIC.SEQ
+> ---------------------------------- ----------------------------
+> 1                                  21
+> rows: 1
+
+SELECT NEXT VALUE FOR SEQ;
+>> 31
+
+SELECT NEXT VALUES FOR SEQ COUNT X FROM SYSTEM_RANGE(1, 2);
+> NEXT VALUES FOR PUBLIC.SEQ COUNT X
+> ----------------------------------
+> 41
+> 51
+> rows: 2
+
+SELECT NEXT VALUES FOR SEQ COUNT 5;
+> exception SEQUENCE_EXHAUSTED
+
+SELECT NEXT VALUES FOR SEQ COUNT 3;
+>> 71
+
+SELECT NEXT VALUES FOR SEQ COUNT 0;
+> exception INVALID_VALUE_2
+
+SELECT NEXT VALUES FOR SEQ COUNT NULL;
+> exception INVALID_VALUE_2
+
+SELECT NEXT VALUE FOR SEQ;
+> exception SEQUENCE_EXHAUSTED
+
+ALTER SEQUENCE SEQ CYCLE RESTART WITH 81;
+> ok
+
+SELECT NEXT VALUES FOR SEQ COUNT 3;
+>> 1
+
+SELECT NEXT VALUES FOR SEQ COUNT (1 + 1);
+>> 31
+
+SELECT NEXT VALUES FOR SEQ COUNT 11;
+> exception SEQUENCE_EXHAUSTED
+
+DROP SEQUENCE SEQ;
+> ok
@@ -426,3 +426,27 @@ EXPLAIN SELECT V, V IN (SELECT * FROM TEST) FROM (VALUES 1, 1000000000000) T(V);
 
 DROP TABLE TEST;
 > ok
+
+CREATE TABLE TEST(ID INT, N NUMERIC(10, 3), V VARCHAR_IGNORECASE) AS VALUES (1, 1.5, 'Abc'), (2, 2, 'x'), (3, NULL, NULL);
+> ok
+
+SELECT ID, N IN (1.50, 2, 3.25) A, V IN ('ABC', 'Y') B, N NOT IN (1.5000, 7) C FROM TEST ORDER BY ID;
+> ID A    B     C
+> -- ---- ----- -----
+> 1  TRUE TRUE  FALSE
+> 2  TRUE FALSE TRUE
+> 3  null null  null
+> rows (ordered): 3
+
+CREATE INDEX TEST_IDX ON TEST(N);
+> ok
+
+SELECT ID FROM TEST WHERE N IN (2.0000, 1.50, 1.500, 9) ORDER BY ID;
+> ID
+> --
+> 1
+> 2
+> rows (ordered): 2
+
+DROP TABLE TEST;
+> ok
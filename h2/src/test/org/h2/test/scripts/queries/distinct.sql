@@ -188,3 +188,38 @@ SELECT DISTINCT ON(C1) C2 FROM TEST ORDER BY C3;
 
 DROP TABLE TEST;
 > ok
+
+CREATE TABLE TEST(A INT, B NUMERIC(10, 2), C VARCHAR) AS VALUES (1, 1.00, 'a'), (1, 1.0, 'a'), (2, 2, 'b'), (NULL, 2.00, NULL);
+> ok
+
+SELECT DISTINCT A FROM TEST ORDER BY A;
+> A
+> ----
+> null
+> 1
+> 2
+> rows (ordered): 3
+
+SELECT DISTINCT B * 1.0 FROM TEST ORDER BY 1;
+> B * 1.0
+> -------
+> 1.000
+> 2.000
+> rows (ordered): 2
+
+SELECT A, C, COUNT(*) FROM TEST GROUP BY A, C ORDER BY A;
+> A    C    COUNT(*)
+> ---- ---- --------
+> null null 1
+> 1    a    2
+> 2    b    1
+> rows (ordered): 3
+
+SELECT CAST(1 AS BIGINT) IN (SELECT DISTINCT A FROM TEST);
+>> TRUE
+
+SELECT A FROM TEST INTERSECT SELECT CAST(X AS BIGINT) FROM SYSTEM_RANGE(2, 3);
+>> 2
+
+DROP TABLE TEST;
+> ok
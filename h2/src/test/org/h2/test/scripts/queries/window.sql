@@ -230,3 +230,41 @@ SELECT SUM(A) OVER (ORDER BY A, B RANGE BETWEEN UNBOUNDED PRECEDING AND 1 FOLLOW
 
 SELECT SUM(A) OVER (GROUPS BETWEEN UNBOUNDED PRECEDING AND 1 FOLLOWING) S FROM VALUES (1, 2) T(A, B);
 > exception SYNTAX_ERROR_2
+
+CREATE TABLE TEST(ID INT PRIMARY KEY, K INT, V INT) AS SELECT X, X / 3,
+    CASE WHEN MOD(X, 7) = 0 THEN NULL ELSE MOD(X * 37, 101) - 50 END FROM SYSTEM_RANGE(1, 200);
+> ok
+
+SELECT ID, V, SUM(V) OVER W S, MIN(V) OVER W MN, MAX(V) OVER W MX, COUNT(V) OVER W C FROM TEST
+    WHERE ID BETWEEN 5 AND 9 WINDOW W AS (ORDER BY ID ROWS BETWEEN 2 PRECEDING AND CURRENT ROW);
+> ID V    S  MN  MX C
+> -- ---- -- --- -- -
+> 5  34   34 34  34 1
+> 6  -30  4  -30 34 2
+> 7  null 4  -30 34 2
+> 8  44   14 -30 44 2
+> 9  -20  24 -20 44 2
+> rows: 5
+
+SELECT COUNT(*) FROM (SELECT T.*,
+    SUM(V) OVER (ORDER BY ID ROWS BETWEEN 3 PRECEDING AND 1 FOLLOWING) S,
+    MIN(V) OVER (ORDER BY ID ROWS BETWEEN 3 PRECEDING AND 1 FOLLOWING) MN,
+    MAX(V) FILTER (WHERE V < 40) OVER (ORDER BY ID ROWS BETWEEN 3 PRECEDING AND 1 FOLLOWING) MX,
+    COUNT(V) OVER (ORDER BY ID ROWS BETWEEN 1 FOLLOWING AND 4 FOLLOWING) C,
+    COUNT(*) OVER (ORDER BY ID ROWS BETWEEN 1 FOLLOWING AND 4 FOLLOWING) CA,
+    AVG(CAST(V AS NUMERIC(10, 2))) OVER (ORDER BY K RANGE BETWEEN 5 PRECEDING AND 2 PRECEDING) A,
+    MAX(V) OVER (ORDER BY K RANGE BETWEEN 5 PRECEDING AND 2 PRECEDING) MXR,
+    SUM(V) OVER (ORDER BY K GROUPS BETWEEN 1 PRECEDING AND 1 FOLLOWING) SG
+    FROM TEST T) T WHERE
+    S IS DISTINCT FROM (SELECT SUM(V) FROM TEST T2 WHERE T2.ID BETWEEN T.ID - 3 AND T.ID + 1)
+    OR MN IS DISTINCT FROM (SELECT MIN(V) FROM TEST T2 WHERE T2.ID BETWEEN T.ID - 3 AND T.ID + 1)
+    OR MX IS DISTINCT FROM (SELECT MAX(V) FROM TEST T2 WHERE T2.ID BETWEEN T.ID - 3 AND T.ID + 1 AND V < 40)
+    OR C IS DISTINCT FROM (SELECT COUNT(V) FROM TEST T2 WHERE T2.ID BETWEEN T.ID + 1 AND T.ID + 4)
+    OR CA IS DISTINCT FROM (SELECT COUNT(*) FROM TEST T2 WHERE T2.ID BETWEEN T.ID + 1 AND T.ID + 4)
+    OR A IS DISTINCT FROM (SELECT AVG(CAST(V AS NUMERIC(10, 2))) FROM TEST T2 WHERE T2.K BETWEEN T.K - 5 AND T.K - 2)
+    OR MXR IS DISTINCT FROM (SELECT MAX(V) FROM TEST T2 WHERE T2.K BETWEEN T.K - 5 AND T.K - 2)
+    OR SG IS DISTINCT FROM (SELECT SUM(V) FROM TEST T2 WHERE T2.K BETWEEN T.K - 1 AND T.K + 1);
+>> 0
+
+DROP TABLE TEST;
+> ok
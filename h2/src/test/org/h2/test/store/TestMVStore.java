@@ -14,7 +14,9 @@ import java.util.Map.Entry;
 import java.util.NoSuchElementException;
 import java.util.Random;
 import java.util.TreeMap;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 import org.h2.mvstore.Chunk;
@@ -31,6 +33,7 @@ import org.h2.mvstore.type.StringDataType;
 import org.h2.store.fs.FilePath;
 import org.h2.store.fs.FileUtils;
 import org.h2.test.TestBase;
+import org.h2.util.Task;
 import org.h2.util.Utils;
 
 /**
@@ -69,11 +72,13 @@ public class TestMVStore extends TestBase {
         testOffHeapStorage();
         testNewerWriteVersion();
         testCompactFully();
+        testMemoryMapped();
         testBackgroundExceptionListener();
         testOldVersion();
         testAtomicOperations();
         testWriteBuffer();
         testWriteDelay();
+        testCommitAndWait();
         testEncryptedFile();
         testFileFormatChange();
         testRecreateMap();
@@ -426,7 +431,7 @@ public class TestMVStore extends TestBase {
         Map<String, Object> header = s.getStoreHeader();
         assertEquals("2", header.get("format").toString());
         header.put("formatRead", "2");
-        header.put("format", "3");
+        header.put("format", "4");
         forceWriteStoreHeader(s);
         MVMap<Integer, String> m = s.openMap("data");
         forceWriteStoreHeader(s);
@@ -492,6 +497,47 @@ public class TestMVStore extends TestBase {
         assertTrue("old: " + sizeOld + " new: " + sizeNew, sizeNew < sizeOld);
     }
 
+    private void testMemoryMapped() {
+        String fileName = getBaseDir() + "/" + getTestName();
+        FileUtils.delete(fileName);
+        try (MVStore s = new MVStore.Builder().fileName(fileName).autoCommitDisabled().open()) {
+            for (int i = 0; i < 100; i++) {
+                MVMap<Integer, String> m = s.openMap("data" + i);
+                for (int j = 0; j < 100; j++) {
+                    m.put(j, "Hello " + i + " " + j);
+                }
+                s.commit();
+            }
+        }
+        try (MVStore s = new MVStore.Builder().fileName(fileName).memoryMapped().cacheSize(0).
+                autoCommitDisabled().open()) {
+            s.setRetentionTime(0);
+            s.setVersionsToKeep(0);
+            FileStore fs = s.getFileStore();
+            assertTrue(fs.isMemoryMapped());
+            for (int i = 0; i < 100; i += 2) {
+                s.removeMap(s.openMap("data" + i));
+                s.commit();
+            }
+            for (int i = 1; i < 100; i += 2) {
+                MVMap<Integer, String> m = s.openMap("data" + i);
+                for (int j = 0; j < 100; j++) {
+                    assertEquals("Hello " + i + " " + j, m.get(j));
+                }
+            }
+            assertTrue(fs.getMappedChunkCount() > 0);
+            long sizeOld = fs.size();
+            s.compactMoveChunks();
+            assertTrue(fs.size() < sizeOld);
+            for (int i = 1; i < 100; i += 2) {
+                MVMap<Integer, String> m = s.openMap("data" + i);
+                for (int j = 0; j < 100; j++) {
+                    assertEquals("Hello " + i + " " + j, m.get(j));
+                }
+            }
+        }
+    }
+
     private void testBackgroundExceptionListener() throws Exception {
         String fileName = getBaseDir() + "/" + getTestName();
         FileUtils.delete(fileName);
@@ -600,6 +646,62 @@ public class TestMVStore extends TestBase {
         FileUtils.delete(fileName);
     }
 
+    private void testCommitAndWait() throws Exception {
+        String fileName = getBaseDir() + "/" + getTestName();
+        FileUtils.delete(fileName);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicBoolean block = new AtomicBoolean();
+        FileStore fileStore = new FileStore() {
+
+            @Override
+            public void writeFully(long pos, ByteBuffer src) {
+                if (block.get()) {
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        throw new RuntimeException(e);
+                    }
+                }
+                super.writeFully(pos, src);
+            }
+        };
+        FileUtils.createDirectories(getBaseDir());
+        fileStore.open(fileName, false, null);
+        MVStore s = new MVStore.Builder().
+                fileStore(fileStore).
+                open();
+        // the background writer stores asynchronously, but does not store
+        // by itself during this test
+        s.setAutoCommitDelay(100_000);
+        MVMap<Integer, String> m = s.openMap("data");
+        m.put(1, "Hello");
+        s.commit();
+        long writeCount = fileStore.getWriteCount();
+        block.set(true);
+        m.put(2, "World");
+        s.tryCommit();
+        Task task = new Task() {
+            @Override
+            public void call() {
+                s.commitAndWait();
+            }
+        }.execute();
+        sleep(100);
+        // the asynchronous store is not written yet
+        assertFalse(task.isFinished());
+        assertEquals(writeCount, fileStore.getWriteCount());
+        release.countDown();
+        task.get();
+        assertTrue(fileStore.getWriteCount() > writeCount);
+        s.close();
+        fileStore.close();
+        try (MVStore s2 = new MVStore.Builder().
+                fileName(fileName).
+                open()) {
+            assertEquals("World", s2.<Integer, String>openMap("data").get(2));
+        }
+    }
+
     private void testWriteDelay() {
         String fileName = getBaseDir() + "/" + getTestName();
         FileUtils.delete(fileName);
@@ -718,7 +820,7 @@ public class TestMVStore extends TestBase {
             Map<String, Object> header = s.getStoreHeader();
             int format = Integer.parseInt(header.get("format").toString());
             assertEquals(2, format);
-            header.put("format", Integer.toString(format + 1));
+            header.put("format", Integer.toString(format + 2));
             forceWriteStoreHeader(s);
         }
         assertThrows(DataUtils.ERROR_UNSUPPORTED_FORMAT, () -> openStore(fileName).close());
@@ -98,6 +98,7 @@ public class TestMVTableEngine extends TestDb {
         testReuseDiskSpace();
 */
         testDataTypes();
+        testColumnarPages();
 //        testSimple();
 //        if (!config.travis) {
 //            testReverseDeletePerformance();
@@ -1117,6 +1118,80 @@ public class TestMVTableEngine extends TestDb {
         }
     }
 
+    private void testColumnarPages() throws Exception {
+        if (config.memory) {
+            return;
+        }
+        deleteDb(getTestName());
+        String dbName = getTestName() + ";COLUMNAR_PAGES=TRUE";
+        Connection conn = getConnection(dbName);
+        Statement stat = conn.createStatement();
+        stat.execute("create table test(id bigint primary key, status varchar, amount int, t tinyint, "
+                + "name varchar, d decimal(10, 2))");
+        stat.execute("insert into test select x, case mod(x, 3) when 0 then 'active' when 1 then 'closed' end, "
+                + "mod(x * 7, 1000) - 500, mod(x, 100), 'name ' || x, x / 7.0 from system_range(1, 10000)");
+        stat.execute("update test set amount = null where mod(id, 1000) = 0");
+        stat.execute("update test set t = 127, amount = " + Integer.MIN_VALUE + " where id = 5");
+        stat.execute("update test set id = " + Long.MAX_VALUE + " where id = 6");
+        conn.close();
+        String query = "select count(*), sum(id), count(status), sum(length(status)), sum(amount), count(amount), "
+                + "sum(t), max(t), sum(length(name)), sum(d) from test";
+        String expected = "10000 9223372036904780801 6667 40002 -2147483183 9990 495122 127 88894 7143571.43";
+        conn = getConnection(getTestName());
+        stat = conn.createStatement();
+        assertEquals(expected, getRow(stat, query));
+        conn.close();
+        String fileName = getBaseDir() + "/" + getTestName() + Constants.SUFFIX_MV_FILE;
+        try (MVStore s = new MVStore.Builder().fileName(fileName).readOnly().open()) {
+            assertEquals("3", s.getStoreHeader().get("format"));
+        }
+        conn = getConnection(dbName);
+        stat = conn.createStatement();
+        stat.execute("shutdown defrag");
+        try (MVStore s = new MVStore.Builder().fileName(fileName).readOnly().open()) {
+            assertEquals("3", s.getStoreHeader().get("format"));
+        }
+        long columnarLength = FileUtils.size(fileName);
+        // pages are converted back to row layout
+        conn = getConnection(getTestName());
+        stat = conn.createStatement();
+        stat.execute("shutdown defrag");
+        try (MVStore s = new MVStore.Builder().fileName(fileName).readOnly().open()) {
+            assertEquals("2", s.getStoreHeader().get("format"));
+        }
+        long rowLength = FileUtils.size(fileName);
+        assertTrue(columnarLength < rowLength);
+        conn = getConnection(getTestName());
+        stat = conn.createStatement();
+        assertEquals(expected, getRow(stat, query));
+        conn.close();
+        // and to columnar layout again
+        conn = getConnection(dbName);
+        stat = conn.createStatement();
+        stat.execute("shutdown defrag");
+        try (MVStore s = new MVStore.Builder().fileName(fileName).readOnly().open()) {
+            assertEquals("3", s.getStoreHeader().get("format"));
+        }
+        assertTrue(FileUtils.size(fileName) < rowLength);
+        conn = getConnection(getTestName());
+        stat = conn.createStatement();
+        assertEquals(expected, getRow(stat, query));
+        conn.close();
+    }
+
+    private static String getRow(Statement stat, String query) throws SQLException {
+        ResultSet rs = stat.executeQuery(query);
+        rs.next();
+        StringBuilder builder = new StringBuilder();
+        for (int i = 1, l = rs.getMetaData().getColumnCount(); i <= l; i++) {
+            if (i > 1) {
+                builder.append(' ');
+            }
+            builder.append(rs.getString(i));
+        }
+        return builder.toString();
+    }
+
     private void testDataTypes() throws Exception {
         deleteDb(getTestName());
         String dbName = getTestName() + ";MV_STORE=TRUE";
@@ -0,0 +1,155 @@
+/*
+ * Copyright 2004-2022 H2 Group. Multiple-Licensed under the MPL 2.0,
+ * and the EPL 1.0 (https://h2database.com/html/license.html).
+ * Initial Developer: H2 Group
+ */
+package org.h2.test.store;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import org.h2.mvstore.DataUtils;
+import org.h2.mvstore.MVMap;
+import org.h2.mvstore.MVStore;
+import org.h2.mvstore.cache.OffHeapPageCache;
+import org.h2.store.fs.FileUtils;
+import org.h2.test.TestBase;
+
+/**
+ * Tests the off-heap page cache.
+ */
+public class TestOffHeapPageCache extends TestBase {
+
+    /**
+     * Run just this test.
+     *
+     * @param a ignored
+     */
+    public static void main(String... a) throws Exception {
+        TestBase.createCaller().init().testFromMain();
+    }
+
+    @Override
+    public void test() throws Exception {
+        testGetPut();
+        testRemoveChunk();
+        testEviction();
+        testSecondChance();
+        testStore();
+    }
+
+    private void testGetPut() {
+        OffHeapPageCache cache = new OffHeapPageCache(1024 * 1024, 4);
+        byte[] compressible = new byte[1000];
+        byte[] random = new byte[1000];
+        new Random(1).nextBytes(random);
+        long pos1 = DataUtils.getPagePos(1, 100, 1000, 0);
+        long pos2 = DataUtils.getPagePos(1, 2000, 1000, 0);
+        assertNull(cache.get(pos1));
+        cache.put(pos1, ByteBuffer.wrap(compressible));
+        cache.put(pos2, ByteBuffer.wrap(random));
+        assertEquals(2, cache.size());
+        assertTrue(cache.getUsedMemory() < 2000);
+        assertEquals(compressible, toArray(cache.get(pos1)));
+        assertEquals(random, toArray(cache.get(pos2)));
+        assertEquals(2, cache.getHits());
+        assertEquals(1, cache.getMisses());
+        ByteBuffer direct = ByteBuffer.allocateDirect(1010);
+        direct.position(10);
+        direct.put(random);
+        direct.position(10);
+        long pos3 = DataUtils.getPagePos(2, 100, 1000, 0);
+        cache.put(pos3, direct);
+        assertEquals(random, toArray(cache.get(pos3)));
+        cache.clear();
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.getUsedMemory());
+        assertNull(cache.get(pos1));
+    }
+
+    private void testRemoveChunk() {
+        OffHeapPageCache cache = new OffHeapPageCache(1024 * 1024, 2);
+        for (int chunk = 1; chunk <= 3; chunk++) {
+            for (int i = 0; i < 10; i++) {
+                cache.put(DataUtils.getPagePos(chunk, i * 100, 100, 0), ByteBuffer.wrap(new byte[100]));
+            }
+        }
+        assertEquals(30, cache.size());
+        cache.removeChunk(2);
+        assertEquals(20, cache.size());
+        assertNull(cache.get(DataUtils.getPagePos(2, 0, 100, 0)));
+        assertNotNull(cache.get(DataUtils.getPagePos(1, 0, 100, 0)));
+        // a reused chunk id does not return the old content
+        byte[] data = new byte[100];
+        data[0] = 1;
+        cache.put(DataUtils.getPagePos(2, 0, 100, 0), ByteBuffer.wrap(data));
+        assertEquals(data, toArray(cache.get(DataUtils.getPagePos(2, 0, 100, 0))));
+    }
+
+    private void testEviction() {
+        OffHeapPageCache cache = new OffHeapPageCache(1024 * 1024, 1);
+        Random r = new Random(1);
+        for (int i = 0; i < 2000; i++) {
+            byte[] data = new byte[2000];
+            r.nextBytes(data);
+            cache.put(DataUtils.getPagePos(i, 0, 2000, 0), ByteBuffer.wrap(data));
+        }
+        assertTrue(cache.getUsedMemory() <= cache.getMaxMemory());
+        assertTrue(cache.size() < 2000);
+        assertNull(cache.get(DataUtils.getPagePos(0, 0, 2000, 0)));
+        assertNotNull(cache.get(DataUtils.getPagePos(1999, 0, 2000, 0)));
+    }
+
+    private void testSecondChance() {
+        OffHeapPageCache cache = new OffHeapPageCache(1024 * 1024, 1);
+        Random r = new Random(1);
+        byte[] hot = new byte[2000];
+        r.nextBytes(hot);
+        long hotPos = DataUtils.getPagePos(100_000, 0, 2000, 0);
+        cache.put(hotPos, ByteBuffer.wrap(hot));
+        for (int i = 0; i < 10_000; i++) {
+            byte[] data = new byte[2000];
+            r.nextBytes(data);
+            cache.put(DataUtils.getPagePos(i, 0, 2000, 0), ByteBuffer.wrap(data));
+            if (i % 100 == 0) {
+                assertEquals(hot, toArray(cache.get(hotPos)));
+            }
+        }
+        assertEquals(hot, toArray(cache.get(hotPos)));
+    }
+
+    private void testStore() {
+        FileUtils.createDirectories(getBaseDir());
+        String fileName = getBaseDir() + "/" + getTestName();
+        FileUtils.delete(fileName);
+        try (MVStore s = new MVStore.Builder().fileName(fileName).open()) {
+            MVMap<Integer, String> m = s.openMap("data");
+            for (int i = 0; i < 10_000; i++) {
+                m.put(i, "Hello " + i);
+            }
+        }
+        try (MVStore s = new MVStore.Builder().fileName(fileName).cacheSize(0).offHeapCacheSize(4).open()) {
+            assertEquals(4, s.getOffHeapCacheSize());
+            MVMap<Integer, String> m = s.openMap("data");
+            long reads = s.getFileStore().getReadCount();
+            for (int i = 0; i < 10_000; i++) {
+                assertEquals("Hello " + i, m.get(i));
+            }
+            assertTrue(s.getFileStore().getReadCount() > reads);
+            reads = s.getFileStore().getReadCount();
+            for (int i = 0; i < 10_000; i++) {
+                assertEquals("Hello " + i, m.get(i));
+            }
+            assertEquals(reads, s.getFileStore().getReadCount());
+            assertTrue(s.getOffHeapCacheHitRatio() > 0);
+            assertTrue(s.getOffHeapCache().size() > 0);
+        }
+    }
+
+    private static byte[] toArray(ByteBuffer buff) {
+        byte[] data = new byte[buff.remaining()];
+        buff.get(data);
+        return data;
+    }
+
+}
@@ -78,7 +78,7 @@ public class TestJmx extends TestDb {
         assertEquals("0", mbeanServer.
                 getAttribute(name, "TraceLevel").toString());
         assertEquals(Constants.FULL_VERSION, mbeanServer.getAttribute(name, "Version").toString());
-        assertEquals(10, info.getAttributes().length);
+        assertEquals(12, info.getAttributes().length);
         result = mbeanServer.invoke(name, "listSettings", null, null).toString();
         assertContains(result, "ANALYZE_AUTO");
 
@@ -5,7 +5,13 @@
  */
 package org.h2.test.unit;
 
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.Writer;
 import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
 import java.math.BigDecimal;
 import java.sql.Connection;
 import java.sql.DatabaseMetaData;
@@ -71,6 +77,7 @@ public class TestPgServer extends TestDb {
         testPrepareWithUnspecifiedType();
         testOtherPgClients();
         testArray();
+        testCopy();
     }
 
     private boolean getPgJdbcDriver() {
@@ -910,4 +917,86 @@ public class TestPgServer extends TestDb {
         }
     }
 
+    private void testCopy() throws Exception {
+        if (!getPgJdbcDriver()) {
+            return;
+        }
+
+        Server server = createPgServer(
+                "-ifNotExists", "-pgPort", "5535", "-pgDaemon", "-key", "pgserver", "mem:pgserver");
+        try (
+                Connection conn = DriverManager.getConnection(
+                        "jdbc:postgresql://localhost:5535/pgserver", "sa", "sa");
+                Statement stat = conn.createStatement();
+        ) {
+            Class<?> pgConnection = Class.forName("org.postgresql.PGConnection");
+            Object copyManager = pgConnection.getMethod("getCopyAPI").invoke(conn.unwrap(pgConnection));
+            Method copyIn = copyManager.getClass().getMethod("copyIn", String.class, Reader.class);
+            Method copyOut = copyManager.getClass().getMethod("copyOut", String.class, Writer.class);
+
+            stat.execute("CREATE TABLE test (id int primary key, name varchar, x numeric(10, 2), b boolean)");
+            assertEquals(3L, copyIn.invoke(copyManager, "COPY test FROM STDIN",
+                    new StringReader("1\tHello\\tWorld\t1.5\tt\n2\t\\N\t\\N\tf\n3\tback\\\\slash\t-2\t\\N\n")));
+            try (ResultSet rs = stat.executeQuery("SELECT name, x, b FROM test ORDER BY id")) {
+                assertTrue(rs.next());
+                assertEquals("Hello\tWorld", rs.getString(1));
+                assertEquals(new BigDecimal("1.50"), rs.getBigDecimal(2));
+                assertTrue(rs.getBoolean(3));
+                assertTrue(rs.next());
+                assertNull(rs.getString(1));
+                assertNull(rs.getBigDecimal(2));
+                assertTrue(rs.next());
+                assertEquals("back\\slash", rs.getString(1));
+                assertFalse(rs.next());
+            }
+            assertEquals(2L, copyIn.invoke(copyManager, "COPY test (id, name) FROM STDIN WITH (FORMAT csv, HEADER)",
+                    new StringReader("id,name\n4,\"a,b\"\n5,\"two\nlines \"\"q\"\"\"\n")));
+            StringWriter writer = new StringWriter();
+            assertEquals(2L, copyOut.invoke(copyManager,
+                    "COPY (SELECT id, name FROM test WHERE id > 3 ORDER BY id) TO STDOUT WITH CSV HEADER", writer));
+            assertEquals("id,name\n4,\"a,b\"\n5,\"two\nlines \"\"q\"\"\"\n", writer.toString());
+            writer = new StringWriter();
+            assertEquals(5L, copyOut.invoke(copyManager, "COPY test (id, name) TO STDOUT", writer));
+            assertEquals("1\tHello\\tWorld\n2\t\\N\n3\tback\\\\slash\n4\ta,b\n5\ttwo\\nlines \"q\"\n",
+                    writer.toString());
+
+            // the failed batch is not inserted
+            try {
+                copyIn.invoke(copyManager, "COPY test (id) FROM STDIN", new StringReader("6\n1\n"));
+                fail();
+            } catch (InvocationTargetException e) {
+                assertTrue(e.getCause() instanceof SQLException);
+            }
+            try (ResultSet rs = stat.executeQuery("SELECT COUNT(*) FROM test")) {
+                assertTrue(rs.next());
+                assertEquals(5, rs.getInt(1));
+            }
+
+            stat.execute("CREATE TABLE test2 (id int primary key, name varchar)");
+            StringBuilder builder = new StringBuilder();
+            for (int i = 0; i < 5_000; i++) {
+                builder.append(i).append('\t').append("name ").append(i).append('\n');
+            }
+            assertEquals(5_000L, copyIn.invoke(copyManager, "COPY test2 FROM STDIN",
+                    new StringReader(builder.toString())));
+            writer = new StringWriter();
+            assertEquals(5_000L, copyOut.invoke(copyManager, "COPY test2 TO STDOUT", writer));
+            assertEquals(builder.toString(), writer.toString());
+
+            // UUID has no binary output
+            try {
+                copyOut.invoke(copyManager, "COPY (SELECT id, RANDOM_UUID() FROM test2) TO STDOUT WITH (FORMAT binary)",
+                        new StringWriter());
+                fail();
+            } catch (InvocationTargetException e) {
+                assertTrue(e.getCause() instanceof SQLException);
+                assertContains(e.getCause().getMessage(), "UUID");
+            }
+            writer = new StringWriter();
+            assertEquals(5L, copyOut.invoke(copyManager, "COPY test (id, name) TO STDOUT", writer));
+        } finally {
+            server.stop();
+        }
+    }
+
 }
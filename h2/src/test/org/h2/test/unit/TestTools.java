@@ -40,6 +40,7 @@ import java.util.Random;
 import java.util.UUID;
 import org.h2.api.ErrorCode;
 import org.h2.engine.SysProperties;
+import org.h2.server.TcpServer;
 import org.h2.store.FileLister;
 import org.h2.store.fs.FileUtils;
 import org.h2.test.TestBase;
@@ -95,6 +96,7 @@ public class TestTools extends TestDb {
         org.h2.Driver.load();
         testSimpleResultSet();
         testTcpServerWithoutPort();
+        testTcpServerMaxSessions();
         testConsole();
         testJdbcDriverUtils();
         testWrongServer();
@@ -129,6 +131,60 @@ public class TestTools extends TestDb {
         s1.stop();
     }
 
+    private void testTcpServerMaxSessions() throws Exception {
+        Server server = Server.createTcpServer("-ifNotExists", "-tcpVirtualThreads", "-tcpMaxSessions", "1").start();
+        try {
+            TcpServer tcpServer = (TcpServer) server.getService();
+            assertEquals(1, tcpServer.getMaxSessions());
+            String url = "jdbc:h2:tcp://localhost:" + server.getPort() + "/mem:maxSessions";
+            Connection conn = getConnection(url, "sa", "");
+            assertEquals(1, tcpServer.getActiveSessionCount());
+            assertEquals(0, tcpServer.getQueuedSessionCount());
+            Task task = new Task() {
+                @Override
+                public void call() throws Exception {
+                    try (Connection conn2 = getConnection(url, "sa", "")) {
+                        conn2.createStatement().execute("SELECT 1");
+                    }
+                }
+            }.execute();
+            while (tcpServer.getQueuedSessionCount() == 0) {
+                Thread.sleep(10);
+            }
+            assertEquals(1, tcpServer.getActiveSessionCount());
+            assertFalse(task.isFinished());
+            conn.close();
+            task.get();
+            assertEquals(0, tcpServer.getQueuedSessionCount());
+        } finally {
+            server.stop();
+        }
+        assertThrows(ErrorCode.INVALID_VALUE_2, () -> Server.createTcpServer("-tcpMaxSessions", "0"));
+        server = Server.createTcpServer("-ifNotExists", "-tcpMaxSessions", "1", "-tcpQueueTimeout", "200").start();
+        try {
+            TcpServer tcpServer = (TcpServer) server.getService();
+            String url = "jdbc:h2:tcp://localhost:" + server.getPort() + "/mem:maxSessions";
+            try (Connection conn = getConnection(url, "sa", "")) {
+                ResultSet rs = conn.createStatement().executeQuery("SELECT SETTING_NAME, SETTING_VALUE"
+                        + " FROM INFORMATION_SCHEMA.SETTINGS WHERE SETTING_NAME LIKE 'info.TCP_SERVER."
+                        + server.getPort() + ".%' ORDER BY SETTING_NAME");
+                assertTrue(rs.next());
+                assertEquals("1", rs.getString(2));
+                assertTrue(rs.next());
+                assertEquals("1", rs.getString(2));
+                assertTrue(rs.next());
+                assertEquals("0", rs.getString(2));
+                assertFalse(rs.next());
+                // the queued connection is rejected after the timeout
+                assertThrows(ErrorCode.CONNECTION_BROKEN_1, () -> getConnection(url, "sa", ""));
+                assertEquals(0, tcpServer.getQueuedSessionCount());
+                assertEquals(1, tcpServer.getActiveSessionCount());
+            }
+        } finally {
+            server.stop();
+        }
+    }
+
     private void testConsole() throws Exception {
         String old = System.getProperty(SysProperties.H2_BROWSER);
         GUIConsole c = new GUIConsole();
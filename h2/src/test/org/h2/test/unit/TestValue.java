@@ -36,6 +36,8 @@ import org.h2.test.TestDb;
 import org.h2.util.Bits;
 import org.h2.util.JdbcUtils;
 import org.h2.util.LegacyDateTimeUtils;
+import org.h2.value.CompareMode;
+import org.h2.value.DataType;
 import org.h2.value.TypeInfo;
 import org.h2.value.Value;
 import org.h2.value.ValueArray;
@@ -71,6 +73,7 @@ public class TestValue extends TestDb {
         testBinaryAndUuid();
         testCastTrim();
         testDataType();
+        testHashable();
         testArray();
         testUUID();
         testDouble(false);
@@ -158,6 +161,16 @@ public class TestValue extends TestDb {
 
     }
 
+    private void testHashable() {
+        CompareMode compareMode = CompareMode.getInstance(null, 0);
+        assertTrue(DataType.isHashable(TypeInfo.TYPE_INTEGER, compareMode));
+        assertTrue(DataType.isHashable(TypeInfo.getTypeInfo(Value.ARRAY, -1L, -1, TypeInfo.TYPE_INTEGER),
+                compareMode));
+        assertFalse(DataType.isHashable(TypeInfo.getTypeInfo(Value.ARRAY, -1L, -1, TypeInfo.TYPE_NUMERIC_BIGINT),
+                compareMode));
+        assertFalse(DataType.isHashable(TypeInfo.TYPE_ARRAY_UNKNOWN, compareMode));
+    }
+
     private void testDataType() {
         testDataType(TypeInfo.TYPE_NULL, null);
         testDataType(TypeInfo.TYPE_NULL, Void.class);
@@ -0,0 +1,62 @@
+package study.datajpa.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import study.datajpa.entity.Member;
+
+import java.util.List;
+
+/**
+ * MemberRepository 조회 경로. 매 호출마다 새 읽기 전용 트랜잭션 (= 새 영속성 컨텍스트)
+ */
+public class MemberRepositoryReadBenchmark {
+
+    private static final PageRequest PAGE = PageRequest.of(0, 20, Sort.by(Sort.Direction.DESC, "username"));
+
+    // count 쿼리까지 나감
+    @Benchmark
+    public Page<Member> findByAgePage(RepositoryState state) {
+        return state.readOnlyTx.execute(status -> {
+            Page<Member> page = state.memberRepository.findByAge(10, PAGE);
+            page.getTotalElements();
+            return page;
+        });
+    }
+
+    // limit + 1 로 가져오고 count 쿼리 없음
+    @Benchmark
+    public Slice<Member> findSliceByAge(RepositoryState state) {
+        return state.readOnlyTx.execute(status -> state.memberRepository.findSliceByAge(10, PAGE));
+    }
+
+    @Benchmark
+    public void findAllEntityGraph(RepositoryState state, Blackhole bh) {
+        state.readOnlyTx.executeWithoutResult(status -> consumeTeams(state.memberRepository.findAll(), bh));
+    }
+
+    @Benchmark
+    public void findAllFetchJoin(RepositoryState state, Blackhole bh) {
+        state.readOnlyTx.executeWithoutResult(status -> consumeTeams(state.memberRepository.findMemberFetchJoin(), bh));
+    }
+
+    // findAll(Sort) 는 엔티티 그래프가 없음 -> team 접근할 때 지연 로딩 (N + 1)
+    @Benchmark
+    public void findAllLazy(RepositoryState state, Blackhole bh) {
+        state.readOnlyTx.executeWithoutResult(status -> consumeTeams(state.memberRepository.findAll(Sort.by("id")), bh));
+    }
+
+    @Benchmark
+    public void findMemberDto(RepositoryState state, Blackhole bh) {
+        state.readOnlyTx.executeWithoutResult(status -> bh.consume(state.memberRepository.findMemberDto()));
+    }
+
+    private static void consumeTeams(List<Member> members, Blackhole bh) {
+        for (Member member : members) {
+            bh.consume(member.getTeam() == null ? null : member.getTeam().getName());
+        }
+    }
+}
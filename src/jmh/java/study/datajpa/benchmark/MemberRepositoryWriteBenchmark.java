@@ -0,0 +1,50 @@
+package study.datajpa.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import study.datajpa.entity.Member;
+
+import java.util.Collections;
+
+/**
+ * MemberRepository 쓰기 경로. flush 해서 sql 까지 실행하고 롤백 -> 데이터 크기는 그대로 유지
+ */
+@State(Scope.Thread)
+public class MemberRepositoryWriteBenchmark {
+
+    @Param({"100"})
+    public int batchSize;
+
+    @Benchmark
+    public Long save(RepositoryState state) {
+        return state.tx.execute(status -> {
+            Member member = state.memberRepository.save(new Member("saved", 30));
+            state.memberRepository.flush();
+            status.setRollbackOnly();
+            return member.getId();
+        });
+    }
+
+    // hibernate.jdbc.batch_size = 100 으로 배치 insert
+    @Benchmark
+    public int saveAll(RepositoryState state) {
+        return state.tx.execute(status -> {
+            int size = state.memberRepository.saveAll(RepositoryState.newMembers(batchSize, Collections.emptyList()))
+                    .size();
+            state.memberRepository.flush();
+            status.setRollbackOnly();
+            return size;
+        });
+    }
+
+    @Benchmark
+    public int bulkAgePlus(RepositoryState state) {
+        return state.tx.execute(status -> {
+            int count = state.memberRepository.bulkAgePlus(50);
+            status.setRollbackOnly();
+            return count;
+        });
+    }
+}
@@ -0,0 +1,77 @@
+package study.datajpa.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.DataJpaApplication;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+import study.datajpa.repository.MemberRepository;
+import study.datajpa.repository.TeamRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 벤치마크용 스프링 컨텍스트 + 임베디드 H2 (mem) 에 미리 넣어둔 팀/회원 데이터
+ */
+@State(Scope.Benchmark)
+public class RepositoryState {
+
+    @Param({"1000"})
+    public int memberCount;
+
+    @Param({"10"})
+    public int teamCount;
+
+    ConfigurableApplicationContext context;
+    MemberRepository memberRepository;
+    TransactionTemplate tx;
+    TransactionTemplate readOnlyTx;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        // application.yml 의 tcp 서버 대신 임베디드 h2, sql 로그 끔
+        context = new SpringApplicationBuilder(DataJpaApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "spring.main.banner-mode=off",
+                        "spring.datasource.url=jdbc:h2:mem:benchmark;DB_CLOSE_DELAY=-1",
+                        "spring.jpa.open-in-view=false",
+                        "logging.level.root=warn",
+                        "logging.level.org.hibernate.SQL=warn")
+                .run();
+        memberRepository = context.getBean(MemberRepository.class);
+        PlatformTransactionManager transactionManager = context.getBean(PlatformTransactionManager.class);
+        tx = new TransactionTemplate(transactionManager);
+        readOnlyTx = new TransactionTemplate(transactionManager);
+        readOnlyTx.setReadOnly(true);
+
+        TeamRepository teamRepository = context.getBean(TeamRepository.class);
+        tx.executeWithoutResult(status -> {
+            List<Team> teams = new ArrayList<>();
+            for (int i = 0; i < teamCount; i++) {
+                teams.add(new Team("team" + i));
+            }
+            teamRepository.saveAll(teams);
+            memberRepository.saveAll(newMembers(memberCount, teams));
+        });
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    static List<Member> newMembers(int count, List<Team> teams) {
+        List<Member> members = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Team team = teams.isEmpty() ? null : teams.get(i % teams.size());
+            members.add(new Member("member" + i, i % 100, team));
+        }
+        return members;
+    }
+}
@@ -0,0 +1,66 @@
+package study.datajpa.cache;
+
+import org.hibernate.boot.spi.SessionFactoryOptions;
+import org.hibernate.cache.cfg.spi.DomainDataRegionBuildingContext;
+import org.hibernate.cache.cfg.spi.DomainDataRegionConfig;
+import org.hibernate.cache.spi.support.DomainDataStorageAccess;
+import org.hibernate.cache.spi.support.RegionFactoryTemplate;
+import org.hibernate.cache.spi.support.StorageAccess;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.internal.util.config.ConfigurationHelper;
+
+import java.util.Map;
+
+/**
+ * 외부 캐시 라이브러리 없이 힙에 두는 2차 캐시 (hibernate.cache.region.factory_class 로 지정)
+ * region 마다 최대 개수를 넘으면 가장 오래 안 쓴 것부터, ttl 이 지나면 읽을 때 제거함
+ * hibernate.cache.local.max_entries, hibernate.cache.local.ttl_seconds 가 기본값이고
+ * hibernate.cache.local.{region}.max_entries 처럼 region 별로 바꿀 수 있음
+ */
+public class LocalRegionFactory extends RegionFactoryTemplate {
+
+    private static final long serialVersionUID = 1L;
+
+    public static final String PREFIX = "hibernate.cache.local.";
+    public static final String MAX_ENTRIES = "max_entries";
+    public static final String TTL_SECONDS = "ttl_seconds";
+
+    private Map<String, Object> configValues = Map.of();
+
+    @Override
+    protected void prepareForUse(SessionFactoryOptions settings, Map<String, Object> configValues) {
+        this.configValues = configValues;
+    }
+
+    @Override
+    protected void releaseFromUse() {
+        configValues = Map.of();
+    }
+
+    @Override
+    protected DomainDataStorageAccess createDomainDataStorageAccess(DomainDataRegionConfig regionConfig,
+                                                                    DomainDataRegionBuildingContext buildingContext) {
+        return createStorage(regionConfig.getRegionName());
+    }
+
+    @Override
+    protected StorageAccess createQueryResultsRegionStorageAccess(String regionName,
+                                                                  SessionFactoryImplementor sessionFactory) {
+        return createStorage(regionName);
+    }
+
+    // 테이블별 마지막 변경 시각. 지워지면 오래된 쿼리 캐시 결과가 유효한 걸로 보이니까 제한 없이 둠 (테이블 수 만큼만 쌓임)
+    @Override
+    protected StorageAccess createTimestampsRegionStorageAccess(String regionName,
+                                                                SessionFactoryImplementor sessionFactory) {
+        return new LocalStorageAccess(Integer.MAX_VALUE, 0);
+    }
+
+    private LocalStorageAccess createStorage(String regionName) {
+        int maxEntries = ConfigurationHelper.getInt(PREFIX + MAX_ENTRIES, configValues, 10_000);
+        int ttlSeconds = ConfigurationHelper.getInt(PREFIX + TTL_SECONDS, configValues, 600);
+        maxEntries = ConfigurationHelper.getInt(PREFIX + regionName + '.' + MAX_ENTRIES, configValues, maxEntries);
+        ttlSeconds = ConfigurationHelper.getInt(PREFIX + regionName + '.' + TTL_SECONDS, configValues, ttlSeconds);
+        return new LocalStorageAccess(maxEntries, ttlSeconds);
+    }
+}
@@ -0,0 +1,76 @@
+package study.datajpa.cache;
+
+import org.hibernate.cache.spi.support.DomainDataStorageAccess;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * region 하나의 저장소. access order LinkedHashMap 이라 최대 개수를 넘으면 가장 오래 안 쓴 항목이 빠짐
+ * 동시성 처리(soft lock 등)는 hibernate 의 access strategy 가 하므로 여기서는 맵만 동기화함
+ */
+class LocalStorageAccess implements DomainDataStorageAccess {
+
+    private final long ttlNanos;
+    private final Map<Object, Item> items;
+
+    LocalStorageAccess(int maxEntries, int ttlSeconds) {
+        this.ttlNanos = TimeUnit.SECONDS.toNanos(ttlSeconds);
+        this.items = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Object, Item> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    @Override
+    public synchronized Object getFromCache(Object key, SharedSessionContractImplementor session) {
+        Item item = items.get(key);
+        if (item == null) {
+            return null;
+        }
+        if (ttlNanos > 0 && System.nanoTime() - item.createdNanos > ttlNanos) {
+            items.remove(key);
+            return null;
+        }
+        return item.value;
+    }
+
+    @Override
+    public synchronized void putIntoCache(Object key, Object value, SharedSessionContractImplementor session) {
+        items.put(key, new Item(value, System.nanoTime()));
+    }
+
+    @Override
+    public boolean contains(Object key) {
+        return getFromCache(key, null) != null;
+    }
+
+    @Override
+    public synchronized void evictData() {
+        items.clear();
+    }
+
+    @Override
+    public synchronized void evictData(Object key) {
+        items.remove(key);
+    }
+
+    @Override
+    public void release() {
+        evictData();
+    }
+
+    private static final class Item {
+        private final Object value;
+        private final long createdNanos;
+
+        Item(Object value, long createdNanos) {
+            this.value = value;
+            this.createdNanos = createdNanos;
+        }
+    }
+}
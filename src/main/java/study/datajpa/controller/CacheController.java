@@ -0,0 +1,42 @@
+package study.datajpa.controller;
+
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import study.datajpa.dto.CacheStatsDto;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 2차 캐시 / 쿼리 캐시 region 별 hit, miss (actuator 의 /actuator/caches 같은 용도)
+ * hibernate.generate_statistics 가 켜져 있어야 값이 쌓임
+ */
+@RestController
+@RequiredArgsConstructor
+public class CacheController {
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    @GetMapping("/cache/stats")
+    public List<CacheStatsDto> stats() {
+        Statistics statistics = sessionFactory().getStatistics();
+        return Arrays.stream(statistics.getSecondLevelCacheRegionNames())
+                .sorted()
+                .map(region -> new CacheStatsDto(statistics.getCacheRegionStatistics(region)))
+                .toList();
+    }
+
+    @DeleteMapping("/cache")
+    public void evictAll() {
+        sessionFactory().getCache().evictAllRegions();
+    }
+
+    private SessionFactory sessionFactory() {
+        return entityManagerFactory.unwrap(SessionFactory.class);
+    }
+}
@@ -0,0 +1,50 @@
+package study.datajpa.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import study.datajpa.dto.IngestProgress;
+import study.datajpa.service.MemberBulkIngestService;
+import study.datajpa.service.MemberExportService;
+
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+
+@RestController
+@RequiredArgsConstructor
+public class MemberController {
+
+    private final MemberExportService memberExportService;
+    private final MemberBulkIngestService memberBulkIngestService;
+
+    // 응답을 다 만들지 않고 읽는 대로 바로 내려보냄
+    @GetMapping(value = "/members/export", produces = "application/x-ndjson")
+    public StreamingResponseBody exportMembers() {
+        return memberExportService::exportMembers;
+    }
+
+    // 요청 body 도 chunk 크기만큼씩 읽으면서 적재
+    @PostMapping(value = "/members/import", consumes = "text/csv")
+    public IngestProgress importMembersCsv(InputStream body,
+                                           @RequestParam(defaultValue = "" + MemberBulkIngestService.DEFAULT_CHUNK_SIZE) int chunkSize) {
+        return memberBulkIngestService.ingestCsv(new InputStreamReader(body, StandardCharsets.UTF_8), chunkSize);
+    }
+
+    @PostMapping(value = "/members/import", consumes = {"application/json", "application/x-ndjson"})
+    public IngestProgress importMembersJson(InputStream body,
+                                            @RequestParam(defaultValue = "" + MemberBulkIngestService.DEFAULT_CHUNK_SIZE) int chunkSize) {
+        return memberBulkIngestService.ingestJson(body, chunkSize);
+    }
+
+    // 적재 중에 rows, rowsPerSecond 확인
+    @GetMapping("/members/import/progress")
+    public ResponseEntity<IngestProgress> importProgress() {
+        IngestProgress progress = memberBulkIngestService.getProgress();
+        return progress == null ? ResponseEntity.notFound().build() : ResponseEntity.ok(progress);
+    }
+}
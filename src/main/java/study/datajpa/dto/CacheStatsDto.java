@@ -0,0 +1,26 @@
+package study.datajpa.dto;
+
+import lombok.Data;
+import org.hibernate.stat.CacheRegionStatistics;
+
+@Data
+public class CacheStatsDto {
+
+    private String region;
+    private long hitCount;
+    private long missCount;
+    private long putCount;
+
+    public CacheStatsDto(CacheRegionStatistics statistics) {
+        this.region = statistics.getRegionName();
+        this.hitCount = statistics.getHitCount();
+        this.missCount = statistics.getMissCount();
+        this.putCount = statistics.getPutCount();
+    }
+
+    // 조회가 없었으면 0
+    public double getHitRatio() {
+        long total = hitCount + missCount;
+        return total == 0 ? 0 : (double) hitCount / total;
+    }
+}
@@ -0,0 +1,38 @@
+package study.datajpa.dto;
+
+import lombok.Getter;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * bulk ingest 진행 상황. 적재 중에 다른 스레드에서 조회함
+ */
+public class IngestProgress {
+
+    @Getter private final long startedAt = System.currentTimeMillis();
+    private final long startNanos = System.nanoTime();
+    @Getter private volatile long rows;
+    @Getter private volatile long chunks;
+    private volatile long elapsedNanos;
+    @Getter private volatile boolean finished;
+
+    public void chunkWritten(int chunkRows) {
+        rows += chunkRows;
+        chunks++;
+        elapsedNanos = System.nanoTime() - startNanos;
+    }
+
+    public void finish() {
+        elapsedNanos = System.nanoTime() - startNanos;
+        finished = true;
+    }
+
+    public long getElapsedMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(finished ? elapsedNanos : System.nanoTime() - startNanos);
+    }
+
+    public double getRowsPerSecond() {
+        long nanos = finished ? elapsedNanos : System.nanoTime() - startNanos;
+        return nanos == 0 ? 0 : rows * 1e9 / nanos;
+    }
+}
@@ -0,0 +1,36 @@
+package study.datajpa.dto;
+
+import lombok.Getter;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * keyset 페이징 결과. 다음 페이지는 nextCursor 로 요청 (마지막 페이지면 null), 전체 count 는 없음
+ */
+@Getter
+public class KeysetSlice<T> {
+
+    private final List<T> content;
+    private final String nextCursor;
+
+    public KeysetSlice(List<T> content, String nextCursor) {
+        this.content = content;
+        this.nextCursor = nextCursor;
+    }
+
+    public boolean hasNext() {
+        return nextCursor != null;
+    }
+
+    /**
+     * @param rows size + 1 개까지 조회한 결과, 하나 더 있으면 다음 페이지가 있음
+     */
+    public static <T> KeysetSlice<T> of(List<T> rows, int size, Function<T, String> cursorOf) {
+        if (rows.size() <= size) {
+            return new KeysetSlice<>(rows, null);
+        }
+        List<T> content = rows.subList(0, size);
+        return new KeysetSlice<>(content, cursorOf.apply(content.get(size - 1)));
+    }
+}
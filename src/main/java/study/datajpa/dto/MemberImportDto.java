@@ -0,0 +1,22 @@
+package study.datajpa.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * bulk ingest 입력 한 행. teamname 이 없으면 팀 없는 회원
+ */
+@Data
+@NoArgsConstructor
+public class MemberImportDto {
+
+    private String username;
+    private int age;
+    private String teamname;
+
+    public MemberImportDto(String username, int age, String teamname) {
+        this.username = username;
+        this.age = age;
+        this.teamname = teamname;
+    }
+}
@@ -2,8 +2,15 @@ package study.datajpa.entity;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 @Entity
+// keyset 페이징 정렬 키 (username desc, member_id desc) 로 인덱스 -> (username, member_id) < (?, ?) 가 인덱스 범위 조회
+@Table(indexes = @Index(name = "idx_member_username_id", columnList = "username desc, member_id desc"))
+// 쿼리 캐시는 id 만 저장하니 엔티티도 캐시해야 hit 때 select 가 안 나감, 벌크 update 하면 region 전체가 지워짐
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "member")
 @Getter @Setter
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
 @ToString(of={"id","username","age"})
@@ -2,8 +2,11 @@ package study.datajpa.repository;
 
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import study.datajpa.dto.KeysetSlice;
+import study.datajpa.dto.MemberCursor;
 import study.datajpa.entity.Member;
 
 import java.util.List;
@@ -60,6 +63,27 @@ public class MemberJpaRepository {
                 .getResultList();
     }
 
+    // keyset paging query : cursor 가 null 이면 첫 페이지
+    public KeysetSlice<Member> findByKeyset(int age, String cursor, int limit){
+        TypedQuery<Member> query;
+        if (cursor == null) {
+            query = em.createQuery("select m from Member m where m.age = :age"
+                    + " order by m.username desc, m.id desc", Member.class);
+        } else {
+            MemberCursor last = MemberCursor.decode(cursor);
+            query = em.createQuery("select m from Member m where m.age = :age"
+                    + " and (m.username, m.id) < (:username, :id)"
+                    + " order by m.username desc, m.id desc", Member.class)
+                    .setParameter("username", last.getUsername())
+                    .setParameter("id", last.getId());
+        }
+        List<Member> members = query
+                .setParameter("age", age)
+                .setMaxResults(limit + 1)
+                .getResultList();
+        return KeysetSlice.of(members, limit, m -> MemberCursor.of(m).encode());
+    }
+
     public long totalCount(int age){
         return em.createQuery("select count(m) from Member m where m.age = :age", Long.class)
                 .setParameter("age", age)
@@ -4,15 +4,19 @@ import jakarta.persistence.Entity;
 import jakarta.persistence.LockModeType;
 import jakarta.persistence.QueryHint;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.*;
 import org.springframework.data.repository.query.Param;
+import study.datajpa.dto.KeysetSlice;
+import study.datajpa.dto.MemberCursor;
 import study.datajpa.dto.MemberDto;
 import study.datajpa.entity.Member;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface MemberRepository extends JpaRepository<Member,Long> {
 
@@ -38,7 +42,16 @@ public interface MemberRepository extends JpaRepository<Member,Long> {
     List<Member> findByNames(@Param("names") List<String> names);
 
     List<Member> findListByUsername(String username); // collection
+    // 자주 쓰는 단건 조회는 쿼리 캐시 (결과 id 만 저장, member 테이블이 바뀌면 무효화)
+    @QueryHints({
+            @QueryHint(name = "org.hibernate.cacheable", value = "true"),
+            @QueryHint(name = "org.hibernate.cacheRegion", value = "member-by-username")
+    })
     Member findMemberByUsername(String username); // 단건
+    @QueryHints({
+            @QueryHint(name = "org.hibernate.cacheable", value = "true"),
+            @QueryHint(name = "org.hibernate.cacheRegion", value = "member-by-username")
+    })
     Optional<Member> findOptionalByUsername(String username); // 단건 optional
 
     // count query는 조인 할 필요가 없으니 따로 분리할 수 있음
@@ -47,6 +60,29 @@ public interface MemberRepository extends JpaRepository<Member,Long> {
 
     Slice<Member> findSliceByAge(int age, Pageable pageable);
 
+    // keyset 페이징 : offset 만큼 읽고 버리지 않고 마지막 (username, id) 다음부터 인덱스로 바로 읽음, count 쿼리 없음
+    @Query("select m from Member m where m.age = :age order by m.username desc, m.id desc")
+    List<Member> findFirstKeysetByAge(@Param("age") int age, Pageable pageable);
+
+    @Query("select m from Member m where m.age = :age and (m.username, m.id) < (:username, :id)"
+            + " order by m.username desc, m.id desc")
+    List<Member> findNextKeysetByAge(@Param("age") int age, @Param("username") String username,
+                                     @Param("id") Long id, Pageable pageable);
+
+    // cursor 가 null 이면 첫 페이지
+    default KeysetSlice<Member> findKeysetByAge(int age, String cursor, int size) {
+        // 하나 더 가져와서 다음 페이지가 있는지 확인
+        Pageable limit = PageRequest.of(0, size + 1);
+        List<Member> members;
+        if (cursor == null) {
+            members = findFirstKeysetByAge(age, limit);
+        } else {
+            MemberCursor last = MemberCursor.decode(cursor);
+            members = findNextKeysetByAge(age, last.getUsername(), last.getId(), limit);
+        }
+        return KeysetSlice.of(members, size, m -> MemberCursor.of(m).encode());
+    }
+
     // modifying 어노테이션 있어야 jparepo 의 executeUpdate 실행함 .
     @Modifying //(clearAutomatically = true)
     @Query("update Member m set m.age = m.age +10 where m.age >= :age")
@@ -72,6 +108,20 @@ public interface MemberRepository extends JpaRepository<Member,Long> {
     @QueryHints(value = @QueryHint(name = "org.hibernate.readOnly", value = "true"))
     Member findReadOnlyByUsername(String username);
 
+    // 스트리밍 조회 : 전체를 List 로 올리지 않고 fetchSize 만큼씩 읽음, 트랜잭션 안에서 쓰고 close 해야됨
+    // fetchSize 가 있으면 h2 도 결과를 다 만들지 않고 lazy 로 실행함
+    @QueryHints({
+            @QueryHint(name = "org.hibernate.fetchSize", value = "100"),
+            @QueryHint(name = "org.hibernate.readOnly", value = "true")
+    })
+    @Query("select m from Member m order by m.id")
+    Stream<Member> streamAllBy();
+
+    // dto 는 영속성 컨텍스트에 안 쌓임
+    @QueryHints(@QueryHint(name = "org.hibernate.fetchSize", value = "100"))
+    @Query("select new study.datajpa.dto.MemberDto(m.id, m.username, t.name) from Member m left join m.team t order by m.id")
+    Stream<MemberDto> streamMemberDto();
+
     // select for update
     @Lock(LockModeType.PESSIMISTIC_WRITE)
     List<Member> findLockByUsername(String username);
@@ -0,0 +1,292 @@
+package study.datajpa.service;
+
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.StatelessSession;
+import org.hibernate.cache.spi.TimestampsCache;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.metamodel.MappingMetamodel;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.dto.IngestProgress;
+import study.datajpa.dto.MemberImportDto;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * 대량 회원 적재. em.persist 를 한 건씩 하지 않고 chunk 단위로 jdbc batch insert 함
+ * - 입력은 chunk 크기만큼만 메모리에 올림 (csv, json 배열, ndjson)
+ * - id 는 hibernate 와 같은 시퀀스에서 chunk 에 필요한 만큼 한 번에 받아옴
+ * - chunk 마다 커밋, 영속성 컨텍스트를 안 쓰니 flush/clear 할 게 없음
+ * - hibernate 를 거치지 않으니 커밋 전후로 member, team 테이블의 update timestamp 를 직접 갱신함 (쿼리 캐시 무효화)
+ */
+@Service
+public class MemberBulkIngestService {
+
+    public static final int DEFAULT_CHUNK_SIZE = 1000;
+
+    // @GeneratedValue 기본 allocationSize. 시퀀스 값 v 하나가 id (v - 49) ~ v 를 예약함 (hibernate pooled optimizer)
+    static final int ALLOCATION_SIZE = 50;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final SessionFactoryImplementor sessionFactory;
+    private final String[] querySpaces;
+
+    private volatile IngestProgress progress;
+
+    public MemberBulkIngestService(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                                   ObjectMapper objectMapper, EntityManagerFactory entityManagerFactory) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.objectMapper = objectMapper;
+        this.sessionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+        MappingMetamodel metamodel = sessionFactory.getMappingMetamodel();
+        Set<String> spaces = new LinkedHashSet<>();
+        for (Class<?> entity : List.of(Member.class, Team.class)) {
+            for (Object space : metamodel.getEntityDescriptor(entity).getQuerySpaces()) {
+                spaces.add((String) space);
+            }
+        }
+        this.querySpaces = spaces.toArray(new String[0]);
+    }
+
+    /**
+     * 마지막으로 시작한 적재의 진행 상황, 적재한 적 없으면 null
+     */
+    public IngestProgress getProgress() {
+        return progress;
+    }
+
+    /**
+     * username,age,teamname 형식의 csv. 첫 줄이 헤더면 건너뜀, teamname 은 비워도 됨
+     */
+    public IngestProgress ingestCsv(Reader reader, int chunkSize) {
+        BufferedReader in = reader instanceof BufferedReader ? (BufferedReader) reader : new BufferedReader(reader);
+        return ingest(new CsvIterator(in), chunkSize);
+    }
+
+    /**
+     * json 배열 또는 한 줄에 하나씩 있는 json 객체 (ndjson)
+     */
+    public IngestProgress ingestJson(InputStream in, int chunkSize) {
+        try (MappingIterator<MemberImportDto> rows = objectMapper.readerFor(MemberImportDto.class).readValues(in)) {
+            return ingest(rows, chunkSize);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public IngestProgress ingest(Iterator<MemberImportDto> rows, int chunkSize) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("chunkSize: " + chunkSize);
+        }
+        IngestProgress current = new IngestProgress();
+        progress = current;
+        IdBlocks memberIds = new IdBlocks("member_seq");
+        IdBlocks teamIds = new IdBlocks("team_seq");
+        Map<String, Long> teams = new HashMap<>();
+        List<MemberImportDto> chunk = new ArrayList<>(chunkSize);
+        while (rows.hasNext()) {
+            chunk.add(rows.next());
+            if (chunk.size() == chunkSize) {
+                writeChunk(chunk, memberIds, teamIds, teams);
+                current.chunkWritten(chunk.size());
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            writeChunk(chunk, memberIds, teamIds, teams);
+            current.chunkWritten(chunk.size());
+        }
+        current.finish();
+        return current;
+    }
+
+    private void writeChunk(List<MemberImportDto> chunk, IdBlocks memberIds, IdBlocks teamIds,
+                            Map<String, Long> teams) {
+        // 새로 넣은 회원/팀이 캐시된 username 조회 결과에 안 보이는 걸 막음. 엔티티 캐시는 새 id 라 상관없음
+        // native update 처럼 커밋 전에는 캐시된 결과를 아예 안 쓰게 하고 (preInvalidate) 커밋 후 시각으로 다시 갱신함
+        TimestampsCache timestamps = sessionFactory.getCache().getTimestampsCache();
+        try (StatelessSession session = sessionFactory.openStatelessSession()) {
+            SharedSessionContractImplementor sessionImplementor = (SharedSessionContractImplementor) session;
+            timestamps.preInvalidate(querySpaces, sessionImplementor);
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    resolveTeams(chunk, teamIds, teams);
+                    long[] ids = memberIds.next(chunk.size());
+                    jdbcTemplate.batchUpdate(
+                            "insert into member (member_id, age, team_id, username) values (?, ?, ?, ?)",
+                            chunk, chunk.size(), new ParameterSetter(ids, teams));
+                });
+            } finally {
+                timestamps.invalidate(querySpaces, sessionImplementor);
+            }
+        }
+    }
+
+    private void resolveTeams(List<MemberImportDto> chunk, IdBlocks teamIds, Map<String, Long> teams) {
+        Set<String> missing = new LinkedHashSet<>();
+        for (MemberImportDto row : chunk) {
+            if (row.getTeamname() != null && !teams.containsKey(row.getTeamname())) {
+                missing.add(row.getTeamname());
+            }
+        }
+        if (missing.isEmpty()) {
+            return;
+        }
+        namedJdbcTemplate.query("select name, min(team_id) from team where name in (:names) group by name",
+                new MapSqlParameterSource("names", missing), rs -> {
+                    String name = rs.getString(1);
+                    teams.put(name, rs.getLong(2));
+                    missing.remove(name);
+                });
+        if (missing.isEmpty()) {
+            return;
+        }
+        long[] ids = teamIds.next(missing.size());
+        List<Object[]> args = new ArrayList<>(missing.size());
+        int i = 0;
+        for (String name : missing) {
+            teams.put(name, ids[i]);
+            args.add(new Object[] {ids[i++], name});
+        }
+        jdbcTemplate.batchUpdate("insert into team (team_id, name) values (?, ?)", args);
+    }
+
+    private static final class ParameterSetter implements ParameterizedPreparedStatementSetter<MemberImportDto> {
+
+        private final long[] ids;
+        private final Map<String, Long> teams;
+        private int index;
+
+        ParameterSetter(long[] ids, Map<String, Long> teams) {
+            this.ids = ids;
+            this.teams = teams;
+        }
+
+        @Override
+        public void setValues(PreparedStatement ps, MemberImportDto row) throws SQLException {
+            ps.setLong(1, ids[index++]);
+            ps.setInt(2, row.getAge());
+            if (row.getTeamname() == null) {
+                ps.setNull(3, Types.BIGINT);
+            } else {
+                ps.setLong(3, teams.get(row.getTeamname()));
+            }
+            ps.setString(4, row.getUsername());
+        }
+    }
+
+    /**
+     * 시퀀스에서 받아온 id 블록. 필요한 블록 수만큼 시퀀스 값을 쿼리 한 번으로 가져오고 남은 id 는 다음 chunk 에 씀
+     */
+    private final class IdBlocks {
+
+        private final String sequenceName;
+        private final Deque<Long> blocks = new ArrayDeque<>();
+        private long next = 1;
+        private long last;
+
+        IdBlocks(String sequenceName) {
+            this.sequenceName = sequenceName;
+        }
+
+        long[] next(int count) {
+            long[] ids = new long[count];
+            for (int i = 0; i < count; i++) {
+                if (next > last) {
+                    if (blocks.isEmpty()) {
+                        fetchBlocks((count - i + ALLOCATION_SIZE - 1) / ALLOCATION_SIZE);
+                    }
+                    last = blocks.poll();
+                    // 시퀀스 첫 값 1 은 id 1 만 예약함
+                    next = Math.max(1, last - ALLOCATION_SIZE + 1);
+                }
+                ids[i] = next++;
+            }
+            return ids;
+        }
+
+        private void fetchBlocks(int count) {
+            List<Long> values = jdbcTemplate.queryForList(
+                    "select next value for " + sequenceName + " from system_range(1, ?)", Long.class, count);
+            values.sort(null);
+            blocks.addAll(values);
+        }
+    }
+
+    private static final class CsvIterator implements Iterator<MemberImportDto> {
+
+        private final BufferedReader in;
+        private String line;
+        private boolean first = true;
+
+        CsvIterator(BufferedReader in) {
+            this.in = in;
+        }
+
+        @Override
+        public boolean hasNext() {
+            try {
+                while (line == null) {
+                    String l = in.readLine();
+                    if (l == null) {
+                        return false;
+                    }
+                    boolean header = first && l.startsWith("username");
+                    first = false;
+                    if (!header && !l.isBlank()) {
+                        line = l;
+                    }
+                }
+                return true;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public MemberImportDto next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            String[] fields = line.split(",", -1);
+            line = null;
+            if (fields.length < 2) {
+                throw new IllegalArgumentException("잘못된 csv 행: " + String.join(",", fields));
+            }
+            String teamname = fields.length > 2 && !fields[2].isBlank() ? fields[2].trim() : null;
+            return new MemberImportDto(fields[0].trim(), Integer.parseInt(fields[1].trim()), teamname);
+        }
+    }
+}
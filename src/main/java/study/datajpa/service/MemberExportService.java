@@ -0,0 +1,39 @@
+package study.datajpa.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import study.datajpa.dto.MemberDto;
+import study.datajpa.repository.MemberRepository;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.stream.Stream;
+
+@Service
+@RequiredArgsConstructor
+public class MemberExportService {
+
+    private final MemberRepository memberRepository;
+    private final ObjectMapper objectMapper;
+
+    // 한 줄에 json 하나씩 (ndjson), 행 수와 상관없이 메모리 일정함
+    // stream 은 트랜잭션 안에서만 읽을 수 있음
+    @Transactional(readOnly = true)
+    public long exportMembers(OutputStream out) {
+        long count = 0;
+        try (Stream<MemberDto> members = memberRepository.streamMemberDto()) {
+            for (MemberDto member : (Iterable<MemberDto>) members::iterator) {
+                out.write(objectMapper.writeValueAsBytes(member));
+                out.write('\n');
+                count++;
+            }
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return count;
+    }
+}
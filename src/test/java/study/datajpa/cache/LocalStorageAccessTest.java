@@ -0,0 +1,32 @@
+package study.datajpa.cache;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.*;
+
+class LocalStorageAccessTest {
+
+    @Test
+    public void evictLeastRecentlyUsed() {
+        LocalStorageAccess storage = new LocalStorageAccess(2, 0);
+        storage.putIntoCache(1, "a", null);
+        storage.putIntoCache(2, "b", null);
+        storage.getFromCache(1, null);
+        storage.putIntoCache(3, "c", null);
+
+        assertThat(storage.getFromCache(1, null)).isEqualTo("a");
+        assertThat(storage.contains(2)).isFalse();
+        assertThat(storage.getFromCache(3, null)).isEqualTo("c");
+    }
+
+    @Test
+    public void expire() throws InterruptedException {
+        LocalStorageAccess storage = new LocalStorageAccess(10, 1);
+        storage.putIntoCache(1, "a", null);
+        assertThat(storage.getFromCache(1, null)).isEqualTo("a");
+
+        Thread.sleep(1100);
+
+        assertThat(storage.getFromCache(1, null)).isNull();
+    }
+}
@@ -4,6 +4,7 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.transaction.annotation.Transactional;
+import study.datajpa.dto.KeysetSlice;
 import study.datajpa.entity.Member;
 
 import java.util.List;
@@ -95,6 +96,28 @@ class MemberJpaRepositoryTest {
         assertThat(totalCount).isEqualTo(5);
     }
 
+    @Test
+    public void keysetPaging(){
+        memberJpaRepository.save(new Member("jpaKeyset1",88));
+        memberJpaRepository.save(new Member("jpaKeyset2",88));
+        memberJpaRepository.save(new Member("jpaKeyset3",88));
+        memberJpaRepository.save(new Member("jpaKeyset4",88));
+        memberJpaRepository.save(new Member("jpaKeyset5",88));
+
+        // MemberRepositoryTest 는 롤백 안 하니까 데이터 안 섞이게 age 88
+        int age = 88;
+        int limit = 3;
+
+        // when : 페이지 번호 대신 이전 페이지의 cursor 로 다음 페이지 조회
+        KeysetSlice<Member> first = memberJpaRepository.findByKeyset(age, null, limit);
+        KeysetSlice<Member> second = memberJpaRepository.findByKeyset(age, first.getNextCursor(), limit);
+
+        assertThat(first.getContent()).extracting("username").containsExactly("jpaKeyset5", "jpaKeyset4", "jpaKeyset3");
+        assertThat(first.hasNext()).isTrue();
+        assertThat(second.getContent()).extracting("username").containsExactly("jpaKeyset2", "jpaKeyset1");
+        assertThat(second.hasNext()).isFalse();
+    }
+
     @Test
     public void bulkUpdate(){
         memberJpaRepository.save(new Member("member1",10));
@@ -11,6 +11,7 @@ import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
 import org.springframework.test.annotation.Rollback;
 import org.springframework.transaction.annotation.Transactional;
+import study.datajpa.dto.KeysetSlice;
 import study.datajpa.dto.MemberDto;
 import study.datajpa.entity.Member;
 import study.datajpa.entity.Team;
@@ -18,6 +19,8 @@ import study.datajpa.entity.Team;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.*;
 
@@ -199,6 +202,31 @@ class MemberRepositoryTest {
         assertThat(memberSlice.hasNext()).isTrue();
     }
 
+    @Test
+    public void keysetPaging(){
+        // 다른 테스트 데이터와 안 섞이게 age 77
+        memberRepository.save(new Member("keyset1",77));
+        memberRepository.save(new Member("keyset2",77));
+        memberRepository.save(new Member("keyset3",77));
+        memberRepository.save(new Member("keyset3",77)); // 같은 username -> id 로 구분
+        memberRepository.save(new Member("keyset5",77));
+
+        int age = 77;
+
+        // when
+        KeysetSlice<Member> first = memberRepository.findKeysetByAge(age, null, 3);
+        KeysetSlice<Member> second = memberRepository.findKeysetByAge(age, first.getNextCursor(), 3);
+
+        // then : username desc, id desc
+        assertThat(first.getContent()).extracting("username").containsExactly("keyset5", "keyset3", "keyset3");
+        assertThat(first.getContent().get(1).getId()).isGreaterThan(first.getContent().get(2).getId());
+        assertThat(first.hasNext()).isTrue();
+
+        assertThat(second.getContent()).extracting("username").containsExactly("keyset2", "keyset1");
+        assertThat(second.hasNext()).isFalse();
+        assertThat(second.getNextCursor()).isNull();
+    }
+
     @Test
     public void bulkUpdate(){
         memberRepository.save(new Member("member1",10));
@@ -319,4 +347,36 @@ class MemberRepositoryTest {
         List<Member> findMem = memberRepository.findLockByUsername("member1");
 
     }
-}
\ No newline at end of file
+
+    @Test
+    @Rollback
+    public void streamMembers(){
+        // given
+        Team teamA = teamRepository.save(new Team("teamA"));
+        for (int i = 0; i < 250; i++) {
+            memberRepository.save(new Member("stream" + i, i, i % 2 == 0 ? teamA : null));
+        }
+
+        em.flush();
+        em.clear();
+
+        // when
+        List<String> usernames;
+        try (Stream<Member> members = memberRepository.streamAllBy()) {
+            usernames = members.map(Member::getUsername)
+                    .filter(name -> name.startsWith("stream"))
+                    .collect(Collectors.toList());
+        }
+        List<MemberDto> dtos;
+        try (Stream<MemberDto> members = memberRepository.streamMemberDto()) {
+            dtos = members.filter(dto -> dto.getUsername().startsWith("stream")).collect(Collectors.toList());
+        }
+
+        // then
+        assertThat(usernames).hasSize(250);
+        assertThat(usernames.get(0)).isEqualTo("stream0");
+        assertThat(dtos).hasSize(250);
+        assertThat(dtos.get(0).getTeamname()).isEqualTo("teamA");
+        assertThat(dtos.get(1).getTeamname()).isNull();
+    }
+}
@@ -0,0 +1,107 @@
+package study.datajpa.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+
+import static org.assertj.core.api.Assertions.*;
+
+// 2차 캐시는 커밋된 것만 보이니 트랜잭션을 나눠서 실행하고 마지막에 직접 지움
+// tcp 로 같은 db 를 쓰니 벌크 수정은 다른 데이터보다 나이가 많은 회원을 직접 넣어서 그것만 바뀌게 함
+@SpringBootTest
+class SecondLevelCacheTest {
+
+    @Autowired MemberRepository memberRepository;
+    @Autowired TeamRepository teamRepository;
+    @Autowired EntityManagerFactory entityManagerFactory;
+    @Autowired PlatformTransactionManager transactionManager;
+    @PersistenceContext EntityManager em;
+
+    TransactionTemplate tx;
+    Statistics statistics;
+    Long memberId;
+    Long youngerMemberId;
+    Long teamId;
+    int age;
+
+    @BeforeEach
+    public void setUp() {
+        tx = new TransactionTemplate(transactionManager);
+        SessionFactory sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+        tx.executeWithoutResult(status -> {
+            age = em.createQuery("select coalesce(max(m.age), 0) from Member m", Integer.class)
+                    .getSingleResult() + 1000;
+            Team team = teamRepository.save(new Team("cacheTeam"));
+            Member member = memberRepository.save(new Member("cacheMember", age, team));
+            Member youngerMember = memberRepository.save(new Member("cacheYoungerMember", age - 1, team));
+            teamId = team.getId();
+            memberId = member.getId();
+            youngerMemberId = youngerMember.getId();
+        });
+        sessionFactory.getCache().evictAllRegions();
+        statistics = sessionFactory.getStatistics();
+        statistics.clear();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        tx.executeWithoutResult(status -> {
+            memberRepository.deleteById(memberId);
+            memberRepository.deleteById(youngerMemberId);
+            teamRepository.deleteById(teamId);
+        });
+    }
+
+    @Test
+    public void teamCache() {
+        for (int i = 0; i < 2; i++) {
+            String teamName = tx.execute(status -> memberRepository.findById(memberId).get().getTeam().getName());
+            assertThat(teamName).isEqualTo("cacheTeam");
+        }
+
+        assertThat(statistics.getDomainDataRegionStatistics("team").getMissCount()).isEqualTo(1);
+        assertThat(statistics.getDomainDataRegionStatistics("team").getHitCount()).isEqualTo(1);
+        assertThat(statistics.getDomainDataRegionStatistics("member").getHitCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void queryCache() {
+        for (int i = 0; i < 2; i++) {
+            Member member = tx.execute(status -> memberRepository.findMemberByUsername("cacheMember"));
+            assertThat(member.getId()).isEqualTo(memberId);
+        }
+        assertThat(statistics.getQueryCacheMissCount()).isEqualTo(1);
+        assertThat(statistics.getQueryCacheHitCount()).isEqualTo(1);
+        long statements = statistics.getPrepareStatementCount();
+
+        tx.execute(status -> memberRepository.findMemberByUsername("cacheMember"));
+
+        // 쿼리 결과와 엔티티 모두 캐시에서 읽음
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(statements);
+    }
+
+    @Test
+    public void bulkUpdateInvalidatesCache() {
+        tx.execute(status -> memberRepository.findMemberByUsername("cacheMember"));
+
+        int count = tx.execute(status -> memberRepository.bulkAgePlus(age));
+
+        Member member = tx.execute(status -> memberRepository.findMemberByUsername("cacheMember"));
+        Member youngerMember = tx.execute(status -> memberRepository.findById(youngerMemberId).get());
+        assertThat(count).isEqualTo(1);
+        assertThat(member.getAge()).isEqualTo(age + 10);
+        assertThat(youngerMember.getAge()).isEqualTo(age - 1);
+        assertThat(statistics.getQueryCacheHitCount()).isEqualTo(0);
+    }
+}
@@ -0,0 +1,87 @@
+package study.datajpa.service;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+import study.datajpa.dto.IngestProgress;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+import study.datajpa.repository.MemberRepository;
+
+import java.io.ByteArrayInputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+@SpringBootTest
+@Transactional
+class MemberBulkIngestServiceTest {
+
+    @Autowired MemberBulkIngestService memberBulkIngestService;
+    @Autowired MemberRepository memberRepository;
+    @Autowired JdbcTemplate jdbcTemplate;
+    @PersistenceContext
+    EntityManager em;
+
+    @Test
+    public void ingestCsv(){
+        // given
+        StringBuilder csv = new StringBuilder("username,age,teamname\n");
+        for (int i = 0; i < 2500; i++) {
+            csv.append("bulk").append(i).append(',').append(i % 100).append(',')
+                    .append(i % 3 == 0 ? "" : "bulkTeam" + i % 3).append('\n');
+        }
+
+        // when
+        IngestProgress progress = memberBulkIngestService.ingestCsv(new StringReader(csv.toString()), 1000);
+
+        // then
+        assertThat(progress.isFinished()).isTrue();
+        assertThat(progress.getRows()).isEqualTo(2500);
+        assertThat(progress.getChunks()).isEqualTo(3);
+        assertThat(memberBulkIngestService.getProgress()).isSameAs(progress);
+        assertThat(jdbcTemplate.queryForObject(
+                "select count(distinct member_id) from member where username like 'bulk%'", Long.class))
+                .isEqualTo(2500);
+        assertThat(jdbcTemplate.queryForObject(
+                "select count(*) from team where name like 'bulkTeam%'", Long.class)).isEqualTo(2);
+
+        Member member = memberRepository.findMemberByUsername("bulk1");
+        assertThat(member.getAge()).isEqualTo(1);
+        assertThat(member.getTeam().getName()).isEqualTo("bulkTeam1");
+        assertThat(memberRepository.findMemberByUsername("bulk3").getTeam()).isNull();
+
+        // 이후 persist 한 엔티티와 id 가 겹치지 않음
+        Team team = new Team("afterBulk");
+        em.persist(team);
+        Member saved = memberRepository.save(new Member("afterBulk", 10, team));
+        em.flush();
+        assertThat(jdbcTemplate.queryForObject(
+                "select count(*) from member where member_id = ?", Long.class, saved.getId())).isEqualTo(1);
+    }
+
+    @Test
+    public void ingestJson(){
+        // given
+        String json = "[{\"username\":\"json1\",\"age\":10,\"teamname\":\"jsonTeam\"},"
+                + "{\"username\":\"json2\",\"age\":20}]";
+        String ndjson = "{\"username\":\"json3\",\"age\":30,\"teamname\":\"jsonTeam\"}\n"
+                + "{\"username\":\"json4\",\"age\":40}\n";
+
+        // when
+        memberBulkIngestService.ingestJson(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)), 1);
+        memberBulkIngestService.ingestJson(new ByteArrayInputStream(ndjson.getBytes(StandardCharsets.UTF_8)), 10);
+
+        // then
+        List<Member> members = memberRepository.findByNames(List.of("json1", "json2", "json3", "json4"));
+        assertThat(members).extracting("age").containsExactlyInAnyOrder(10, 20, 30, 40);
+        assertThat(memberRepository.findMemberByUsername("json1").getTeam().getId())
+                .isEqualTo(memberRepository.findMemberByUsername("json3").getTeam().getId());
+    }
+}